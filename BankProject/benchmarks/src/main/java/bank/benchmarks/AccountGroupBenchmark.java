@@ -0,0 +1,95 @@
+package bank.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bank.account.Account;
+import bank.account.AccountGroup;
+
+/**
+ * AccountGroup.getTotalBalance su alberi profondi.
+ * 
+ * L'albero ha "depth" livelli; ogni livello ha "fanOut" gruppi foglia con
+ * alcuni conti e un gruppo che prosegue verso il livello successivo. Con
+ * "cached" la radice mantiene i totali in cache (enableCachedTotals).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AccountGroupBenchmark {
+
+    /** Conti per gruppo */
+    private static final int ACCOUNTS_PER_GROUP = 4;
+
+    /** Limiti dell'istogramma di aggregateParallel */
+    private static final double[] HISTOGRAM_BOUNDS = { 100.0, 1_000.0, 10_000.0 };
+
+    /** Profondità dell'albero */
+    @Param({ "8", "64", "512" })
+    public int depth;
+
+    /** Gruppi foglia per livello */
+    @Param({ "4" })
+    public int fanOut;
+
+    /** Totali in cache attivi */
+    @Param({ "false", "true" })
+    public boolean cached;
+
+    /** Radice dell'albero */
+    private AccountGroup root;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkSupport.quiet();
+        List<Account> accounts = BenchmarkSupport.newAccounts(depth * (fanOut + 1) * ACCOUNTS_PER_GROUP);
+        int nextAccount = 0;
+
+        root = new AccountGroup("root");
+        AccountGroup current = root;
+        for (int level = 0; level < depth; level++) {
+            for (int i = 0; i < ACCOUNTS_PER_GROUP; i++) {
+                current.addAccount(accounts.get(nextAccount++));
+            }
+            for (int leaf = 0; leaf < fanOut; leaf++) {
+                AccountGroup leafGroup = new AccountGroup("L" + level + "_" + leaf);
+                for (int i = 0; i < ACCOUNTS_PER_GROUP; i++) {
+                    leafGroup.addAccount(accounts.get(nextAccount++));
+                }
+                current.addSubGroup(leafGroup);
+            }
+            AccountGroup child = new AccountGroup("N" + level);
+            current.addSubGroup(child);
+            current = child;
+        }
+        if (cached) {
+            root.enableCachedTotals();
+        }
+    }
+
+    @Benchmark
+    public double getTotalBalance() {
+        return root.getTotalBalance();
+    }
+
+    @Benchmark
+    public double aggregateParallel() {
+        return root.aggregateParallel(HISTOGRAM_BOUNDS).getTotalBalance();
+    }
+}
@@ -0,0 +1,66 @@
+package bank.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bank.account.Account;
+import bank.account.AccountIterator;
+import bank.account.AccountTypeTable;
+
+/**
+ * Scansioni complete e filtrate con AccountIterator.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AccountIteratorBenchmark {
+
+    /** Numero di conti scansionati */
+    @Param({ "1000", "100000" })
+    public int accountCount;
+
+    /** Conti da scansionare */
+    private List<Account> accounts;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkSupport.quiet();
+        accounts = BenchmarkSupport.newAccounts(accountCount);
+    }
+
+    @Benchmark
+    public double fullScan() {
+        double total = 0;
+        AccountIterator iterator = new AccountIterator(accounts);
+        while (iterator.hasNext()) {
+            total += iterator.next().getBalance();
+        }
+        return total;
+    }
+
+    @Benchmark
+    public double filteredScan() {
+        double total = 0;
+        AccountIterator iterator = AccountIterator.createFilteredIterator(accounts, AccountTypeTable.SAVINGS);
+        while (iterator.hasNext()) {
+            total += iterator.next().getBalance();
+        }
+        return total;
+    }
+}
@@ -0,0 +1,26 @@
+package bank.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Punto di ingresso di benchmarks.jar.
+ * 
+ * Accetta le normali opzioni da riga di comando di JMH (es. un filtro sui
+ * nomi dei benchmark) e aggiunge sempre il profiler GC, così ogni risultato
+ * di throughput è accompagnato dal tasso di allocazione
+ * (gc.alloc.rate.norm = byte allocati per operazione).
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
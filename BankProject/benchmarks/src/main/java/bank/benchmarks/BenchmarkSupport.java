@@ -0,0 +1,93 @@
+package bank.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import bank.account.Account;
+import bank.account.AccountTypeTable;
+import bank.account.CheckingAccount;
+import bank.account.SavingsAccount;
+import bank.singletonPattern.BankConfiguration;
+
+/**
+ * Funzioni di supporto condivise dai benchmark.
+ */
+final class BenchmarkSupport {
+
+    /**
+     * Costruttore privato: la classe offre solo metodi statici
+     */
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * Spegne log e notifiche a console, così si misura il codice e non il
+     * terminale.
+     */
+    static void quiet() {
+        Logger.getLogger("").setLevel(Level.OFF);
+        BankConfiguration.getInstance().setHeadlessMode(true);
+    }
+
+    /**
+     * Crea un file dati temporaneo (non ancora esistente)
+     * 
+     * @return File - percorso del file
+     * @throws IOException errore nella creazione della cartella temporanea
+     */
+    static File newDataFile() throws IOException {
+        File directory = Files.createTempDirectory("bank-bench").toFile();
+        directory.deleteOnExit();
+        File dataFile = new File(directory, "bank_data.txt");
+        dataFile.deleteOnExit();
+        return dataFile;
+    }
+
+    /**
+     * Scrive direttamente un file dati con il numero di conti richiesto, senza
+     * passare dai salvataggi di BankService (che riscrivono il file a ogni
+     * conto).
+     * 
+     * @param dataFile     file da scrivere
+     * @param accountCount numero di conti
+     * @throws IOException errore di scrittura
+     */
+    static void writeDataFile(File dataFile, int accountCount) throws IOException {
+        try (PrintWriter writer = new PrintWriter(dataFile, "UTF-8")) {
+            for (int i = 0; i < accountCount; i++) {
+                int typeCode = i % AccountTypeTable.TYPE_COUNT;
+                writer.println(AccountTypeTable.getDisplayName(typeCode) + "," + accountNumber(i) + ",Cliente "
+                        + i + "," + (1000.0 + i % 500) + "," + (i % 10 == 0));
+            }
+        }
+    }
+
+    /**
+     * Crea una lista di conti alternando correnti e risparmio
+     * 
+     * @param count numero di conti
+     * @return List - i conti creati
+     */
+    static List<Account> newAccounts(int count) {
+        List<Account> accounts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            accounts.add(i % 2 == 0
+                    ? new CheckingAccount(accountNumber(i), "Cliente " + i, 1000.0)
+                    : new SavingsAccount(accountNumber(i), "Cliente " + i, 1000.0));
+        }
+        return accounts;
+    }
+
+    /**
+     * Numero di conto deterministico per l'indice dato
+     */
+    static String accountNumber(int index) {
+        return "B" + index;
+    }
+}
@@ -0,0 +1,66 @@
+package bank.benchmarks;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bank.BankService;
+
+/**
+ * Salvataggio e caricamento del file dati (saveAccounts / loadAccounts
+ * tramite flush() e reload()).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g" })
+public class PersistenceBenchmark {
+
+    /** Numero di conti nel file dati */
+    @Param({ "1000", "100000", "1000000" })
+    public int accountCount;
+
+    /** Servizio sotto misura */
+    private BankService bankService;
+
+    /** File dati temporaneo */
+    private File dataFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        BenchmarkSupport.quiet();
+        dataFile = BenchmarkSupport.newDataFile();
+        BenchmarkSupport.writeDataFile(dataFile, accountCount);
+        bankService = new BankService(dataFile.getPath());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataFile.delete();
+    }
+
+    @Benchmark
+    public void saveAccounts() {
+        bankService.flush();
+    }
+
+    @Benchmark
+    public void loadAccounts() {
+        bankService.reload();
+    }
+}
@@ -0,0 +1,70 @@
+package bank.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bank.account.Account;
+import bank.account.CheckingAccount;
+import bank.account.SavingsAccount;
+import bank.templatePattern.AccountReportGenerator;
+import bank.templatePattern.DetailedReportGenerator;
+import bank.templatePattern.SimpleReportGenerator;
+
+/**
+ * Generazione dei report semplice e dettagliato.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportBenchmark {
+
+    /** Generatore semplice */
+    private AccountReportGenerator simple;
+
+    /** Generatore dettagliato */
+    private AccountReportGenerator detailed;
+
+    /** Conto corrente di esempio */
+    private Account checking;
+
+    /** Conto risparmio di esempio */
+    private Account savings;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkSupport.quiet();
+        simple = new SimpleReportGenerator();
+        detailed = new DetailedReportGenerator();
+        checking = new CheckingAccount("R1", "Mario Rossi", 1500.0);
+        savings = new SavingsAccount("R2", "Anna Bianchi", 25000.0);
+    }
+
+    @Benchmark
+    public String simpleReport() {
+        return simple.generateReport(checking);
+    }
+
+    @Benchmark
+    public String detailedReportChecking() {
+        return detailed.generateReport(checking);
+    }
+
+    @Benchmark
+    public String detailedReportSavings() {
+        return detailed.generateReport(savings);
+    }
+}
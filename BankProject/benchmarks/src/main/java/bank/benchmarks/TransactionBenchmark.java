@@ -0,0 +1,94 @@
+package bank.benchmarks;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import bank.BankException;
+import bank.BankService;
+
+/**
+ * Depositi e prelievi tramite BankService.performTransaction.
+ * 
+ * Ogni transazione riuscita riscrive il file dati, quindi il numero di conti
+ * incide direttamente sul costo della singola operazione.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionBenchmark {
+
+    /** Saldo dei conti a inizio iterazione: copre ogni prelievo dell'iterazione */
+    private static final double WITHDRAW_FUNDING = 1_000_000_000.0;
+
+    /** Numero di conti registrati nel servizio */
+    @Param({ "1000" })
+    public int accountCount;
+
+    /** Servizio sotto misura */
+    private BankService bankService;
+
+    /** File dati temporaneo */
+    private File dataFile;
+
+    /** Indice del prossimo conto da usare */
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        BenchmarkSupport.quiet();
+        dataFile = BenchmarkSupport.newDataFile();
+        BenchmarkSupport.writeDataFile(dataFile, accountCount);
+        bankService = new BankService(dataFile.getPath());
+    }
+
+    /**
+     * Rifornisce i conti fuori dalla misura, così withdraw misura solo prelievi
+     * che vanno a buon fine
+     */
+    @Setup(Level.Iteration)
+    public void fundAccounts() {
+        for (int i = 0; i < accountCount; i++) {
+            bankService.getAccount(BenchmarkSupport.accountNumber(i)).restoreBalance(WITHDRAW_FUNDING);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataFile.delete();
+    }
+
+    @Benchmark
+    public void deposit() throws BankException {
+        bankService.performTransaction(nextAccount(), "deposit", 10.0);
+    }
+
+    @Benchmark
+    public void withdraw() throws BankException {
+        bankService.performTransaction(nextAccount(), "withdraw", 10.0);
+    }
+
+    /**
+     * Scorre i conti in modo circolare
+     */
+    private String nextAccount() {
+        next = next + 1 == accountCount ? 0 : next + 1;
+        return BenchmarkSupport.accountNumber(next);
+    }
+}
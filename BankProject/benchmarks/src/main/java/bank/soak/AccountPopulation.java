@@ -0,0 +1,101 @@
+package bank.soak;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+
+import bank.account.AccountTypeTable;
+
+/**
+ * Popolazione sintetica di conti.
+ * 
+ * Scrive direttamente il file dati (stesso formato di BankService) con conti
+ * correnti e risparmio, standard e premium. I primi "hotCount" conti sono
+ * quelli caldi: ricevono la quota di traffico configurata, il resto è
+ * distribuito uniformemente.
+ */
+final class AccountPopulation {
+
+    /** Numero di conti */
+    private final int size;
+
+    /** Numero di conti caldi (i primi della numerazione) */
+    private final int hotCount;
+
+    /** Probabilità che un'operazione riguardi un conto caldo */
+    private final double hotTraffic;
+
+    /** Somma dei saldi iniziali */
+    private double initialTotal;
+
+    /**
+     * Costruttore
+     * 
+     * @param config configurazione del soak test
+     */
+    AccountPopulation(SoakConfig config) {
+        this.size = config.accounts;
+        this.hotCount = Math.max(1, (int) (config.accounts * config.hotAccounts));
+        this.hotTraffic = config.hotTraffic;
+    }
+
+    /**
+     * Scrive il file dati con la popolazione. Il generatore ha un seme fisso,
+     * quindi la popolazione è la stessa a ogni esecuzione.
+     * 
+     * @param dataFile     file da scrivere
+     * @param savingsRatio quota di conti risparmio
+     * @param premiumRatio quota di conti premium
+     * @throws IOException errore di scrittura
+     */
+    void write(File dataFile, double savingsRatio, double premiumRatio) throws IOException {
+        SplittableRandom random = new SplittableRandom(42);
+        double total = 0;
+        try (PrintWriter writer = new PrintWriter(dataFile, "UTF-8")) {
+            for (int i = 0; i < size; i++) {
+                int typeCode = random.nextDouble() < savingsRatio ? AccountTypeTable.SAVINGS
+                        : AccountTypeTable.CHECKING;
+                boolean premium = random.nextDouble() < premiumRatio;
+                double balance = Math.round(random.nextDouble(100.0, 10_000.0) * 100) / 100.0;
+                total += balance;
+                writer.println(AccountTypeTable.getDisplayName(typeCode) + "," + accountNumber(i) + ",Cliente "
+                        + i + "," + balance + "," + premium);
+            }
+        }
+        this.initialTotal = total;
+    }
+
+    /**
+     * Sceglie il conto della prossima operazione
+     * 
+     * @return String - numero del conto
+     */
+    String pickAccount() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int index = random.nextDouble() < hotTraffic ? random.nextInt(hotCount) : random.nextInt(size);
+        return accountNumber(index);
+    }
+
+    /**
+     * @return int - numero di conti
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return double - somma dei saldi scritti nel file iniziale
+     */
+    double getInitialTotal() {
+        return initialTotal;
+    }
+
+    /**
+     * Numero di conto deterministico per l'indice dato
+     */
+    static String accountNumber(int index) {
+        return "S" + index;
+    }
+}
@@ -0,0 +1,96 @@
+package bank.soak;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+import bank.BankService;
+import bank.account.Account;
+
+/**
+ * Controllo di consistenza fra il registro in memoria, il saldo complessivo
+ * atteso dal generatore di carico e il file dati.
+ * 
+ * Va eseguito a carico fermo (lock di scrittura del soak test acquisito).
+ */
+final class ConsistencyChecker {
+
+    /** Tolleranza relativa sulle somme in virgola mobile */
+    private static final double RELATIVE_TOLERANCE = 1e-9;
+
+    /** Servizio sotto test */
+    private final BankService bankService;
+
+    /** File dati del servizio */
+    private final File dataFile;
+
+    /** Numero di conti atteso */
+    private final int expectedAccounts;
+
+    /**
+     * Costruttore
+     */
+    ConsistencyChecker(BankService bankService, File dataFile, int expectedAccounts) {
+        this.bankService = bankService;
+        this.dataFile = dataFile;
+        this.expectedAccounts = expectedAccounts;
+    }
+
+    /**
+     * Esegue il controllo
+     * 
+     * @param expectedTotal saldo complessivo atteso
+     * @return String - "OK" oppure la descrizione della prima discrepanza
+     */
+    String check(double expectedTotal) {
+        double memoryTotal = 0;
+        int memoryAccounts = 0;
+        for (Account account : bankService.getAllAccounts()) {
+            memoryTotal += account.getBalance();
+            memoryAccounts++;
+        }
+        if (memoryAccounts != expectedAccounts) {
+            return "FAIL conti in memoria " + memoryAccounts + " invece di " + expectedAccounts;
+        }
+        if (!sameAmount(memoryTotal, expectedTotal)) {
+            return String.format("FAIL saldo in memoria %.2f invece di %.2f", memoryTotal, expectedTotal);
+        }
+
+        bankService.flush();
+
+        double fileTotal = 0;
+        int fileAccounts = 0;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(dataFile), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(",");
+                if (parts.length != 5) {
+                    return "FAIL riga malformata nel file dati: " + line;
+                }
+                fileTotal += Double.parseDouble(parts[3]);
+                fileAccounts++;
+            }
+        } catch (IOException | NumberFormatException e) {
+            return "FAIL lettura file dati: " + e.getMessage();
+        }
+
+        if (fileAccounts != expectedAccounts) {
+            return "FAIL conti nel file " + fileAccounts + " invece di " + expectedAccounts;
+        }
+        if (!sameAmount(fileTotal, memoryTotal)) {
+            return String.format("FAIL saldo nel file %.2f invece di %.2f", fileTotal, memoryTotal);
+        }
+        return "OK";
+    }
+
+    /**
+     * Confronta due somme con tolleranza relativa (più un centesimo assoluto)
+     */
+    private static boolean sameAmount(double actual, double expected) {
+        return Math.abs(actual - expected) <= Math.max(0.01, Math.abs(expected) * RELATIVE_TOLERANCE);
+    }
+}
@@ -0,0 +1,56 @@
+package bank.soak;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import bank.metrics.HistogramSnapshot;
+import bank.metrics.LatencyHistogram;
+import bank.metrics.MetricsRegistry;
+
+/**
+ * Statistiche raccolte dai thread di carico durante un intervallo di
+ * campionamento. A ogni intervallo il soak test ne crea una nuova istanza, così
+ * i percentili riflettono solo l'ultimo intervallo.
+ */
+final class IntervalStats {
+
+    /** Latenze per tipo di operazione (indice = codice operazione del driver) */
+    private final LatencyHistogram[] latencies = new LatencyHistogram[WorkloadDriver.OPERATION_COUNT];
+
+    /** Operazioni completate */
+    final LongAdder operations = new LongAdder();
+
+    /** Operazioni rifiutate dal sistema come previsto (es. fondi insufficienti) */
+    final LongAdder rejected = new LongAdder();
+
+    /** Errori imprevisti */
+    final LongAdder errors = new LongAdder();
+
+    /**
+     * Costruttore
+     */
+    IntervalStats() {
+        MetricsRegistry registry = new MetricsRegistry();
+        for (int op = 0; op < latencies.length; op++) {
+            latencies[op] = registry.histogram(WorkloadDriver.OPERATION_NAMES[op]);
+        }
+    }
+
+    /**
+     * Registra la durata di un'operazione
+     * 
+     * @param operation codice dell'operazione
+     * @param nanos     durata in nanosecondi
+     */
+    void record(int operation, long nanos) {
+        latencies[operation].record(nanos);
+        operations.increment();
+    }
+
+    /**
+     * @param operation codice dell'operazione
+     * @return HistogramSnapshot - latenze dell'operazione nell'intervallo
+     */
+    HistogramSnapshot latency(int operation) {
+        return latencies[operation].snapshot();
+    }
+}
@@ -0,0 +1,142 @@
+package bank.soak;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parametri del soak test, letti dalla riga di comando.
+ */
+final class SoakConfig {
+
+    /** Testo di aiuto */
+    static final String USAGE = String.join("\n",
+            "Uso: java -cp benchmarks.jar bank.soak.SoakTest [opzioni]",
+            "  --accounts <n>          numero di conti (default 1000000)",
+            "  --savings-ratio <f>     quota di conti risparmio (default 0.4)",
+            "  --premium-ratio <f>     quota di conti premium (default 0.1)",
+            "  --hot-accounts <f>      quota di conti \"caldi\" (default 0.01)",
+            "  --hot-traffic <f>       quota di operazioni sui conti caldi (default 0.8)",
+            "  --mix <d:w:l:r>         pesi deposit:withdraw:list:report (default 48:48:2:2)",
+            "  --threads <n>           thread che generano il carico (default 4)",
+            "  --duration <t>          durata totale, es. 90s, 30m, 4h (default 1h)",
+            "  --interval <t>          intervallo fra due campionamenti (default 60s)",
+            "  --flush-interval <t>    salvataggio differito; 0 = salvataggio a ogni transazione (default 1s)",
+            "  --data-file <path>      file dati (default: file temporaneo)",
+            "  --output <path>         file CSV dei campionamenti (default soak-results.csv)");
+
+    int accounts = 1_000_000;
+    double savingsRatio = 0.4;
+    double premiumRatio = 0.1;
+    double hotAccounts = 0.01;
+    double hotTraffic = 0.8;
+    int[] mix = { 48, 48, 2, 2 };
+    int threads = 4;
+    long durationMillis = TimeUnit.HOURS.toMillis(1);
+    long intervalMillis = TimeUnit.SECONDS.toMillis(60);
+    long flushIntervalMillis = TimeUnit.SECONDS.toMillis(1);
+    String dataFile;
+    String output = "soak-results.csv";
+
+    /**
+     * Legge le opzioni dalla riga di comando
+     * 
+     * @param args argomenti del main
+     * @return SoakConfig - la configurazione, oppure null se è stato chiesto l'aiuto
+     */
+    static SoakConfig parse(String[] args) {
+        SoakConfig config = new SoakConfig();
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if ("--help".equals(option) || "-h".equals(option)) {
+                return null;
+            }
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Valore mancante per " + option);
+            }
+            String value = args[++i];
+            switch (option) {
+                case "--accounts":
+                    config.accounts = Integer.parseInt(value);
+                    break;
+                case "--savings-ratio":
+                    config.savingsRatio = Double.parseDouble(value);
+                    break;
+                case "--premium-ratio":
+                    config.premiumRatio = Double.parseDouble(value);
+                    break;
+                case "--hot-accounts":
+                    config.hotAccounts = Double.parseDouble(value);
+                    break;
+                case "--hot-traffic":
+                    config.hotTraffic = Double.parseDouble(value);
+                    break;
+                case "--mix":
+                    config.mix = parseMix(value);
+                    break;
+                case "--threads":
+                    config.threads = Integer.parseInt(value);
+                    break;
+                case "--duration":
+                    config.durationMillis = parseDuration(value);
+                    break;
+                case "--interval":
+                    config.intervalMillis = parseDuration(value);
+                    break;
+                case "--flush-interval":
+                    config.flushIntervalMillis = parseDuration(value);
+                    break;
+                case "--data-file":
+                    config.dataFile = value;
+                    break;
+                case "--output":
+                    config.output = value;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Opzione sconosciuta: " + option);
+            }
+        }
+        if (config.accounts <= 0 || config.threads <= 0 || config.intervalMillis <= 0) {
+            throw new IllegalArgumentException("Conti, thread e intervallo devono essere positivi");
+        }
+        return config;
+    }
+
+    /**
+     * Converte "48:48:2:2" nei quattro pesi del carico
+     */
+    private static int[] parseMix(String value) {
+        String[] parts = value.split(":");
+        if (parts.length != WorkloadDriver.OPERATION_COUNT) {
+            throw new IllegalArgumentException("Il mix deve avere " + WorkloadDriver.OPERATION_COUNT + " pesi: "
+                    + value);
+        }
+        int[] weights = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            weights[i] = Integer.parseInt(parts[i]);
+            if (weights[i] < 0) {
+                throw new IllegalArgumentException("Peso negativo nel mix: " + value);
+            }
+        }
+        return weights;
+    }
+
+    /**
+     * Converte una durata con suffisso (ms, s, m, h) in millisecondi
+     */
+    static long parseDuration(String value) {
+        String text = value.trim().toLowerCase();
+        if (text.endsWith("ms")) {
+            return Long.parseLong(text.substring(0, text.length() - 2));
+        }
+        long amount = Long.parseLong(text.substring(0, text.length() - 1));
+        switch (text.charAt(text.length() - 1)) {
+            case 's':
+                return TimeUnit.SECONDS.toMillis(amount);
+            case 'm':
+                return TimeUnit.MINUTES.toMillis(amount);
+            case 'h':
+                return TimeUnit.HOURS.toMillis(amount);
+            default:
+                return Long.parseLong(text);
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package bank.soak;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import bank.BankService;
+import bank.metrics.HistogramSnapshot;
+import bank.singletonPattern.BankConfiguration;
+
+/**
+ * Soak test del sistema bancario.
+ * 
+ * Costruisce una popolazione sintetica di conti, la carica in BankService e la
+ * sottopone per la durata richiesta al mix di operazioni configurato. A ogni
+ * intervallo registra nel CSV throughput, percentili di latenza per tipo di
+ * operazione, memoria heap (totale e old generation), modifiche in attesa di
+ * salvataggio ed esito del controllo di consistenza.
+ * 
+ * Termina con codice 1 se almeno un controllo di consistenza è fallito.
+ */
+public class SoakTest {
+
+    /** Percentili registrati per ogni operazione */
+    private static final double[] PERCENTILES = { 50, 99, 99.9 };
+
+    /**
+     * Contenitore delle statistiche dell'intervallo corrente, sostituite a ogni
+     * campionamento
+     */
+    static final class StatsHolder {
+        volatile IntervalStats current = new IntervalStats();
+    }
+
+    public static void main(String[] args) throws Exception {
+        SoakConfig config;
+        try {
+            config = SoakConfig.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(SoakConfig.USAGE);
+            System.exit(2);
+            return;
+        }
+        if (config == null) {
+            System.out.println(SoakConfig.USAGE);
+            return;
+        }
+
+        boolean consistent = new SoakTest().run(config);
+        System.exit(consistent ? 0 : 1);
+    }
+
+    /**
+     * Esegue il soak test
+     * 
+     * @param config configurazione
+     * @return boolean - true se tutti i controlli di consistenza sono riusciti
+     * @throws IOException errore sul file dati o sul CSV
+     * @throws InterruptedException interruzione del thread principale
+     */
+    boolean run(SoakConfig config) throws IOException, InterruptedException {
+        // Log e notifiche a console falserebbero le misure
+        Logger.getLogger("").setLevel(Level.OFF);
+        BankConfiguration.getInstance().setHeadlessMode(true);
+
+        File dataFile = config.dataFile != null ? new File(config.dataFile)
+                : new File(Files.createTempDirectory("bank-soak").toFile(), "bank_data.txt");
+
+        AccountPopulation population = new AccountPopulation(config);
+        log("Generazione di " + config.accounts + " conti in " + dataFile);
+        population.write(dataFile, config.savingsRatio, config.premiumRatio);
+
+        long loadStart = System.nanoTime();
+        BankService bankService = new BankService(dataFile.getPath());
+        log("Caricamento completato in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - loadStart) + " ms");
+        if (config.flushIntervalMillis > 0) {
+            bankService.enableWriteBehind(config.flushIntervalMillis);
+        }
+
+        DoubleAdder expectedTotal = new DoubleAdder();
+        expectedTotal.add(population.getInitialTotal());
+        ReadWriteLock checkLock = new ReentrantReadWriteLock();
+        StatsHolder stats = new StatsHolder();
+        ConsistencyChecker checker = new ConsistencyChecker(bankService, dataFile, population.size());
+
+        List<WorkloadDriver> drivers = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < config.threads; i++) {
+            WorkloadDriver driver = new WorkloadDriver(bankService, population, config.mix, expectedTotal,
+                    checkLock, stats);
+            Thread thread = new Thread(driver, "soak-driver-" + i);
+            thread.setDaemon(true);
+            drivers.add(driver);
+            threads.add(thread);
+        }
+
+        boolean consistent = true;
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(config.durationMillis);
+
+        try (PrintWriter csv = new PrintWriter(new FileWriter(config.output))) {
+            csv.println(csvHeader());
+            threads.forEach(Thread::start);
+
+            long intervalStart = System.nanoTime();
+            while (System.nanoTime() < deadline) {
+                long sleepMillis = Math.min(config.intervalMillis,
+                        TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+                Thread.sleep(Math.max(1, sleepMillis));
+
+                IntervalStats finished = stats.current;
+                stats.current = new IntervalStats();
+                long now = System.nanoTime();
+                double intervalSeconds = (now - intervalStart) / 1e9;
+                intervalStart = now;
+
+                // Il controllo ferma il carico: il suo tempo non entra nell'intervallo misurato
+                long checkStart = System.nanoTime();
+                String result;
+                checkLock.writeLock().lock();
+                try {
+                    result = checker.check(expectedTotal.sum());
+                } finally {
+                    checkLock.writeLock().unlock();
+                }
+                long checkMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - checkStart);
+                intervalStart += System.nanoTime() - checkStart;
+                consistent &= "OK".equals(result);
+
+                String row = csvRow((now - start) / 1e9, intervalSeconds, finished, bankService, result,
+                        checkMillis);
+                csv.println(row);
+                csv.flush();
+                log(row);
+            }
+        } finally {
+            drivers.forEach(WorkloadDriver::stop);
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            bankService.close();
+        }
+
+        String finalResult = checker.check(expectedTotal.sum());
+        consistent &= "OK".equals(finalResult);
+        log("Controllo finale: " + finalResult);
+        log("Risultati in " + new File(config.output).getAbsolutePath());
+        return consistent;
+    }
+
+    /**
+     * Intestazione del CSV
+     */
+    private static String csvHeader() {
+        StringBuilder header = new StringBuilder("elapsed_s,ops,ops_per_s,rejected,errors");
+        for (String operation : WorkloadDriver.OPERATION_NAMES) {
+            for (double percentile : PERCENTILES) {
+                header.append(',').append(operation).append("_p").append(formatPercentile(percentile))
+                        .append("_us");
+            }
+        }
+        header.append(",heap_used_mb,heap_old_gen_mb,pending_writes,check_ms,consistency");
+        return header.toString();
+    }
+
+    /**
+     * Riga del CSV per un intervallo concluso
+     */
+    private static String csvRow(double elapsedSeconds, double intervalSeconds, IntervalStats stats,
+            BankService bankService, String consistency, long checkMillis) {
+        long operations = stats.operations.sum();
+        StringBuilder row = new StringBuilder();
+        row.append(String.format("%.0f,%d,%.1f,%d,%d", elapsedSeconds, operations,
+                operations / intervalSeconds, stats.rejected.sum(), stats.errors.sum()));
+        for (int op = 0; op < WorkloadDriver.OPERATION_COUNT; op++) {
+            HistogramSnapshot latency = stats.latency(op);
+            for (double percentile : PERCENTILES) {
+                row.append(String.format(",%.1f", latency.getValueAtPercentile(percentile) / 1000.0));
+            }
+        }
+        row.append(String.format(",%.1f,%.1f,%d,%d,%s",
+                ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed() / 1048576.0,
+                oldGenerationUsed() / 1048576.0,
+                bankService.getPendingWrites(),
+                checkMillis,
+                consistency.replace(',', ';')));
+        return row.toString();
+    }
+
+    /**
+     * Memoria occupata nella old generation: contiene gli oggetti sopravvissuti
+     * a più GC, quindi cresce nel tempo solo in presenza di un leak (o di dati
+     * che aumentano davvero)
+     */
+    private static long oldGenerationUsed() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            String name = pool.getName();
+            if (pool.getType() == MemoryType.HEAP && (name.contains("Old") || name.contains("Tenured"))) {
+                used += pool.getUsage().getUsed();
+            }
+        }
+        return used;
+    }
+
+    /**
+     * "99.9" -> "999", "50" -> "50"
+     */
+    private static String formatPercentile(double percentile) {
+        return percentile == Math.rint(percentile) ? String.valueOf((int) percentile)
+                : String.valueOf(percentile).replace(".", "");
+    }
+
+    /**
+     * Messaggio di avanzamento su standard output
+     */
+    private static void log(String message) {
+        System.out.println("[soak] " + message);
+    }
+}
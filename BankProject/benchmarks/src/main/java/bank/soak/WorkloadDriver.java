@@ -0,0 +1,160 @@
+package bank.soak;
+
+import java.util.Collection;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+
+import bank.BankException;
+import bank.BankService;
+import bank.account.Account;
+import bank.templatePattern.AccountReportGenerator;
+import bank.templatePattern.DetailedReportGenerator;
+import bank.templatePattern.SimpleReportGenerator;
+
+/**
+ * Thread di carico: esegue depositi, prelievi, elenchi e report secondo il mix
+ * configurato finché il soak test non lo ferma.
+ * 
+ * Ogni operazione tiene il lock di lettura del soak test: il controllo di
+ * consistenza prende quello di scrittura per osservare uno stato fermo.
+ */
+final class WorkloadDriver implements Runnable {
+
+    /** Codici delle operazioni */
+    static final int DEPOSIT = 0;
+    static final int WITHDRAW = 1;
+    static final int LIST = 2;
+    static final int REPORT = 3;
+
+    /** Numero di tipi di operazione */
+    static final int OPERATION_COUNT = 4;
+
+    /** Nomi delle operazioni, indicizzati per codice */
+    static final String[] OPERATION_NAMES = { "deposit", "withdraw", "list", "report" };
+
+    /** Servizio sotto test */
+    private final BankService bankService;
+
+    /** Popolazione da cui scegliere i conti */
+    private final AccountPopulation population;
+
+    /** Pesi cumulativi del mix di operazioni */
+    private final int[] cumulativeWeights;
+
+    /** Saldo complessivo atteso, aggiornato a ogni transazione riuscita */
+    private final DoubleAdder expectedTotal;
+
+    /** Lock condiviso con il controllo di consistenza */
+    private final ReadWriteLock checkLock;
+
+    /** Statistiche dell'intervallo corrente */
+    private final SoakTest.StatsHolder stats;
+
+    /** Generatori di report usati alternativamente */
+    private final AccountReportGenerator[] generators = { new SimpleReportGenerator(),
+            new DetailedReportGenerator() };
+
+    /** false quando il thread deve terminare */
+    private volatile boolean running = true;
+
+    /**
+     * Costruttore
+     */
+    WorkloadDriver(BankService bankService, AccountPopulation population, int[] mix, DoubleAdder expectedTotal,
+            ReadWriteLock checkLock, SoakTest.StatsHolder stats) {
+        this.bankService = bankService;
+        this.population = population;
+        this.expectedTotal = expectedTotal;
+        this.checkLock = checkLock;
+        this.stats = stats;
+        this.cumulativeWeights = new int[mix.length];
+        int sum = 0;
+        for (int i = 0; i < mix.length; i++) {
+            sum += mix[i];
+            cumulativeWeights[i] = sum;
+        }
+        if (sum == 0) {
+            throw new IllegalArgumentException("Il mix di operazioni non può essere vuoto");
+        }
+    }
+
+    /**
+     * Chiede al thread di terminare dopo l'operazione in corso
+     */
+    void stop() {
+        running = false;
+    }
+
+    @Override
+    public void run() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int totalWeight = cumulativeWeights[cumulativeWeights.length - 1];
+
+        while (running) {
+            int pick = random.nextInt(totalWeight);
+            int operation = 0;
+            while (pick >= cumulativeWeights[operation]) {
+                operation++;
+            }
+
+            IntervalStats current = stats.current;
+            checkLock.readLock().lock();
+            try {
+                long start = System.nanoTime();
+                execute(operation, random, current);
+                current.record(operation, System.nanoTime() - start);
+            } catch (BankException e) {
+                current.rejected.increment();
+            } catch (RuntimeException e) {
+                current.errors.increment();
+            } finally {
+                checkLock.readLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Esegue una singola operazione del mix
+     */
+    private void execute(int operation, ThreadLocalRandom random, IntervalStats current) throws BankException {
+        switch (operation) {
+            case DEPOSIT: {
+                double amount = randomAmount(random);
+                bankService.performTransaction(population.pickAccount(), "deposit", amount);
+                expectedTotal.add(amount);
+                break;
+            }
+            case WITHDRAW: {
+                // Con le policy di default il saldo cala esattamente dell'importo (nessuna commissione)
+                double amount = randomAmount(random);
+                bankService.performTransaction(population.pickAccount(), "withdraw", amount);
+                expectedTotal.add(-amount);
+                break;
+            }
+            case LIST: {
+                Collection<Account> accounts = bankService.getAllAccounts();
+                double total = 0;
+                for (Account account : accounts) {
+                    total += account.getBalance();
+                }
+                if (Double.isNaN(total)) {
+                    current.errors.increment();
+                }
+                break;
+            }
+            default: {
+                Account account = bankService.getAccount(population.pickAccount());
+                generators[random.nextInt(generators.length)].generateReport(account);
+                break;
+            }
+        }
+    }
+
+    /**
+     * Importo casuale con due decimali fra 1 e 500
+     */
+    private static double randomAmount(ThreadLocalRandom random) {
+        return random.nextInt(100, 50_001) / 100.0;
+    }
+}
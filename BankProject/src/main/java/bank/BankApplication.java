@@ -1,9 +1,12 @@
 package bank;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.*;
 import java.util.logging.Logger;
 
 import bank.account.Account;
+import bank.account.AccountFactory;
 import bank.account.AccountGroup;
 import bank.account.AccountIterator;
 import bank.bridgePattern.AccountDisplay;
@@ -11,6 +14,8 @@ import bank.bridgePattern.ConsoleOutputDevice;
 import bank.bridgePattern.DetailedAccountDisplay;
 import bank.bridgePattern.FileOutputDevice;
 import bank.builderPattern.AccountBuilder;
+import bank.cdc.ChangeLogWriter;
+import bank.logging.BankLogging;
 import bank.mementoPattern.AccountSnapshot;
 import bank.mementoPattern.AccountBackup;
 import bank.singletonPattern.BankConfiguration;
@@ -28,14 +33,43 @@ public class BankApplication {
     /** logger statico */
     private static final Logger logger = Logger.getLogger(Account.class.getName());
 
+    /** Dimensione massima di un file di log in modalità asincrona */
+    private static final long ASYNC_LOG_MAX_BYTES = 10L * 1024 * 1024;
+
+    /** Numero di file di log conservati in modalità asincrona */
+    private static final int ASYNC_LOG_MAX_FILES = 5;
+
+    /** Capacità della coda del change log sul bus degli eventi */
+    private static final int CHANGE_LOG_QUEUE_CAPACITY = 65_536;
+
+    /** Record scritti nel change log per ogni consegna */
+    private static final int CHANGE_LOG_BATCH_SIZE = 256;
+
     /** Metodo main */
     public static void main(String[] args) {
 
+        File changeLogDirectory = applyStartupOptions(args);
+
         logger.info("Sistema bancario in avvio...");
 
         /** istanza principale del servizio bancario */
         BankService bankService = new BankService();
 
+        /** change log per i sistemi esterni (null se non richiesto) */
+        ChangeLogWriter changeLog = null;
+        if (changeLogDirectory != null) {
+            try {
+                changeLog = new ChangeLogWriter(changeLogDirectory);
+                bankService.getEventBus().subscribeBatch(changeLog, CHANGE_LOG_QUEUE_CAPACITY,
+                        CHANGE_LOG_BATCH_SIZE);
+            } catch (IOException e) {
+                System.out.println("Impossibile aprire il change log: " + e.getMessage());
+            }
+        }
+
+        /** statistiche di esecuzione per il comando stats */
+        StatsReporter statsReporter = new StatsReporter(bankService);
+
         /** Scanner per leggere l'input */
         Scanner scanner = new Scanner(System.in);
 
@@ -51,7 +85,8 @@ public class BankApplication {
         System.out.println("6. balance <numero> - Mostra saldo");
         System.out.println("7. list - Mostra tutti i conti");
         System.out.println("8. demo - Esegue dimostrazione pattern");
-        System.out.println("9. exit - Esci");
+        System.out.println("9. stats [secondi] - Statistiche (con secondi: stampa periodica, 0 per fermarla)");
+        System.out.println("10. exit - Esci");
 
         while (true) {
 
@@ -199,9 +234,28 @@ public class BankApplication {
                         runPatternDemo(bankService);
                         break;
 
+                    case "stats":
+                        if (parts.length >= 2) {
+                            long seconds = Long.parseLong(parts[1]);
+                            if (seconds > 0) {
+                                statsReporter.startPeriodicDump(seconds, System.out::println);
+                                System.out.println("Statistiche stampate ogni " + seconds + " secondi");
+                            } else {
+                                statsReporter.stopPeriodicDump();
+                                System.out.println("Stampa periodica delle statistiche fermata");
+                            }
+                        } else {
+                            System.out.println(statsReporter.report());
+                        }
+                        break;
+
                     case "exit":
+                        statsReporter.stopPeriodicDump();
+                        bankService.close();
+                        closeChangeLog(changeLog);
                         System.out.println("Arrivederci!");
                         logger.info("CHIUSURA APPLICAZIONE BANCARIA");
+                        BankLogging.disableAsyncMode();
                         return;
 
                     default:
@@ -225,6 +279,47 @@ public class BankApplication {
         }
     }
 
+    /**
+     * Applica le opzioni della riga di comando:
+     * "--async-log <cartella>" attiva il logging asincrono su file a rotazione,
+     * "--cdc <cartella>" scrive ogni transazione nel change log binario.
+     * 
+     * @param args argomenti del main
+     * @return File - cartella del change log, null se non richiesto
+     */
+    static File applyStartupOptions(String[] args) {
+        File changeLogDirectory = null;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if ("--async-log".equals(args[i])) {
+                try {
+                    BankLogging.enableAsyncMode(new File(args[i + 1]), ASYNC_LOG_MAX_BYTES, ASYNC_LOG_MAX_FILES);
+                } catch (IOException e) {
+                    System.out.println("Impossibile attivare il logging asincrono: " + e.getMessage());
+                }
+            } else if ("--cdc".equals(args[i])) {
+                changeLogDirectory = new File(args[i + 1]);
+            }
+        }
+        return changeLogDirectory;
+    }
+
+    /**
+     * Chiude il change log dopo che il bus degli eventi ha consegnato gli
+     * ultimi record.
+     * 
+     * @param changeLog - il change log, null se non attivo
+     */
+    private static void closeChangeLog(ChangeLogWriter changeLog) {
+        if (changeLog == null) {
+            return;
+        }
+        try {
+            changeLog.close();
+        } catch (IOException e) {
+            logger.warning("Errore nella chiusura del change log: " + e.getMessage());
+        }
+    }
+
     /**
      * Metodo che esegue una dimostrazione completa di tutti i pattern implementati.
      * È come un tour guidato del sistema che mostra tutte le funzionalità avanzate.
@@ -331,24 +426,31 @@ public class BankApplication {
                 System.out.println("\nTest Strategia Conto Corrente (con overdraft) ");
 
                 // Simuliamo un prelievo con scoperto
-                double[] checkingBalance = { 50.0 };
-                System.out.println("Saldo iniziale: €" + checkingBalance[0]);
+                Account checkingDemo = AccountFactory.createAccount(AccountFactory.AccountType.CHECKING,
+                        "TEST-CHECKING", "Demo Strategy", 50.0);
+                System.out.println("Saldo iniziale: €" + checkingDemo.getBalance());
 
-                boolean checkingResult = checkingStrategy.executeWithdrawal(checkingBalance, 120.0, "TEST-CHECKING");
-                System.out.println("Prelievo €120: " + (checkingResult ? "Autorizzato" : "✗ Rifiutato"));
-                System.out.println("Saldo finale: €" + checkingBalance[0]);
+                int checkingResult = checkingStrategy.executeWithdrawal(checkingDemo.getBalance(), 120.0,
+                        checkingDemo);
+                System.out.println("Prelievo €120: "
+                        + (checkingResult == WithdrawalStrategy.APPROVED ? "Autorizzato" : "✗ Rifiutato"));
+                checkingDemo.withdraw(120.0);
+                System.out.println("Saldo finale: €" + checkingDemo.getBalance());
 
                 System.out.println("\nTest Strategia Conto Risparmio (no overdraft) ");
 
                 // Stesso prelievo senza scoperto
-                double[] savingsBalance = { 50.0 }; // Array per permettere modifica del valore
-                System.out.println("Saldo iniziale: €" + savingsBalance[0]);
-                boolean savingsResult = savingsStrategy.executeWithdrawal(savingsBalance, 120.0, "TEST-SAVINGS");
-                System.out.println("Prelievo €120: " + (savingsResult ? "Autorizzato" : "✗ Rifiutato"));
-                System.out.println("Saldo finale: €" + savingsBalance[0]);
-
-                System.out.println("\nStrategy Pattern: Stessa interfaccia dei metodi withdraw() originali!");
-                System.out.println("Le strategie restituiscono boolean e modificano il saldo, esattamente come prima.");
+                Account savingsDemo = AccountFactory.createAccount(AccountFactory.AccountType.SAVINGS,
+                        "TEST-SAVINGS", "Demo Strategy", 50.0);
+                System.out.println("Saldo iniziale: €" + savingsDemo.getBalance());
+                int savingsResult = savingsStrategy.executeWithdrawal(savingsDemo.getBalance(), 120.0, savingsDemo);
+                System.out.println("Prelievo €120: "
+                        + (savingsResult == WithdrawalStrategy.APPROVED ? "Autorizzato" : "✗ Rifiutato"));
+                savingsDemo.withdraw(120.0);
+                System.out.println("Saldo finale: €" + savingsDemo.getBalance());
+
+                System.out.println("\nStrategy Pattern: withdraw() di ogni conto delega alla propria strategia!");
+                System.out.println("Le strategie sono condivise e restituiscono solo un codice di esito.");
 
             } catch (Exception e) {
                 System.out.println("Errore nella demo strategy: " + e.getMessage());
@@ -372,6 +474,8 @@ public class BankApplication {
                     System.out.println("Prelievo di €50:");
                     bankService.performTransaction("DEMO001", "withdraw", 50);
 
+                    // Gli observer ricevono gli eventi in modo asincrono: si attende la consegna
+                    bankService.getEventBus().awaitDelivery(1000);
                     System.out.println("\nNota: l'observer ha stampato un messaggio per ogni transazione!");
                 } else {
                     System.out.println("Conto demo non disponibile per la dimostrazione");
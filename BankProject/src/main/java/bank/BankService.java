@@ -1,7 +1,24 @@
 package bank;
 
+import bank.logging.Notifications;
+import bank.metrics.BankMetrics;
+import bank.metrics.PersistenceJfrEvent;
+import bank.metrics.TransactionJfrEvent;
 import java.util.*;
 import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import bank.abstractFactory.BankFactory;
@@ -9,8 +26,14 @@ import bank.abstractFactory.BankFactoryProvider;
 import bank.abstractFactory.StandardBankFactory;
 import bank.account.Account;
 import bank.account.AccountFactory;
+import bank.account.AccountTypeTable;
+import bank.mementoPattern.BackupEpoch;
+import bank.mementoPattern.BackupSet;
+import bank.mementoPattern.AccountSnapshot;
 import bank.observerPattern.SimpleTransactionObserver;
-import bank.observerPattern.TransactionObserver;
+import bank.observerPattern.TransactionEvent;
+import bank.observerPattern.TransactionEventBus;
+import bank.observerPattern.TransactionOperation;
 
 /**
  * Classe principale per gestire tutte le operazioni bancarie.
@@ -21,6 +44,48 @@ public class BankService {
      */
     private Map<String, Account> accounts;
 
+    /**
+     * Lock del registro conti: serializza le modifiche ai saldi, mentre le
+     * letture della mappa e il salvataggio su file restano fuori dal lock
+     */
+    private final ReentrantLock ledgerLock = new ReentrantLock();
+
+    /**
+     * Lock della scrittura del file dati: si può acquisire tenendo il lock del
+     * registro, mai il contrario
+     */
+    private final ReentrantLock saveLock = new ReentrantLock();
+
+    /** Scheduler del salvataggio differito, null se ogni modifica viene salvata subito */
+    private volatile ScheduledExecutorService writeBehindScheduler;
+
+    /** Generazione delle modifiche: cresce di uno a ogni modifica da rendere persistente */
+    private final AtomicLong changeGeneration = new AtomicLong();
+
+    /** Ultima generazione già scritta su file (aggiornata con il lock di salvataggio) */
+    private volatile long savedGeneration;
+
+    /** Epoca del backup consistente in corso, null se nessuno (protetta dal lock del registro) */
+    private BackupEpoch backupEpoch;
+
+    /** Serializza i backup consistenti: al massimo un'epoca aperta */
+    private final Object imageLock = new Object();
+
+    /** Conti letti per ogni acquisizione del lock durante un backup consistente */
+    private static final int IMAGE_CHUNK_SIZE = 1024;
+
+    /** Snapshot minimi per partizione nel ripristino massivo */
+    private static final int RESTORE_MIN_PARTITION_SIZE = 4096;
+
+    /**
+     * Conti creati o modificati dall'ultimo backup di trackedBackupSet, null
+     * finché non c'è un backup da cui partire (protetto dal lock del registro)
+     */
+    private Set<String> changedSinceBackup;
+
+    /** Insieme di backup a cui si riferisce changedSinceBackup */
+    private File trackedBackupSet;
+
     /** Percorso del file dove si salvano i dati */
     private String dataFilePath;
 
@@ -30,17 +95,50 @@ public class BankService {
     /** logger statico */
     private static final Logger logger = Logger.getLogger(Account.class.getName());
 
-    /** AGGIUNTO PER IMPLEMENTARE L'OBSERVER PATTERN */
-    private TransactionObserver observer;
+    /**
+     * AGGIUNTO PER IMPLEMENTARE L'OBSERVER PATTERN: bus degli eventi di
+     * transazione, consegnati in modo asincrono a tutti i sottoscrittori
+     */
+    private final TransactionEventBus eventBus = new TransactionEventBus();
+
+    /** Esito di tryPerformTransaction: operazione eseguita */
+    public static final int TRANSACTION_SUCCESS = 0;
+
+    /** Esito di tryPerformTransaction: rifiutata dal conto (importo, fondi o limiti) */
+    public static final int TRANSACTION_DECLINED = 1;
+
+    /** Esito di tryPerformTransaction: conto inesistente */
+    public static final int TRANSACTION_UNKNOWN_ACCOUNT = 2;
+
+    /** Esito di tryPerformTransaction: operazione non riconosciuta */
+    public static final int TRANSACTION_INVALID_OPERATION = 3;
+
+    /** Esiti degli eventi JFR, indicizzati per codice TRANSACTION_* */
+    private static final String[] JFR_OUTCOMES = {
+            TransactionJfrEvent.OUTCOME_SUCCESS,
+            TransactionJfrEvent.OUTCOME_FAILED,
+            TransactionJfrEvent.OUTCOME_REJECTED,
+            TransactionJfrEvent.OUTCOME_REJECTED
+    };
 
     /**
      * Costruttore - crea il servizio bancario.
      */
     public BankService() {
-        this.accounts = new HashMap<>();
-        this.dataFilePath = "bank_data.txt";
+        this("bank_data.txt");
+    }
+
+    /**
+     * Costruttore - crea il servizio bancario su un file dati specifico
+     * (usato da benchmark e test per non toccare il file di default).
+     * 
+     * @param dataFilePath percorso del file dati
+     */
+    public BankService(String dataFilePath) {
+        this.accounts = new ConcurrentHashMap<>();
+        this.dataFilePath = dataFilePath;
         this.defaultFactory = new StandardBankFactory();
-        this.observer = new SimpleTransactionObserver();
+        this.eventBus.subscribe(new SimpleTransactionObserver());
         logger.info("BankService inizializzato con factory standard - File dati: " + dataFilePath);
         loadAccounts();
     }
@@ -59,12 +157,6 @@ public class BankService {
     public void createAccount(String type, String accountNumber, String ownerName, double initialBalance)
             throws BankException {
         try {
-            // Verifichiamo che il conto non esista già (logica originale)
-            if (accounts.containsKey(accountNumber)) {
-                throw new BankException("Conto già esistente",
-                        "Tentativo di creare conto duplicato: " + accountNumber);
-            }
-
             // Usiamo la factory STANDARD per mantenere il comportamento originale identico
             AccountFactory.AccountType accountType;
             if ("checking".equalsIgnoreCase(type)) {
@@ -78,8 +170,22 @@ public class BankService {
             // Creiamo il conto usando la factory originale per mantenere compatibilità
             // totale
             Account account = AccountFactory.createAccount(accountType, accountNumber, ownerName, initialBalance);
-            accounts.put(accountNumber, account);
-            saveAccounts();
+            long generation;
+            lockLedger();
+            try {
+                // Verifichiamo che il conto non esista già: il controllo è sotto il lock,
+                // così due creazioni concorrenti dello stesso numero non si sovrascrivono
+                if (accounts.containsKey(accountNumber)) {
+                    throw new BankException("Conto già esistente",
+                            "Tentativo di creare conto duplicato: " + accountNumber);
+                }
+                recordAccountCreated(accountNumber);
+                accounts.put(accountNumber, account);
+                generation = persistChange();
+            } finally {
+                ledgerLock.unlock();
+            }
+            saveIfPending(generation);
             logger.info("Conto creato con successo: " + accountNumber);
 
         } catch (IllegalArgumentException e) {
@@ -108,11 +214,6 @@ public class BankService {
             boolean isPremium)
             throws BankException {
         try {
-            if (accounts.containsKey(accountNumber)) {
-                throw new BankException("Conto già esistente",
-                        "Tentativo di creare conto duplicato: " + accountNumber);
-            }
-
             // facory in base al tipo di client
             BankFactory factoryToUse = BankFactoryProvider.getFactory(isPremium);
 
@@ -127,8 +228,22 @@ public class BankService {
                         "Tipo richiesto: " + type);
             }
 
-            accounts.put(accountNumber, account);
-            saveAccounts();
+            long generation;
+            lockLedger();
+            try {
+                // Verifichiamo che il conto non esista già: il controllo è sotto il lock,
+                // così due creazioni concorrenti dello stesso numero non si sovrascrivono
+                if (accounts.containsKey(accountNumber)) {
+                    throw new BankException("Conto già esistente",
+                            "Tentativo di creare conto duplicato: " + accountNumber);
+                }
+                recordAccountCreated(accountNumber);
+                accounts.put(accountNumber, account);
+                generation = persistChange();
+            } finally {
+                ledgerLock.unlock();
+            }
+            saveIfPending(generation);
 
             String customerType = isPremium ? "Premium" : "Standard";
             logger.info("Conto " + customerType + " creato con successo: " + accountNumber);
@@ -175,14 +290,21 @@ public class BankService {
                 throw new BankException("Conto non valido", "Tentativo di registrare conto null");
             }
 
-            if (accounts.containsKey(account.getAccountNumber())) {
-                throw new BankException("Conto già esistente",
-                        "Tentativo di registrare conto duplicato: " + account.getAccountNumber());
+            long generation;
+            lockLedger();
+            try {
+                // Controllo e inserimento sotto lo stesso lock (vedi createAccount)
+                if (accounts.containsKey(account.getAccountNumber())) {
+                    throw new BankException("Conto già esistente",
+                            "Tentativo di registrare conto duplicato: " + account.getAccountNumber());
+                }
+                recordAccountCreated(account.getAccountNumber());
+                accounts.put(account.getAccountNumber(), account);
+                generation = persistChange();
+            } finally {
+                ledgerLock.unlock();
             }
-
-            accounts.put(account.getAccountNumber(), account);
-
-            saveAccounts();
+            saveIfPending(generation);
 
             logger.info("Conto pre-costruito registrato con successo: " + account.getAccountNumber() +
                     " (" + account.getAccountType() + ") per " + account.getOwnerName());
@@ -208,75 +330,843 @@ public class BankService {
      * @throws BankException errore durante la transizione
      */
     public void performTransaction(String accountNumber, String operation, double amount) throws BankException {
+        int outcome;
         try {
-            Account account = accounts.get(accountNumber);
-            // Si verifica l'esistenza del conto
-            if (account == null) {
-                logger.warning("Tentativo di operazione su un conto inesistente: " + accountNumber);
+            outcome = tryPerformTransaction(accountNumber, operation, amount);
+        } catch (RuntimeException e) {
+            logger.severe("Errore imprevisto durante transazione: " + e.getMessage());
+            throw new BankException("Errore durante l'operazione",
+                    "Errore tecnico: " + e.getMessage(), e);
+        }
+
+        switch (outcome) {
+            case TRANSACTION_SUCCESS:
+                return;
+            case TRANSACTION_UNKNOWN_ACCOUNT:
                 throw new BankException("Conto non trovato",
                         "Conto richiesto: " + accountNumber);
+            case TRANSACTION_INVALID_OPERATION:
+                throw new BankException("Operazione non valida",
+                        "Operazione richiesta: " + operation);
+            default:
+                throw new BankException("Operazione non riuscita",
+                        "Fallimento " + operation + " su conto " + accountNumber);
+        }
+    }
+
+    /**
+     * Esegue una transazione restituendo l'esito come codice invece di lanciare
+     * BankException: un rifiuto non alloca nulla, quindi è la variante da usare
+     * nei percorsi ad alto volume.
+     * 
+     * @param accountNumber numero identificativo del conto
+     * @param operation     tipologia dell'operazione ("deposit" o "withdraw")
+     * @param amount        importo della transazione
+     * @return int - uno dei codici TRANSACTION_*
+     */
+    public int tryPerformTransaction(String accountNumber, String operation, double amount) {
+        long startTime = System.nanoTime();
+        // Senza registrazione attiva l'evento non viene nemmeno creato
+        TransactionJfrEvent event = null;
+        if (TransactionJfrEvent.isRecorded()) {
+            event = new TransactionJfrEvent();
+            event.begin();
+        }
+        String eventOutcome = TransactionJfrEvent.OUTCOME_ERROR;
+        try {
+            int outcome = executeTransaction(accountNumber, operation, amount);
+            eventOutcome = JFR_OUTCOMES[outcome];
+            return outcome;
+        } finally {
+            BankMetrics.TRANSACTION_LATENCY.record(System.nanoTime() - startTime);
+
+            // I campi dell'evento si valorizzano solo se JFR lo registra davvero
+            if (event != null) {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.accountNumber = accountNumber;
+                    event.operation = operation;
+                    event.amountBucket = TransactionJfrEvent.amountBucket(amount);
+                    event.outcome = eventOutcome;
+                    event.commit();
+                }
             }
+        }
+    }
 
-            boolean success;
+    /**
+     * Corpo della transazione: verifica conto e operazione, aggiorna il saldo
+     * sotto il lock del registro e pubblica l'evento sul bus.
+     */
+    private int executeTransaction(String accountNumber, String operation, double amount) {
+        Account account = accounts.get(accountNumber);
+        // Si verifica l'esistenza del conto
+        if (account == null) {
+            BankMetrics.TRANSACTIONS_REJECTED.increment();
+            if (logger.isLoggable(Level.WARNING)) {
+                logger.warning("Tentativo di operazione su un conto inesistente: " + accountNumber);
+            }
+            return TRANSACTION_UNKNOWN_ACCOUNT;
+        }
 
-            if ("deposit".equalsIgnoreCase(operation)) {
-                success = account.deposit(amount);
-            } else if ("withdraw".equalsIgnoreCase(operation)) {
-                success = account.withdraw(amount);
-            } else {
+        // Il codice dell'operazione evita di convertire la stringa ricevuta a ogni chiamata
+        TransactionOperation transactionOperation = TransactionOperation.parse(operation);
+        if (transactionOperation == null) {
+            BankMetrics.TRANSACTIONS_REJECTED.increment();
+            if (logger.isLoggable(Level.WARNING)) {
                 logger.warning("Operazione non riconosciuta: " + operation);
-                throw new BankException("Operazione non valida",
-                        "Operazione richiesta: " + operation);
             }
+            return TRANSACTION_INVALID_OPERATION;
+        }
 
-            // AGGIUNTO PER IMPLEMENTARE L'OBSERVER PATTERN
-            if (observer != null) {
-                observer.onTransaction(accountNumber, operation.toLowerCase(), amount, success);
-            }
+        boolean success;
+        long generation = 0;
 
+        lockLedger();
+        try {
+            // Durante un backup consistente si conserva il saldo al taglio
+            if (backupEpoch != null) {
+                backupEpoch.beforeChange(account);
+            }
+            success = transactionOperation == TransactionOperation.DEPOSIT
+                    ? account.deposit(amount)
+                    : account.withdraw(amount);
             if (success) {
-                saveAccounts();
+                generation = persistChange();
+                if (changedSinceBackup != null) {
+                    changedSinceBackup.add(accountNumber);
+                }
+            }
+            // AGGIUNTO PER IMPLEMENTARE L'OBSERVER PATTERN
+            // Si pubblica sotto il lock: gli eventi di uno stesso conto restano in ordine
+            eventBus.publish(account.getAccountId(), accountNumber, transactionOperation,
+                    TransactionEvent.toMinorUnits(amount),
+                    success ? TransactionEvent.OUTCOME_SUCCESS : TransactionEvent.OUTCOME_DECLINED);
+        } finally {
+            ledgerLock.unlock();
+        }
+        if (success) {
+            saveIfPending(generation);
+        }
+
+        BankMetrics.countTransaction(transactionOperation.getCode(),
+                success ? BankMetrics.OUTCOME_SUCCESS : BankMetrics.OUTCOME_FAILED);
+
+        if (success) {
+            if (logger.isLoggable(Level.INFO)) {
                 logger.info("Transazione completata con successo sul conto " + accountNumber);
-            } else {
-                logger.warning("Transazione fallita sul conto " + accountNumber +
-                        " - Operazione: " + operation + ", Importo: €" + amount);
-                throw new BankException("Operazione non riuscita",
-                        "Fallimento " + operation + " su conto " + accountNumber);
             }
+            return TRANSACTION_SUCCESS;
+        }
 
-        } catch (Exception e) {
-            if (e instanceof BankException) {
-                throw e;
-            } else {
-                logger.severe("Errore imprevisto durante transazione: " + e.getMessage());
-                throw new BankException("Errore durante l'operazione",
-                        "Errore tecnico: " + e.getMessage(), e);
+        if (logger.isLoggable(Level.WARNING)) {
+            logger.warning("Transazione fallita sul conto " + accountNumber +
+                    " - Operazione: " + operation + ", Importo: €" + amount);
+        }
+        return TRANSACTION_DECLINED;
+    }
+
+    /**
+     * Acquisisce il lock del registro conti misurando il tempo di attesa.
+     * Il chiamante deve rilasciarlo in un blocco finally.
+     */
+    private void lockLedger() {
+        if (ledgerLock.tryLock()) {
+            BankMetrics.LOCK_WAIT.record(0);
+            return;
+        }
+        long waitStart = System.nanoTime();
+        ledgerLock.lock();
+        BankMetrics.LOCK_WAIT.record(System.nanoTime() - waitStart);
+    }
+
+    /**
+     * Salva subito tutti i conti su file.
+     */
+    public void flush() {
+        lockLedger();
+        saveLock.lock();
+        try {
+            saveChanges();
+        } finally {
+            saveLock.unlock();
+            ledgerLock.unlock();
+        }
+    }
+
+    /**
+     * Attiva il salvataggio differito: le modifiche vengono solo contate e un
+     * thread in background riscrive il file al massimo una volta per intervallo.
+     * Pensato per grandi popolazioni di conti, dove riscrivere tutto il file a
+     * ogni transazione non è sostenibile.
+     * 
+     * @param flushIntervalMillis intervallo fra due salvataggi, in millisecondi
+     */
+    public synchronized void enableWriteBehind(long flushIntervalMillis) {
+        if (flushIntervalMillis <= 0) {
+            throw new IllegalArgumentException("L'intervallo di salvataggio deve essere positivo");
+        }
+        if (writeBehindScheduler != null) {
+            return;
+        }
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "bank-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flushPendingWrites, flushIntervalMillis, flushIntervalMillis,
+                TimeUnit.MILLISECONDS);
+        writeBehindScheduler = scheduler;
+        logger.info("Salvataggio differito attivo ogni " + flushIntervalMillis + " ms");
+    }
+
+    /**
+     * Ferma l'eventuale salvataggio differito scrivendo su file le modifiche
+     * rimaste, poi consegna gli eventi in coda e ferma il bus degli eventi.
+     */
+    public synchronized void close() {
+        ScheduledExecutorService scheduler = writeBehindScheduler;
+        if (scheduler != null) {
+            writeBehindScheduler = null;
+            scheduler.shutdown();
+            try {
+                scheduler.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             }
+            flush();
         }
+        eventBus.close();
     }
 
     /**
-     * Metodo che salva tutti i conti attuali su file in formato CSV
+     * Restituisce il bus degli eventi di transazione, per registrare altri
+     * observer.
+     * 
+     * @return TransactionEventBus - il bus del servizio
      */
-    private void saveAccounts() {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(dataFilePath))) {
+    public TransactionEventBus getEventBus() {
+        return eventBus;
+    }
 
-            int accountsSaved = 0;
+    /**
+     * Restituisce il numero di modifiche non ancora scritte su file.
+     * 
+     * @return long - modifiche in attesa (con salvataggio immediato solo quelle
+     *         di un salvataggio in corso o non riuscito)
+     */
+    public long getPendingWrites() {
+        return changeGeneration.get() - savedGeneration;
+    }
 
-            for (Account account : accounts.values()) {
-                writer.println(account.getAccountType() + "," +
-                        account.getAccountNumber() + "," +
-                        account.getOwnerName() + "," +
-                        account.getBalance());
+    /**
+     * Registra una modifica da rendere persistente. Va chiamato con il lock del
+     * registro acquisito; il salvataggio vero e proprio avviene dopo averlo
+     * rilasciato (saveIfPending) oppure nel thread del salvataggio differito.
+     * 
+     * @return long - generazione della modifica, da passare a saveIfPending
+     */
+    private long persistChange() {
+        return changeGeneration.incrementAndGet();
+    }
+
+    /**
+     * Con il salvataggio immediato attende che la modifica della generazione
+     * indicata sia su file, scrivendolo se nessun salvataggio la copre già.
+     * Va chiamato dopo aver rilasciato il lock del registro: l'I/O non blocca
+     * le transazioni sugli altri conti, e le modifiche registrate mentre un
+     * salvataggio è in corso confluiscono nel salvataggio successivo. Al
+     * ritorno la modifica del chiamante è su file, salvo un errore di scrittura
+     * (già segnalato da saveAccounts): in quel caso resta in attesa e la
+     * riscrive il salvataggio successivo.
+     * 
+     * @param generation generazione restituita da persistChange
+     */
+    private void saveIfPending(long generation) {
+        if (writeBehindScheduler == null) {
+            saveThrough(generation);
+        }
+    }
+
+    /**
+     * Giro del salvataggio differito: scrive il file solo se ci sono modifiche
+     */
+    private void flushPendingWrites() {
+        try {
+            saveThrough(changeGeneration.get());
+        } catch (RuntimeException e) {
+            logger.severe("Errore nel salvataggio differito: " + e.getMessage());
+        }
+    }
 
-                accountsSaved++;
+    /**
+     * Scrive il file, senza il lock del registro, se l'ultimo salvataggio
+     * riuscito non copre ancora la generazione indicata. Un salvataggio già in
+     * corso può non includere la modifica cercata: per questo si attende il lock
+     * di salvataggio e si ricontrolla invece di tornare subito.
+     * Il file contiene per ogni conto un saldo già confermato: le transazioni
+     * toccano un solo conto, quindi non servono letture atomiche di più conti.
+     * 
+     * @param generation generazione che deve risultare su file
+     */
+    private void saveThrough(long generation) {
+        if (savedGeneration >= generation) {
+            return;
+        }
+        saveLock.lock();
+        try {
+            // Un altro salvataggio può aver già coperto la generazione mentre si attendeva
+            if (savedGeneration < generation) {
+                saveChanges();
             }
+        } finally {
+            saveLock.unlock();
+        }
+    }
 
-            logger.info("Salvataggio completato: " + accountsSaved + " conti salvati su " + dataFilePath);
+    /**
+     * Salva tutti i conti e, se la scrittura riesce, segna come salvate tutte
+     * le modifiche registrate fino a quel momento. Va chiamato con il lock di
+     * salvataggio acquisito.
+     */
+    private void saveChanges() {
+        // La generazione si legge prima dei conti: la lettura dei saldi vede ogni
+        // modifica fino a questa generazione, quindi il file la copre
+        long generation = changeGeneration.get();
+        if (saveAccounts()) {
+            savedGeneration = generation;
+        }
+    }
+
+    /**
+     * Scarta i conti in memoria e li ricarica dal file dati.
+     */
+    public void reload() {
+        lockLedger();
+        try {
+            if (backupEpoch != null) {
+                backupEpoch.invalidate();
+            }
+            // Il registro ricaricato non deriva dall'ultimo backup: il prossimo sarà una base
+            changedSinceBackup = null;
+            trackedBackupSet = null;
+            // Nessun salvataggio deve scrivere il registro svuotato sul file da rileggere
+            saveLock.lock();
+            try {
+                accounts.clear();
+                loadAccounts();
+                // Il registro ricaricato coincide con il file: nulla resta da salvare
+                savedGeneration = changeGeneration.get();
+            } finally {
+                saveLock.unlock();
+            }
+        } finally {
+            ledgerLock.unlock();
+        }
+    }
+
+    /**
+     * Metodo che salva tutti i conti attuali su file in formato CSV.
+     * Scrive su un file temporaneo e lo sostituisce al file dati con una
+     * rinomina, così chi legge il file non vede mai un salvataggio a metà.
+     * Va chiamato con il lock di salvataggio acquisito.
+     * 
+     * @return boolean - true se il file è stato scritto
+     */
+    private boolean saveAccounts() {
+        long startTime = System.nanoTime();
+        PersistenceJfrEvent event = beginPersistenceEvent();
+        int accountsSaved = 0;
+        boolean succeeded = false;
+
+        Path target = Paths.get(dataFilePath);
+        Path temporary = Paths.get(dataFilePath + ".tmp");
+
+        try {
+            try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(temporary))) {
+                for (Account account : accounts.values()) {
+                    writeAccountLine(writer, account, account.getBalance());
+                    accountsSaved++;
+                }
+                if (writer.checkError()) {
+                    throw new IOException("scrittura di " + temporary + " non riuscita");
+                }
+            }
+            moveIntoPlace(temporary, target);
+
+            if (logger.isLoggable(Level.INFO)) {
+                logger.info("Salvataggio completato: " + accountsSaved + " conti salvati su " + dataFilePath);
+            }
+            succeeded = true;
 
         } catch (IOException e) {
             logger.severe("Errore durante il salvataggio: " + e.getMessage());
-            System.out.println("Errore nel salvataggio: " + e.getMessage());
+            if (Notifications.isEnabled()) {
+                Notifications.publish("Errore nel salvataggio: " + e.getMessage());
+            }
+        } finally {
+            BankMetrics.PERSISTENCE_SAVE.record(System.nanoTime() - startTime);
+            commitPersistenceEvent(event, PersistenceJfrEvent.KIND_SAVE, accountsSaved, succeeded);
+        }
+        return succeeded;
+    }
+
+    /**
+     * Scrive la riga CSV di un conto con il saldo indicato
+     */
+    private static void writeAccountLine(PrintWriter writer, Account account, double balance) {
+        writer.println(account.getAccountType() + "," +
+                account.getAccountNumber() + "," +
+                account.getOwnerName() + "," +
+                balance + "," +
+                account.isPremium());
+    }
+
+    /**
+     * Scrive un'immagine consistente di tutti i conti senza fermare le
+     * transazioni.
+     * 
+     * L'immagine corrisponde allo stato del registro in un unico istante (il
+     * taglio): le transazioni successive continuano e, alla prima modifica di
+     * un conto, ne conservano il saldo al taglio (vedi BackupEpoch). I conti
+     * vengono letti a blocchi, con il lock del registro tenuto solo per la
+     * lettura di ogni blocco, e scritti in streaming su un file temporaneo poi
+     * rinominato. Il file ha lo stesso formato del file dati: per ripristinare
+     * basta avviare un BankService su di esso.
+     * 
+     * @param imagePath percorso del file immagine
+     * @return int - numero di conti scritti
+     * @throws BankException errore di scrittura o registro ricaricato durante
+     *                       il backup
+     */
+    public int writeConsistentImage(String imagePath) throws BankException {
+        synchronized (imageLock) {
+            long startTime = System.nanoTime();
+            BackupEpoch epoch = new BackupEpoch();
+            lockLedger();
+            try {
+                backupEpoch = epoch;
+            } finally {
+                ledgerLock.unlock();
+            }
+
+            Path target = Paths.get(imagePath);
+            Path temporary = Paths.get(imagePath + ".tmp");
+            int accountsWritten;
+            try {
+                try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(temporary))) {
+                    accountsWritten = streamAtCut(epoch, accounts.values().iterator(),
+                            (account, balance) -> writeAccountLine(writer, account, balance));
+                    if (writer.checkError()) {
+                        throw new IOException("scrittura di " + temporary + " non riuscita");
+                    }
+                }
+                if (epoch.isInvalidated()) {
+                    throw new BankException("Backup non riuscito",
+                            "Registro ricaricato durante la scrittura dell'immagine " + imagePath);
+                }
+                moveIntoPlace(temporary, target);
+
+            } catch (IOException e) {
+                logger.severe("Errore durante il backup consistente: " + e.getMessage());
+                throw new BankException("Backup non riuscito", "Scrittura di " + imagePath + ": " + e.getMessage(),
+                        e);
+            } finally {
+                lockLedger();
+                try {
+                    backupEpoch = null;
+                } finally {
+                    ledgerLock.unlock();
+                }
+                try {
+                    Files.deleteIfExists(temporary);
+                } catch (IOException e) {
+                    logger.warning("Impossibile eliminare " + temporary + ": " + e.getMessage());
+                }
+                BankMetrics.BACKUP_IMAGE.record(System.nanoTime() - startTime);
+            }
+
+            if (logger.isLoggable(Level.INFO)) {
+                logger.info("Immagine consistente scritta su " + imagePath + ": " + accountsWritten
+                        + " conti, " + epoch.getPreImageCount() + " modificati durante il backup");
+            }
+            return accountsWritten;
+        }
+    }
+
+    /**
+     * Scrive nell'insieme di backup una base completa di tutti i conti,
+     * consistente come writeConsistentImage. Da qui in poi il servizio tiene
+     * traccia dei conti modificati per i backup incrementali successivi.
+     * 
+     * @param backupSet insieme di backup
+     * @return int - numero di conti scritti
+     * @throws BankException errore di scrittura o registro ricaricato durante
+     *                       il backup
+     */
+    public int writeFullBackup(BackupSet backupSet) throws BankException {
+        return writeBackup(backupSet, true);
+    }
+
+    /**
+     * Scrive nell'insieme di backup un delta con i soli conti creati o
+     * modificati dall'ultimo backup dello stesso insieme, letti allo stesso
+     * taglio consistente. Se in questo processo non c'è ancora un backup di
+     * riferimento (primo backup, riavvio, reload) scrive invece una base
+     * completa.
+     * 
+     * @param backupSet insieme di backup
+     * @return int - numero di conti scritti
+     * @throws BankException errore di scrittura o registro ricaricato durante
+     *                       il backup
+     */
+    public int writeIncrementalBackup(BackupSet backupSet) throws BankException {
+        return writeBackup(backupSet, false);
+    }
+
+    /**
+     * Scrive una base o un delta. Al taglio si sostituisce l'insieme dei conti
+     * modificati con uno vuoto; se il backup non va a buon fine quello vecchio
+     * viene riunito al nuovo, così nessuna modifica va persa per il delta
+     * successivo.
+     */
+    private int writeBackup(BackupSet backupSet, boolean full) throws BankException {
+        synchronized (imageLock) {
+            long startTime = System.nanoTime();
+            BackupEpoch epoch = new BackupEpoch();
+            Set<String> changed;
+            boolean base;
+            lockLedger();
+            try {
+                backupEpoch = epoch;
+                changed = changedSinceBackup;
+                base = full || changed == null || !backupSet.getDirectory().equals(trackedBackupSet);
+                changedSinceBackup = new HashSet<>();
+            } finally {
+                ledgerLock.unlock();
+            }
+
+            boolean committed = false;
+            int accountsWritten;
+            try (BackupSet.Writer writer = base ? backupSet.openBase(epoch.getCutTimestamp())
+                    : backupSet.openDelta(epoch.getCutTimestamp())) {
+                Iterator<Account> iterator;
+                if (base) {
+                    iterator = accounts.values().iterator();
+                } else {
+                    List<Account> changedAccounts = new ArrayList<>(changed.size());
+                    for (String accountNumber : changed) {
+                        Account account = accounts.get(accountNumber);
+                        if (account != null) {
+                            changedAccounts.add(account);
+                        }
+                    }
+                    iterator = changedAccounts.iterator();
+                }
+                accountsWritten = streamAtCut(epoch, iterator, writer::write);
+                if (epoch.isInvalidated()) {
+                    throw new BankException("Backup non riuscito",
+                            "Registro ricaricato durante il backup in " + backupSet.getDirectory());
+                }
+                writer.commit();
+                committed = true;
+
+                if (logger.isLoggable(Level.INFO)) {
+                    logger.info((base ? "Backup completo" : "Backup incrementale") + " scritto su "
+                            + writer.getFile() + ": " + accountsWritten + " conti");
+                }
+            } catch (IOException e) {
+                logger.severe("Errore durante il backup: " + e.getMessage());
+                throw new BankException("Backup non riuscito",
+                        "Scrittura in " + backupSet.getDirectory() + ": " + e.getMessage(), e);
+            } finally {
+                lockLedger();
+                try {
+                    backupEpoch = null;
+                    if (committed) {
+                        trackedBackupSet = backupSet.getDirectory();
+                    } else if (changed == null || epoch.isInvalidated()) {
+                        changedSinceBackup = null;
+                    } else {
+                        changedSinceBackup.addAll(changed);
+                    }
+                } finally {
+                    ledgerLock.unlock();
+                }
+                BankMetrics.BACKUP_IMAGE.record(System.nanoTime() - startTime);
+            }
+            return accountsWritten;
+        }
+    }
+
+    /**
+     * Destinazione dei conti letti al taglio
+     */
+    @FunctionalInterface
+    private interface ImageSink {
+        void write(Account account, double balance) throws IOException;
+    }
+
+    /**
+     * Legge a blocchi i saldi al taglio dei conti indicati e li passa alla
+     * destinazione fuori dal lock
+     * 
+     * @return int - conti scritti
+     */
+    private int streamAtCut(BackupEpoch epoch, Iterator<Account> iterator, ImageSink sink) throws IOException {
+        Account[] chunk = new Account[IMAGE_CHUNK_SIZE];
+        double[] balances = new double[IMAGE_CHUNK_SIZE];
+        int accountsWritten = 0;
+        while (iterator.hasNext()) {
+            int count = 0;
+            while (count < IMAGE_CHUNK_SIZE && iterator.hasNext()) {
+                chunk[count++] = iterator.next();
+            }
+            count = captureChunk(epoch, chunk, balances, count);
+            for (int i = 0; i < count; i++) {
+                sink.write(chunk[i], balances[i]);
+                chunk[i] = null;
+            }
+            accountsWritten += count;
+        }
+        return accountsWritten;
+    }
+
+    /**
+     * Ripristina in blocco i saldi salvati in una collezione di snapshot.
+     * 
+     * Gli snapshot vengono divisi in partizioni per numero di conto, così ogni
+     * conto appartiene a una sola partizione: la validazione e l'applicazione
+     * dei saldi procedono in parallelo senza coordinamento fra le partizioni.
+     * Se un conto ha più snapshot vale il più recente. Il ripristino è tutto o
+     * niente: con uno snapshot non valido (conto inesistente, saldo non
+     * numerico) nessun saldo viene modificato. I saldi si applicano tenendo il
+     * lock del registro, poi il file dati viene salvato una sola volta.
+     * 
+     * Il ripristino non è una transazione: non pubblica eventi sul bus.
+     * 
+     * @param snapshots snapshot da ripristinare
+     * @param listener  avanzamento (può essere null)
+     * @return BulkRestoreReport - conteggi, durata e throughput
+     * @throws BankException snapshot non validi o registro ricaricato durante
+     *                       il ripristino
+     */
+    public BulkRestoreReport restoreSnapshots(Collection<AccountSnapshot> snapshots, BulkRestoreListener listener)
+            throws BankException {
+        if (snapshots == null) {
+            throw new IllegalArgumentException("La collezione di snapshot non può essere null");
+        }
+        long startTime = System.nanoTime();
+
+        int partitionCount = Integer.highestOneBit(Math.max(1, Math.min(
+                Runtime.getRuntime().availableProcessors() * 4, snapshots.size() / RESTORE_MIN_PARTITION_SIZE)));
+        RestorePartition[] partitions = new RestorePartition[partitionCount];
+        for (int i = 0; i < partitionCount; i++) {
+            partitions[i] = new RestorePartition();
+        }
+        int invalid = 0;
+        for (AccountSnapshot snapshot : snapshots) {
+            if (snapshot == null) {
+                invalid++;
+                continue;
+            }
+            // Stessa chiave di RestorePartition.resolve: un conto finisce sempre in una sola partizione
+            int hash = snapshot.getAccountNumber().trim().hashCode();
+            partitions[(hash ^ (hash >>> 16)) & (partitionCount - 1)].snapshots.add(snapshot);
+        }
+        if (invalid > 0) {
+            throw new BankException("Ripristino non riuscito", invalid + " snapshot null nella collezione");
+        }
+
+        // Validazione in parallelo: ogni partizione risolve e deduplica i propri conti
+        Arrays.stream(partitions).parallel().forEach(partition -> partition.resolve(accounts));
+        int total = 0;
+        String firstError = null;
+        for (RestorePartition partition : partitions) {
+            invalid += partition.invalid;
+            total += partition.count;
+            if (firstError == null) {
+                firstError = partition.firstError;
+            }
+        }
+        if (invalid > 0) {
+            throw new BankException("Ripristino non riuscito",
+                    invalid + " snapshot non validi, nessun saldo modificato (es. " + firstError + ")");
+        }
+
+        int totalAccounts = total;
+        AtomicInteger restored = new AtomicInteger();
+        lockLedger();
+        try {
+            for (RestorePartition partition : partitions) {
+                for (int i = 0; i < partition.count; i++) {
+                    // Un reload dopo la validazione sostituisce i conti risolti
+                    if (accounts.get(partition.targets[i].getAccountNumber()) != partition.targets[i]) {
+                        throw new BankException("Ripristino non riuscito",
+                                "Registro ricaricato durante il ripristino, nessun saldo modificato");
+                    }
+                }
+            }
+            // Gli hook del backup non sono thread-safe: si chiamano prima della fase parallela
+            for (RestorePartition partition : partitions) {
+                for (int i = 0; i < partition.count; i++) {
+                    Account account = partition.targets[i];
+                    if (backupEpoch != null) {
+                        backupEpoch.beforeChange(account);
+                    }
+                    if (changedSinceBackup != null) {
+                        changedSinceBackup.add(account.getAccountNumber());
+                    }
+                }
+            }
+
+            Arrays.stream(partitions).parallel().forEach(partition -> {
+                partition.apply();
+                int done = restored.addAndGet(partition.count);
+                if (listener != null) {
+                    synchronized (listener) {
+                        listener.onProgress(done, totalAccounts);
+                    }
+                }
+            });
+
+            saveLock.lock();
+            try {
+                saveChanges();
+            } finally {
+                saveLock.unlock();
+            }
+        } finally {
+            ledgerLock.unlock();
+        }
+
+        long elapsed = System.nanoTime() - startTime;
+        BankMetrics.BULK_RESTORE.record(elapsed);
+        BulkRestoreReport report = new BulkRestoreReport(snapshots.size(), totalAccounts, partitionCount, elapsed);
+        if (logger.isLoggable(Level.INFO)) {
+            logger.info("Ripristino massivo completato: " + report);
+        }
+        return report;
+    }
+
+    /**
+     * Partizione del ripristino massivo: gli snapshot di un sottoinsieme di
+     * conti, risolti sui conti del registro
+     */
+    private static final class RestorePartition {
+
+        /** Snapshot assegnati alla partizione */
+        private final List<AccountSnapshot> snapshots = new ArrayList<>();
+
+        /** Conti da ripristinare */
+        private Account[] targets;
+
+        /** Saldi da applicare */
+        private double[] balances;
+
+        /** Conti risolti */
+        private int count;
+
+        /** Snapshot non validi */
+        private int invalid;
+
+        /** Descrizione del primo snapshot non valido */
+        private String firstError;
+
+        /**
+         * Valida gli snapshot e tiene per ogni conto il più recente
+         */
+        private void resolve(Map<String, Account> accounts) {
+            targets = new Account[snapshots.size()];
+            balances = new double[snapshots.size()];
+            long[] timestamps = new long[snapshots.size()];
+            Map<String, Integer> positions = new HashMap<>();
+            for (AccountSnapshot snapshot : snapshots) {
+                String accountNumber = snapshot.getAccountNumber().trim();
+                Account account = accounts.get(accountNumber);
+                double balance = snapshot.getBalance();
+                if (account == null || Double.isNaN(balance) || Double.isInfinite(balance)) {
+                    if (firstError == null) {
+                        firstError = account == null ? "conto inesistente " + accountNumber
+                                : "saldo non valido per il conto " + accountNumber;
+                    }
+                    invalid++;
+                    continue;
+                }
+                Integer position = positions.get(accountNumber);
+                if (position == null) {
+                    position = count++;
+                    positions.put(accountNumber, position);
+                } else if (snapshot.getTimestamp() < timestamps[position]) {
+                    continue;
+                }
+                targets[position] = account;
+                balances[position] = balance;
+                timestamps[position] = snapshot.getTimestamp();
+            }
+            snapshots.clear();
+        }
+
+        /**
+         * Applica i saldi (chiamato con il lock del registro tenuto dal chiamante)
+         */
+        private void apply() {
+            for (int i = 0; i < count; i++) {
+                targets[i].restoreBalance(balances[i]);
+            }
+        }
+    }
+
+    /**
+     * Legge sotto il lock del registro i saldi al taglio di un blocco di conti,
+     * scartando quelli creati dopo il taglio
+     * 
+     * @return int - conti rimasti nel blocco
+     */
+    private int captureChunk(BackupEpoch epoch, Account[] chunk, double[] balances, int count) {
+        lockLedger();
+        try {
+            int kept = 0;
+            for (int i = 0; i < count; i++) {
+                Account account = chunk[i];
+                if (epoch.existedAtCut(account.getAccountNumber())) {
+                    chunk[kept] = account;
+                    balances[kept] = epoch.balanceAtCut(account);
+                    kept++;
+                }
+            }
+            for (int i = kept; i < count; i++) {
+                chunk[i] = null;
+            }
+            return kept;
+        } finally {
+            ledgerLock.unlock();
+        }
+    }
+
+    /**
+     * Esclude dal backup consistente in corso un conto creato dopo il taglio e
+     * lo segna per il prossimo backup incrementale. Va chiamato con il lock
+     * del registro acquisito.
+     */
+    private void recordAccountCreated(String accountNumber) {
+        if (backupEpoch != null) {
+            backupEpoch.accountCreated(accountNumber);
+        }
+        if (changedSinceBackup != null) {
+            changedSinceBackup.add(accountNumber);
+        }
+    }
+
+    /**
+     * Sostituisce il file dati con quello appena scritto, in modo atomico se il
+     * file system lo consente.
+     */
+    private static void moveIntoPlace(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
         }
     }
 
@@ -284,40 +1174,98 @@ public class BankService {
      * Metodo che carica i conti dal file CSV all'avvio del programma.
      */
     private void loadAccounts() {
+        long startTime = System.nanoTime();
+        PersistenceJfrEvent event = beginPersistenceEvent();
+        int accountsLoaded = 0;
+        boolean succeeded = false;
+
         try (BufferedReader reader = new BufferedReader(new FileReader(dataFilePath))) {
 
             String line;
-            int accountsLoaded = 0;
 
             while ((line = reader.readLine()) != null) {
 
                 String[] parts = line.split(",");
 
-                if (parts.length == 4) {
+                // La quinta colonna (fascia premium) manca nei file meno recenti
+                if (parts.length == 4 || parts.length == 5) {
                     String type = parts[0];
                     String number = parts[1];
                     String owner = parts[2];
                     double balance = Double.parseDouble(parts[3]);
 
-                    AccountFactory.AccountType accountType = "Conto Corrente".equals(type)
-                            ? AccountFactory.AccountType.CHECKING
-                            : AccountFactory.AccountType.SAVINGS;
+                    // Il nome viene convertito nel codice compatto una sola volta
+                    // (i tipi non riconosciuti restano conti di risparmio, come in passato)
+                    int typeCode = AccountTypeTable.fromDisplayName(type);
+                    AccountFactory.AccountType accountType = AccountTypeTable.getFactoryType(
+                            AccountTypeTable.isValid(typeCode) ? typeCode : AccountTypeTable.SAVINGS);
 
                     Account account = AccountFactory.createAccount(accountType, number, owner, balance);
+                    account.setPremium(parts.length == 5 && Boolean.parseBoolean(parts[4]));
                     accounts.put(number, account);
 
                     accountsLoaded++;
                 }
             }
 
-            logger.info("Caricamento completato: " + accountsLoaded + " conti caricati da " + dataFilePath);
+            if (logger.isLoggable(Level.INFO)) {
+                logger.info("Caricamento completato: " + accountsLoaded + " conti caricati da " + dataFilePath);
+            }
+            succeeded = true;
 
         } catch (FileNotFoundException e) {
             logger.info("File dati non trovato - inizializzazione con database vuoto");
-            System.out.println("File dati non trovato, si inizia con database vuoto");
+            Notifications.publish("File dati non trovato, si inizia con database vuoto");
         } catch (IOException e) {
             logger.warning("Errore durante il caricamento: " + e.getMessage());
-            System.out.println("Errore nel caricamento: " + e.getMessage());
+            if (Notifications.isEnabled()) {
+                Notifications.publish("Errore nel caricamento: " + e.getMessage());
+            }
+        } finally {
+            BankMetrics.PERSISTENCE_LOAD.record(System.nanoTime() - startTime);
+            commitPersistenceEvent(event, PersistenceJfrEvent.KIND_LOAD, accountsLoaded, succeeded);
+        }
+    }
+
+    /**
+     * Apre un evento di persistenza se una registrazione JFR lo sta
+     * raccogliendo.
+     * 
+     * @return PersistenceJfrEvent - evento aperto, oppure null se JFR non lo
+     *         registra
+     */
+    private static PersistenceJfrEvent beginPersistenceEvent() {
+        if (!PersistenceJfrEvent.isRecorded()) {
+            return null;
+        }
+        PersistenceJfrEvent event = new PersistenceJfrEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Chiude e, se JFR lo sta registrando, valorizza ed emette un evento di
+     * persistenza.
+     * 
+     * @param event        evento aperto da beginPersistenceEvent(), può essere
+     *                     null
+     * @param kind         tipo di operazione (salvataggio o caricamento)
+     * @param accountCount numero di conti scritti o letti
+     * @param succeeded    true se l'operazione è terminata senza errori
+     */
+    private void commitPersistenceEvent(PersistenceJfrEvent event, String kind, int accountCount,
+            boolean succeeded) {
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.kind = kind;
+            event.path = dataFilePath;
+            event.accountCount = accountCount;
+            event.fileBytes = new File(dataFilePath).length();
+            event.succeeded = succeeded;
+            event.commit();
         }
     }
 
@@ -328,17 +1276,30 @@ public class BankService {
      * @return Account conto trovato, o null se non esiste
      */
     public Account getAccount(String accountNumber) {
-        logger.info("Richiesta conto: " + accountNumber);
+        if (logger.isLoggable(Level.INFO)) {
+            logger.info("Richiesta conto: " + accountNumber);
+        }
         return accounts.get(accountNumber);
     }
 
+    /**
+     * Restituisce il numero di conti registrati, senza lock né log.
+     * 
+     * @return int - numero di conti
+     */
+    public int getAccountCount() {
+        return accounts.size();
+    }
+
     /**
      * Restituisce tutti i conti presenti nel sistema.
      * 
      * @return Collection<Account> - Una collezione di tutti i conti
      */
     public Collection<Account> getAllAccounts() {
-        logger.info("Richiesta lista completa dei conti (totale: " + accounts.size() + ")");
+        if (logger.isLoggable(Level.INFO)) {
+            logger.info("Richiesta lista completa dei conti (totale: " + accounts.size() + ")");
+        }
         return accounts.values();
     }
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+package bank;
+
+/**
+ * Ricevitore dell'avanzamento di BankService.restoreSnapshots.
+ * 
+ * Le chiamate arrivano dai thread che applicano le partizioni, una alla volta
+ * (mai in parallelo), mentre il lock del registro è tenuto dal chiamante del
+ * ripristino: il listener non deve quindi invocare metodi del BankService.
+ */
+@FunctionalInterface
+public interface BulkRestoreListener {
+
+    /**
+     * Notifica i conti ripristinati finora
+     * 
+     * @param restored conti già ripristinati
+     * @param total    conti da ripristinare
+     */
+    void onProgress(int restored, int total);
+}
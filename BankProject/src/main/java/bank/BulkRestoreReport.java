@@ -0,0 +1,85 @@
+package bank;
+
+/**
+ * Esito di un ripristino massivo (BankService.restoreSnapshots): quanti
+ * snapshot sono arrivati, quanti conti sono stati ripristinati e in quanto
+ * tempo.
+ */
+public final class BulkRestoreReport {
+
+    /** Snapshot ricevuti */
+    private final int snapshotsReceived;
+
+    /** Conti ripristinati (uno per conto, anche con più snapshot) */
+    private final int accountsRestored;
+
+    /** Partizioni elaborate in parallelo */
+    private final int partitions;
+
+    /** Durata complessiva in nanosecondi */
+    private final long elapsedNanos;
+
+    /**
+     * Costruttore
+     * 
+     * @param snapshotsReceived snapshot ricevuti
+     * @param accountsRestored  conti ripristinati
+     * @param partitions        partizioni elaborate
+     * @param elapsedNanos      durata in nanosecondi
+     */
+    BulkRestoreReport(int snapshotsReceived, int accountsRestored, int partitions, long elapsedNanos) {
+        this.snapshotsReceived = snapshotsReceived;
+        this.accountsRestored = accountsRestored;
+        this.partitions = partitions;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * @return int - snapshot ricevuti
+     */
+    public int getSnapshotsReceived() {
+        return snapshotsReceived;
+    }
+
+    /**
+     * @return int - conti ripristinati
+     */
+    public int getAccountsRestored() {
+        return accountsRestored;
+    }
+
+    /**
+     * @return int - snapshot scartati perché superati da uno più recente dello
+     *         stesso conto
+     */
+    public int getSupersededSnapshots() {
+        return snapshotsReceived - accountsRestored;
+    }
+
+    /**
+     * @return int - partizioni elaborate in parallelo
+     */
+    public int getPartitions() {
+        return partitions;
+    }
+
+    /**
+     * @return long - durata in millisecondi
+     */
+    public long getElapsedMillis() {
+        return elapsedNanos / 1_000_000;
+    }
+
+    /**
+     * @return double - snapshot elaborati al secondo
+     */
+    public double getThroughput() {
+        return elapsedNanos > 0 ? snapshotsReceived * 1e9 / elapsedNanos : 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d snapshot, %d conti ripristinati in %d ms (%.0f snapshot/s, %d partizioni)",
+                snapshotsReceived, accountsRestored, getElapsedMillis(), getThroughput(), partitions);
+    }
+}
@@ -0,0 +1,168 @@
+package bank;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+import bank.logging.BankLogging;
+import bank.metrics.BankMetrics;
+import bank.metrics.HistogramSnapshot;
+import bank.metrics.MetricsSnapshot;
+
+/**
+ * Statistiche di esecuzione del servizio bancario per la CLI (comando "stats").
+ * 
+ * Legge solo valori lock-free (snapshot delle metriche, dimensione della
+ * mappa dei conti, contatori atomici), quindi non rallenta né blocca le
+ * transazioni in corso.
+ */
+public class StatsReporter {
+
+    /** logger statico */
+    private static final Logger logger = Logger.getLogger(StatsReporter.class.getName());
+
+    /** Prefisso dei contatori delle transazioni */
+    private static final String TRANSACTION_PREFIX = "transactions.";
+
+    /** Suffissi dei contatori delle cache (es. "backup.cache.hit" / "backup.cache.miss") */
+    private static final String CACHE_HIT_SUFFIX = ".cache.hit";
+    private static final String CACHE_MISS_SUFFIX = ".cache.miss";
+
+    /** Servizio osservato */
+    private final BankService bankService;
+
+    /** Istante di creazione, per la media dall'avvio */
+    private final long startNanos = System.nanoTime();
+
+    /** Transazioni al report precedente, per il tasso dell'ultimo intervallo */
+    private long lastTransactions;
+
+    /** Istante del report precedente */
+    private long lastReportNanos = startNanos;
+
+    /** Scheduler della stampa periodica, null se non attiva */
+    private ScheduledExecutorService periodicDump;
+
+    /**
+     * Costruttore
+     * 
+     * @param bankService servizio da osservare
+     */
+    public StatsReporter(BankService bankService) {
+        this.bankService = bankService;
+    }
+
+    /**
+     * Costruisce il report delle statistiche correnti
+     * 
+     * @return String - report leggibile
+     */
+    public synchronized String report() {
+        MetricsSnapshot snapshot = BankMetrics.snapshot();
+        long now = System.nanoTime();
+
+        long transactions = 0;
+        for (Map.Entry<String, Long> counter : snapshot.getCounters().entrySet()) {
+            if (counter.getKey().startsWith(TRANSACTION_PREFIX)) {
+                transactions += counter.getValue();
+            }
+        }
+        double sinceLast = (now - lastReportNanos) / 1e9;
+        double sinceStart = (now - startNanos) / 1e9;
+        double recentRate = sinceLast > 0 ? (transactions - lastTransactions) / sinceLast : 0;
+        double averageRate = sinceStart > 0 ? transactions / sinceStart : 0;
+        lastTransactions = transactions;
+        lastReportNanos = now;
+
+        StringBuilder text = new StringBuilder();
+        text.append("STATISTICHE\n");
+        text.append(String.format("Transazioni: %d totali, %.1f/s ultimo intervallo, %.1f/s media%n",
+                transactions, recentRate, averageRate));
+        for (Map.Entry<String, Long> counter : snapshot.getCounters().entrySet()) {
+            if (counter.getKey().startsWith(TRANSACTION_PREFIX)) {
+                text.append(String.format("  %-32s %d%n", counter.getKey(), counter.getValue()));
+            }
+        }
+
+        text.append("Latenze:\n");
+        for (HistogramSnapshot histogram : snapshot.getHistograms().values()) {
+            text.append("  ").append(histogram).append('\n');
+        }
+
+        text.append(String.format("Conti: %d%n", bankService.getAccountCount()));
+        text.append(String.format("Coda salvataggi: %d modifiche in attesa%n", bankService.getPendingWrites()));
+        text.append(String.format("Coda log asincrono: %d record (%d scartati)%n",
+                BankLogging.getQueueDepth(), BankLogging.getDroppedCount()));
+
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        text.append(String.format("Heap: %.1f MB usati / %.1f MB allocati / %.1f MB massimo%n",
+                heap.getUsed() / 1048576.0, heap.getCommitted() / 1048576.0, heap.getMax() / 1048576.0));
+
+        appendCacheHitRates(text, snapshot);
+        return text.toString();
+    }
+
+    /**
+     * Avvia la stampa periodica del report
+     * 
+     * @param intervalSeconds intervallo fra due stampe, in secondi
+     * @param output          destinazione del report (es. System.out::println)
+     */
+    public synchronized void startPeriodicDump(long intervalSeconds, Consumer<String> output) {
+        if (intervalSeconds <= 0) {
+            throw new IllegalArgumentException("L'intervallo deve essere positivo");
+        }
+        stopPeriodicDump();
+        periodicDump = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "bank-stats-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        periodicDump.scheduleAtFixedRate(() -> output.accept(report()), intervalSeconds, intervalSeconds,
+                TimeUnit.SECONDS);
+        logger.info("Stampa periodica delle statistiche ogni " + intervalSeconds + " s");
+    }
+
+    /**
+     * Ferma la stampa periodica, se attiva
+     */
+    public synchronized void stopPeriodicDump() {
+        if (periodicDump != null) {
+            periodicDump.shutdownNow();
+            periodicDump = null;
+            logger.info("Stampa periodica delle statistiche fermata");
+        }
+    }
+
+    /**
+     * Aggiunge il tasso di successo delle cache che registrano i contatori
+     * "<nome>.cache.hit" e "<nome>.cache.miss"
+     */
+    private static void appendCacheHitRates(StringBuilder text, MetricsSnapshot snapshot) {
+        boolean found = false;
+        for (Map.Entry<String, Long> counter : snapshot.getCounters().entrySet()) {
+            String name = counter.getKey();
+            if (!name.endsWith(CACHE_HIT_SUFFIX)) {
+                continue;
+            }
+            String cache = name.substring(0, name.length() - CACHE_HIT_SUFFIX.length());
+            long hits = counter.getValue();
+            long misses = snapshot.getCounter(cache + CACHE_MISS_SUFFIX);
+            long lookups = hits + misses;
+            if (!found) {
+                text.append("Cache:\n");
+                found = true;
+            }
+            text.append(String.format("  %-32s %.1f%% (%d/%d)%n", cache,
+                    lookups > 0 ? hits * 100.0 / lookups : 0.0, hits, lookups));
+        }
+        if (!found) {
+            text.append("Cache: nessuna cache registrata\n");
+        }
+    }
+}
@@ -4,6 +4,7 @@ import bank.account.Account;
 import bank.account.AccountFactory;
 import bank.account.CheckingAccount;
 import bank.account.SavingsAccount;
+import bank.logging.Notifications;
 
 /** Factory concreta per i conti premium */
 public class PremiumBankFactory implements BankFactory {
@@ -18,8 +19,9 @@ public class PremiumBankFactory implements BankFactory {
                 initialBalance);
 
         // I clienti premium non vedono differenze immediate,
-        // ma internamente potrebbero avere trattamenti diversi
-        System.out.println("Account Premium creato con privilegi aggiuntivi");
+        // ma usano la politica di prelievo della fascia premium
+        account.setPremium(true);
+        Notifications.publish("Account Premium creato con privilegi aggiuntivi");
         return account;
     }
 
@@ -32,7 +34,8 @@ public class PremiumBankFactory implements BankFactory {
                 ownerName,
                 initialBalance);
 
-        System.out.println("Conto Risparmio Premium creato con tasso preferenziale");
+        account.setPremium(true);
+        Notifications.publish("Conto Risparmio Premium creato con tasso preferenziale");
         return account;
     }
 }
\ No newline at end of file
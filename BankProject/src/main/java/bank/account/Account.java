@@ -1,6 +1,14 @@
 package bank.account;
 
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+import bank.strategyPattern.WithdrawalPolicyRegistry;
+import bank.strategyPattern.WithdrawalPolicySlot;
+import bank.strategyPattern.WithdrawalStrategy;
 
 /**
  * Classe base di ogni conto bancario
@@ -17,8 +25,55 @@ public abstract class Account {
     /** Il proprietario del conto */
     protected String ownerName;
 
-    /** Il saldo di questo conto. */
-    protected double balance;
+    /**
+     * Il saldo di questo conto. È volatile perché la scrittura del saldo e la
+     * lettura di cachedGroups si ordinino con l'aggancio di un gruppo con cache,
+     * che scrive cachedGroups e poi legge il saldo: almeno uno dei due vede
+     * l'altro, quindi nessuna variazione sfugge ai totali in cache.
+     */
+    protected volatile double balance;
+
+    /** Codice compatto del tipo di conto (vedi AccountTypeTable) */
+    private final int typeCode;
+
+    /** Id compatto del conto, assegnato alla creazione (valido solo nel processo) */
+    private final int accountId = ID_SEQUENCE.incrementAndGet();
+
+    /** Booleano per verificare se il conto appartiene alla fascia premium */
+    private boolean premium;
+
+    /**
+     * Slot della politica di prelievo della fascia del conto, associato alla
+     * creazione: la politica al suo interno può cambiare a runtime
+     */
+    private WithdrawalPolicySlot withdrawalSlot;
+
+    /** Importo prelevato nel giorno indicato da withdrawalDay */
+    private double withdrawnToday;
+
+    /** Giorno (in giorni dall'epoch) a cui si riferisce withdrawnToday */
+    private long withdrawalDay;
+
+    /**
+     * Gruppi con totali in cache che contengono direttamente il conto (null se
+     * nessuno), sostituito per intero a ogni modifica
+     */
+    private volatile AccountGroup[] cachedGroups;
+
+    /**
+     * Saldo già contato nei totali dei gruppi in cache che contengono il conto
+     * (protetto dal lock dei totali di AccountGroup)
+     */
+    private double reportedBalance;
+
+    /** Caratteri rimossi dagli input esterni (compilato una sola volta) */
+    private static final Pattern UNSAFE_CHARACTERS = Pattern.compile("[<>\"'%;()&+]");
+
+    /** Generatore degli id compatti dei conti */
+    private static final AtomicInteger ID_SEQUENCE = new AtomicInteger();
+
+    /** Millisecondi in un giorno */
+    private static final long MILLIS_PER_DAY = 86_400_000L;
 
     /** logger statico */
     private static final Logger logger = Logger.getLogger(Account.class.getName());
@@ -27,12 +82,19 @@ public abstract class Account {
      * Costruttore - Costruisce un nuovo conto bancario con il numero di conto
      * specificato, il proprietario del conto ed il saldo iniziale.
      * 
+     * @param typeCode       Il codice del tipo di conto (vedi AccountTypeTable)
      * @param accountNumber  L’identificatore univoco per questo conto.
      * @param ownerName      Il proprietario del conto
      * @param initialBalance Il saldo iniziale per questo conto.(Se negativo si
      *                       considera 0)
      */
-    public Account(String accountNumber, String ownerName, double initialBalance) {
+    public Account(int typeCode, String accountNumber, String ownerName, double initialBalance) {
+        if (!AccountTypeTable.isValid(typeCode)) {
+            throw new IllegalArgumentException("Tipo di conto non supportato");
+        }
+        this.typeCode = typeCode;
+        this.premium = false;
+        this.withdrawalSlot = WithdrawalPolicyRegistry.getSlot(typeCode, false);
         this.accountNumber = clearInput(accountNumber);
         this.ownerName = clearInput(ownerName);
 
@@ -43,8 +105,10 @@ public abstract class Account {
 
         this.balance = Math.max(0, initialBalance);
 
-        logger.info("Account creato: " + this.accountNumber + " per " + this.ownerName + " con saldo iniziale "
-                + this.balance);
+        if (logger.isLoggable(Level.INFO)) {
+            logger.info("Account creato: " + this.accountNumber + " per " + this.ownerName + " con saldo iniziale "
+                    + this.balance);
+        }
     }
 
     /**
@@ -61,7 +125,7 @@ public abstract class Account {
             return "";
         }
 
-        String cleaned = input.replaceAll("[<>\"'%;()&+]", "");
+        String cleaned = UNSAFE_CHARACTERS.matcher(input).replaceAll("");
 
         String result = cleaned.trim();
 
@@ -73,12 +137,73 @@ public abstract class Account {
     }
 
     /**
-     * Metodo astratto per prelevare che ogni tipo di conto deve implementare
+     * Metodo per prelevare: la politica specifica della fascia del conto è
+     * delegata alla politica di prelievo installata nel suo slot.
      * 
      * @param amount Importo da prelevare
-     * @return
+     * @return boolean - Valore di ritorno che comunica l'esito dell'operazione
+     */
+    public boolean withdraw(double amount) {
+        // Si legge la politica una sola volta: valutazione e addebito devono coincidere
+        WithdrawalStrategy strategy = withdrawalSlot.current();
+
+        int outcome = strategy.executeWithdrawal(balance, amount, this);
+        if (outcome != WithdrawalStrategy.APPROVED) {
+            return false;
+        }
+
+        balance -= strategy.getTotalDebit(amount, this);
+        balanceChanged();
+        recordDailyWithdrawal(amount);
+        if (logger.isLoggable(Level.INFO)) {
+            logOperation("Prelievo di €" + amount + " eseguito");
+        }
+        return true;
+    }
+
+    /**
+     * Aggiorna il totale prelevato nella giornata corrente
+     * 
+     * @param amount Importo prelevato
+     */
+    private void recordDailyWithdrawal(double amount) {
+        long today = System.currentTimeMillis() / MILLIS_PER_DAY;
+        if (withdrawalDay != today) {
+            withdrawalDay = today;
+            withdrawnToday = 0;
+        }
+        withdrawnToday += amount;
+    }
+
+    /**
+     * Restituisce l'importo già prelevato oggi (esclusi i costi), usato dalle
+     * politiche con limite giornaliero.
+     * 
+     * @return double - Il totale prelevato nella giornata corrente
+     */
+    public double getWithdrawnToday() {
+        return withdrawalDay == System.currentTimeMillis() / MILLIS_PER_DAY ? withdrawnToday : 0;
+    }
+
+    /**
+     * Verifica se il conto appartiene alla fascia premium.
+     * 
+     * @return boolean - true se il conto è premium
      */
-    public abstract boolean withdraw(double amount);
+    public boolean isPremium() {
+        return premium;
+    }
+
+    /**
+     * Imposta la fascia del conto e lo associa allo slot della politica di
+     * prelievo corrispondente.
+     * 
+     * @param premium true per la fascia premium
+     */
+    public void setPremium(boolean premium) {
+        this.premium = premium;
+        this.withdrawalSlot = WithdrawalPolicyRegistry.getSlot(typeCode, premium);
+    }
 
     /**
      * Il metodo per depositare uguale per tutti i tipi di conto
@@ -88,7 +213,9 @@ public abstract class Account {
      */
     public boolean deposit(double amount) {
         if (amount <= 0 || Double.isNaN(amount) || Double.isInfinite(amount)) {
-            logWarning("Tentativo di deposito con importo non valido: " + amount);
+            if (logger.isLoggable(Level.WARNING)) {
+                logWarning("Tentativo di deposito con importo non valido: " + amount);
+            }
             return false;
         }
 
@@ -99,12 +226,113 @@ public abstract class Account {
 
         double previousBalance = balance;
         balance += amount;
+        balanceChanged();
 
-        logger.info("Deposito eseguito su account " + accountNumber + ": €" + amount + " (saldo: €" + previousBalance
-                + " → €" + balance + ")");
+        if (logger.isLoggable(Level.INFO)) {
+            logger.info("Deposito eseguito su account " + accountNumber + ": €" + amount + " (saldo: €"
+                    + previousBalance + " → €" + balance + ")");
+        }
         return true;
     }
 
+    /**
+     * Riporta il saldo a un valore salvato (ripristino da backup): non è una
+     * transazione, quindi non passa dalla politica di prelievo e non tocca il
+     * totale prelevato nella giornata.
+     * 
+     * @param restoredBalance saldo da ripristinare
+     */
+    public void restoreBalance(double restoredBalance) {
+        if (Double.isNaN(restoredBalance) || Double.isInfinite(restoredBalance)) {
+            throw new IllegalArgumentException("Saldo da ripristinare non valido: " + restoredBalance);
+        }
+        balance = restoredBalance;
+        balanceChanged();
+    }
+
+    /**
+     * Da chiamare dopo ogni modifica del saldo: aggiorna i totali in cache dei
+     * gruppi che contengono il conto (un solo controllo se non ce ne sono)
+     */
+    protected final void balanceChanged() {
+        if (cachedGroups != null) {
+            AccountGroup.accountBalanceChanged(this);
+        }
+    }
+
+    /**
+     * Restituisce i gruppi con totali in cache che contengono direttamente il
+     * conto (null se nessuno)
+     */
+    AccountGroup[] getCachedGroups() {
+        return cachedGroups;
+    }
+
+    /**
+     * Restituisce il saldo già contato nei gruppi in cache (chiamato da
+     * AccountGroup con il suo lock)
+     */
+    double getReportedBalance() {
+        return reportedBalance;
+    }
+
+    /**
+     * Segna come contato il saldo attuale e restituisce la variazione non
+     * ancora riportata nei gruppi in cache (chiamato da AccountGroup con il suo
+     * lock): rileggere il saldo invece di usare il delta della singola modifica
+     * evita di contare due volte una variazione già vista all'aggancio.
+     */
+    double takeUnreportedDelta() {
+        double current = balance;
+        double delta = current - reportedBalance;
+        reportedBalance = current;
+        return delta;
+    }
+
+    /**
+     * Registra un gruppo con totali in cache che contiene il conto (chiamato
+     * da AccountGroup con il suo lock)
+     */
+    void attachCachedGroup(AccountGroup group) {
+        AccountGroup[] groups = cachedGroups;
+        if (groups == null) {
+            cachedGroups = new AccountGroup[] { group };
+            return;
+        }
+        for (AccountGroup existing : groups) {
+            if (existing == group) {
+                return;
+            }
+        }
+        AccountGroup[] updated = Arrays.copyOf(groups, groups.length + 1);
+        updated[groups.length] = group;
+        cachedGroups = updated;
+    }
+
+    /**
+     * Toglie un gruppo con totali in cache che non contiene più il conto
+     * (chiamato da AccountGroup con il suo lock)
+     */
+    void detachCachedGroup(AccountGroup group) {
+        AccountGroup[] groups = cachedGroups;
+        if (groups == null) {
+            return;
+        }
+        for (int i = 0; i < groups.length; i++) {
+            if (groups[i] == group) {
+                if (groups.length == 1) {
+                    cachedGroups = null;
+                } else {
+                    AccountGroup[] updated = new AccountGroup[groups.length - 1];
+                    System.arraycopy(groups, 0, updated, 0, i);
+                    System.arraycopy(groups, i + 1, updated, i, groups.length - i - 1);
+                    cachedGroups = updated;
+                }
+                return;
+            }
+        }
+    }
+
     /**
      * Scrive un messaggio di log per tenere traccia delle operazioni.
      * Accessibile alle classi figlie ma non accessibile dall'esterno.
@@ -163,6 +391,37 @@ public abstract class Account {
         return balance;
     }
 
+    /**
+     * Restituisce l'importo di fido massimo. I conti senza scoperto restituiscono
+     * 0.
+     * 
+     * @return double - Il limite fido
+     */
+    public double getOverdraftLimit() {
+        return 0;
+    }
+
+    /**
+     * Restituisce il codice compatto del tipo di conto, da usare al posto del
+     * confronto fra stringhe.
+     * 
+     * @return typeCode - Il codice del tipo (vedi AccountTypeTable)
+     */
+    public int getTypeCode() {
+        return typeCode;
+    }
+
+    /**
+     * Restituisce l'id compatto del conto, usato negli eventi di transazione
+     * al posto del numero di conto. Non viene salvato su file: dopo un
+     * riavvio i conti ricevono id nuovi.
+     * 
+     * @return accountId - L'id del conto nel processo corrente
+     */
+    public int getAccountId() {
+        return accountId;
+    }
+
     /**
      * Metodo per restituire il tipo specifico di conto.
      */
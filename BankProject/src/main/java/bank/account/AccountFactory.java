@@ -1,5 +1,7 @@
 package bank.account;
 
+import bank.logging.Notifications;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
@@ -50,14 +52,22 @@ public class AccountFactory {
         switch (type) {
             // Crea e restituisce una nuova istanza di CheckingAccount
             case CHECKING:
-                logger.info("Creando conto corrente per " + ownerName);
-                System.out.println("Creando conto corrente per " + ownerName);
+                if (logger.isLoggable(Level.INFO)) {
+                    logger.info("Creando conto corrente per " + ownerName);
+                }
+                if (Notifications.isEnabled()) {
+                    Notifications.publish("Creando conto corrente per " + ownerName);
+                }
                 createdAccount = new CheckingAccount(accountNumber, ownerName, initialBalance);
                 break;
             // Crea e restituisce una nuova istanza di SavingsAccount
             case SAVINGS:
-                logger.info("Creando conto risparmio per " + ownerName);
-                System.out.println("Creando conto risparmio per " + ownerName);
+                if (logger.isLoggable(Level.INFO)) {
+                    logger.info("Creando conto risparmio per " + ownerName);
+                }
+                if (Notifications.isEnabled()) {
+                    Notifications.publish("Creando conto risparmio per " + ownerName);
+                }
                 createdAccount = new SavingsAccount(accountNumber, ownerName, initialBalance);
                 break;
             default:
@@ -65,8 +75,10 @@ public class AccountFactory {
                 throw new IllegalArgumentException("Tipo di conto non supportato");
         }
 
-        logger.info("Account creato con successo: " + createdAccount.getAccountType() +
-                " " + createdAccount.getAccountNumber() + " per " + createdAccount.getOwnerName());
+        if (logger.isLoggable(Level.INFO)) {
+            logger.info("Account creato con successo: " + createdAccount.getAccountType() +
+                    " " + createdAccount.getAccountNumber() + " per " + createdAccount.getOwnerName());
+        }
 
         return createdAccount;
     }
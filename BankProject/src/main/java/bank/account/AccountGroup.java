@@ -1,20 +1,83 @@
 package bank.account;
 
+import bank.logging.Notifications;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * Classe che gestisce i gruppi di conti bancari.
+ * 
+ * Su richiesta (enableCachedTotals) un gruppo mantiene in cache saldo e
+ * numero di conti del proprio sottoalbero: le variazioni di saldo dei conti e
+ * le aggiunte di conti o sottogruppi vengono propagate verso l'alto lungo i
+ * puntatori ai gruppi padre, così getTotalBalance e getTotalAccountCount
+ * costano O(1). Senza cache i totali vengono ricalcolati visitando l'albero.
+ * Ogni conto ricorda il saldo già contato nei gruppi e, a ogni variazione o
+ * aggancio, i gruppi ricevono la differenza con il saldo attuale: la cache
+ * resta esatta anche con transazioni concorrenti all'aggiunta dei conti, a
+ * meno degli arrotondamenti sui double.
+ * 
+ * Conti e sottogruppi diretti sono indicizzati per numero e per nome (in
+ * ordine di inserimento), e ogni gerarchia condivide un indice inverso conto
+ * → gruppi (GroupIndex): appartenenza, ricerca dei gruppi che contengono un
+ * conto e controllo dei cicli non scorrono più le liste.
  */
 public class AccountGroup {
     /** nome identificativo del gruppo */
     private String groupName;
 
-    /** lista di tutti i conti che appartengono direttamente a questo gruppo */
-    private List<Account> accounts;
+    /** conti che appartengono direttamente a questo gruppo, per numero di conto */
+    private final Map<String, Account> accounts = new LinkedHashMap<>();
 
-    /** lista di sottogruppi contenuti in questo gruppo */
-    private List<AccountGroup> subGroups;
+    /** sottogruppi contenuti in questo gruppo, per nome */
+    private final Map<String, AccountGroup> subGroups = new LinkedHashMap<>();
+
+    /** indice inverso conto → gruppi della gerarchia (condiviso) */
+    private GroupIndex index = new GroupIndex(this);
+
+    /**
+     * caricatore del contenuto di un gruppo letto da GroupHierarchyStore e non
+     * ancora materializzato (null se il gruppo è completo)
+     */
+    private volatile Loader loader;
+
+    /**
+     * Caricatore del contenuto (conti e sottogruppi) di un gruppo persistito
+     */
+    interface Loader {
+
+        /**
+         * Aggiunge al gruppo conti e sottogruppi salvati, con attachLoaded*
+         */
+        void load(AccountGroup group) throws java.io.IOException;
+    }
+
+    /** gruppi che contengono direttamente questo gruppo (protetti da TOTALS_LOCK) */
+    private final List<AccountGroup> parents = new ArrayList<>(1);
+
+    /** true se il gruppo mantiene in cache i totali del sottoalbero */
+    private volatile boolean cachedTotals;
+
+    /** saldo in cache del sottoalbero (scritto con TOTALS_LOCK) */
+    private volatile double cachedBalance;
+
+    /** numero di conti in cache del sottoalbero (scritto con TOTALS_LOCK) */
+    private volatile int cachedAccountCount;
+
+    /** lock degli aggiornamenti dei totali in cache, comune a tutti i gruppi */
+    private static final Object TOTALS_LOCK = new Object();
+
+    /**
+     * lock dei caricamenti lazy: l'indice condiviso della gerarchia non è
+     * thread-safe, quindi i gruppi si caricano uno alla volta
+     */
+    private static final Object LOAD_LOCK = new Object();
+
+    /** conti diretti sotto i quali un gruppo non viene più diviso fra più thread */
+    public static final int DEFAULT_SPLIT_THRESHOLD = 4096;
 
     /** logger statico */
     private static final Logger logger = Logger.getLogger(Account.class.getName());
@@ -33,8 +96,6 @@ public class AccountGroup {
             // Se il nome è valido, lo puliamo da eventuali spazi extra
             this.groupName = groupName.trim();
         }
-        this.accounts = new ArrayList<>();
-        this.subGroups = new ArrayList<>();
         logger.info("Nuovo gruppo creato: '" + this.groupName + "' " +
                 "(inizialmente vuoto - capacità conto: illimitata, sottogruppi: illimitati)");
     }
@@ -45,31 +106,44 @@ public class AccountGroup {
      * @param account conto da aggiungere al gruppo
      */
     public void addAccount(Account account) {
+        ensureLoaded();
         if (account == null) {
             logger.warning("Tentativo di aggiungere conto null al gruppo '" + groupName +
                     "' - Operazione ignorata");
             return;
         } else {
             // Veifica se esiste già un conto con lo stesso numero
-            for (Account existingAccount : accounts) {
-                if (existingAccount.getAccountNumber().equals(account.getAccountNumber())) {
-                    logger.warning("Tentativo di aggiungere conto duplicato '" +
-                            account.getAccountNumber() + "' al gruppo '" + groupName +
-                            "' - Conto già presente, operazione ignorata");
-                    return;
-                }
+            if (accounts.containsKey(account.getAccountNumber())) {
+                logger.warning("Tentativo di aggiungere conto duplicato '" +
+                        account.getAccountNumber() + "' al gruppo '" + groupName +
+                        "' - Conto già presente, operazione ignorata");
+                return;
             }
 
             // Aggiungiamo il conto alla nostra lista
-            accounts.add(account);
+            accounts.put(account.getAccountNumber(), account);
+            index.accountAdded(account.getAccountNumber(), this);
+            if (cachedTotals) {
+                synchronized (TOTALS_LOCK) {
+                    // Il gruppo parte dal saldo già contato negli altri gruppi del conto,
+                    // poi tutti ricevono la variazione rispetto al saldo attuale
+                    account.attachCachedGroup(this);
+                    applyDelta(account.getReportedBalance(), 1);
+                    reportBalance(account);
+                }
+            }
 
             // Registriamo il successo dell'operazione
-            logger.info("Conto " + account.getAccountNumber() +
-                    " aggiunto con successo al gruppo '" + groupName +
-                    "' (totale conti diretti nel gruppo: " + accounts.size() + ")");
+            if (logger.isLoggable(Level.INFO)) {
+                logger.info("Conto " + account.getAccountNumber() +
+                        " aggiunto con successo al gruppo '" + groupName +
+                        "' (totale conti diretti nel gruppo: " + accounts.size() + ")");
+            }
 
-            System.out.println("Conto " + account.getAccountNumber() +
-                    " aggiunto al gruppo " + groupName);
+            if (Notifications.isEnabled()) {
+                Notifications.publish("Conto " + account.getAccountNumber() +
+                        " aggiunto al gruppo " + groupName);
+            }
         }
     }
 
@@ -79,6 +153,7 @@ public class AccountGroup {
      * @param subGroup
      */
     public void addSubGroup(AccountGroup subGroup) {
+        ensureLoaded();
         if (subGroup == null) {
             logger.warning("Tentativo di aggiungere sottogruppo null al gruppo '" + groupName +
                     "' - Operazione ignorata");
@@ -92,33 +167,48 @@ public class AccountGroup {
             }
 
             // Verifica se questo sottogruppo non sia già presente
-            for (AccountGroup existingSubGroup : subGroups) {
-                if (existingSubGroup.getGroupName().equals(subGroup.getGroupName())) {
-                    logger.warning("Tentativo di aggiungere sottogruppo duplicato '" +
-                            subGroup.getGroupName() + "' al gruppo '" + groupName +
-                            "' - Sottogruppo già presente, operazione ignorata");
-                    return;
-                }
+            if (subGroups.containsKey(subGroup.groupName)) {
+                logger.warning("Tentativo di aggiungere sottogruppo duplicato '" +
+                        subGroup.getGroupName() + "' al gruppo '" + groupName +
+                        "' - Sottogruppo già presente, operazione ignorata");
+                return;
             }
 
-            // Verifica se questo gruppo non sia un sottogruppo del gruppo che si vuole
-            // aggiungere
-            if (subGroup.subGroups.contains(this)) {
+            // Verifica se questo gruppo non sia un discendente (a qualsiasi livello)
+            // del gruppo che si vuole aggiungere
+            if (hasAncestor(subGroup)) {
                 logger.warning("Tentativo di aggiungere il gruppo " + subGroup +
                         "' di cui '" + groupName + "' è sottogruppo" +
                         " - Operazione ignorata");
                 return;
             }
 
-            subGroups.add(subGroup);
+            subGroups.put(subGroup.groupName, subGroup);
+            GroupIndex.merge(index, subGroup.index);
+            synchronized (TOTALS_LOCK) {
+                // Il sottoalbero di un gruppo con cache deve avere la cache; si calcola
+                // prima del collegamento, così le variazioni riportate durante il
+                // calcolo non arrivano a questo gruppo oltre al totale aggiunto sotto
+                if (cachedTotals && !subGroup.cachedTotals) {
+                    subGroup.computeCachedTotals();
+                }
+                subGroup.parents.add(this);
+                if (cachedTotals) {
+                    applyDelta(subGroup.cachedBalance, subGroup.cachedAccountCount);
+                }
+            }
 
             // Registriamo il successo dell'operazione
-            logger.info("Sottogruppo '" + subGroup.getGroupName() +
-                    "' aggiunto con successo al gruppo '" + groupName +
-                    "' (totale sottogruppi: " + subGroups.size() + ")");
+            if (logger.isLoggable(Level.INFO)) {
+                logger.info("Sottogruppo '" + subGroup.getGroupName() +
+                        "' aggiunto con successo al gruppo '" + groupName +
+                        "' (totale sottogruppi: " + subGroups.size() + ")");
+            }
 
-            System.out.println("Sottogruppo " + subGroup.getGroupName() +
-                    " aggiunto al gruppo " + groupName);
+            if (Notifications.isEnabled()) {
+                Notifications.publish("Sottogruppo " + subGroup.getGroupName() +
+                        " aggiunto al gruppo " + groupName);
+            }
         }
     }
 
@@ -130,29 +220,37 @@ public class AccountGroup {
      *         sottogruppi
      */
     public double getTotalBalance() {
+        if (cachedTotals) {
+            return cachedBalance;
+        }
+        ensureLoaded();
         double total = 0;
 
         // Somma i saldi dei conti non in sottogruppi
-        for (Account account : accounts) {
+        for (Account account : accounts.values()) {
             total += account.getBalance();
         }
 
         // Registriamo il subtotale dei conti diretti
-        logger.info("Subtotale conti diretti nel gruppo '" + groupName + "': €" + total);
+        if (logger.isLoggable(Level.INFO)) {
+            logger.info("Subtotale conti diretti nel gruppo '" + groupName + "': €" + total);
+        }
 
         double subGroupsTotal = 0;
 
         // Somma i saldi dei sottogruppi (ricorsione)
-        for (AccountGroup subGroup : subGroups) {
+        for (AccountGroup subGroup : subGroups.values()) {
             double subGroupBalance = subGroup.getTotalBalance();
             subGroupsTotal += subGroupBalance;
         }
 
         total += subGroupsTotal;
 
-        logger.info("Calcolo completato per gruppo '" + groupName +
-                "': €" + (total - subGroupsTotal) + " (diretti) + €" + subGroupsTotal +
-                " (sottogruppi) = €" + total + " (totale)");
+        if (logger.isLoggable(Level.INFO)) {
+            logger.info("Calcolo completato per gruppo '" + groupName +
+                    "': €" + (total - subGroupsTotal) + " (diretti) + €" + subGroupsTotal +
+                    " (sottogruppi) = €" + total + " (totale)");
+        }
 
         return total;
     }
@@ -163,12 +261,18 @@ public class AccountGroup {
      * @return
      */
     public int getTotalAccountCount() {
+        if (cachedTotals) {
+            return cachedAccountCount;
+        }
+        ensureLoaded();
         int count = accounts.size();
-        logger.info("Conti diretti nel gruppo '" + groupName + "': " + count);
+        if (logger.isLoggable(Level.INFO)) {
+            logger.info("Conti diretti nel gruppo '" + groupName + "': " + count);
+        }
 
         // Poi aggiungiamo il conteggio di ogni sottogruppo (RICORSIONE!)
         int subGroupsCount = 0;
-        for (AccountGroup subGroup : subGroups) {
+        for (AccountGroup subGroup : subGroups.values()) {
             // Chiamata ricorsiva: il sottogruppo conta i suoi conti
             int subGroupAccountCount = subGroup.getTotalAccountCount();
             subGroupsCount += subGroupAccountCount;
@@ -176,13 +280,272 @@ public class AccountGroup {
 
         count += subGroupsCount;
 
-        logger.info("Conteggio completato per gruppo '" + groupName +
-                "': " + accounts.size() + " (diretti) + " + subGroupsCount +
-                " (sottogruppi) = " + count + " (totale)");
+        if (logger.isLoggable(Level.INFO)) {
+            logger.info("Conteggio completato per gruppo '" + groupName +
+                    "': " + accounts.size() + " (diretti) + " + subGroupsCount +
+                    " (sottogruppi) = " + count + " (totale)");
+        }
 
         return count;
     }
 
+    /**
+     * Attiva i totali in cache per questo gruppo e tutto il suo sottoalbero:
+     * i totali vengono calcolati una volta e poi aggiornati a ogni variazione.
+     * Richiamarlo su un gruppo già in cache ricalcola i totali da zero (utile
+     * per azzerare gli arrotondamenti accumulati dagli aggiornamenti).
+     */
+    public void enableCachedTotals() {
+        synchronized (TOTALS_LOCK) {
+            boolean wasCached = cachedTotals;
+            int previousCount = cachedAccountCount;
+            double balanceCorrection = computeCachedTotals();
+            if (wasCached) {
+                for (AccountGroup parent : parents) {
+                    if (parent.cachedTotals) {
+                        parent.applyDelta(balanceCorrection, cachedAccountCount - previousCount);
+                    }
+                }
+            }
+        }
+        if (logger.isLoggable(Level.INFO)) {
+            logger.info("Totali in cache attivati per il gruppo '" + groupName + "': €" + cachedBalance + ", "
+                    + cachedAccountCount + " conti");
+        }
+    }
+
+    /**
+     * Verifica se il gruppo mantiene i totali in cache
+     * 
+     * @return boolean - true se i totali sono in cache
+     */
+    public boolean isCachedTotalsEnabled() {
+        return cachedTotals;
+    }
+
+    /**
+     * Restituisce i gruppi che contengono direttamente questo gruppo
+     * 
+     * @return List<AccountGroup> - copia della lista dei gruppi padre
+     */
+    public List<AccountGroup> getParentGroups() {
+        synchronized (TOTALS_LOCK) {
+            return new ArrayList<>(parents);
+        }
+    }
+
+    /**
+     * Calcola i totali del sottoalbero e registra il gruppo sui suoi conti
+     * (con TOTALS_LOCK)
+     * 
+     * @return double - differenza fra il saldo calcolato e quello in cache che
+     *         sostituisce, da propagare ai padri se il gruppo era già in cache
+     */
+    private double computeCachedTotals() {
+        ensureLoaded();
+        double total = 0;
+        int count = accounts.size();
+        for (Account account : accounts.values()) {
+            // Il saldo si legge dopo l'aggancio: una variazione concorrente o è
+            // già nel saldo letto o troverà il gruppo agganciato
+            account.attachCachedGroup(this);
+            reportBalance(account);
+            total += account.getReportedBalance();
+        }
+        for (AccountGroup subGroup : subGroups.values()) {
+            subGroup.computeCachedTotals();
+            total += subGroup.cachedBalance;
+            count += subGroup.cachedAccountCount;
+        }
+        double correction = total - cachedBalance;
+        cachedBalance = total;
+        cachedAccountCount = count;
+        cachedTotals = true;
+        return correction;
+    }
+
+    /**
+     * Applica una variazione ai totali in cache e la propaga ai padri con
+     * cache (con TOTALS_LOCK)
+     */
+    private void applyDelta(double balanceDelta, int countDelta) {
+        cachedBalance += balanceDelta;
+        cachedAccountCount += countDelta;
+        for (AccountGroup parent : parents) {
+            if (parent.cachedTotals) {
+                parent.applyDelta(balanceDelta, countDelta);
+            }
+        }
+    }
+
+    /**
+     * Propaga la variazione di saldo di un conto ai gruppi con cache che lo
+     * contengono direttamente (chiamato da Account)
+     */
+    static void accountBalanceChanged(Account account) {
+        synchronized (TOTALS_LOCK) {
+            reportBalance(account);
+        }
+    }
+
+    /**
+     * Riporta nei gruppi con cache che contengono il conto la parte del saldo
+     * attuale non ancora contata (con TOTALS_LOCK): tutti i gruppi agganciati
+     * contano sempre lo stesso saldo, quello restituito da getReportedBalance
+     */
+    private static void reportBalance(Account account) {
+        double delta = account.takeUnreportedDelta();
+        AccountGroup[] groups = account.getCachedGroups();
+        if (delta != 0 && groups != null) {
+            for (AccountGroup group : groups) {
+                group.applyDelta(delta, 0);
+            }
+        }
+    }
+
+    /**
+     * Aggrega in parallelo saldi, numero di conti, minimo, massimo e
+     * istogramma dei saldi di tutto il sottoalbero, con la soglia di divisione
+     * predefinita
+     * 
+     * @param histogramBounds limiti crescenti degli intervalli dell'istogramma
+     * @return GroupAggregate - il risultato
+     */
+    public GroupAggregate aggregateParallel(double[] histogramBounds) {
+        return aggregateParallel(histogramBounds, DEFAULT_SPLIT_THRESHOLD);
+    }
+
+    /**
+     * Aggrega in parallelo (fork-join) saldi, numero di conti, minimo, massimo
+     * e istogramma dei saldi di tutto il sottoalbero.
+     * 
+     * Ogni sottogruppo diventa un'attività separata e i conti diretti di un
+     * gruppo vengono divisi a metà finché non scendono sotto la soglia, così
+     * sia gli alberi larghi sia quelli profondi occupano tutti i core. Non usa
+     * i totali in cache: serve per le analisi ad hoc. I saldi vengono letti
+     * mentre le transazioni proseguono; la struttura dell'albero non deve
+     * cambiare durante il calcolo.
+     * 
+     * @param histogramBounds limiti strettamente crescenti degli intervalli
+     *                        dell'istogramma (anche vuoto)
+     * @param splitThreshold  conti sotto i quali non si divide ulteriormente
+     * @return GroupAggregate - il risultato
+     */
+    public GroupAggregate aggregateParallel(double[] histogramBounds, int splitThreshold) {
+        if (histogramBounds == null) {
+            throw new IllegalArgumentException("I limiti dell'istogramma non possono essere null");
+        }
+        if (splitThreshold <= 0) {
+            throw new IllegalArgumentException("La soglia di divisione deve essere positiva");
+        }
+        double[] bounds = histogramBounds.clone();
+        for (int i = 0; i < bounds.length; i++) {
+            if (Double.isNaN(bounds[i]) || (i > 0 && bounds[i] <= bounds[i - 1])) {
+                throw new IllegalArgumentException("I limiti dell'istogramma devono essere strettamente crescenti");
+            }
+        }
+
+        long startTime = System.nanoTime();
+        GroupAggregate result = ForkJoinPool.commonPool().invoke(new GroupTask(this, bounds, splitThreshold));
+        if (logger.isLoggable(Level.INFO)) {
+            logger.info("Aggregazione parallela del gruppo '" + groupName + "': " + result.getAccountCount()
+                    + " conti in " + (System.nanoTime() - startTime) / 1_000_000 + " ms");
+        }
+        return result;
+    }
+
+    /**
+     * Attività fork-join di un gruppo: avvia i sottogruppi e aggrega i conti
+     * diretti
+     */
+    private static final class GroupTask extends RecursiveTask<GroupAggregate> {
+
+        private static final long serialVersionUID = 1L;
+
+        /** Gruppo da aggregare */
+        private final AccountGroup group;
+
+        /** Limiti dell'istogramma */
+        private final double[] bounds;
+
+        /** Soglia di divisione */
+        private final int threshold;
+
+        GroupTask(AccountGroup group, double[] bounds, int threshold) {
+            this.group = group;
+            this.bounds = bounds;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected GroupAggregate compute() {
+            group.ensureLoaded();
+            List<GroupTask> children = new ArrayList<>(group.subGroups.size());
+            for (AccountGroup subGroup : group.subGroups.values()) {
+                GroupTask child = new GroupTask(subGroup, bounds, threshold);
+                child.fork();
+                children.add(child);
+            }
+
+            Account[] direct = group.accounts.values().toArray(new Account[0]);
+            GroupAggregate result = new AccountRangeTask(direct, 0, direct.length, bounds, threshold).compute();
+
+            // Si attende in ordine inverso: le ultime avviate sono le prime a poter essere eseguite qui
+            for (int i = children.size() - 1; i >= 0; i--) {
+                result.merge(children.get(i).join());
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Attività fork-join su un intervallo dei conti diretti di un gruppo
+     */
+    private static final class AccountRangeTask extends RecursiveTask<GroupAggregate> {
+
+        private static final long serialVersionUID = 1L;
+
+        /** Conti del gruppo */
+        private final Account[] accounts;
+
+        /** Primo conto (incluso) */
+        private final int from;
+
+        /** Ultimo conto (escluso) */
+        private final int to;
+
+        /** Limiti dell'istogramma */
+        private final double[] bounds;
+
+        /** Soglia di divisione */
+        private final int threshold;
+
+        AccountRangeTask(Account[] accounts, int from, int to, double[] bounds, int threshold) {
+            this.accounts = accounts;
+            this.from = from;
+            this.to = to;
+            this.bounds = bounds;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected GroupAggregate compute() {
+            if (to - from <= threshold) {
+                GroupAggregate result = new GroupAggregate(bounds);
+                for (int i = from; i < to; i++) {
+                    result.add(accounts[i].getBalance());
+                }
+                return result;
+            }
+            int middle = (from + to) >>> 1;
+            AccountRangeTask left = new AccountRangeTask(accounts, from, middle, bounds, threshold);
+            left.fork();
+            GroupAggregate result = new AccountRangeTask(accounts, middle, to, bounds, threshold).compute();
+            result.merge(left.join());
+            return result;
+        }
+    }
+
     /**
      * Restituisce il nome di questo gruppo
      * 
@@ -199,7 +562,8 @@ public class AccountGroup {
      * @return List<Account> - lista contenente gli stessi conti
      */
     public List<Account> getAccounts() {
-        return new ArrayList<>(accounts);
+        ensureLoaded();
+        return new ArrayList<>(accounts.values());
     }
 
     /**
@@ -208,7 +572,8 @@ public class AccountGroup {
      * @return List<AccountGroup> -lista contenente gli stessi sottogruppi
      */
     public List<AccountGroup> getSubGroups() {
-        return new ArrayList<>(subGroups);
+        ensureLoaded();
+        return new ArrayList<>(subGroups.values());
     }
 
     /**
@@ -218,6 +583,7 @@ public class AccountGroup {
      * @return boolean - true se il gruppo non contiene nulla, false altrimenti
      */
     public boolean isEmpty() {
+        ensureLoaded();
         boolean empty = accounts.isEmpty() && subGroups.isEmpty();
 
         if (empty) {
@@ -235,27 +601,246 @@ public class AccountGroup {
      * @return boolean - true se l'conto è presente da qualche parte nel gruppo
      */
     public boolean containsAccount(String accountNumber) {
-
-        logger.info("Ricercando conto '" + accountNumber + "' nel gruppo '" + groupName + "'");
+        if (accountNumber == null) {
+            return false;
+        }
+        ensureLoaded();
 
         // Cerchiamo nei diretti
-        for (Account account : accounts) {
-            if (account.getAccountNumber().equals(accountNumber)) {
-                logger.info("Conto '" + accountNumber + "' trovato direttamente nel gruppo '" + groupName + "'");
-                return true;
+        if (accounts.containsKey(accountNumber)) {
+            if (logger.isLoggable(Level.FINE)) {
+                logger.fine("Conto '" + accountNumber + "' trovato direttamente nel gruppo '" + groupName + "'");
             }
+            return true;
         }
 
-        // Cerchiamo ricorsivamente nei sottogruppi
-        for (AccountGroup subGroup : subGroups) {
-            if (subGroup.containsAccount(accountNumber)) {
-                logger.info("Conto '" + accountNumber + "' trovato nel sottogruppo '" +
-                        subGroup.getGroupName() + "' del gruppo '" + groupName + "'");
+        // Dai gruppi che contengono il conto si risale verso questo gruppo
+        for (AccountGroup owner : index.groupsWith(accountNumber)) {
+            if (owner.hasAncestor(this)) {
+                if (logger.isLoggable(Level.FINE)) {
+                    logger.fine("Conto '" + accountNumber + "' trovato nel sottogruppo '" +
+                            owner.getGroupName() + "' del gruppo '" + groupName + "'");
+                }
                 return true;
             }
         }
 
-        logger.info("Conto '" + accountNumber + "' NON trovato nel gruppo '" + groupName + "'");
+        // L'indice conosce solo i gruppi caricati: se ne restano da caricare si
+        // cercano nel sottoalbero, caricandoli uno alla volta fino al conto
+        if (index.hasPendingLoads() && searchPendingSubtree(accountNumber)) {
+            return true;
+        }
+
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine("Conto '" + accountNumber + "' NON trovato nel gruppo '" + groupName + "'");
+        }
         return false;
     }
-}
\ No newline at end of file
+
+    /**
+     * Restituisce i gruppi di questo sottoalbero (compreso il gruppo stesso)
+     * che contengono direttamente un conto, usando l'indice inverso. Se nel
+     * sottoalbero ci sono gruppi lazy non ancora caricati, questi vengono
+     * caricati prima della ricerca.
+     * 
+     * @param accountNumber numero del conto
+     * @return List<AccountGroup> - gruppi che contengono il conto (vuota se
+     *         nessuno)
+     */
+    public List<AccountGroup> getGroupsContaining(String accountNumber) {
+        List<AccountGroup> result = new ArrayList<>();
+        if (accountNumber == null) {
+            return result;
+        }
+        ensureLoaded();
+        if (index.hasPendingLoads()) {
+            loadSubtree();
+        }
+        for (AccountGroup owner : index.groupsWith(accountNumber)) {
+            if (owner == this || owner.hasAncestor(this)) {
+                result.add(owner);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Metodo che toglie un conto dal gruppo
+     * 
+     * @param accountNumber numero del conto da togliere
+     * @return boolean - true se il conto apparteneva direttamente al gruppo
+     */
+    public boolean removeAccount(String accountNumber) {
+        ensureLoaded();
+        Account account = accountNumber != null ? accounts.remove(accountNumber) : null;
+        if (account == null) {
+            logger.warning("Conto '" + accountNumber + "' non presente nel gruppo '" + groupName +
+                    "' - Operazione ignorata");
+            return false;
+        }
+        index.accountRemoved(accountNumber, this);
+        if (cachedTotals) {
+            synchronized (TOTALS_LOCK) {
+                // Il gruppo conteneva il saldo già contato, non quello attuale
+                account.detachCachedGroup(this);
+                applyDelta(-account.getReportedBalance(), -1);
+            }
+        }
+        if (Notifications.isEnabled()) {
+            Notifications.publish("Conto " + accountNumber + " tolto dal gruppo " + groupName);
+        }
+        return true;
+    }
+
+    /**
+     * Verifica se un gruppo è questo stesso gruppo o un suo antenato, risalendo
+     * i puntatori ai padri (ogni gruppo visitato una volta sola)
+     */
+    private boolean hasAncestor(AccountGroup candidate) {
+        if (candidate == this) {
+            return true;
+        }
+        synchronized (TOTALS_LOCK) {
+            if (parents.isEmpty()) {
+                return false;
+            }
+            Set<AccountGroup> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+            ArrayDeque<AccountGroup> pending = new ArrayDeque<>(parents);
+            while (!pending.isEmpty()) {
+                AccountGroup group = pending.poll();
+                if (group == candidate) {
+                    return true;
+                }
+                if (visited.add(group)) {
+                    pending.addAll(group.parents);
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Crea un gruppo il cui contenuto verrà caricato al primo accesso
+     * (usato da GroupHierarchyStore)
+     */
+    static AccountGroup lazy(String groupName, Loader loader) {
+        AccountGroup group = new AccountGroup(groupName);
+        group.loader = loader;
+        group.index.loadPending();
+        return group;
+    }
+
+    /**
+     * Verifica se il contenuto del gruppo è già in memoria
+     * 
+     * @return boolean - false se il gruppo attende ancora il caricamento
+     *         lazy
+     */
+    public boolean isLoaded() {
+        return loader == null;
+    }
+
+    /**
+     * Carica il contenuto del gruppo se è ancora da materializzare
+     */
+    private void ensureLoaded() {
+        if (loader == null) {
+            return;
+        }
+        synchronized (LOAD_LOCK) {
+            Loader pending = loader;
+            if (pending == null) {
+                return;
+            }
+            try {
+                pending.load(this);
+            } catch (java.io.IOException e) {
+                throw new IllegalStateException("Impossibile caricare il gruppo '" + groupName + "': "
+                        + e.getMessage(), e);
+            }
+            // Solo ora gli altri thread possono leggere il contenuto
+            loader = null;
+            index.loadCompleted();
+        }
+    }
+
+    /**
+     * Cerca un conto nei gruppi del sottoalbero, caricando quelli lazy
+     * incontrati e fermandosi al primo gruppo che lo contiene
+     */
+    private boolean searchPendingSubtree(String accountNumber) {
+        ArrayDeque<AccountGroup> pending = new ArrayDeque<>(subGroups.values());
+        Set<AccountGroup> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        while (!pending.isEmpty()) {
+            AccountGroup group = pending.poll();
+            if (visited.add(group)) {
+                group.ensureLoaded();
+                if (group.accounts.containsKey(accountNumber)) {
+                    return true;
+                }
+                pending.addAll(group.subGroups.values());
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Carica i gruppi lazy del sottoalbero (serve alle ricerche che devono
+     * trovare tutti i gruppi di un conto)
+     */
+    private void loadSubtree() {
+        ArrayDeque<AccountGroup> pending = new ArrayDeque<>(subGroups.values());
+        Set<AccountGroup> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        while (!pending.isEmpty()) {
+            AccountGroup group = pending.poll();
+            if (visited.add(group)) {
+                group.ensureLoaded();
+                pending.addAll(group.subGroups.values());
+            }
+        }
+    }
+
+    /**
+     * Aggiunge un conto durante il caricamento, senza controlli né log
+     */
+    void attachLoadedAccount(Account account) {
+        if (accounts.putIfAbsent(account.getAccountNumber(), account) == null) {
+            index.accountAdded(account.getAccountNumber(), this);
+        }
+    }
+
+    /**
+     * Aggiunge un sottogruppo durante il caricamento, senza controlli né log
+     */
+    void attachLoadedSubGroup(AccountGroup subGroup) {
+        subGroups.put(subGroup.groupName, subGroup);
+        GroupIndex.merge(index, subGroup.index);
+        synchronized (TOTALS_LOCK) {
+            subGroup.parents.add(this);
+        }
+    }
+
+    /**
+     * Conti diretti senza copia né caricamento (usato da GroupHierarchyStore
+     * dopo ensureLoaded)
+     */
+    Collection<Account> directAccounts() {
+        ensureLoaded();
+        return accounts.values();
+    }
+
+    /**
+     * Sottogruppi diretti senza copia (usato da GroupHierarchyStore)
+     */
+    Collection<AccountGroup> directSubGroups() {
+        ensureLoaded();
+        return subGroups.values();
+    }
+
+    /**
+     * Sostituisce l'indice della gerarchia (usato da GroupIndex.merge)
+     */
+    void setIndex(GroupIndex index) {
+        this.index = index;
+    }
+}
@@ -1,6 +1,7 @@
 package bank.account;
 
 import java.util.*;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
@@ -30,7 +31,9 @@ public class AccountIterator implements Iterator<Account> {
 
         if (accounts != null) {
             this.accounts = new ArrayList<>(accounts);
-            logger.info("Iterator " + iteratorId + " creato con " + accounts.size() + " account");
+            if (logger.isLoggable(Level.INFO)) {
+                logger.info("Iterator " + iteratorId + " creato con " + accounts.size() + " account");
+            }
         } else {
             this.accounts = new ArrayList<>();
             logger.warning("Iterator " + iteratorId + " creato con lista null - inizializzato come vuoto");
@@ -49,8 +52,10 @@ public class AccountIterator implements Iterator<Account> {
         boolean hasMore = currentPosition < accounts.size();
 
         if (!hasMore && currentPosition > 0) {
-            logger.info("Iterator " + iteratorId + " ha raggiunto la fine - " +
-                    currentPosition + " conti processati");
+            if (logger.isLoggable(Level.INFO)) {
+                logger.info("Iterator " + iteratorId + " ha raggiunto la fine - " +
+                        currentPosition + " conti processati");
+            }
         }
 
         return hasMore;
@@ -71,8 +76,10 @@ public class AccountIterator implements Iterator<Account> {
 
         Account currentAccount = accounts.get(currentPosition);
 
-        logger.info("Iterator " + iteratorId + " - accesso conto #" + (currentPosition + 1) +
-                ": " + currentAccount.getAccountNumber() + " (" + currentAccount.getAccountType() + ")");
+        if (logger.isLoggable(Level.INFO)) {
+            logger.info("Iterator " + iteratorId + " - accesso conto #" + (currentPosition + 1) +
+                    ": " + currentAccount.getAccountNumber() + " (" + currentAccount.getAccountType() + ")");
+        }
 
         // Incrementiamo la posizione per la prossima chiamata
         currentPosition++;
@@ -89,6 +96,20 @@ public class AccountIterator implements Iterator<Account> {
      *         tipo specificato
      */
     public static AccountIterator createFilteredIterator(List<Account> accounts, String accountType) {
+        // Il nome viene convertito una sola volta, il filtro confronta solo codici
+        return createFilteredIterator(accounts, AccountTypeTable.fromDisplayName(accountType));
+    }
+
+    /**
+     * Metodo che mostra solo conti di un tipo specifico, identificato dal suo
+     * codice compatto.
+     * 
+     * @param accounts lista completa di conti da filtrare
+     * @param typeCode codice del tipo di conto (vedi AccountTypeTable)
+     * @return AccountIterator - nuovo iterator che mostra solo i conti del
+     *         tipo specificato
+     */
+    public static AccountIterator createFilteredIterator(List<Account> accounts, int typeCode) {
         List<Account> filteredAccounts = new ArrayList<>();
 
         if (accounts != null) {
@@ -100,15 +121,19 @@ public class AccountIterator implements Iterator<Account> {
                 totalProcessed++;
 
                 // Controlliamo se il tipo di questo conto corrisponde a quello che cerchiamo
-                if (account.getAccountType().equals(accountType)) {
+                if (account.getTypeCode() == typeCode) {
                     filteredAccounts.add(account);
                     matchingAccounts++;
                 }
             }
 
             // Registriamo i risultati del filtering
-            logger.info("Filtering completato: " + matchingAccounts + "/" + totalProcessed +
-                    " conti selezionati per tipo '" + accountType + "'");
+            if (logger.isLoggable(Level.INFO)) {
+                logger.info("Filtering completato: " + matchingAccounts + "/" + totalProcessed +
+                        " conti selezionati per tipo '"
+                        + (AccountTypeTable.isValid(typeCode) ? AccountTypeTable.getDisplayName(typeCode) : typeCode)
+                        + "'");
+            }
         }
 
         // Creiamo e restituiamo un nuovo iterator che lavora solo sulla lista filtrata
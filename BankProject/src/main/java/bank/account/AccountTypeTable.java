@@ -0,0 +1,108 @@
+package bank.account;
+
+/**
+ * Tabella di dispatch dei tipi di conto.
+ *
+ * Ogni tipo di conto è identificato da un codice intero compatto che viene
+ * usato come indice nelle tabelle sottostanti: i controlli sul tipo diventano
+ * un semplice confronto fra interi e i nomi visualizzati (localizzati) restano
+ * separati dalla logica delle operazioni.
+ */
+public final class AccountTypeTable {
+
+    /** Codice del conto corrente */
+    public static final int CHECKING = 0;
+
+    /** Codice del conto di risparmio */
+    public static final int SAVINGS = 1;
+
+    /** Numero di tipi di conto gestiti (dimensione delle tabelle) */
+    public static final int TYPE_COUNT = 2;
+
+    /** Codice restituito quando il tipo non è riconosciuto */
+    public static final int UNKNOWN = -1;
+
+    /** Nomi visualizzati, indicizzati per codice */
+    private static final String[] DISPLAY_NAMES = {
+            "Conto Corrente",
+            "Conto Risparmio"
+    };
+
+    /** Tipi della factory, indicizzati per codice */
+    private static final AccountFactory.AccountType[] FACTORY_TYPES = {
+            AccountFactory.AccountType.CHECKING,
+            AccountFactory.AccountType.SAVINGS
+    };
+
+    /** Sezioni del report dettagliato, indicizzate per codice */
+    private static final String[] REPORT_SECTIONS = {
+            "Funzionalità: Prelievi con possibile scoperto\n" +
+                    "Flessibilità: Alta (operazioni frequenti)\n" +
+                    " Interessi: Non applicabili\n\n",
+            " Funzionalità: Solo prelievi con fondi disponibili\n" +
+                    " Flessibilità: Limitata (preservazione capitale)\n" +
+                    " Interessi: Maturazione automatica\n\n"
+    };
+
+    /**
+     * Costruttore privato: la classe contiene solo tabelle statiche
+     */
+    private AccountTypeTable() {
+    }
+
+    /**
+     * Verifica se un codice appartiene alla tabella.
+     *
+     * @param typeCode codice da verificare
+     * @return boolean - true se il codice è valido
+     */
+    public static boolean isValid(int typeCode) {
+        return typeCode >= 0 && typeCode < TYPE_COUNT;
+    }
+
+    /**
+     * Converte un nome visualizzato nel codice corrispondente.
+     * Da usare solo ai bordi del sistema (input, file), mai nel percorso caldo.
+     *
+     * @param displayName nome del tipo (es. "Conto Corrente")
+     * @return int - il codice del tipo, oppure UNKNOWN
+     */
+    public static int fromDisplayName(String displayName) {
+        for (int code = 0; code < TYPE_COUNT; code++) {
+            if (DISPLAY_NAMES[code].equals(displayName)) {
+                return code;
+            }
+        }
+        return UNKNOWN;
+    }
+
+    /**
+     * Restituisce il nome visualizzato di un tipo di conto.
+     *
+     * @param typeCode codice del tipo
+     * @return String - il nome visualizzato
+     */
+    public static String getDisplayName(int typeCode) {
+        return DISPLAY_NAMES[typeCode];
+    }
+
+    /**
+     * Restituisce il tipo della factory associato al codice.
+     *
+     * @param typeCode codice del tipo
+     * @return AccountFactory.AccountType - il tipo della factory
+     */
+    public static AccountFactory.AccountType getFactoryType(int typeCode) {
+        return FACTORY_TYPES[typeCode];
+    }
+
+    /**
+     * Restituisce la sezione "analisi tipo conto" del report dettagliato.
+     *
+     * @param typeCode codice del tipo
+     * @return String - il testo della sezione
+     */
+    public static String getReportSection(int typeCode) {
+        return REPORT_SECTIONS[typeCode];
+    }
+}
@@ -1,5 +1,6 @@
 package bank.account;
 
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
@@ -33,60 +34,10 @@ public class CheckingAccount extends Account {
      *                       considera 0)
      */
     public CheckingAccount(String accountNumber, String ownerName, double initialBalance) {
-        super(accountNumber, ownerName, initialBalance);
+        super(AccountTypeTable.CHECKING, accountNumber, ownerName, initialBalance);
         this.overdraftLimit = 100.0;
-        logger.info("Conto Corrente inizializzato: " + accountNumber + " con limite scoperto di €" + overdraftLimit);
-    }
-
-    /**
-     * Modalità di prelievo specifico per il conto corrente
-     * 
-     * @param amount - importo richiesto per il prelievo(deve essere positivo)
-     * @return boolean - Valore di ritorno che comunica l'esito dell'operazione
-     */
-    @Override
-    public boolean withdraw(double amount) {
-        if (amount <= 0) {
-            logWarning("Tentativo di prelievo con importo non valido: €" + amount);
-            System.out.println("Importo non valido per il prelievo");
-            return false;
-        }
-
-        double totalAvailable = balance + overdraftLimit;
-
-        // Stato del conto prima del prelievo
-        logger.info("Richiesta prelievo di €" + amount + " su account " + getAccountNumber() + " (saldo: €" + balance
-                + ", fido: €" + overdraftLimit + ", totale disponibile: €" + totalAvailable + ")");
-
-        if (totalAvailable >= amount) {
-            double previousBalance = balance;
-            balance -= amount;
-
-            // Si determina se il prelievo è normale o usa il fido
-            if (previousBalance >= amount) {
-                // Prelievo normale senza usare fido
-                logger.info("Prelievo normale eseguito: €" + amount + " (saldo: €" + previousBalance + " → €" + balance
-                        + ")");
-            } else {
-                // Prelievo che utilizza il fido
-                double overdraftUsed = amount - previousBalance;
-                logWarning("Prelievo con fido eseguito: €" + amount + " (scoperto utilizzato: €" + overdraftUsed
-                        + ", saldo: €" + previousBalance + " → €" + balance + ")");
-            }
-
-            // Registriamo l'operazione anche nel sistema base
-            logOperation("Prelievo di €" + amount + " eseguito");
-
-            return true;
-
-        } else {
-            double shortfall = amount - totalAvailable;
-
-            logWarning("Prelievo rifiutato per fondi insufficienti: richiesti €" + amount + ", disponibili €"
-                    + totalAvailable + ", mancanti €" + shortfall);
-
-            System.out.println("Fondi insufficienti");
-            return false;
+        if (logger.isLoggable(Level.INFO)) {
+            logger.info("Conto Corrente inizializzato: " + accountNumber + " con limite scoperto di €" + overdraftLimit);
         }
     }
 
@@ -97,7 +48,7 @@ public class CheckingAccount extends Account {
      */
     @Override
     public String getAccountType() {
-        return "Conto Corrente";
+        return AccountTypeTable.getDisplayName(AccountTypeTable.CHECKING);
     }
 
     /**
@@ -105,6 +56,7 @@ public class CheckingAccount extends Account {
      * 
      * @return overdraftLimit - Il limite fido
      */
+    @Override
     public double getOverdraftLimit() {
         return overdraftLimit;
     }
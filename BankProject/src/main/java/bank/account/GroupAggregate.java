@@ -0,0 +1,142 @@
+package bank.account;
+
+import java.util.Arrays;
+
+/**
+ * Risultato di AccountGroup.aggregateParallel: saldo totale, numero di conti,
+ * saldo minimo e massimo e istogramma dei saldi di un sottoalbero.
+ *
+ * L'istogramma ha un intervallo per ogni limite più uno finale: l'intervallo
+ * i conta i saldi minori di bounds[i] (e non minori di bounds[i - 1]),
+ * l'ultimo quelli non minori dell'ultimo limite. Durante il calcolo ogni
+ * sotto-attività riempie il proprio risultato parziale, poi i parziali
+ * vengono fusi: nessuno stato è condiviso fra i thread.
+ */
+public final class GroupAggregate {
+
+    /** Limiti superiori (esclusi) degli intervalli dell'istogramma */
+    private final double[] bucketBounds;
+
+    /** Conti per intervallo */
+    private final long[] histogram;
+
+    /** Somma dei saldi */
+    private double totalBalance;
+
+    /** Conti considerati */
+    private long accountCount;
+
+    /** Saldo minimo */
+    private double minBalance = Double.POSITIVE_INFINITY;
+
+    /** Saldo massimo */
+    private double maxBalance = Double.NEGATIVE_INFINITY;
+
+    /**
+     * Costruttore - risultato vuoto con i limiti già validati
+     */
+    GroupAggregate(double[] bucketBounds) {
+        this.bucketBounds = bucketBounds;
+        this.histogram = new long[bucketBounds.length + 1];
+    }
+
+    /**
+     * Aggiunge il saldo di un conto
+     */
+    void add(double balance) {
+        totalBalance += balance;
+        accountCount++;
+        if (balance < minBalance) {
+            minBalance = balance;
+        }
+        if (balance > maxBalance) {
+            maxBalance = balance;
+        }
+        histogram[bucketOf(balance)]++;
+    }
+
+    /**
+     * Fonde un risultato parziale in questo
+     */
+    void merge(GroupAggregate other) {
+        totalBalance += other.totalBalance;
+        accountCount += other.accountCount;
+        minBalance = Math.min(minBalance, other.minBalance);
+        maxBalance = Math.max(maxBalance, other.maxBalance);
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] += other.histogram[i];
+        }
+    }
+
+    /**
+     * Intervallo dell'istogramma di un saldo (ricerca binaria sui limiti)
+     */
+    private int bucketOf(double balance) {
+        int low = 0;
+        int high = bucketBounds.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (balance < bucketBounds[middle]) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return double - somma dei saldi
+     */
+    public double getTotalBalance() {
+        return totalBalance;
+    }
+
+    /**
+     * @return long - numero di conti
+     */
+    public long getAccountCount() {
+        return accountCount;
+    }
+
+    /**
+     * @return double - saldo minimo (NaN se non ci sono conti)
+     */
+    public double getMinBalance() {
+        return accountCount > 0 ? minBalance : Double.NaN;
+    }
+
+    /**
+     * @return double - saldo massimo (NaN se non ci sono conti)
+     */
+    public double getMaxBalance() {
+        return accountCount > 0 ? maxBalance : Double.NaN;
+    }
+
+    /**
+     * @return double - saldo medio (NaN se non ci sono conti)
+     */
+    public double getAverageBalance() {
+        return accountCount > 0 ? totalBalance / accountCount : Double.NaN;
+    }
+
+    /**
+     * @return double[] - copia dei limiti degli intervalli
+     */
+    public double[] getBucketBounds() {
+        return bucketBounds.clone();
+    }
+
+    /**
+     * @return long[] - copia dei conteggi per intervallo (limiti + 1 valori)
+     */
+    public long[] getHistogram() {
+        return histogram.clone();
+    }
+
+    @Override
+    public String toString() {
+        return "GroupAggregate{conti=" + accountCount + ", totale=" + totalBalance + ", min=" + getMinBalance()
+                + ", max=" + getMaxBalance() + ", istogramma=" + Arrays.toString(histogram) + "}";
+    }
+}
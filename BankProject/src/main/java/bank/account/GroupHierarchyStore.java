@@ -0,0 +1,370 @@
+package bank.account;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Persistenza della gerarchia dei gruppi con caricamento lazy.
+ *
+ * save() scrive un record per ogni gruppo (nome, numeri dei conti diretti,
+ * id e nome dei sottogruppi), ciascuno con lunghezza e CRC32, seguito da una
+ * tabella con la posizione di ogni record. open() legge solo l'intestazione e
+ * il record della radice: i sottogruppi nascono vuoti e leggono il proprio
+ * record al primo accesso, con una lettura posizionale della tabella. Memoria
+ * e tempo di avvio restano quindi proporzionali ai gruppi effettivamente
+ * interrogati: anche le ricerche per conto (containsAccount) caricano solo
+ * i gruppi lazy del sottoalbero interrogato, e solo finché non trovano il
+ * conto. Un sottogruppo condiviso da più padri viene salvato una volta e
+ * materializzato una volta sola.
+ *
+ * I conti sono salvati per numero e risolti al caricamento (es. con
+ * BankService::getAccount); i numeri non più risolvibili vengono saltati.
+ */
+public class GroupHierarchyStore implements Closeable {
+
+    /** logger statico */
+    private static final Logger logger = Logger.getLogger(GroupHierarchyStore.class.getName());
+
+    /** Magic del file ("GRPH") */
+    private static final int MAGIC = 0x47525048;
+
+    /** Versione del formato */
+    private static final int VERSION = 1;
+
+    /** Byte dell'intestazione: magic, versione, numero di gruppi, posizione della tabella */
+    private static final int HEADER_SIZE = 4 + 4 + 4 + 8;
+
+    /** Id della radice */
+    private static final int ROOT_ID = 0;
+
+    /** File della gerarchia */
+    private final File file;
+
+    /** Canale per le letture posizionali */
+    private final FileChannel channel;
+
+    /** Risoluzione dei numeri di conto */
+    private final Function<String, Account> accountResolver;
+
+    /** Gruppi salvati */
+    private final int groupCount;
+
+    /** Posizione della tabella dei record */
+    private final long tableOffset;
+
+    /** Gruppi già creati, per id (anche se non ancora caricati) */
+    private final Map<Integer, AccountGroup> materialized = new HashMap<>();
+
+    /** Radice della gerarchia */
+    private final AccountGroup root;
+
+    /**
+     * Costruttore (usare open)
+     */
+    private GroupHierarchyStore(File file, FileChannel channel, Function<String, Account> accountResolver,
+            int groupCount, long tableOffset) throws IOException {
+        this.file = file;
+        this.channel = channel;
+        this.accountResolver = accountResolver;
+        this.groupCount = groupCount;
+        this.tableOffset = tableOffset;
+        this.root = groupFor(ROOT_ID, null);
+        // La radice (primo livello) si carica subito: i suoi sottogruppi restano lazy
+        root.getSubGroups();
+    }
+
+    /**
+     * Salva la gerarchia di un gruppo (caricandola tutta, se era lazy)
+     *
+     * @param root radice della gerarchia
+     * @param file file di destinazione (sostituito in modo atomico)
+     * @return int - gruppi salvati
+     * @throws IOException errore di scrittura
+     */
+    public static int save(AccountGroup root, File file) throws IOException {
+        if (root == null) {
+            throw new IllegalArgumentException("La radice non può essere null");
+        }
+        long startTime = System.nanoTime();
+
+        // Id in ordine di visita in ampiezza, uno per gruppo (anche se condiviso)
+        Map<AccountGroup, Integer> ids = new IdentityHashMap<>();
+        List<AccountGroup> order = new ArrayList<>();
+        ArrayDeque<AccountGroup> pending = new ArrayDeque<>();
+        ids.put(root, ROOT_ID);
+        order.add(root);
+        pending.add(root);
+        while (!pending.isEmpty()) {
+            for (AccountGroup subGroup : pending.poll().directSubGroups()) {
+                if (!ids.containsKey(subGroup)) {
+                    ids.put(subGroup, order.size());
+                    order.add(subGroup);
+                    pending.add(subGroup);
+                }
+            }
+        }
+
+        File temporary = new File(file.getPath() + ".tmp");
+        try {
+            long[] offsets = new long[order.size()];
+            try (FileChannel output = FileChannel.open(temporary.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                long position = HEADER_SIZE;
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                CRC32 crc = new CRC32();
+                for (int id = 0; id < order.size(); id++) {
+                    AccountGroup group = order.get(id);
+                    bytes.reset();
+                    DataOutputStream record = new DataOutputStream(bytes);
+                    record.writeUTF(group.getGroupName());
+                    record.writeInt(group.directAccounts().size());
+                    for (Account account : group.directAccounts()) {
+                        record.writeUTF(account.getAccountNumber());
+                    }
+                    record.writeInt(group.directSubGroups().size());
+                    for (AccountGroup subGroup : group.directSubGroups()) {
+                        record.writeInt(ids.get(subGroup));
+                        record.writeUTF(subGroup.getGroupName());
+                    }
+                    record.flush();
+
+                    byte[] payload = bytes.toByteArray();
+                    crc.reset();
+                    crc.update(payload);
+                    ByteBuffer buffer = ByteBuffer.allocate(8 + payload.length);
+                    buffer.putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+                    offsets[id] = position;
+                    position += writeFully(output, buffer, position);
+                }
+
+                ByteBuffer table = ByteBuffer.allocate(offsets.length * 8);
+                for (long offset : offsets) {
+                    table.putLong(offset);
+                }
+                table.flip();
+                long tableOffset = position;
+                writeFully(output, table, tableOffset);
+
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(MAGIC).putInt(VERSION).putInt(order.size()).putLong(tableOffset).flip();
+                writeFully(output, header, 0);
+                output.force(true);
+            }
+            try {
+                Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException | RuntimeException e) {
+            // Una scrittura o una rinomina non riuscita non lascia il file temporaneo
+            try {
+                Files.deleteIfExists(temporary.toPath());
+            } catch (IOException cleanup) {
+                e.addSuppressed(cleanup);
+            }
+            throw e;
+        }
+
+        if (logger.isLoggable(Level.INFO)) {
+            logger.info("Gerarchia '" + root.getGroupName() + "' salvata su " + file + ": " + order.size()
+                    + " gruppi in " + (System.nanoTime() - startTime) / 1_000_000 + " ms");
+        }
+        return order.size();
+    }
+
+    /**
+     * Apre una gerarchia salvata: carica la radice e crea i suoi sottogruppi
+     * come gruppi lazy
+     *
+     * @param file            file scritto da save()
+     * @param accountResolver risoluzione dei numeri di conto (null = conto non
+     *                        disponibile)
+     * @return GroupHierarchyStore - la gerarchia aperta
+     * @throws IOException file mancante o non valido
+     */
+    public static GroupHierarchyStore open(File file, Function<String, Account> accountResolver)
+            throws IOException {
+        if (accountResolver == null) {
+            throw new IllegalArgumentException("Serve una funzione per risolvere i conti");
+        }
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            readFully(channel, header, 0);
+            if (header.getInt() != MAGIC) {
+                throw new IOException("File della gerarchia dei gruppi non valido: " + file);
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Versione della gerarchia non supportata: " + version + " in " + file);
+            }
+            int groupCount = header.getInt();
+            long tableOffset = header.getLong();
+            if (groupCount <= 0 || tableOffset < HEADER_SIZE || tableOffset + groupCount * 8L > channel.size()) {
+                throw new IOException("Intestazione della gerarchia corrotta in " + file);
+            }
+            return new GroupHierarchyStore(file, channel, accountResolver, groupCount, tableOffset);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return AccountGroup - radice della gerarchia
+     */
+    public AccountGroup getRoot() {
+        return root;
+    }
+
+    /**
+     * @return int - gruppi salvati nel file
+     */
+    public int getStoredGroupCount() {
+        return groupCount;
+    }
+
+    /**
+     * @return int - gruppi creati finora (caricati o in attesa di caricamento)
+     */
+    public int getMaterializedGroupCount() {
+        synchronized (materialized) {
+            return materialized.size();
+        }
+    }
+
+    /**
+     * Chiude il file: i gruppi non ancora caricati non potranno più esserlo
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Restituisce il gruppo di un id, creandolo lazy la prima volta
+     */
+    private AccountGroup groupFor(int id, String name) throws IOException {
+        synchronized (materialized) {
+            AccountGroup group = materialized.get(id);
+            if (group == null) {
+                String groupName = name != null ? name : readName(id);
+                group = AccountGroup.lazy(groupName, target -> load(id, target));
+                materialized.put(id, group);
+            }
+            return group;
+        }
+    }
+
+    /**
+     * Carica il record di un gruppo: conti risolti e sottogruppi lazy
+     */
+    private void load(int id, AccountGroup group) throws IOException {
+        DataInputStream record = readRecord(id);
+        record.readUTF();
+        int accountCount = record.readInt();
+        int missing = 0;
+        for (int i = 0; i < accountCount; i++) {
+            String accountNumber = record.readUTF();
+            Account account = accountResolver.apply(accountNumber);
+            if (account != null) {
+                group.attachLoadedAccount(account);
+            } else {
+                missing++;
+            }
+        }
+        int subGroupCount = record.readInt();
+        for (int i = 0; i < subGroupCount; i++) {
+            int childId = record.readInt();
+            String childName = record.readUTF();
+            if (childId <= 0 || childId >= groupCount) {
+                throw new IOException("Sottogruppo con id non valido " + childId + " in " + file);
+            }
+            group.attachLoadedSubGroup(groupFor(childId, childName));
+        }
+        if (missing > 0) {
+            logger.warning("Gruppo '" + group.getGroupName() + "': " + missing
+                    + " conti salvati non più disponibili, saltati");
+        }
+    }
+
+    /**
+     * Legge solo il nome di un gruppo (usato per la radice)
+     */
+    private String readName(int id) throws IOException {
+        return readRecord(id).readUTF();
+    }
+
+    /**
+     * Legge e verifica il record di un gruppo
+     */
+    private DataInputStream readRecord(int id) throws IOException {
+        ByteBuffer slot = ByteBuffer.allocate(8);
+        readFully(channel, slot, tableOffset + id * 8L);
+        long offset = slot.getLong();
+
+        ByteBuffer prefix = ByteBuffer.allocate(8);
+        readFully(channel, prefix, offset);
+        int length = prefix.getInt();
+        int storedCrc = prefix.getInt();
+        if (length < 0 || offset + 8 + length > tableOffset) {
+            throw new IOException("Record del gruppo " + id + " corrotto in " + file);
+        }
+        ByteBuffer payload = ByteBuffer.allocate(length);
+        readFully(channel, payload, offset + 8);
+        CRC32 crc = new CRC32();
+        crc.update(payload.array());
+        if ((int) crc.getValue() != storedCrc) {
+            throw new IOException("CRC non valido nel record del gruppo " + id + " in " + file);
+        }
+        return new DataInputStream(new ByteArrayInputStream(payload.array()));
+    }
+
+    /**
+     * Scrive tutto il buffer alla posizione indicata
+     */
+    private static int writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer, position + written);
+        }
+        return written;
+    }
+
+    /**
+     * Riempie il buffer leggendo dalla posizione indicata
+     */
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int read = 0;
+        while (buffer.hasRemaining()) {
+            int count = channel.read(buffer, position + read);
+            if (count < 0) {
+                throw new IOException("Fine del file inattesa nella gerarchia dei gruppi");
+            }
+            read += count;
+        }
+        buffer.flip();
+    }
+}
@@ -0,0 +1,132 @@
+package bank.account;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Indice inverso conto → gruppi, condiviso da tutti i gruppi di una stessa
+ * gerarchia.
+ *
+ * Per ogni numero di conto elenca i gruppi che lo contengono direttamente.
+ * Quando addSubGroup collega due gerarchie i loro indici vengono fusi,
+ * versando sempre il più piccolo nel più grande: ogni voce viene spostata al
+ * più O(log n) volte. L'indice vive e muore con la gerarchia, quindi non
+ * trattiene gruppi non più usati.
+ */
+final class GroupIndex {
+
+    /** Gruppi che contengono direttamente ogni conto */
+    private final Map<String, List<AccountGroup>> groupsByAccount = new HashMap<>();
+
+    /** Gruppi che usano questo indice */
+    private final List<AccountGroup> groups = new ArrayList<>();
+
+    /** Voci dell'indice (coppie conto-gruppo) */
+    private int entries;
+
+    /**
+     * Gruppi lazy della gerarchia non ancora caricati: finché sono più di zero
+     * l'indice non conosce tutti i conti
+     */
+    private int pendingLoads;
+
+    /**
+     * Costruttore - indice di un gruppo appena creato
+     */
+    GroupIndex(AccountGroup group) {
+        groups.add(group);
+    }
+
+    /**
+     * Registra un conto aggiunto direttamente a un gruppo
+     */
+    void accountAdded(String accountNumber, AccountGroup group) {
+        List<AccountGroup> owners = groupsByAccount.get(accountNumber);
+        if (owners == null) {
+            owners = new ArrayList<>(1);
+            groupsByAccount.put(accountNumber, owners);
+        }
+        owners.add(group);
+        entries++;
+    }
+
+    /**
+     * Registra un conto tolto da un gruppo
+     */
+    void accountRemoved(String accountNumber, AccountGroup group) {
+        List<AccountGroup> owners = groupsByAccount.get(accountNumber);
+        if (owners != null && owners.remove(group)) {
+            entries--;
+            if (owners.isEmpty()) {
+                groupsByAccount.remove(accountNumber);
+            }
+        }
+    }
+
+    /**
+     * Registra un gruppo lazy in attesa di caricamento
+     */
+    void loadPending() {
+        pendingLoads++;
+    }
+
+    /**
+     * Registra il caricamento di un gruppo lazy
+     */
+    void loadCompleted() {
+        pendingLoads--;
+    }
+
+    /**
+     * @return boolean - true se qualche gruppo della gerarchia non è ancora
+     *         caricato
+     */
+    boolean hasPendingLoads() {
+        return pendingLoads > 0;
+    }
+
+    /**
+     * Gruppi della gerarchia che contengono direttamente un conto
+     */
+    List<AccountGroup> groupsWith(String accountNumber) {
+        List<AccountGroup> owners = groupsByAccount.get(accountNumber);
+        return owners != null ? owners : Collections.emptyList();
+    }
+
+    /**
+     * Fonde due indici e restituisce quello che resta: tutti i gruppi del più
+     * piccolo passano al più grande
+     */
+    static GroupIndex merge(GroupIndex first, GroupIndex second) {
+        if (first == second) {
+            return first;
+        }
+        GroupIndex larger = first.weight() >= second.weight() ? first : second;
+        GroupIndex smaller = larger == first ? second : first;
+        for (Map.Entry<String, List<AccountGroup>> entry : smaller.groupsByAccount.entrySet()) {
+            List<AccountGroup> owners = larger.groupsByAccount.get(entry.getKey());
+            if (owners == null) {
+                larger.groupsByAccount.put(entry.getKey(), entry.getValue());
+            } else {
+                owners.addAll(entry.getValue());
+            }
+        }
+        larger.entries += smaller.entries;
+        larger.pendingLoads += smaller.pendingLoads;
+        for (AccountGroup group : smaller.groups) {
+            group.setIndex(larger);
+        }
+        larger.groups.addAll(smaller.groups);
+        return larger;
+    }
+
+    /**
+     * Peso dell'indice per scegliere il verso della fusione
+     */
+    private int weight() {
+        return entries + groups.size();
+    }
+}
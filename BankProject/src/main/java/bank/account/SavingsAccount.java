@@ -1,5 +1,6 @@
 package bank.account;
 
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
@@ -26,36 +27,11 @@ public class SavingsAccount extends Account {
      *                       considera 0)
      */
     public SavingsAccount(String accountNumber, String ownerName, double initialBalance) {
-        super(accountNumber, ownerName, initialBalance);
+        super(AccountTypeTable.SAVINGS, accountNumber, ownerName, initialBalance);
         this.interestRate = 0.02;
-        logger.info("Conto Risparmio inizializzato: " + accountNumber + " con tasso interesse annuale del "
-                + (interestRate * 100) + "%");
-    }
-
-    /**
-     * Modalità di prelievo specifico per il conto risparmio
-     * 
-     * @param amount - importo richiesto per il prelievo(deve essere positivo)
-     * @return boolean - Valore di ritorno che comunica l'esito dell'operazione
-     */
-    @Override
-    public boolean withdraw(double amount) {
-        if (amount <= 0) {
-            logWarning("Tentativo di prelievo con importo non valido: €" + amount);
-            System.out.println("Importo non valido per il prelievo");
-            return false;
-        }
-
-        // I conti di risparmio non permettono scoperto
-        if (balance >= amount) {
-            balance -= amount;
-            logOperation("Prelievo di " + amount + " eseguito");
-            return true;
-        } else {
-            logWarning("Prelievo rifiutato per fondi insufficienti: richiesti €" + amount + ", disponibili €"
-                    + balance);
-            System.out.println("Fondi insufficienti");
-            return false;
+        if (logger.isLoggable(Level.INFO)) {
+            logger.info("Conto Risparmio inizializzato: " + accountNumber + " con tasso interesse annuale del "
+                    + (interestRate * 100) + "%");
         }
     }
 
@@ -65,6 +41,7 @@ public class SavingsAccount extends Account {
     public void addInterest() {
         double interest = balance * interestRate;
         balance += interest;
+        balanceChanged();
         logOperation("Interessi di " + interest + " aggiunti");
     }
 
@@ -75,6 +52,6 @@ public class SavingsAccount extends Account {
      */
     @Override
     public String getAccountType() {
-        return "Conto Risparmio";
+        return AccountTypeTable.getDisplayName(AccountTypeTable.SAVINGS);
     }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package bank.builderPattern;
 
+import bank.logging.Notifications;
 import java.util.logging.Logger;
 
 import bank.BankException;
@@ -141,6 +142,7 @@ public class AccountBuilder {
                     accountNumber,
                     ownerName,
                     initialBalance);
+            account.setPremium(isPremium);
 
             // Log di successo con dettagli della costruzione
             String accountInfo = String.format(
@@ -152,7 +154,9 @@ public class AccountBuilder {
                     isPremium ? " (Premium)" : " (Standard)");
 
             logger.info(accountInfo);
-            System.out.println("" + accountInfo);
+            if (Notifications.isEnabled()) {
+                Notifications.publish("" + accountInfo);
+            }
 
             return account;
 
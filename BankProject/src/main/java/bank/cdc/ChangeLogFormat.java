@@ -0,0 +1,119 @@
+package bank.cdc;
+
+import java.io.File;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Formato dei segmenti del change log (condiviso da writer e reader).
+ *
+ * Ogni segmento è un file "segment-<sequenza base>.cdc" di dimensione fissa,
+ * preallocato e mappato in memoria. Dopo un'intestazione di 8 byte (magic e
+ * versione) contiene record allineati a 8 byte, big-endian:
+ *
+ * <pre>
+ *  0  int   lunghezza del record (0 = non ancora scritto, -1 = fine segmento)
+ *  4  int   CRC32 dei byte [8, 40 + n)
+ *  8  long  sequenza
+ * 16  long  istante (millisecondi epoch)
+ * 24  long  importo in centesimi
+ * 32  int   id del conto
+ * 36  byte  operazione (ordinale di TransactionOperation)
+ * 37  byte  esito (TransactionEvent.OUTCOME_*)
+ * 38  short n = lunghezza del numero di conto in byte
+ * 40  n byte numero di conto (UTF-8)
+ * </pre>
+ *
+ * Il writer scrive la lunghezza per ultima con semantica release e il reader
+ * la legge con semantica acquire: un record con lunghezza valida è completo.
+ */
+final class ChangeLogFormat {
+
+    /** Magic dei segmenti ("BCDC") */
+    static final int MAGIC = 0x42434443;
+
+    /** Versione del formato */
+    static final int VERSION = 1;
+
+    /** Byte dell'intestazione del segmento */
+    static final int SEGMENT_HEADER_SIZE = 8;
+
+    /** Byte fissi di un record prima del numero di conto */
+    static final int RECORD_HEADER_SIZE = 40;
+
+    /** Lunghezza che segna la fine dei record di un segmento */
+    static final int END_OF_SEGMENT = -1;
+
+    /** Lunghezza massima del numero di conto in byte */
+    static final int MAX_ACCOUNT_NUMBER_BYTES = 1024;
+
+    /** Dimensione minima di un segmento */
+    static final int MIN_SEGMENT_SIZE = 4096;
+
+    /** Posizioni dei campi nel record */
+    static final int LENGTH_OFFSET = 0;
+    static final int CRC_OFFSET = 4;
+    static final int SEQUENCE_OFFSET = 8;
+    static final int TIMESTAMP_OFFSET = 16;
+    static final int AMOUNT_OFFSET = 24;
+    static final int ACCOUNT_ID_OFFSET = 32;
+    static final int OPERATION_OFFSET = 36;
+    static final int OUTCOME_OFFSET = 37;
+    static final int ACCOUNT_LENGTH_OFFSET = 38;
+
+    /** Accesso ordinato agli int dei buffer mappati (lunghezza dei record) */
+    static final VarHandle INT_HANDLE = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
+    /** Prefisso dei file dei segmenti */
+    private static final String PREFIX = "segment-";
+
+    /** Estensione dei file dei segmenti */
+    private static final String SUFFIX = ".cdc";
+
+    /**
+     * Costruttore privato (solo costanti e metodi statici)
+     */
+    private ChangeLogFormat() {
+    }
+
+    /**
+     * Arrotonda una dimensione al multiplo di 8 successivo
+     */
+    static int align(int size) {
+        return (size + 7) & ~7;
+    }
+
+    /**
+     * File del segmento che inizia dalla sequenza indicata
+     */
+    static File segmentFile(File directory, long baseSequence) {
+        return new File(directory, String.format("%s%020d%s", PREFIX, baseSequence, SUFFIX));
+    }
+
+    /**
+     * Sequenze base dei segmenti presenti nella cartella, in ordine crescente
+     */
+    static long[] listSegments(File directory) {
+        String[] names = directory.list();
+        if (names == null) {
+            return new long[0];
+        }
+        long[] bases = new long[names.length];
+        int count = 0;
+        for (String name : names) {
+            if (name.startsWith(PREFIX) && name.endsWith(SUFFIX)) {
+                try {
+                    long base = Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+                    bases[count++] = base;
+                } catch (NumberFormatException e) {
+                    // file estraneo con lo stesso prefisso: si ignora
+                }
+            }
+        }
+        long[] result = Arrays.copyOf(bases, count);
+        Arrays.sort(result);
+        return result;
+    }
+}
@@ -0,0 +1,226 @@
+package bank.cdc;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Reader in coda (tailing) del change log scritto da ChangeLogWriter.
+ *
+ * Mappa in memoria i segmenti in sola lettura e legge i record man mano che
+ * il writer li pubblica, anche da un altro processo: poll() restituisce false
+ * quando non ci sono record nuovi e va semplicemente richiamato più tardi.
+ * La posizione è la sequenza del prossimo record (getNextSequence): salvarla
+ * e passarla a open() permette di riprendere dopo un riavvio.
+ *
+ * Un reader non è thread-safe: ogni consumatore usa il proprio.
+ */
+public class ChangeLogReader implements Closeable {
+
+    /** logger statico */
+    private static final Logger logger = Logger.getLogger(ChangeLogReader.class.getName());
+
+    /** Cartella dei segmenti */
+    private final File directory;
+
+    /** CRC dei record, riutilizzato */
+    private final CRC32 crc = new CRC32();
+
+    /** Segmento corrente mappato in memoria (null se non ancora disponibile) */
+    private MappedByteBuffer segment;
+
+    /** Posizione del prossimo record nel segmento */
+    private int position;
+
+    /** Sequenza del prossimo record da restituire */
+    private long nextSequence;
+
+    /** Sequenza successiva all'ultimo record letto, anche se saltato (base del segmento seguente) */
+    private long readSequence;
+
+    /** Sequenza da cui il chiamante ha chiesto di partire */
+    private final long fromSequence;
+
+    /** true dopo close() */
+    private boolean closed;
+
+    /**
+     * Costruttore (usare open)
+     */
+    private ChangeLogReader(File directory, long fromSequence) {
+        this.directory = directory;
+        this.fromSequence = fromSequence;
+        this.nextSequence = fromSequence;
+    }
+
+    /**
+     * Apre un reader che restituisce i record a partire dalla sequenza
+     * indicata (0 per leggere tutto il log). Se i segmenti più vecchi sono
+     * stati rimossi si parte dal primo disponibile.
+     *
+     * @param directory    cartella del change log
+     * @param fromSequence prima sequenza da restituire
+     * @return ChangeLogReader - il reader posizionato
+     * @throws IOException errore di lettura o record corrotto
+     */
+    public static ChangeLogReader open(File directory, long fromSequence) throws IOException {
+        if (fromSequence < 0) {
+            throw new IllegalArgumentException("La sequenza non può essere negativa");
+        }
+        ChangeLogReader reader = new ChangeLogReader(directory, fromSequence);
+        reader.locateSegment();
+        return reader;
+    }
+
+    /**
+     * Legge il prossimo record, se disponibile
+     *
+     * @param record record da valorizzare (riutilizzabile)
+     * @return boolean - true se il record è stato letto, false se non ci sono
+     *         record nuovi per ora
+     * @throws IOException errore di lettura o record corrotto
+     */
+    public boolean poll(ChangeLogRecord record) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Reader del change log chiuso");
+        }
+        if (segment == null && !locateSegment()) {
+            return false;
+        }
+
+        while (true) {
+            int length = (int) ChangeLogFormat.INT_HANDLE.getAcquire(segment, position);
+            if (length == 0) {
+                return false;
+            }
+            if (length == ChangeLogFormat.END_OF_SEGMENT) {
+                if (!mapSegment(readSequence)) {
+                    return false;
+                }
+                continue;
+            }
+
+            readRecord(length, record);
+            position += length;
+            readSequence = record.getSequence() + 1;
+            if (record.getSequence() < fromSequence) {
+                // Posizionamento iniziale dentro il segmento
+                continue;
+            }
+            nextSequence = record.getSequence() + 1;
+            return true;
+        }
+    }
+
+    /**
+     * Restituisce la sequenza del prossimo record: è l'offset da salvare per
+     * riprendere la lettura
+     *
+     * @return long - prossima sequenza
+     */
+    public long getNextSequence() {
+        return nextSequence;
+    }
+
+    /**
+     * Rilascia il segmento corrente
+     */
+    @Override
+    public void close() {
+        closed = true;
+        segment = null;
+    }
+
+    /**
+     * Cerca il segmento che contiene la sequenza di partenza (o il primo
+     * disponibile) e lo mappa
+     */
+    private boolean locateSegment() throws IOException {
+        long[] segments = ChangeLogFormat.listSegments(directory);
+        if (segments.length == 0) {
+            return false;
+        }
+        long base = segments[0];
+        for (long candidate : segments) {
+            if (candidate <= fromSequence) {
+                base = candidate;
+            }
+        }
+        if (base > fromSequence) {
+            logger.warning("Change log: sequenza " + fromSequence + " non più disponibile, si riparte da " + base);
+            nextSequence = base;
+        }
+        return mapSegment(base);
+    }
+
+    /**
+     * Mappa il segmento che inizia dalla sequenza indicata, se il writer lo ha
+     * già creato e inizializzato
+     */
+    private boolean mapSegment(long baseSequence) throws IOException {
+        File file = ChangeLogFormat.segmentFile(directory, baseSequence);
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < ChangeLogFormat.MIN_SEGMENT_SIZE) {
+                return false;
+            }
+            // La mappatura resta valida dopo la chiusura del canale
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        if ((int) ChangeLogFormat.INT_HANDLE.getAcquire(buffer, 0) != ChangeLogFormat.MAGIC) {
+            return false;
+        }
+        int version = buffer.getInt(4);
+        if (version != ChangeLogFormat.VERSION) {
+            throw new IOException("Versione del change log non supportata: " + version + " in " + file);
+        }
+        segment = buffer;
+        position = ChangeLogFormat.SEGMENT_HEADER_SIZE;
+        readSequence = baseSequence;
+        return true;
+    }
+
+    /**
+     * Decodifica e verifica il record alla posizione corrente
+     */
+    private void readRecord(int length, ChangeLogRecord record) throws IOException {
+        int start = position;
+        if ((length & 7) != 0 || length < ChangeLogFormat.RECORD_HEADER_SIZE || start + length > segment.limit()) {
+            throw new IOException("Record del change log corrotto (lunghezza " + length + ") dopo la sequenza "
+                    + (nextSequence - 1));
+        }
+        int accountLength = segment.getShort(start + ChangeLogFormat.ACCOUNT_LENGTH_OFFSET);
+        if (accountLength < 0 || accountLength > ChangeLogFormat.MAX_ACCOUNT_NUMBER_BYTES
+                || ChangeLogFormat.align(ChangeLogFormat.RECORD_HEADER_SIZE + accountLength) != length) {
+            throw new IOException("Record del change log corrotto (conto di " + accountLength + " byte)");
+        }
+
+        crc.reset();
+        segment.limit(start + ChangeLogFormat.RECORD_HEADER_SIZE + accountLength)
+                .position(start + ChangeLogFormat.SEQUENCE_OFFSET);
+        crc.update(segment);
+        segment.clear();
+        if ((int) crc.getValue() != segment.getInt(start + ChangeLogFormat.CRC_OFFSET)) {
+            throw new IOException("CRC non valido nel change log alla sequenza "
+                    + segment.getLong(start + ChangeLogFormat.SEQUENCE_OFFSET));
+        }
+
+        record.set(segment.getLong(start + ChangeLogFormat.SEQUENCE_OFFSET),
+                segment.getLong(start + ChangeLogFormat.TIMESTAMP_OFFSET),
+                segment.getLong(start + ChangeLogFormat.AMOUNT_OFFSET),
+                segment.getInt(start + ChangeLogFormat.ACCOUNT_ID_OFFSET),
+                segment.get(start + ChangeLogFormat.OPERATION_OFFSET),
+                segment.get(start + ChangeLogFormat.OUTCOME_OFFSET));
+        segment.get(start + ChangeLogFormat.RECORD_HEADER_SIZE, record.accountNumberBuffer(accountLength), 0,
+                accountLength);
+    }
+}
@@ -0,0 +1,131 @@
+package bank.cdc;
+
+import java.nio.charset.StandardCharsets;
+
+import bank.observerPattern.TransactionEvent;
+import bank.observerPattern.TransactionOperation;
+
+/**
+ * Record del change log letto da un ChangeLogReader.
+ *
+ * L'istanza viene riutilizzata a ogni lettura (ChangeLogReader.poll la
+ * sovrascrive): i campi primitivi si leggono senza allocare, il numero di
+ * conto viene convertito in String solo se richiesto.
+ */
+public final class ChangeLogRecord {
+
+    /** Operazioni per ordinale, senza allocare a ogni lettura */
+    private static final TransactionOperation[] OPERATIONS = TransactionOperation.values();
+
+    /** Sequenza del record nel log */
+    private long sequence;
+
+    /** Istante della transazione (millisecondi epoch) */
+    private long timestamp;
+
+    /** Importo in centesimi */
+    private long amountMinor;
+
+    /** Id compatto del conto nel processo che ha scritto il log */
+    private int accountId;
+
+    /** Operazione */
+    private TransactionOperation operation;
+
+    /** Esito (TransactionEvent.OUTCOME_*) */
+    private int outcome;
+
+    /** Byte UTF-8 del numero di conto */
+    private final byte[] accountNumberBytes = new byte[ChangeLogFormat.MAX_ACCOUNT_NUMBER_BYTES];
+
+    /** Byte validi in accountNumberBytes */
+    private int accountNumberLength;
+
+    /**
+     * Valorizza il record (usato dal reader)
+     */
+    void set(long sequence, long timestamp, long amountMinor, int accountId, int operationOrdinal, int outcome) {
+        if (operationOrdinal < 0 || operationOrdinal >= OPERATIONS.length) {
+            throw new IllegalStateException("Operazione sconosciuta nel change log: " + operationOrdinal);
+        }
+        this.sequence = sequence;
+        this.timestamp = timestamp;
+        this.amountMinor = amountMinor;
+        this.accountId = accountId;
+        this.operation = OPERATIONS[operationOrdinal];
+        this.outcome = outcome;
+    }
+
+    /**
+     * Buffer in cui il reader copia il numero di conto
+     */
+    byte[] accountNumberBuffer(int length) {
+        this.accountNumberLength = length;
+        return accountNumberBytes;
+    }
+
+    /**
+     * @return long - sequenza del record (l'offset da cui riprendere è sequenza + 1)
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * @return long - istante della transazione in millisecondi epoch
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @return long - importo in centesimi
+     */
+    public long getAmountMinor() {
+        return amountMinor;
+    }
+
+    /**
+     * @return int - id compatto del conto (valido solo per il processo che ha
+     *         scritto il log)
+     */
+    public int getAccountId() {
+        return accountId;
+    }
+
+    /**
+     * @return TransactionOperation - operazione
+     */
+    public TransactionOperation getOperation() {
+        return operation;
+    }
+
+    /**
+     * @return int - esito (TransactionEvent.OUTCOME_*)
+     */
+    public int getOutcome() {
+        return outcome;
+    }
+
+    /**
+     * @return boolean - true se la transazione è riuscita
+     */
+    public boolean isSuccess() {
+        return outcome == TransactionEvent.OUTCOME_SUCCESS;
+    }
+
+    /**
+     * Converte il numero di conto in String (alloca a ogni chiamata)
+     *
+     * @return String - numero del conto
+     */
+    public String getAccountNumber() {
+        return new String(accountNumberBytes, 0, accountNumberLength, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toString() {
+        return "#" + sequence + " " + getAccountNumber() + " " + operation.getLabel() + " " + amountMinor + "c "
+                + (isSuccess() ? "OK" : "KO");
+    }
+}
@@ -0,0 +1,335 @@
+package bank.cdc;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+import bank.observerPattern.BatchTransactionObserver;
+import bank.observerPattern.TransactionEvent;
+
+/**
+ * Observer che scrive ogni transazione in un change log binario a segmenti
+ * (vedi ChangeLogFormat), leggibile da processi esterni con ChangeLogReader
+ * senza passare dal BankService.
+ *
+ * Va registrato come observer a blocchi sul bus degli eventi:
+ * bankService.getEventBus().subscribeBatch(writer, capacità, blocco).
+ * I segmenti sono mappati in memoria: un record costa qualche scrittura in
+ * memoria, il sistema operativo lo porta su disco (flush() per forzarlo).
+ * Alla riapertura della cartella il writer riprende dopo l'ultimo record
+ * valido, scartando un eventuale record incompleto.
+ */
+public class ChangeLogWriter implements BatchTransactionObserver, Closeable {
+
+    /** logger statico */
+    private static final Logger logger = Logger.getLogger(ChangeLogWriter.class.getName());
+
+    /** Dimensione predefinita di un segmento */
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    /** Cartella dei segmenti */
+    private final File directory;
+
+    /** Dimensione dei nuovi segmenti */
+    private final int segmentSize;
+
+    /** CRC dei record, riutilizzato */
+    private final CRC32 crc = new CRC32();
+
+    /** Buffer per i numeri di conto ASCII, riutilizzato */
+    private final byte[] accountNumberScratch = new byte[ChangeLogFormat.MAX_ACCOUNT_NUMBER_BYTES];
+
+    /** File del segmento corrente */
+    private RandomAccessFile segmentFile;
+
+    /** Numero di conto codificato dell'ultimo record */
+    private byte[] encodedBytes;
+
+    /** Byte validi in encodedBytes */
+    private int encodedLength;
+
+    /** Segmento corrente mappato in memoria */
+    private MappedByteBuffer segment;
+
+    /** Prossima posizione libera nel segmento */
+    private int position;
+
+    /** Sequenza del prossimo record */
+    private long nextSequence;
+
+    /** true dopo close() */
+    private boolean closed;
+
+    /**
+     * Costruttore con la dimensione di segmento predefinita
+     *
+     * @param directory cartella del change log (creata se non esiste)
+     * @throws IOException errore di apertura o ripristino
+     */
+    public ChangeLogWriter(File directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Costruttore
+     *
+     * @param directory   cartella del change log (creata se non esiste)
+     * @param segmentSize dimensione di ogni segmento in byte
+     * @throws IOException errore di apertura o ripristino
+     */
+    public ChangeLogWriter(File directory, int segmentSize) throws IOException {
+        if (segmentSize < ChangeLogFormat.MIN_SEGMENT_SIZE) {
+            throw new IllegalArgumentException("Segmento troppo piccolo: minimo " + ChangeLogFormat.MIN_SEGMENT_SIZE
+                    + " byte");
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Impossibile creare la cartella del change log: " + directory);
+        }
+        this.directory = directory;
+        this.segmentSize = ChangeLogFormat.align(segmentSize);
+
+        long[] segments = ChangeLogFormat.listSegments(directory);
+        if (segments.length == 0) {
+            openSegment(0);
+        } else {
+            recover(segments[segments.length - 1]);
+        }
+        logger.info("Change log aperto in " + directory + " - prossima sequenza: " + nextSequence);
+    }
+
+    /**
+     * Scrive un blocco di transazioni in ordine
+     */
+    @Override
+    public synchronized void onTransactions(List<TransactionEvent> events) {
+        if (closed) {
+            return;
+        }
+        try {
+            for (int i = 0, size = events.size(); i < size; i++) {
+                append(events.get(i));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Errore di scrittura del change log", e);
+        }
+    }
+
+    /**
+     * Restituisce la sequenza che avrà il prossimo record
+     *
+     * @return long - prossima sequenza
+     */
+    public synchronized long getNextSequence() {
+        return nextSequence;
+    }
+
+    /**
+     * Forza su disco i record scritti nel segmento corrente
+     */
+    public synchronized void flush() {
+        if (!closed) {
+            segment.force();
+        }
+    }
+
+    /**
+     * Forza su disco e chiude il segmento corrente
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        segment.force();
+        segmentFile.close();
+        segment = null;
+        logger.info("Change log chiuso - record scritti fino alla sequenza " + (nextSequence - 1));
+    }
+
+    /**
+     * Accoda un record al segmento corrente, passando al successivo se pieno
+     */
+    private void append(TransactionEvent event) throws IOException {
+        encodeAccountNumber(event.getAccountNumber());
+        int accountLength = Math.min(encodedLength, ChangeLogFormat.MAX_ACCOUNT_NUMBER_BYTES);
+        int recordSize = ChangeLogFormat.align(ChangeLogFormat.RECORD_HEADER_SIZE + accountLength);
+
+        // Resta sempre spazio per il segnale di fine segmento
+        if (position + recordSize + Long.BYTES > segment.capacity()) {
+            rollSegment();
+        }
+
+        int start = position;
+        segment.putLong(start + ChangeLogFormat.SEQUENCE_OFFSET, nextSequence);
+        segment.putLong(start + ChangeLogFormat.TIMESTAMP_OFFSET, event.getTimestamp());
+        segment.putLong(start + ChangeLogFormat.AMOUNT_OFFSET, event.getAmountMinor());
+        segment.putInt(start + ChangeLogFormat.ACCOUNT_ID_OFFSET, event.getAccountId());
+        segment.put(start + ChangeLogFormat.OPERATION_OFFSET, (byte) event.getOperation().ordinal());
+        segment.put(start + ChangeLogFormat.OUTCOME_OFFSET, (byte) event.getOutcome());
+        segment.putShort(start + ChangeLogFormat.ACCOUNT_LENGTH_OFFSET, (short) accountLength);
+        segment.put(start + ChangeLogFormat.RECORD_HEADER_SIZE, encodedBytes, 0, accountLength);
+
+        segment.putInt(start + ChangeLogFormat.CRC_OFFSET,
+                checksum(start, ChangeLogFormat.RECORD_HEADER_SIZE + accountLength));
+
+        // La lunghezza per ultima: da qui il record è visibile ai reader
+        ChangeLogFormat.INT_HANDLE.setRelease(segment, start + ChangeLogFormat.LENGTH_OFFSET, recordSize);
+
+        position = start + recordSize;
+        nextSequence++;
+    }
+
+    /**
+     * Codifica il numero di conto in encodedBytes/encodedLength: i numeri
+     * ASCII (il caso normale) vanno nel buffer riutilizzato senza allocare
+     */
+    private void encodeAccountNumber(String accountNumber) {
+        encodedBytes = accountNumberScratch;
+        encodedLength = 0;
+        if (accountNumber == null) {
+            return;
+        }
+        int length = accountNumber.length();
+        if (length <= accountNumberScratch.length) {
+            boolean ascii = true;
+            for (int i = 0; i < length && ascii; i++) {
+                char c = accountNumber.charAt(i);
+                ascii = c < 0x80;
+                accountNumberScratch[i] = (byte) c;
+            }
+            if (ascii) {
+                encodedLength = length;
+                return;
+            }
+        }
+        encodedBytes = accountNumber.getBytes(StandardCharsets.UTF_8);
+        encodedLength = encodedBytes.length;
+    }
+
+    /**
+     * CRC32 dei byte del record dopo lunghezza e CRC
+     */
+    private int checksum(int start, int recordLength) {
+        crc.reset();
+        segment.limit(start + recordLength).position(start + ChangeLogFormat.SEQUENCE_OFFSET);
+        crc.update(segment);
+        segment.clear();
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Apre il segmento successivo e chiude il corrente con il segnale di fine
+     */
+    private void rollSegment() throws IOException {
+        MappedByteBuffer previous = segment;
+        RandomAccessFile previousFile = segmentFile;
+        int previousEnd = position;
+
+        // Il nuovo file esiste prima del segnale di fine: un reader che lo vede lo trova
+        openSegment(nextSequence);
+
+        ChangeLogFormat.INT_HANDLE.setRelease(previous, previousEnd, ChangeLogFormat.END_OF_SEGMENT);
+        previous.force();
+        previousFile.close();
+
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine("Nuovo segmento del change log dalla sequenza " + nextSequence);
+        }
+    }
+
+    /**
+     * Crea, prealloca e mappa un nuovo segmento
+     */
+    private void openSegment(long baseSequence) throws IOException {
+        File file = ChangeLogFormat.segmentFile(directory, baseSequence);
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        try {
+            randomAccessFile.setLength(segmentSize);
+            MappedByteBuffer buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0,
+                    segmentSize);
+            buffer.putInt(4, ChangeLogFormat.VERSION);
+            ChangeLogFormat.INT_HANDLE.setRelease(buffer, 0, ChangeLogFormat.MAGIC);
+
+            this.segmentFile = randomAccessFile;
+            this.segment = buffer;
+            this.position = ChangeLogFormat.SEGMENT_HEADER_SIZE;
+            this.nextSequence = baseSequence;
+        } catch (IOException | RuntimeException e) {
+            randomAccessFile.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Riapre l'ultimo segmento e si posiziona dopo l'ultimo record valido
+     */
+    private void recover(long baseSequence) throws IOException {
+        File file = ChangeLogFormat.segmentFile(directory, baseSequence);
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        try {
+            // Il segmento mantiene la dimensione con cui è stato creato
+            long length = randomAccessFile.length();
+            if (length < ChangeLogFormat.MIN_SEGMENT_SIZE || length > Integer.MAX_VALUE) {
+                throw new IOException("Dimensione non valida del segmento " + file + ": " + length);
+            }
+            this.segmentFile = randomAccessFile;
+            this.segment = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, length);
+            if (segment.getInt(0) != ChangeLogFormat.MAGIC) {
+                // Creato ma mai inizializzato: si riparte da capo
+                segment.putInt(4, ChangeLogFormat.VERSION);
+                ChangeLogFormat.INT_HANDLE.setRelease(segment, 0, ChangeLogFormat.MAGIC);
+            }
+        } catch (IOException | RuntimeException e) {
+            randomAccessFile.close();
+            throw e;
+        }
+
+        position = ChangeLogFormat.SEGMENT_HEADER_SIZE;
+        nextSequence = baseSequence;
+        while (position + ChangeLogFormat.RECORD_HEADER_SIZE <= segment.capacity()) {
+            int length = segment.getInt(position);
+            if (length == ChangeLogFormat.END_OF_SEGMENT) {
+                // Il segmento era chiuso ma il successivo non è stato creato
+                segmentFile.close();
+                openSegment(nextSequence);
+                return;
+            }
+            if (length <= 0 || !isValidRecord(position, length)) {
+                break;
+            }
+            nextSequence = segment.getLong(position + ChangeLogFormat.SEQUENCE_OFFSET) + 1;
+            position += length;
+        }
+
+        // Azzera un eventuale record incompleto dopo l'ultimo valido
+        if (position + Integer.BYTES <= segment.capacity() && segment.getInt(position) != 0) {
+            logger.warning("Change log: scartato un record incompleto alla posizione " + position + " di " + file);
+            segment.putInt(position, 0);
+        }
+    }
+
+    /**
+     * Verifica dimensione e CRC di un record già scritto
+     */
+    private boolean isValidRecord(int start, int length) {
+        if ((length & 7) != 0 || start + length > segment.capacity() || length < ChangeLogFormat.RECORD_HEADER_SIZE) {
+            return false;
+        }
+        int accountLength = segment.getShort(start + ChangeLogFormat.ACCOUNT_LENGTH_OFFSET);
+        if (accountLength < 0 || ChangeLogFormat.align(ChangeLogFormat.RECORD_HEADER_SIZE + accountLength) != length) {
+            return false;
+        }
+        return segment.getInt(start + ChangeLogFormat.CRC_OFFSET) == checksum(start,
+                ChangeLogFormat.RECORD_HEADER_SIZE + accountLength);
+    }
+}
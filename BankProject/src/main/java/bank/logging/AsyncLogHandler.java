@@ -0,0 +1,224 @@
+package bank.logging;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.SimpleFormatter;
+
+/**
+ * Handler di java.util.logging che scrive in modo asincrono.
+ * 
+ * Il thread chiamante si limita ad accodare il record in una coda lock-free;
+ * un thread in background svuota la coda a blocchi, formatta i record e li
+ * scrive su un file con rotazione. In questo modo la latenza delle transazioni
+ * non dipende dalla lentezza dell'I/O dei log. La coda è limitata: quando è
+ * piena i record vengono scartati e conteggiati invece di bloccare il chiamante.
+ * Come origine del record si riporta il nome del logger, non la classe
+ * chiamante (salvo che il record la indichi già).
+ */
+public class AsyncLogHandler extends Handler {
+
+    /** Nome del logger assegnato alle notifiche per l'utente */
+    static final String NOTIFICATION_LOGGER = "bank.notifications";
+
+    /** Pausa del thread di scrittura quando la coda è vuota */
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+
+    /** Coda lock-free dei record in attesa di scrittura */
+    private final ConcurrentLinkedQueue<LogRecord> queue = new ConcurrentLinkedQueue<>();
+
+    /** Numero di record attualmente in coda */
+    private final AtomicInteger pending = new AtomicInteger();
+
+    /** Record accettati in coda dall'avvio */
+    private final AtomicLong enqueued = new AtomicLong();
+
+    /** Record scritti su file dall'avvio */
+    private final AtomicLong written = new AtomicLong();
+
+    /** Record scartati perché la coda era piena */
+    private final AtomicLong dropped = new AtomicLong();
+
+    /** Capacità massima della coda */
+    private final int capacity;
+
+    /** Numero massimo di record scritti per blocco */
+    private final int batchSize;
+
+    /** File di destinazione */
+    private final RotatingLogFile file;
+
+    /** Thread di scrittura in background */
+    private final Thread writerThread;
+
+    /** false quando l'handler è stato chiuso */
+    private volatile boolean running = true;
+
+    /**
+     * Costruttore - apre il file di log e avvia il thread di scrittura
+     * 
+     * @param directory    cartella dei file di log
+     * @param baseName     nome base dei file di log
+     * @param maxFileBytes dimensione massima di un file prima della rotazione
+     * @param maxFiles     numero massimo di file conservati
+     * @param capacity     capacità massima della coda
+     * @param batchSize    numero massimo di record scritti per blocco
+     * @throws IOException se il file di log non può essere aperto
+     */
+    public AsyncLogHandler(File directory, String baseName, long maxFileBytes, int maxFiles, int capacity,
+            int batchSize) throws IOException {
+        if (capacity <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("Capacità e dimensione del blocco devono essere positive");
+        }
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.file = new RotatingLogFile(directory, baseName, maxFileBytes, maxFiles);
+        setFormatter(new SimpleFormatter());
+
+        this.writerThread = new Thread(this::drainLoop, "bank-async-log");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Accoda un record senza bloccare il chiamante
+     */
+    @Override
+    public void publish(LogRecord record) {
+        if (!running || !isLoggable(record)) {
+            return;
+        }
+        if (pending.incrementAndGet() > capacity) {
+            pending.decrementAndGet();
+            dropped.incrementAndGet();
+            return;
+        }
+        // La classe chiamante non viene inferita qui: costerebbe una scansione dello
+        // stack a ogni chiamata. Sul thread di scrittura l'inferenza non trova il
+        // chiamante e il formatter mostra il nome del logger.
+        queue.offer(record);
+        enqueued.incrementAndGet();
+    }
+
+    /**
+     * Accoda una notifica destinata all'utente, che finisce nello stesso file
+     * dei log.
+     * 
+     * @param message testo della notifica
+     */
+    public void publishNotification(String message) {
+        LogRecord record = new LogRecord(Level.INFO, message);
+        record.setLoggerName(NOTIFICATION_LOGGER);
+        record.setSourceClassName(NOTIFICATION_LOGGER);
+        record.setSourceMethodName("notify");
+        publish(record);
+    }
+
+    /**
+     * Attende che tutti i record accodati finora siano stati scritti su disco
+     */
+    @Override
+    public void flush() {
+        long target = enqueued.get();
+        while (written.get() < target && writerThread.isAlive()) {
+            LockSupport.unpark(writerThread);
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+    }
+
+    /**
+     * Scrive i record rimasti in coda, ferma il thread e chiude il file
+     */
+    @Override
+    public void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            file.close();
+        } catch (IOException e) {
+            reportError("Errore nella chiusura del file di log", e, ErrorManager.CLOSE_FAILURE);
+        }
+    }
+
+    /**
+     * Restituisce il numero di record in attesa di scrittura
+     * 
+     * @return int - profondità attuale della coda
+     */
+    public int getQueueDepth() {
+        return pending.get();
+    }
+
+    /**
+     * Restituisce il numero di record scartati perché la coda era piena
+     * 
+     * @return long - record scartati
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Ciclo del thread di scrittura: svuota la coda a blocchi finché l'handler
+     * è attivo e la coda non è vuota.
+     */
+    private void drainLoop() {
+        List<LogRecord> batch = new ArrayList<>(batchSize);
+
+        while (running || !queue.isEmpty()) {
+            LogRecord record;
+            while (batch.size() < batchSize && (record = queue.poll()) != null) {
+                batch.add(record);
+            }
+
+            if (batch.isEmpty()) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                continue;
+            }
+
+            pending.addAndGet(-batch.size());
+            writeBatch(batch);
+            written.addAndGet(batch.size());
+            batch.clear();
+        }
+    }
+
+    /**
+     * Formatta e scrive un blocco di record con un solo flush finale
+     */
+    private void writeBatch(List<LogRecord> batch) {
+        // Un errore su un record (es. rotazione fallita) non fa perdere il resto del blocco
+        for (LogRecord record : batch) {
+            try {
+                file.write(getFormatter().format(record));
+            } catch (IOException e) {
+                reportError("Errore nella scrittura del file di log", e, ErrorManager.WRITE_FAILURE);
+            } catch (RuntimeException e) {
+                reportError("Errore nella formattazione del log", e, ErrorManager.FORMAT_FAILURE);
+            }
+        }
+        try {
+            file.flush();
+        } catch (IOException e) {
+            reportError("Errore nella scrittura del file di log", e, ErrorManager.FLUSH_FAILURE);
+        }
+    }
+}
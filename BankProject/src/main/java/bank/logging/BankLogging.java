@@ -0,0 +1,142 @@
+package bank.logging;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.ConsoleHandler;
+import java.util.logging.Handler;
+import java.util.logging.Logger;
+
+/**
+ * Punto di configurazione della modalità di logging di produzione.
+ * 
+ * In modalità asincrona i record di tutti i logger del sistema e le notifiche
+ * per l'utente vengono accodati e scritti su file da un thread in background,
+ * al posto dei ConsoleHandler sincroni del logger radice.
+ */
+public final class BankLogging {
+
+    /** logger statico */
+    private static final Logger logger = Logger.getLogger(BankLogging.class.getName());
+
+    /** Nome base dei file di log */
+    private static final String LOG_BASE_NAME = "bank";
+
+    /** Capacità predefinita della coda asincrona */
+    private static final int DEFAULT_QUEUE_CAPACITY = 65_536;
+
+    /** Numero predefinito di record scritti per blocco */
+    private static final int DEFAULT_BATCH_SIZE = 512;
+
+    /** Handler asincrono attivo, null se la modalità è disattivata */
+    private static volatile AsyncLogHandler asyncHandler;
+
+    /** ConsoleHandler rimossi dal logger radice, da ripristinare alla disattivazione */
+    private static Handler[] removedConsoleHandlers = new Handler[0];
+
+    /**
+     * Costruttore privato: la classe offre solo metodi statici
+     */
+    private BankLogging() {
+    }
+
+    /**
+     * Attiva la modalità asincrona con scrittura su file a rotazione.
+     * Se era già attiva viene riconfigurata.
+     * 
+     * @param directory cartella dei file di log
+     * @param maxBytes  dimensione massima di un file prima della rotazione
+     * @param maxFiles  numero massimo di file conservati
+     * @throws IOException se il file di log non può essere aperto
+     */
+    public static synchronized void enableAsyncMode(File directory, long maxBytes, int maxFiles) throws IOException {
+        disableAsyncMode();
+
+        AsyncLogHandler handler = new AsyncLogHandler(directory, LOG_BASE_NAME, maxBytes, maxFiles,
+                DEFAULT_QUEUE_CAPACITY, DEFAULT_BATCH_SIZE);
+
+        Logger root = Logger.getLogger("");
+        List<Handler> consoles = new ArrayList<>();
+        for (Handler existing : root.getHandlers()) {
+            if (existing instanceof ConsoleHandler) {
+                root.removeHandler(existing);
+                consoles.add(existing);
+            }
+        }
+        removedConsoleHandlers = consoles.toArray(new Handler[0]);
+        root.addHandler(handler);
+        asyncHandler = handler;
+
+        logger.info("Logging asincrono attivo in " + directory.getAbsolutePath());
+    }
+
+    /**
+     * Disattiva la modalità asincrona: scrive i record rimasti, chiude il file
+     * e ripristina i ConsoleHandler originali.
+     */
+    public static synchronized void disableAsyncMode() {
+        AsyncLogHandler handler = asyncHandler;
+        if (handler == null) {
+            return;
+        }
+        asyncHandler = null;
+
+        Logger root = Logger.getLogger("");
+        root.removeHandler(handler);
+        handler.close();
+        for (Handler console : removedConsoleHandlers) {
+            root.addHandler(console);
+        }
+        removedConsoleHandlers = new Handler[0];
+    }
+
+    /**
+     * Verifica se la modalità asincrona è attiva
+     * 
+     * @return boolean - true se i log vengono scritti in background
+     */
+    public static boolean isAsyncMode() {
+        return asyncHandler != null;
+    }
+
+    /**
+     * Attende che i record accodati finora siano stati scritti su file.
+     * Non fa nulla se la modalità asincrona non è attiva.
+     */
+    public static void flush() {
+        AsyncLogHandler handler = asyncHandler;
+        if (handler != null) {
+            handler.flush();
+        }
+    }
+
+    /**
+     * Restituisce il numero di record in attesa di scrittura su file
+     * 
+     * @return int - profondità della coda, 0 se la modalità asincrona è disattivata
+     */
+    public static int getQueueDepth() {
+        AsyncLogHandler handler = asyncHandler;
+        return handler != null ? handler.getQueueDepth() : 0;
+    }
+
+    /**
+     * Restituisce il numero di record scartati perché la coda era piena
+     * 
+     * @return long - record scartati, 0 se la modalità asincrona è disattivata
+     */
+    public static long getDroppedCount() {
+        AsyncLogHandler handler = asyncHandler;
+        return handler != null ? handler.getDroppedCount() : 0;
+    }
+
+    /**
+     * Restituisce l'handler asincrono attivo
+     * 
+     * @return AsyncLogHandler - l'handler, oppure null se la modalità è disattivata
+     */
+    static AsyncLogHandler getAsyncHandler() {
+        return asyncHandler;
+    }
+}
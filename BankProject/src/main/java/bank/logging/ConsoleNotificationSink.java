@@ -0,0 +1,27 @@
+package bank.logging;
+
+/**
+ * Sink delle notifiche usato dalla CLI: stampa a console oppure, se il logging
+ * asincrono è attivo, accoda la notifica al thread di scrittura dei log.
+ */
+public final class ConsoleNotificationSink implements NotificationSink {
+
+    /** Istanza condivisa (il sink non ha stato) */
+    public static final ConsoleNotificationSink INSTANCE = new ConsoleNotificationSink();
+
+    /**
+     * Costruttore privato: si usa l'istanza condivisa
+     */
+    private ConsoleNotificationSink() {
+    }
+
+    @Override
+    public void notify(String message) {
+        AsyncLogHandler handler = BankLogging.getAsyncHandler();
+        if (handler != null) {
+            handler.publishNotification(message);
+        } else {
+            System.out.println(message);
+        }
+    }
+}
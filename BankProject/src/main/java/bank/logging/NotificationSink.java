@@ -0,0 +1,23 @@
+package bank.logging;
+
+/**
+ * Destinazione delle notifiche testuali per l'utente prodotte dal livello di
+ * servizio (creazione conti, backup, osservatori, ...).
+ * 
+ * Permette di incorporare il sistema bancario senza la CLI: in modalità
+ * headless le notifiche vengono inoltrate al sink configurato oppure scartate.
+ */
+@FunctionalInterface
+public interface NotificationSink {
+
+    /** Sink che scarta tutte le notifiche (predefinito in modalità headless) */
+    NotificationSink NO_OP = message -> {
+    };
+
+    /**
+     * Riceve una notifica per l'utente
+     * 
+     * @param message testo della notifica
+     */
+    void notify(String message);
+}
@@ -0,0 +1,53 @@
+package bank.logging;
+
+/**
+ * Canale delle notifiche testuali per l'utente (es. "Dati salvati").
+ * 
+ * Sostituisce le chiamate dirette a System.out.println nelle classi di
+ * servizio e inoltra i messaggi al sink attivo. Il sink viene impostato da
+ * BankConfiguration e tenuto in un campo volatile, così il percorso caldo non
+ * passa dal getInstance() sincronizzato del Singleton.
+ */
+public final class Notifications {
+
+    /** Sink attivo: console per la CLI, no-op o personalizzato in modalità headless */
+    private static volatile NotificationSink sink = ConsoleNotificationSink.INSTANCE;
+
+    /**
+     * Costruttore privato: la classe offre solo metodi statici
+     */
+    private Notifications() {
+    }
+
+    /**
+     * Pubblica una notifica per l'utente
+     * 
+     * @param message testo della notifica
+     */
+    public static void publish(String message) {
+        sink.notify(message);
+    }
+
+    /**
+     * Verifica se le notifiche vengono effettivamente consegnate.
+     * I chiamanti lo usano per evitare di costruire messaggi che verrebbero
+     * scartati.
+     * 
+     * @return boolean - false se il sink attivo è quello no-op
+     */
+    public static boolean isEnabled() {
+        return sink != NotificationSink.NO_OP;
+    }
+
+    /**
+     * Imposta il sink attivo. Da usare tramite BankConfiguration.
+     * 
+     * @param newSink nuovo sink, non null
+     */
+    public static void setSink(NotificationSink newSink) {
+        if (newSink == null) {
+            throw new IllegalArgumentException("Il sink delle notifiche non può essere null");
+        }
+        sink = newSink;
+    }
+}
@@ -0,0 +1,167 @@
+package bank.logging;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * File di log con rotazione per dimensione.
+ * 
+ * Scrive su "nome.log"; quando il file supera la dimensione massima viene
+ * rinominato in "nome.log.1" (i precedenti scalano di una posizione) e si
+ * riparte con un file vuoto. Si conservano al massimo maxFiles file.
+ * Non è thread-safe: viene usato solo dal thread di scrittura.
+ */
+class RotatingLogFile implements Closeable {
+
+    /** Cartella che contiene i file di log */
+    private final File directory;
+
+    /** Nome base dei file di log */
+    private final String baseName;
+
+    /** Dimensione massima di un file prima della rotazione */
+    private final long maxBytes;
+
+    /** Numero massimo di file conservati (corrente compreso) */
+    private final int maxFiles;
+
+    /** Stream del file corrente */
+    private OutputStream out;
+
+    /** Byte già scritti nel file corrente */
+    private long currentBytes;
+
+    /**
+     * Costruttore - apre (in append) il file di log corrente
+     * 
+     * @param directory cartella dei file di log
+     * @param baseName  nome base dei file
+     * @param maxBytes  dimensione massima di un file
+     * @param maxFiles  numero massimo di file conservati
+     * @throws IOException se il file non può essere aperto
+     */
+    RotatingLogFile(File directory, String baseName, long maxBytes, int maxFiles) throws IOException {
+        if (maxBytes <= 0 || maxFiles <= 0) {
+            throw new IllegalArgumentException("Dimensione e numero di file devono essere positivi");
+        }
+        this.directory = directory;
+        this.baseName = baseName;
+        this.maxBytes = maxBytes;
+        this.maxFiles = maxFiles;
+
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Impossibile creare la cartella dei log: " + directory);
+        }
+        open();
+    }
+
+    /**
+     * Scrive un testo già formattato, ruotando il file se necessario
+     * 
+     * @param text testo da scrivere
+     * @throws IOException errore di scrittura
+     */
+    void write(String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        if (out == null) {
+            // Una rotazione precedente non è riuscita a riaprire il file: si riprova
+            open();
+        } else if (currentBytes > 0 && currentBytes + bytes.length > maxBytes) {
+            try {
+                rotate();
+            } catch (IOException e) {
+                if (out == null) {
+                    throw e;
+                }
+                // Rotazione non riuscita ma file riaperto: il testo non va perso
+                out.write(bytes);
+                currentBytes += bytes.length;
+                throw e;
+            }
+        }
+        out.write(bytes);
+        currentBytes += bytes.length;
+    }
+
+    /**
+     * Forza la scrittura su disco dei dati bufferizzati
+     * 
+     * @throws IOException errore di scrittura
+     */
+    void flush() throws IOException {
+        if (out != null) {
+            out.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (out != null) {
+            out.close();
+            out = null;
+        }
+    }
+
+    /**
+     * Restituisce il file di indice dato (0 = file corrente)
+     */
+    private File fileAt(int index) {
+        return new File(directory, index == 0 ? baseName + ".log" : baseName + ".log." + index);
+    }
+
+    /**
+     * Apre il file corrente in append
+     */
+    private void open() throws IOException {
+        File current = fileAt(0);
+        this.currentBytes = current.length();
+        this.out = new BufferedOutputStream(new FileOutputStream(current, true), 64 * 1024);
+    }
+
+    /**
+     * Chiude il file corrente, fa scalare i file precedenti e ne apre uno nuovo.
+     * Se lo scorrimento fallisce si riapre comunque il file corrente, così le
+     * scritture successive non falliscono tutte; la rotazione verrà ritentata
+     * dopo altri maxBytes.
+     */
+    private void rotate() throws IOException {
+        OutputStream previous = out;
+        out = null;
+        IOException failure = null;
+        try {
+            previous.close();
+
+            File oldest = fileAt(maxFiles - 1);
+            if (oldest.exists() && !oldest.delete()) {
+                throw new IOException("Impossibile eliminare il log più vecchio: " + oldest);
+            }
+            for (int index = maxFiles - 2; index >= 0; index--) {
+                File source = fileAt(index);
+                if (source.exists() && !source.renameTo(fileAt(index + 1))) {
+                    throw new IOException("Impossibile ruotare il log: " + source);
+                }
+            }
+        } catch (IOException e) {
+            failure = e;
+        }
+
+        try {
+            open();
+        } catch (IOException e) {
+            // out resta null: write() ritenterà l'apertura
+            if (failure != null) {
+                e.addSuppressed(failure);
+            }
+            throw e;
+        }
+        if (failure != null) {
+            currentBytes = 0;
+            throw failure;
+        }
+    }
+}
@@ -1,16 +1,78 @@
 package bank.mementoPattern;
 
-import java.util.HashMap;
-import java.util.Map;
+import bank.logging.Notifications;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
 import bank.account.Account;
 
 /**
  * classe del "Caretaker" del Pattern Memento
+ * 
+ * Per ogni conto conserva le ultime N versioni salvate (N = 1 con il
+ * costruttore senza parametri: ogni salvataggio sovrascrive il precedente).
+ * Le versioni sono tenute in uno storico primitivo (istante e saldo, vedi
+ * SnapshotHistory): la memoria per conto è limitata e il ripristino per
+ * versione o per istante costa O(log N).
+ * 
+ * In modalità limitata al massimo maxCachedAccounts storici restano in
+ * memoria: gli altri, scelti dalla politica di eviction, vengono spostati su
+ * un file locale e riletti in modo trasparente quando servono (vedi
+ * SnapshotStore). Il file viene eliminato da close().
  */
-public class AccountBackup {
+public class AccountBackup implements Closeable {
 
-    /** mappa per conservare gli snapshot */
-    private Map<String, AccountSnapshot> snapshots = new HashMap<>();
+    /** versioni conservate per conto */
+    private final int maxVersionsPerAccount;
+
+    /** archivio dello storico degli snapshot di ogni conto */
+    private final SnapshotStore snapshots;
+
+    /**
+     * Costruttore - un solo snapshot per conto
+     */
+    public AccountBackup() {
+        this(1);
+    }
+
+    /**
+     * Costruttore - modalità con versioni: conserva gli ultimi
+     * maxVersionsPerAccount snapshot di ogni conto
+     * 
+     * @param maxVersionsPerAccount versioni conservate per conto (almeno 1)
+     */
+    public AccountBackup(int maxVersionsPerAccount) {
+        if (maxVersionsPerAccount <= 0) {
+            throw new IllegalArgumentException("Il numero di versioni per conto deve essere positivo");
+        }
+        this.maxVersionsPerAccount = maxVersionsPerAccount;
+        this.snapshots = new SnapshotStore(maxVersionsPerAccount);
+    }
+
+    /**
+     * Costruttore - modalità limitata: in memoria restano al massimo
+     * maxCachedAccounts storici, gli altri vengono spostati su file
+     * 
+     * @param maxVersionsPerAccount versioni conservate per conto (almeno 1)
+     * @param maxCachedAccounts     storici tenuti in memoria (almeno 1)
+     * @param policy                politica di scelta degli storici da spostare
+     * @param spillDirectory        cartella del file di spill (null = cartella
+     *                              temporanea di sistema)
+     */
+    public AccountBackup(int maxVersionsPerAccount, int maxCachedAccounts, EvictionPolicy policy,
+            File spillDirectory) {
+        if (maxVersionsPerAccount <= 0) {
+            throw new IllegalArgumentException("Il numero di versioni per conto deve essere positivo");
+        }
+        if (maxCachedAccounts <= 0) {
+            throw new IllegalArgumentException("Il numero di backup in memoria deve essere positivo");
+        }
+        if (policy == null) {
+            throw new IllegalArgumentException("La politica di eviction non può essere null");
+        }
+        this.maxVersionsPerAccount = maxVersionsPerAccount;
+        this.snapshots = new SnapshotStore(maxVersionsPerAccount, maxCachedAccounts, policy, spillDirectory);
+    }
 
     /**
      * Metodo che salva lo stato attuale di un conto(Snapshot)
@@ -18,7 +80,7 @@ public class AccountBackup {
     public boolean save(Account account) {
 
         if (account == null) {
-            System.out.println("Errore: impossibile salvare un conto null");
+            Notifications.publish("Errore: impossibile salvare un conto null");
             return false;
         }
 
@@ -27,43 +89,219 @@ public class AccountBackup {
 
             String accountNumber = snapshot.getAccountNumber();
             if (accountNumber == null || accountNumber.trim().isEmpty()) {
-                System.out.println("Errore: snapshot creato ma senza numero account valido");
+                Notifications.publish("Errore: snapshot creato ma senza numero account valido");
                 return false;
             }
 
-            // si salva lo snapshot
-            snapshots.put(accountNumber, snapshot);
-            System.out.println("Backup salvato per il conto " + accountNumber +
-                    " (saldo: €" + snapshot.getBalance() + ")");
+            // si salva lo snapshot come nuova versione
+            SnapshotHistory history = snapshots.getOrCreate(accountNumber);
+            long version = history.append(snapshot.getTimestamp(), snapshot.getBalance());
+            if (Notifications.isEnabled()) {
+                Notifications.publish("Backup salvato per il conto " + accountNumber +
+                        " (saldo: €" + snapshot.getBalance() + ", versione " + version + ")");
+            }
             return true;
 
         } catch (IllegalArgumentException e) {
-            System.out.println("Impossibile salvare backup: " + e.getMessage());
+            if (Notifications.isEnabled()) {
+                Notifications.publish("Impossibile salvare backup: " + e.getMessage());
+            }
+            return false;
+        } catch (IOException e) {
+            if (Notifications.isEnabled()) {
+                Notifications.publish("Errore del file di spill durante il salvataggio: " + e.getMessage());
+            }
             return false;
         } catch (Exception e) {
-            System.out.println("Errore imprevisto durante il salvataggio: " + e.getMessage());
+            if (Notifications.isEnabled()) {
+                Notifications.publish("Errore imprevisto durante il salvataggio: " + e.getMessage());
+            }
             return false;
         }
     }
 
     /**
-     * Metodo che recupera lo stato salvato di un conto
+     * Metodo che recupera lo stato salvato di un conto (l'ultima versione)
      */
     public AccountSnapshot restore(String accountNumber) {
 
+        SnapshotHistory history = findHistory(accountNumber);
+        if (history == null) {
+            return null;
+        }
+
+        if (Notifications.isEnabled()) {
+            Notifications.publish("Backup recuperato per il conto " + accountNumber);
+        }
+        return toSnapshot(accountNumber.trim(), history, history.getLatestVersion());
+    }
+
+    /**
+     * Metodo che recupera una versione specifica dello stato di un conto
+     * 
+     * @param accountNumber numero del conto
+     * @param version       versione (da getOldestVersion a getLatestVersion)
+     * @return AccountSnapshot - lo stato salvato, null se la versione non è
+     *         (più) conservata
+     */
+    public AccountSnapshot restoreVersion(String accountNumber, long version) {
+
+        SnapshotHistory history = findHistory(accountNumber);
+        if (history == null) {
+            return null;
+        }
+
+        if (!history.contains(version)) {
+            if (Notifications.isEnabled()) {
+                Notifications.publish("Versione " + version + " non disponibile per il conto " + accountNumber
+                        + " (conservate: " + history.getOldestVersion() + "-" + history.getLatestVersion() + ")");
+            }
+            return null;
+        }
+        return toSnapshot(accountNumber.trim(), history, version);
+    }
+
+    /**
+     * Metodo che recupera lo stato di un conto a un certo istante: l'ultima
+     * versione salvata non dopo l'istante indicato
+     * 
+     * @param accountNumber numero del conto
+     * @param timestamp     istante in millisecondi epoch
+     * @return AccountSnapshot - lo stato salvato, null se tutte le versioni
+     *         conservate sono successive
+     */
+    public AccountSnapshot restoreAt(String accountNumber, long timestamp) {
+
+        SnapshotHistory history = findHistory(accountNumber);
+        if (history == null) {
+            return null;
+        }
+
+        long version = history.versionAt(timestamp);
+        if (version == 0) {
+            if (Notifications.isEnabled()) {
+                Notifications.publish("Nessuna versione del conto " + accountNumber + " precedente all'istante "
+                        + timestamp);
+            }
+            return null;
+        }
+        return toSnapshot(accountNumber.trim(), history, version);
+    }
+
+    /**
+     * Restituisce l'ultima versione salvata di un conto
+     * 
+     * @param accountNumber numero del conto
+     * @return long - ultima versione, 0 se il conto non ha backup
+     */
+    public long getLatestVersion(String accountNumber) {
+        SnapshotHistory history = lookup(accountNumber);
+        return history != null ? history.getLatestVersion() : 0;
+    }
+
+    /**
+     * Restituisce la versione più vecchia ancora conservata di un conto
+     * 
+     * @param accountNumber numero del conto
+     * @return long - versione più vecchia, 0 se il conto non ha backup
+     */
+    public long getOldestVersion(String accountNumber) {
+        SnapshotHistory history = lookup(accountNumber);
+        return history != null ? history.getOldestVersion() : 0;
+    }
+
+    /**
+     * Restituisce il numero di conti il cui storico è in memoria
+     * 
+     * @return int - storici in memoria (tutti senza modalità limitata)
+     */
+    public int getCachedBackups() {
+        return snapshots.cachedSize();
+    }
+
+    /**
+     * Restituisce il numero di conti il cui storico è stato spostato su file
+     * 
+     * @return int - storici su file (0 senza modalità limitata)
+     */
+    public int getSpilledBackups() {
+        return snapshots.spilledSize();
+    }
+
+    /**
+     * Elimina il file di spill e gli storici che contiene
+     */
+    @Override
+    public void close() {
+        try {
+            snapshots.close();
+        } catch (IOException e) {
+            if (Notifications.isEnabled()) {
+                Notifications.publish("Impossibile eliminare il file di spill dei backup: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Cerca lo storico di un conto senza notifiche
+     */
+    private SnapshotHistory lookup(String accountNumber) {
+        if (accountNumber == null) {
+            return null;
+        }
+        try {
+            return snapshots.get(accountNumber.trim());
+        } catch (IOException e) {
+            if (Notifications.isEnabled()) {
+                Notifications.publish("Errore di lettura del file di spill: " + e.getMessage());
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Restituisce il numero di versioni conservate per ogni conto
+     * 
+     * @return int - versioni per conto
+     */
+    public int getMaxVersionsPerAccount() {
+        return maxVersionsPerAccount;
+    }
+
+    /**
+     * Cerca lo storico di un conto notificando gli errori
+     */
+    private SnapshotHistory findHistory(String accountNumber) {
+
         if (accountNumber == null || accountNumber.trim().isEmpty()) {
-            System.out.println("Impossibile recuperare backup: numero conto non valido");
+            Notifications.publish("Impossibile recuperare backup: numero conto non valido");
             return null;
         }
 
-        AccountSnapshot snapshot = snapshots.get(accountNumber.trim());
-        if (snapshot == null) {
-            System.out.println("Nessun backup trovato per il conto " + accountNumber);
+        SnapshotHistory history;
+        try {
+            history = snapshots.getForRestore(accountNumber.trim());
+        } catch (IOException e) {
+            if (Notifications.isEnabled()) {
+                Notifications.publish("Errore di lettura del backup del conto " + accountNumber + ": "
+                        + e.getMessage());
+            }
+            return null;
+        }
+        if (history == null) {
+            if (Notifications.isEnabled()) {
+                Notifications.publish("Nessun backup trovato per il conto " + accountNumber);
+            }
             return null;
         }
+        return history;
+    }
 
-        System.out.println("Backup recuperato per il conto " + accountNumber);
-        return snapshots.get(accountNumber);
+    /**
+     * Ricostruisce lo snapshot di una versione conservata
+     */
+    private static AccountSnapshot toSnapshot(String accountNumber, SnapshotHistory history, long version) {
+        return new AccountSnapshot(accountNumber, history.balanceOf(version), history.timestampOf(version));
     }
 
     /**
@@ -71,21 +309,26 @@ public class AccountBackup {
      */
     public boolean hasBackup(String accountNumber) {
         if (accountNumber == null || accountNumber.trim().isEmpty()) {
-            System.out.println("Numero del conto non valido per controllo backup");
+            Notifications.publish("Numero del conto non valido per controllo backup");
             return false;
         }
 
-        boolean exists = snapshots.containsKey(accountNumber.trim());
-        System.out.println("🔍 Backup per " + accountNumber + ": " + (exists ? "PRESENTE" : "ASSENTE"));
+        // Lo storico eventualmente su file non viene riletto: basta l'indice
+        boolean exists = snapshots.contains(accountNumber.trim());
+        if (Notifications.isEnabled()) {
+            Notifications.publish("🔍 Backup per " + accountNumber + ": " + (exists ? "PRESENTE" : "ASSENTE"));
+        }
         return exists;
     }
 
     /**
-     * Restituisce il numero totale di backup conservati
+     * Restituisce il numero totale di conti con backup conservati
      */
     public int getTotalBackups() {
         int total = snapshots.size();
-        System.out.println("📊 Totale backup attivi: " + total);
+        if (Notifications.isEnabled()) {
+            Notifications.publish("📊 Totale backup attivi: " + total);
+        }
         return total;
     }
 
@@ -95,16 +338,19 @@ public class AccountBackup {
     public boolean deleteBackup(String accountNumber) {
 
         if (accountNumber == null || accountNumber.trim().isEmpty()) {
-            System.out.println("Impossibile eliminare: numero del conto non valido");
+            Notifications.publish("Impossibile eliminare: numero del conto non valido");
             return false;
         }
 
-        AccountSnapshot removed = snapshots.remove(accountNumber.trim());
-        if (removed != null) {
-            System.out.println("Backup eliminato per il conto " + accountNumber);
+        if (snapshots.remove(accountNumber.trim())) {
+            if (Notifications.isEnabled()) {
+                Notifications.publish("Backup eliminato per il conto " + accountNumber);
+            }
             return true;
         } else {
-            System.out.println("Nessun backup da eliminare per il conto " + accountNumber);
+            if (Notifications.isEnabled()) {
+                Notifications.publish("Nessun backup da eliminare per il conto " + accountNumber);
+            }
             return false;
         }
     }
@@ -1,6 +1,7 @@
 package bank.mementoPattern;
 
 import bank.account.Account;
+import bank.logging.Notifications;
 
 /**
  * classe che implementa il Pattern memento
@@ -13,6 +14,9 @@ public class AccountSnapshot {
     /** Il saldo di questo conto. */
     private final double balance;
 
+    /** Istante dello snapshot (millisecondi epoch) */
+    private final long timestamp;
+
     /**
      * Costruttore - costruisce o meglio dire salva lo stato attuale del conto
      * 
@@ -35,8 +39,29 @@ public class AccountSnapshot {
 
         this.accountNumber = account.getAccountNumber();
         this.balance = account.getBalance();
+        this.timestamp = System.currentTimeMillis();
+
+        if (Notifications.isEnabled()) {
+            Notifications.publish("Snapshot creato: " + accountNumber + " con saldo €" + balance);
+        }
+    }
 
-        System.out.println("Snapshot creato: " + accountNumber + " con saldo €" + balance);
+    /**
+     * Costruttore - ricostruisce uno snapshot da uno stato già salvato (storico
+     * di AccountBackup, BackupSet), senza notifiche
+     * 
+     * @param accountNumber numero del conto
+     * @param balance       saldo salvato
+     * @param timestamp     istante del salvataggio
+     */
+    public AccountSnapshot(String accountNumber, double balance, long timestamp) {
+        if (accountNumber == null || accountNumber.trim().isEmpty()) {
+            throw new IllegalArgumentException("Conto senza numero non può essere salvato");
+        }
+        // Normalizzato come nelle ricerche dei conti: " A1" e "A1" sono lo stesso conto
+        this.accountNumber = accountNumber.trim();
+        this.balance = balance;
+        this.timestamp = timestamp;
     }
 
     /**
@@ -56,4 +81,13 @@ public class AccountSnapshot {
     public double getBalance() {
         return balance;
     }
-}
\ No newline at end of file
+
+    /**
+     * Restituisce l'istante in cui è stato preso lo snapshot.
+     * 
+     * @return timestamp istante dello snapshot in millisecondi epoch
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+}
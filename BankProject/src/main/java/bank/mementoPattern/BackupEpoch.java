@@ -0,0 +1,115 @@
+package bank.mementoPattern;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import bank.account.Account;
+
+/**
+ * Epoca di un backup consistente di tutta la banca (copy-on-write).
+ *
+ * All'apertura dell'epoca si fissa il punto di taglio. Da quel momento, prima
+ * di modificare un conto per la prima volta, chi esegue la transazione ne
+ * registra il saldo precedente (pre-image); il backup legge per ogni conto la
+ * pre-image se esiste, altrimenti il saldo corrente, che è quindi ancora
+ * quello del taglio. I conti creati dopo il taglio vengono esclusi.
+ *
+ * La memoria usata è proporzionale ai soli conti modificati durante il
+ * backup. Tutti i metodi vanno chiamati con il lock del registro conti
+ * acquisito (lo stesso che serializza le transazioni).
+ */
+public final class BackupEpoch {
+
+    /** Istante del punto di taglio (millisecondi epoch) */
+    private final long cutTimestamp;
+
+    /** Saldi al taglio dei conti modificati dopo il taglio */
+    private final Map<String, Double> preImages = new HashMap<>();
+
+    /** Conti creati dopo il taglio */
+    private final Set<String> createdAfterCut = new HashSet<>();
+
+    /** true se il registro è stato sostituito (es. reload) durante il backup */
+    private boolean invalidated;
+
+    /**
+     * Costruttore - apre l'epoca: il taglio è adesso
+     */
+    public BackupEpoch() {
+        this.cutTimestamp = System.currentTimeMillis();
+    }
+
+    /**
+     * Registra il saldo di un conto prima della sua prima modifica dopo il
+     * taglio (le modifiche successive non sovrascrivono la pre-image)
+     *
+     * @param account conto che sta per essere modificato
+     */
+    public void beforeChange(Account account) {
+        String accountNumber = account.getAccountNumber();
+        if (!preImages.containsKey(accountNumber)) {
+            preImages.put(accountNumber, account.getBalance());
+        }
+    }
+
+    /**
+     * Registra un conto creato dopo il taglio, che il backup deve escludere
+     *
+     * @param accountNumber numero del nuovo conto
+     */
+    public void accountCreated(String accountNumber) {
+        createdAfterCut.add(accountNumber);
+    }
+
+    /**
+     * Segnala che il registro è stato sostituito: il backup non è più
+     * consistente e va scartato
+     */
+    public void invalidate() {
+        invalidated = true;
+    }
+
+    /**
+     * @return boolean - true se il backup va scartato
+     */
+    public boolean isInvalidated() {
+        return invalidated;
+    }
+
+    /**
+     * Verifica se un conto faceva parte del registro al momento del taglio
+     *
+     * @param accountNumber numero del conto
+     * @return boolean - false per i conti creati dopo il taglio
+     */
+    public boolean existedAtCut(String accountNumber) {
+        return !createdAfterCut.contains(accountNumber);
+    }
+
+    /**
+     * Restituisce il saldo del conto al momento del taglio
+     *
+     * @param account conto esistente al taglio
+     * @return double - saldo al taglio
+     */
+    public double balanceAtCut(Account account) {
+        Double preImage = preImages.get(account.getAccountNumber());
+        return preImage != null ? preImage : account.getBalance();
+    }
+
+    /**
+     * @return int - conti modificati durante il backup
+     */
+    public int getPreImageCount() {
+        return preImages.size();
+    }
+
+    /**
+     * @return long - istante del taglio in millisecondi epoch
+     */
+    public long getCutTimestamp() {
+        return cutTimestamp;
+    }
+}
@@ -0,0 +1,407 @@
+package bank.mementoPattern;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import bank.account.Account;
+
+/**
+ * Insieme di backup persistente: una base completa seguita da delta che
+ * contengono solo i conti cambiati dal backup precedente.
+ *
+ * Ogni file ("backup-<sequenza>-base.gz" o "-delta.gz") è compresso con GZIP e
+ * chiuso da un CRC32 del contenuto, e viene reso visibile con una rinomina
+ * solo a scrittura completata. Ogni delta indica la sequenza del backup che
+ * lo precede, così una catena interrotta viene riconosciuta.
+ *
+ * I file vengono scritti dal BankService (writeFullBackup e
+ * writeIncrementalBackup); il ripristino legge l'ultima base e i delta
+ * successivi in un solo passaggio, consegnando i record in ordine: un record
+ * successivo sostituisce quelli precedenti dello stesso conto.
+ */
+public class BackupSet {
+
+    /** logger statico */
+    private static final Logger logger = Logger.getLogger(BackupSet.class.getName());
+
+    /** Magic dei file di backup ("BKUP") */
+    private static final int MAGIC = 0x424B5550;
+
+    /** Versione del formato */
+    private static final int VERSION = 1;
+
+    /** Tipo di file: base completa */
+    private static final byte KIND_BASE = 0;
+
+    /** Tipo di file: delta */
+    private static final byte KIND_DELTA = 1;
+
+    /** Marcatore di record */
+    private static final byte TAG_RECORD = 1;
+
+    /** Marcatore di fine file */
+    private static final byte TAG_END = 0;
+
+    /** Prefisso dei file */
+    private static final String PREFIX = "backup-";
+
+    /** Suffisso dei file base */
+    private static final String BASE_SUFFIX = "-base.gz";
+
+    /** Suffisso dei file delta */
+    private static final String DELTA_SUFFIX = "-delta.gz";
+
+    /** Cartella dell'insieme di backup */
+    private final File directory;
+
+    /**
+     * Ricevitore dei record durante il ripristino
+     */
+    @FunctionalInterface
+    public interface RecordHandler {
+
+        /**
+         * Riceve un record (i record successivi dello stesso conto lo
+         * sostituiscono)
+         *
+         * @param accountType   tipo di conto (come nel file dati)
+         * @param accountNumber numero del conto
+         * @param ownerName     proprietario
+         * @param balance       saldo al momento del backup
+         * @param premium       fascia premium
+         */
+        void onRecord(String accountType, String accountNumber, String ownerName, double balance, boolean premium);
+    }
+
+    /**
+     * Costruttore
+     *
+     * @param directory cartella dell'insieme di backup (creata se non esiste)
+     * @throws IOException cartella non creabile
+     */
+    public BackupSet(File directory) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Impossibile creare la cartella dei backup: " + directory);
+        }
+        this.directory = directory;
+    }
+
+    /**
+     * @return File - cartella dell'insieme di backup
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Restituisce la sequenza dell'ultimo backup scritto
+     *
+     * @return long - ultima sequenza, 0 se l'insieme è vuoto
+     */
+    public long getLatestSequence() {
+        long[] sequences = listSequences();
+        return sequences.length == 0 ? 0 : sequences[sequences.length - 1];
+    }
+
+    /**
+     * Verifica se esiste almeno una base da cui partire con i delta
+     *
+     * @return boolean - true se c'è una base
+     */
+    public boolean hasBase() {
+        for (long sequence : listSequences()) {
+            if (file(sequence, KIND_BASE).exists()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Apre la scrittura di una nuova base completa
+     *
+     * @param cutTimestamp istante del taglio del backup
+     * @return Writer - writer da chiudere con commit() (o close() per scartare)
+     * @throws IOException errore di creazione del file
+     */
+    public Writer openBase(long cutTimestamp) throws IOException {
+        return new Writer(KIND_BASE, getLatestSequence() + 1, 0, cutTimestamp);
+    }
+
+    /**
+     * Apre la scrittura di un delta rispetto all'ultimo backup
+     *
+     * @param cutTimestamp istante del taglio del backup
+     * @return Writer - writer da chiudere con commit() (o close() per scartare)
+     * @throws IOException insieme senza base o errore di creazione del file
+     */
+    public Writer openDelta(long cutTimestamp) throws IOException {
+        if (!hasBase()) {
+            throw new IOException("Nessuna base in " + directory + ": impossibile scrivere un delta");
+        }
+        long parent = getLatestSequence();
+        return new Writer(KIND_DELTA, parent + 1, parent, cutTimestamp);
+    }
+
+    /**
+     * Legge l'ultima base e i delta successivi, in ordine, verificando catena e
+     * checksum
+     *
+     * @param handler ricevitore dei record
+     * @return int - record letti (base più delta)
+     * @throws IOException file mancante, corrotto o catena interrotta
+     */
+    public int restore(RecordHandler handler) throws IOException {
+        long[] sequences = listSequences();
+        int baseIndex = -1;
+        for (int i = sequences.length - 1; i >= 0 && baseIndex < 0; i--) {
+            if (file(sequences[i], KIND_BASE).exists()) {
+                baseIndex = i;
+            }
+        }
+        if (baseIndex < 0) {
+            throw new IOException("Nessuna base in " + directory);
+        }
+
+        int records = readFile(file(sequences[baseIndex], KIND_BASE), KIND_BASE, 0, handler);
+        long previous = sequences[baseIndex];
+        for (int i = baseIndex + 1; i < sequences.length; i++) {
+            File delta = file(sequences[i], KIND_DELTA);
+            if (!delta.exists()) {
+                throw new IOException("Catena di backup interrotta: manca il delta " + sequences[i]);
+            }
+            records += readFile(delta, KIND_DELTA, previous, handler);
+            previous = sequences[i];
+        }
+
+        if (logger.isLoggable(Level.INFO)) {
+            logger.info("Ripristino da " + directory + ": base " + sequences[baseIndex] + " e "
+                    + (sequences.length - baseIndex - 1) + " delta, " + records + " record");
+        }
+        return records;
+    }
+
+    /**
+     * Legge e verifica un file di backup
+     */
+    private int readFile(File file, byte expectedKind, long expectedParent, RecordHandler handler)
+            throws IOException {
+        try (InputStream compressed = new GZIPInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            CheckedInputStream checked = new CheckedInputStream(compressed, new CRC32());
+            DataInputStream input = new DataInputStream(checked);
+
+            if (input.readInt() != MAGIC) {
+                throw new IOException("File di backup non valido: " + file);
+            }
+            int version = input.readInt();
+            if (version != VERSION) {
+                throw new IOException("Versione di backup non supportata: " + version + " in " + file);
+            }
+            byte kind = input.readByte();
+            input.readLong(); // sequenza (già nel nome del file)
+            long parent = input.readLong();
+            input.readLong(); // istante del taglio
+            if (kind != expectedKind || parent != expectedParent) {
+                throw new IOException("Catena di backup non valida in " + file + " (precedente " + parent
+                        + ", atteso " + expectedParent + ")");
+            }
+
+            int records = 0;
+            while (input.readByte() == TAG_RECORD) {
+                handler.onRecord(input.readUTF(), input.readUTF(), input.readUTF(), input.readDouble(),
+                        input.readBoolean());
+                records++;
+            }
+            int declared = input.readInt();
+            long computed = checked.getChecksum().getValue();
+            long stored = new DataInputStream(compressed).readLong();
+            if (declared != records || computed != stored) {
+                throw new IOException("Checksum non valido nel backup " + file);
+            }
+            return records;
+        } catch (EOFException e) {
+            throw new IOException("Backup troncato: " + file, e);
+        }
+    }
+
+    /**
+     * Sequenze dei file presenti, in ordine crescente
+     */
+    private long[] listSequences() {
+        String[] names = directory.list();
+        if (names == null) {
+            return new long[0];
+        }
+        long[] sequences = new long[names.length];
+        int count = 0;
+        for (String name : names) {
+            String suffix = name.endsWith(BASE_SUFFIX) ? BASE_SUFFIX : name.endsWith(DELTA_SUFFIX) ? DELTA_SUFFIX
+                    : null;
+            if (suffix != null && name.startsWith(PREFIX)) {
+                try {
+                    long sequence = Long.parseLong(name.substring(PREFIX.length(), name.length() - suffix.length()));
+                    sequences[count++] = sequence;
+                } catch (NumberFormatException e) {
+                    // file estraneo: si ignora
+                }
+            }
+        }
+        long[] result = Arrays.copyOf(sequences, count);
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * File di un backup
+     */
+    private File file(long sequence, byte kind) {
+        return new File(directory, String.format("%s%010d%s", PREFIX, sequence,
+                kind == KIND_BASE ? BASE_SUFFIX : DELTA_SUFFIX));
+    }
+
+    /**
+     * Scrittura in streaming di un file di backup: i record vanno su un file
+     * temporaneo, reso visibile solo da commit().
+     */
+    public final class Writer implements Closeable {
+
+        /** File definitivo */
+        private final File target;
+
+        /** File temporaneo */
+        private final File temporary;
+
+        /** Flusso compresso */
+        private final OutputStream compressed;
+
+        /** Flusso con CRC32 del contenuto */
+        private final CheckedOutputStream checked;
+
+        /** Flusso dei dati */
+        private final DataOutputStream output;
+
+        /** Record scritti */
+        private int records;
+
+        /** true dopo un commit() riuscito o close() */
+        private boolean finished;
+
+        /**
+         * Costruttore - scrive l'intestazione
+         */
+        private Writer(byte kind, long sequence, long parent, long cutTimestamp) throws IOException {
+            this.target = file(sequence, kind);
+            this.temporary = new File(directory, target.getName() + ".tmp");
+            this.compressed = new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(temporary)));
+            this.checked = new CheckedOutputStream(compressed, new CRC32());
+            this.output = new DataOutputStream(checked);
+
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeByte(kind);
+            output.writeLong(sequence);
+            output.writeLong(parent);
+            output.writeLong(cutTimestamp);
+        }
+
+        /**
+         * Scrive il record di un conto con il saldo indicato
+         *
+         * @param account conto
+         * @param balance saldo al taglio
+         * @throws IOException errore di scrittura
+         */
+        public void write(Account account, double balance) throws IOException {
+            output.writeByte(TAG_RECORD);
+            output.writeUTF(account.getAccountType());
+            output.writeUTF(account.getAccountNumber());
+            output.writeUTF(account.getOwnerName());
+            output.writeDouble(balance);
+            output.writeBoolean(account.isPremium());
+            records++;
+        }
+
+        /**
+         * Chiude il file con conteggio e checksum e lo rende visibile
+         *
+         * @return int - record scritti
+         * @throws IOException errore di scrittura o di rinomina
+         */
+        public int commit() throws IOException {
+            output.writeByte(TAG_END);
+            output.writeInt(records);
+            output.flush();
+            // Il CRC non include se stesso: si scrive sotto il flusso controllato
+            new DataOutputStream(compressed).writeLong(checked.getChecksum().getValue());
+            compressed.close();
+            try {
+                Files.move(temporary.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary.toPath(), target.toPath());
+            }
+            // Solo ora: se chiusura o rinomina falliscono, close() elimina il file temporaneo
+            finished = true;
+            return records;
+        }
+
+        /**
+         * @return File - file definitivo del backup
+         */
+        public File getFile() {
+            return target;
+        }
+
+        /**
+         * Scarta il backup se non è stato confermato con commit()
+         */
+        @Override
+        public void close() throws IOException {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            try {
+                compressed.close();
+            } finally {
+                Files.deleteIfExists(temporary.toPath());
+            }
+        }
+    }
+
+    /**
+     * Elenco dei file dell'insieme, dal più vecchio (utile per diagnostica)
+     *
+     * @return List - file di backup presenti
+     */
+    public List<File> listFiles() {
+        List<File> files = new ArrayList<>();
+        for (long sequence : listSequences()) {
+            File base = file(sequence, KIND_BASE);
+            files.add(base.exists() ? base : file(sequence, KIND_DELTA));
+        }
+        return files;
+    }
+}
@@ -0,0 +1,165 @@
+package bank.mementoPattern;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+/**
+ * Politica con cui AccountBackup, in modalità limitata, sceglie lo storico da
+ * spostare su file quando la memoria è piena.
+ */
+public enum EvictionPolicy {
+
+    /** Si sposta il conto usato meno di recente */
+    LRU {
+        @Override
+        Tracker newTracker() {
+            return new LruTracker();
+        }
+    },
+
+    /** Si sposta il conto usato meno spesso (a parità, il meno recente) */
+    LFU {
+        @Override
+        Tracker newTracker() {
+            return new LfuTracker();
+        }
+    };
+
+    /**
+     * Crea il registro degli accessi della politica
+     */
+    abstract Tracker newTracker();
+
+    /**
+     * Registro degli accessi ai conti in memoria: operazioni in tempo costante
+     * (ammortizzato)
+     */
+    interface Tracker {
+
+        /** Registra un conto appena entrato in memoria */
+        void added(String accountNumber);
+
+        /** Registra un accesso a un conto in memoria */
+        void accessed(String accountNumber);
+
+        /** Dimentica un conto uscito dalla memoria */
+        void removed(String accountNumber);
+
+        /** Conto da spostare su file (null se nessuno) */
+        String victim();
+    }
+
+    /**
+     * LRU: una LinkedHashMap in ordine di accesso, la testa è la vittima
+     */
+    private static final class LruTracker implements Tracker {
+
+        /** Conti in ordine di accesso */
+        private final LinkedHashMap<String, Boolean> order = new LinkedHashMap<>(16, 0.75f, true);
+
+        @Override
+        public void added(String accountNumber) {
+            order.put(accountNumber, Boolean.TRUE);
+        }
+
+        @Override
+        public void accessed(String accountNumber) {
+            order.get(accountNumber);
+        }
+
+        @Override
+        public void removed(String accountNumber) {
+            order.remove(accountNumber);
+        }
+
+        @Override
+        public String victim() {
+            Iterator<String> iterator = order.keySet().iterator();
+            return iterator.hasNext() ? iterator.next() : null;
+        }
+    }
+
+    /**
+     * LFU: i conti sono raggruppati per numero di accessi, ogni gruppo in
+     * ordine di arrivo; si tiene la frequenza minima per trovare la vittima
+     */
+    private static final class LfuTracker implements Tracker {
+
+        /** Accessi di ogni conto */
+        private final Map<String, Integer> frequencies = new HashMap<>();
+
+        /** Conti per numero di accessi */
+        private final Map<Integer, LinkedHashSet<String>> buckets = new HashMap<>();
+
+        /** Frequenza minima presente */
+        private int minFrequency;
+
+        @Override
+        public void added(String accountNumber) {
+            frequencies.put(accountNumber, 1);
+            bucket(1).add(accountNumber);
+            minFrequency = 1;
+        }
+
+        @Override
+        public void accessed(String accountNumber) {
+            Integer frequency = frequencies.get(accountNumber);
+            if (frequency == null) {
+                return;
+            }
+            LinkedHashSet<String> current = buckets.get(frequency);
+            current.remove(accountNumber);
+            if (current.isEmpty()) {
+                buckets.remove(frequency);
+                if (minFrequency == frequency) {
+                    minFrequency = frequency + 1;
+                }
+            }
+            frequencies.put(accountNumber, frequency + 1);
+            bucket(frequency + 1).add(accountNumber);
+        }
+
+        @Override
+        public void removed(String accountNumber) {
+            Integer frequency = frequencies.remove(accountNumber);
+            if (frequency == null) {
+                return;
+            }
+            LinkedHashSet<String> current = buckets.get(frequency);
+            current.remove(accountNumber);
+            if (current.isEmpty()) {
+                buckets.remove(frequency);
+                // La frequenza minima si ricalcola solo quando serve una vittima
+            }
+        }
+
+        @Override
+        public String victim() {
+            if (frequencies.isEmpty()) {
+                return null;
+            }
+            LinkedHashSet<String> lowest = buckets.get(minFrequency);
+            while (lowest == null) {
+                // Dopo una rimozione il minimo può essere salito: lo si cerca
+                minFrequency++;
+                lowest = buckets.get(minFrequency);
+            }
+            return lowest.iterator().next();
+        }
+
+        /**
+         * Gruppo dei conti con la frequenza indicata, creato se manca
+         */
+        private LinkedHashSet<String> bucket(int frequency) {
+            LinkedHashSet<String> bucket = buckets.get(frequency);
+            if (bucket == null) {
+                bucket = new LinkedHashSet<>();
+                buckets.put(frequency, bucket);
+            }
+            return bucket;
+        }
+    }
+}
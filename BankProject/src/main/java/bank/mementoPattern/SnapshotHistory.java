@@ -0,0 +1,163 @@
+package bank.mementoPattern;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Storico limitato degli snapshot di un conto: le ultime N versioni in due
+ * array primitivi circolari (istante e saldo), senza un oggetto per snapshot.
+ *
+ * Le versioni sono numerate da 1 in poi; la versione v occupa la cella
+ * (v - 1) % N, quindi la ricerca per versione è diretta e quella per istante
+ * è una ricerca binaria sulle versioni conservate (gli istanti sono resi non
+ * decrescenti al salvataggio).
+ */
+final class SnapshotHistory {
+
+    /** Istanti delle versioni (millisecondi epoch) */
+    private final long[] timestamps;
+
+    /** Saldi delle versioni */
+    private final double[] balances;
+
+    /** Ultima versione salvata (0 = nessuna) */
+    private long latestVersion;
+
+    /**
+     * Costruttore
+     *
+     * @param capacity versioni conservate (N)
+     */
+    SnapshotHistory(int capacity) {
+        this.timestamps = new long[capacity];
+        this.balances = new double[capacity];
+    }
+
+    /**
+     * Aggiunge una versione, sovrascrivendo la più vecchia se lo storico è pieno
+     *
+     * @param timestamp istante del salvataggio
+     * @param balance   saldo salvato
+     * @return long - numero della nuova versione
+     */
+    long append(long timestamp, double balance) {
+        if (latestVersion > 0) {
+            // Un orologio che torna indietro non deve rompere la ricerca binaria
+            timestamp = Math.max(timestamp, timestamps[slot(latestVersion)]);
+        }
+        latestVersion++;
+        int slot = slot(latestVersion);
+        timestamps[slot] = timestamp;
+        balances[slot] = balance;
+        return latestVersion;
+    }
+
+    /**
+     * @return long - ultima versione salvata (0 se nessuna)
+     */
+    long getLatestVersion() {
+        return latestVersion;
+    }
+
+    /**
+     * @return long - versione più vecchia ancora conservata (0 se nessuna)
+     */
+    long getOldestVersion() {
+        return latestVersion == 0 ? 0 : Math.max(1, latestVersion - timestamps.length + 1);
+    }
+
+    /**
+     * @return int - versioni conservate
+     */
+    int size() {
+        return (int) Math.min(latestVersion, timestamps.length);
+    }
+
+    /**
+     * @return int - versioni conservabili (N)
+     */
+    int capacity() {
+        return timestamps.length;
+    }
+
+    /**
+     * Verifica se una versione è ancora conservata
+     */
+    boolean contains(long version) {
+        return version >= getOldestVersion() && version <= latestVersion && version > 0;
+    }
+
+    /**
+     * Istante di una versione conservata
+     */
+    long timestampOf(long version) {
+        return timestamps[slot(version)];
+    }
+
+    /**
+     * Saldo di una versione conservata
+     */
+    double balanceOf(long version) {
+        return balances[slot(version)];
+    }
+
+    /**
+     * Ultima versione salvata non dopo l'istante indicato, in O(log N)
+     *
+     * @param timestamp istante in millisecondi epoch
+     * @return long - la versione, 0 se tutte le versioni conservate sono
+     *         successive
+     */
+    long versionAt(long timestamp) {
+        long low = getOldestVersion();
+        long high = latestVersion;
+        long found = 0;
+        while (low <= high && low > 0) {
+            long middle = (low + high) >>> 1;
+            if (timestamps[slot(middle)] <= timestamp) {
+                found = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Byte occupati da uno storico serializzato di capacità N
+     */
+    static int serializedSize(int capacity) {
+        return Long.BYTES + capacity * (Long.BYTES + Double.BYTES);
+    }
+
+    /**
+     * Scrive lo storico nel buffer (serializedSize(capacity()) byte)
+     */
+    void writeTo(ByteBuffer buffer) {
+        buffer.putLong(latestVersion);
+        for (int i = 0; i < timestamps.length; i++) {
+            buffer.putLong(timestamps[i]);
+            buffer.putDouble(balances[i]);
+        }
+    }
+
+    /**
+     * Ricostruisce uno storico scritto da writeTo
+     */
+    static SnapshotHistory readFrom(ByteBuffer buffer, int capacity) {
+        SnapshotHistory history = new SnapshotHistory(capacity);
+        history.latestVersion = buffer.getLong();
+        for (int i = 0; i < capacity; i++) {
+            history.timestamps[i] = buffer.getLong();
+            history.balances[i] = buffer.getDouble();
+        }
+        return history;
+    }
+
+    /**
+     * Cella di una versione
+     */
+    private int slot(long version) {
+        return (int) ((version - 1) % timestamps.length);
+    }
+}
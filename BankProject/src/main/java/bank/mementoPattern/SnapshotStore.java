@@ -0,0 +1,300 @@
+package bank.mementoPattern;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import bank.metrics.BankMetrics;
+
+/**
+ * Archivio degli storici di AccountBackup.
+ *
+ * Senza limite è una semplice mappa in memoria. In modalità limitata tiene in
+ * memoria al massimo maxCached storici; quando si supera il limite la politica
+ * di eviction sceglie uno storico che viene scritto su un file locale (spill)
+ * e tolto dalla memoria. Tutti gli storici hanno la stessa dimensione
+ * serializzata, quindi il file è fatto di celle fisse riutilizzate: in
+ * memoria resta solo l'indice numero conto → cella. Uno storico richiesto che
+ * si trova su file viene riletto e riportato in memoria in modo trasparente.
+ *
+ * Non è thread-safe, come AccountBackup.
+ */
+final class SnapshotStore implements Closeable {
+
+    /** logger statico */
+    private static final Logger logger = Logger.getLogger(SnapshotStore.class.getName());
+
+    /** Capacità degli storici (versioni per conto) */
+    private final int historyCapacity;
+
+    /** Storici in memoria al massimo (Integer.MAX_VALUE = senza limite) */
+    private final int maxCached;
+
+    /** Cartella del file di spill */
+    private final File spillDirectory;
+
+    /** Storici in memoria */
+    private final Map<String, SnapshotHistory> cached = new HashMap<>();
+
+    /** Accessi per la politica di eviction (null senza limite) */
+    private final EvictionPolicy.Tracker tracker;
+
+    /** Cella nel file di spill degli storici spostati su disco */
+    private final Map<String, Long> spilled = new HashMap<>();
+
+    /** Celle libere del file di spill */
+    private final ArrayDeque<Long> freeSlots = new ArrayDeque<>();
+
+    /** Buffer di una cella, riutilizzato */
+    private final ByteBuffer slotBuffer;
+
+    /** File di spill, creato alla prima eviction */
+    private File spillFile;
+
+    /** Canale del file di spill */
+    private FileChannel spillChannel;
+
+    /** Celle allocate nel file */
+    private long slotCount;
+
+    /**
+     * Costruttore - archivio senza limite
+     */
+    SnapshotStore(int historyCapacity) {
+        this.historyCapacity = historyCapacity;
+        this.maxCached = Integer.MAX_VALUE;
+        this.spillDirectory = null;
+        this.tracker = null;
+        this.slotBuffer = null;
+    }
+
+    /**
+     * Costruttore - archivio limitato con spill su file
+     */
+    SnapshotStore(int historyCapacity, int maxCached, EvictionPolicy policy, File spillDirectory) {
+        this.historyCapacity = historyCapacity;
+        this.maxCached = maxCached;
+        this.spillDirectory = spillDirectory;
+        this.tracker = policy.newTracker();
+        this.slotBuffer = ByteBuffer.allocate(SnapshotHistory.serializedSize(historyCapacity));
+    }
+
+    /**
+     * @return boolean - true se l'archivio ha un limite di memoria
+     */
+    boolean isBounded() {
+        return tracker != null;
+    }
+
+    /**
+     * Restituisce lo storico di un conto, rileggendolo dal file se necessario
+     *
+     * @return SnapshotHistory - lo storico, null se il conto non ha backup
+     * @throws IOException errore di lettura del file di spill
+     */
+    SnapshotHistory get(String accountNumber) throws IOException {
+        return fetch(accountNumber, false);
+    }
+
+    /**
+     * Come get, ma conta l'accesso nelle statistiche della cache (hit se lo
+     * storico era in memoria, miss se riletto dal file): le statistiche
+     * riguardano solo i ripristini
+     *
+     * @throws IOException errore di lettura del file di spill
+     */
+    SnapshotHistory getForRestore(String accountNumber) throws IOException {
+        return fetch(accountNumber, true);
+    }
+
+    /**
+     * Restituisce lo storico di un conto creandolo se manca
+     *
+     * @throws IOException errore del file di spill
+     */
+    SnapshotHistory getOrCreate(String accountNumber) throws IOException {
+        SnapshotHistory history = get(accountNumber);
+        if (history == null) {
+            history = new SnapshotHistory(historyCapacity);
+            admit(accountNumber, history);
+        }
+        return history;
+    }
+
+    /**
+     * Lettura di uno storico, con o senza statistiche della cache
+     */
+    private SnapshotHistory fetch(String accountNumber, boolean countStats) throws IOException {
+        SnapshotHistory history = cached.get(accountNumber);
+        if (tracker == null) {
+            return history;
+        }
+        if (history != null) {
+            tracker.accessed(accountNumber);
+            if (countStats) {
+                BankMetrics.BACKUP_CACHE_HIT.increment();
+            }
+            return history;
+        }
+        Long slot = spilled.get(accountNumber);
+        if (slot == null) {
+            return null;
+        }
+        if (countStats) {
+            BankMetrics.BACKUP_CACHE_MISS.increment();
+        }
+        history = readSlot(slot);
+        spilled.remove(accountNumber);
+        freeSlots.push(slot);
+        admit(accountNumber, history);
+        return history;
+    }
+
+    /**
+     * Verifica se un conto ha uno storico, senza rileggerlo dal file
+     */
+    boolean contains(String accountNumber) {
+        return cached.containsKey(accountNumber) || spilled.containsKey(accountNumber);
+    }
+
+    /**
+     * Elimina lo storico di un conto, in memoria o su file
+     *
+     * @return boolean - true se lo storico esisteva
+     */
+    boolean remove(String accountNumber) {
+        if (cached.remove(accountNumber) != null) {
+            if (tracker != null) {
+                tracker.removed(accountNumber);
+            }
+            return true;
+        }
+        Long slot = spilled.remove(accountNumber);
+        if (slot != null) {
+            freeSlots.push(slot);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return int - conti con storico (in memoria e su file)
+     */
+    int size() {
+        return cached.size() + spilled.size();
+    }
+
+    /**
+     * @return int - storici in memoria
+     */
+    int cachedSize() {
+        return cached.size();
+    }
+
+    /**
+     * @return int - storici su file
+     */
+    int spilledSize() {
+        return spilled.size();
+    }
+
+    /**
+     * Chiude ed elimina il file di spill: gli storici su file vanno persi
+     */
+    @Override
+    public void close() throws IOException {
+        spilled.clear();
+        freeSlots.clear();
+        slotCount = 0;
+        if (spillChannel != null) {
+            try {
+                spillChannel.close();
+            } finally {
+                spillChannel = null;
+                Files.deleteIfExists(spillFile.toPath());
+            }
+        }
+    }
+
+    /**
+     * Mette uno storico in memoria, spostando su file le vittime oltre il limite
+     */
+    private void admit(String accountNumber, SnapshotHistory history) throws IOException {
+        cached.put(accountNumber, history);
+        if (tracker == null) {
+            return;
+        }
+        tracker.added(accountNumber);
+        while (cached.size() > maxCached) {
+            String victim = tracker.victim();
+            if (victim.equals(accountNumber)) {
+                // Lo storico appena richiesto resta in memoria
+                tracker.accessed(victim);
+                continue;
+            }
+            spill(victim);
+        }
+    }
+
+    /**
+     * Scrive uno storico su file e lo toglie dalla memoria
+     */
+    private void spill(String accountNumber) throws IOException {
+        SnapshotHistory history = cached.get(accountNumber);
+        Long slot = freeSlots.isEmpty() ? Long.valueOf(slotCount) : freeSlots.peek();
+        slotBuffer.clear();
+        history.writeTo(slotBuffer);
+        slotBuffer.flip();
+        FileChannel channel = channel();
+        long position = slot * slotBuffer.capacity();
+        while (slotBuffer.hasRemaining()) {
+            position += channel.write(slotBuffer, position);
+        }
+        // La cella si consuma solo a scrittura riuscita
+        if (slot == slotCount) {
+            slotCount++;
+        } else {
+            freeSlots.pop();
+        }
+        cached.remove(accountNumber);
+        tracker.removed(accountNumber);
+        spilled.put(accountNumber, slot);
+        BankMetrics.BACKUP_CACHE_EVICTIONS.increment();
+    }
+
+    /**
+     * Rilegge lo storico di una cella
+     */
+    private SnapshotHistory readSlot(long slot) throws IOException {
+        slotBuffer.clear();
+        long position = slot * slotBuffer.capacity();
+        while (slotBuffer.hasRemaining()) {
+            if (spillChannel.read(slotBuffer, position + slotBuffer.position()) < 0) {
+                throw new IOException("File di spill dei backup troncato: " + spillFile);
+            }
+        }
+        slotBuffer.flip();
+        return SnapshotHistory.readFrom(slotBuffer, historyCapacity);
+    }
+
+    /**
+     * Canale del file di spill, creato alla prima eviction
+     */
+    private FileChannel channel() throws IOException {
+        if (spillChannel == null) {
+            spillFile = File.createTempFile("account-backup-", ".spill", spillDirectory);
+            spillFile.deleteOnExit();
+            spillChannel = FileChannel.open(spillFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+            logger.info("Backup dei conti oltre il limite di memoria spostati su " + spillFile);
+        }
+        return spillChannel;
+    }
+}
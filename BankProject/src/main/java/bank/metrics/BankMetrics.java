@@ -0,0 +1,115 @@
+package bank.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metriche del sistema bancario, condivise da tutti i servizi.
+ * 
+ * I contatori e gli istogrammi delle operazioni principali vengono risolti
+ * una volta sola all'avvio, così il percorso caldo non fa lookup per nome.
+ */
+public final class BankMetrics {
+
+    /** Operazione di deposito */
+    public static final int OP_DEPOSIT = 0;
+
+    /** Operazione di prelievo */
+    public static final int OP_WITHDRAW = 1;
+
+    /** Esito: operazione eseguita */
+    public static final int OUTCOME_SUCCESS = 0;
+
+    /** Esito: operazione rifiutata dal conto (fondi, importo, limiti) */
+    public static final int OUTCOME_FAILED = 1;
+
+    /** Nomi delle operazioni, indicizzati per codice */
+    private static final String[] OPERATION_NAMES = { "deposit", "withdraw" };
+
+    /** Nomi degli esiti, indicizzati per codice */
+    private static final String[] OUTCOME_NAMES = { "success", "failed" };
+
+    /** Registro condiviso */
+    private static final MetricsRegistry REGISTRY = new MetricsRegistry();
+
+    /** Contatori delle transazioni per [operazione][esito] */
+    private static final LongAdder[][] TRANSACTIONS = new LongAdder[OPERATION_NAMES.length][OUTCOME_NAMES.length];
+
+    static {
+        for (int op = 0; op < OPERATION_NAMES.length; op++) {
+            for (int outcome = 0; outcome < OUTCOME_NAMES.length; outcome++) {
+                TRANSACTIONS[op][outcome] = REGISTRY
+                        .counter("transactions." + OPERATION_NAMES[op] + "." + OUTCOME_NAMES[outcome]);
+            }
+        }
+    }
+
+    /** Transazioni rifiutate prima dell'esecuzione (conto o operazione sconosciuti) */
+    public static final LongAdder TRANSACTIONS_REJECTED = REGISTRY.counter("transactions.rejected");
+
+    /** Durata complessiva di performTransaction */
+    public static final LatencyHistogram TRANSACTION_LATENCY = REGISTRY.histogram("transaction.latency");
+
+    /** Durata del salvataggio su file */
+    public static final LatencyHistogram PERSISTENCE_SAVE = REGISTRY.histogram("persistence.save");
+
+    /** Durata del caricamento da file */
+    public static final LatencyHistogram PERSISTENCE_LOAD = REGISTRY.histogram("persistence.load");
+
+    /** Durata della notifica agli observer */
+    public static final LatencyHistogram OBSERVER_DISPATCH = REGISTRY.histogram("observer.dispatch");
+
+    /** Attesa per acquisire il lock del registro conti */
+    public static final LatencyHistogram LOCK_WAIT = REGISTRY.histogram("ledger.lock.wait");
+
+    /** Durata della generazione dei report */
+    public static final LatencyHistogram REPORT_GENERATION = REGISTRY.histogram("report.generation");
+
+    /** Durata della scrittura di un'immagine consistente di tutti i conti */
+    public static final LatencyHistogram BACKUP_IMAGE = REGISTRY.histogram("backup.image");
+
+    /** Durata di un ripristino massivo di snapshot */
+    public static final LatencyHistogram BULK_RESTORE = REGISTRY.histogram("backup.restore");
+
+    /** Ripristini di AccountBackup serviti dalla memoria (modalità limitata) */
+    public static final LongAdder BACKUP_CACHE_HIT = REGISTRY.counter("backup.cache.hit");
+
+    /** Ripristini di AccountBackup riletti dal file di spill (modalità limitata) */
+    public static final LongAdder BACKUP_CACHE_MISS = REGISTRY.counter("backup.cache.miss");
+
+    /** Storici di AccountBackup spostati su file per liberare memoria */
+    public static final LongAdder BACKUP_CACHE_EVICTIONS = REGISTRY.counter("backup.cache.evictions");
+
+    /**
+     * Costruttore privato: la classe offre solo metriche statiche
+     */
+    private BankMetrics() {
+    }
+
+    /**
+     * Conta una transazione eseguita
+     * 
+     * @param operation codice dell'operazione (OP_DEPOSIT, OP_WITHDRAW)
+     * @param outcome   codice dell'esito (OUTCOME_SUCCESS, OUTCOME_FAILED)
+     */
+    public static void countTransaction(int operation, int outcome) {
+        TRANSACTIONS[operation][outcome].increment();
+    }
+
+    /**
+     * Restituisce il registro condiviso, per aggiungere metriche personalizzate
+     * 
+     * @return MetricsRegistry - il registro
+     */
+    public static MetricsRegistry registry() {
+        return REGISTRY;
+    }
+
+    /**
+     * Legge tutte le metriche senza fermare chi scrive
+     * 
+     * @return MetricsSnapshot - copia immutabile delle metriche
+     */
+    public static MetricsSnapshot snapshot() {
+        return REGISTRY.snapshot();
+    }
+}
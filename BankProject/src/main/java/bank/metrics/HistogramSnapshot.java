@@ -0,0 +1,103 @@
+package bank.metrics;
+
+/**
+ * Copia immutabile di un LatencyHistogram in un certo istante.
+ */
+public final class HistogramSnapshot {
+
+    /** Nome dell'istogramma */
+    private final String name;
+
+    /** Contatori dei bucket */
+    private final long[] counts;
+
+    /** Numero di valori registrati */
+    private final long count;
+
+    /** Somma dei valori registrati */
+    private final long sum;
+
+    /** Valore massimo registrato */
+    private final long max;
+
+    /**
+     * Costruttore
+     */
+    HistogramSnapshot(String name, long[] counts, long count, long sum, long max) {
+        this.name = name;
+        this.counts = counts;
+        this.count = count;
+        this.sum = sum;
+        this.max = max;
+    }
+
+    /**
+     * @return String - nome dell'istogramma
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return long - numero di valori registrati
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return long - valore massimo registrato
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * @return double - media dei valori registrati, 0 se vuoto
+     */
+    public double getMean() {
+        return count == 0 ? 0.0 : (double) sum / count;
+    }
+
+    /**
+     * Restituisce il valore sotto cui ricade la percentuale richiesta dei
+     * valori registrati (con l'errore relativo dei bucket, senza mai superare
+     * il massimo osservato).
+     * 
+     * @param percentile percentile fra 0 e 100 (es. 99.9)
+     * @return long - valore al percentile, 0 se l'istogramma è vuoto
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile non valido: " + percentile);
+        }
+        if (count == 0) {
+            return 0;
+        }
+
+        long target = Math.max(1, (long) Math.ceil(count * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return Math.min(LatencyHistogram.highestValueInBucket(i), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Riga riassuntiva con conteggio e percentili principali, in microsecondi
+     * 
+     * @return String - riepilogo leggibile
+     */
+    @Override
+    public String toString() {
+        return String.format("%-28s n=%-9d p50=%.1fus p99=%.1fus p999=%.1fus max=%.1fus",
+                name, count,
+                getValueAtPercentile(50) / 1000.0,
+                getValueAtPercentile(99) / 1000.0,
+                getValueAtPercentile(99.9) / 1000.0,
+                max / 1000.0);
+    }
+}
@@ -0,0 +1,139 @@
+package bank.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Istogramma delle latenze a memoria fissa con bucket logaritmici.
+ * 
+ * Ogni potenza di due è divisa in 16 sotto-bucket lineari, quindi l'errore
+ * relativo sui percentili è al massimo 1/16 (circa 6%) su tutto l'intervallo
+ * dei long, con 960 contatori in tutto. La registrazione è lock-free e la
+ * lettura di uno snapshot non blocca chi scrive.
+ */
+public final class LatencyHistogram {
+
+    /** Bit di precisione dei sotto-bucket (16 sotto-bucket per potenza di due) */
+    private static final int SUB_BUCKET_BITS = 4;
+
+    /** Numero di sotto-bucket per potenza di due */
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    /** Numero totale di bucket (esponenti da 4 a 62 più i valori piccoli) */
+    static final int BUCKET_COUNT = (63 - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+    /** Nome dell'istogramma */
+    private final String name;
+
+    /** Contatori dei bucket */
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+    /** Somma dei valori registrati, per la media */
+    private final LongAdder sum = new LongAdder();
+
+    /** Valore massimo registrato */
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Costruttore
+     * 
+     * @param name nome dell'istogramma
+     */
+    LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Restituisce il nome dell'istogramma
+     * 
+     * @return String - nome
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Registra un valore (tipicamente una durata in nanosecondi).
+     * I valori negativi vengono trattati come zero.
+     * 
+     * @param value valore da registrare
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        buckets.incrementAndGet(bucketIndex(value));
+        sum.add(value);
+
+        long current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+            // riprova finché il massimo non è aggiornato o superato da un altro thread
+        }
+    }
+
+    /**
+     * Copia lo stato attuale senza fermare i thread che registrano.
+     * Lo snapshot può non includere le registrazioni concorrenti in corso.
+     * 
+     * @return HistogramSnapshot - copia immutabile dei contatori
+     */
+    public HistogramSnapshot snapshot() {
+        long[] counts = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        return new HistogramSnapshot(name, counts, total, sum.sum(), max.get());
+    }
+
+    /**
+     * Azzera l'istogramma. Le registrazioni concorrenti possono sopravvivere
+     * all'azzeramento.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets.set(i, 0);
+        }
+        sum.reset();
+        max.set(0);
+    }
+
+    /**
+     * Calcola il bucket di un valore non negativo
+     */
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    /**
+     * Restituisce il valore più alto che ricade nel bucket dato
+     */
+    static long highestValueInBucket(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        if (index == BUCKET_COUNT - 1) {
+            return Long.MAX_VALUE;
+        }
+        return lowestValueInBucket(index + 1) - 1;
+    }
+
+    /**
+     * Restituisce il valore più basso che ricade nel bucket dato
+     */
+    private static long lowestValueInBucket(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+        long subBucket = index % SUB_BUCKET_COUNT;
+        return (SUB_BUCKET_COUNT + subBucket) << (exponent - SUB_BUCKET_BITS);
+    }
+}
@@ -0,0 +1,71 @@
+package bank.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registro di contatori e istogrammi identificati per nome.
+ * 
+ * La risoluzione per nome avviene una volta sola: i chiamanti tengono il
+ * riferimento al contatore o all'istogramma e nel percorso caldo fanno solo
+ * un incremento lock-free (LongAdder / AtomicLongArray).
+ */
+public final class MetricsRegistry {
+
+    /** Contatori per nome */
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+
+    /** Istogrammi per nome */
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    /**
+     * Restituisce il contatore con il nome dato, creandolo se necessario
+     * 
+     * @param name nome del contatore
+     * @return LongAdder - il contatore
+     */
+    public LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, key -> new LongAdder());
+    }
+
+    /**
+     * Restituisce l'istogramma con il nome dato, creandolo se necessario
+     * 
+     * @param name nome dell'istogramma
+     * @return LatencyHistogram - l'istogramma
+     */
+    public LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, LatencyHistogram::new);
+    }
+
+    /**
+     * Legge tutte le metriche senza fermare chi scrive
+     * 
+     * @return MetricsSnapshot - copia immutabile delle metriche
+     */
+    public MetricsSnapshot snapshot() {
+        Map<String, Long> counterValues = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> entry : counters.entrySet()) {
+            counterValues.put(entry.getKey(), entry.getValue().sum());
+        }
+        Map<String, HistogramSnapshot> histogramValues = new TreeMap<>();
+        for (Map.Entry<String, LatencyHistogram> entry : histograms.entrySet()) {
+            histogramValues.put(entry.getKey(), entry.getValue().snapshot());
+        }
+        return new MetricsSnapshot(counterValues, histogramValues);
+    }
+
+    /**
+     * Azzera tutte le metriche mantenendo validi i riferimenti già distribuiti
+     */
+    public void reset() {
+        for (LongAdder counter : counters.values()) {
+            counter.reset();
+        }
+        for (LatencyHistogram histogram : histograms.values()) {
+            histogram.reset();
+        }
+    }
+}
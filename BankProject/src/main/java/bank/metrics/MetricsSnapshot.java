@@ -0,0 +1,77 @@
+package bank.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Copia immutabile di tutte le metriche di un MetricsRegistry.
+ */
+public final class MetricsSnapshot {
+
+    /** Valori dei contatori, ordinati per nome */
+    private final Map<String, Long> counters;
+
+    /** Snapshot degli istogrammi, ordinati per nome */
+    private final Map<String, HistogramSnapshot> histograms;
+
+    /**
+     * Costruttore
+     */
+    MetricsSnapshot(Map<String, Long> counters, Map<String, HistogramSnapshot> histograms) {
+        this.counters = Collections.unmodifiableMap(counters);
+        this.histograms = Collections.unmodifiableMap(histograms);
+    }
+
+    /**
+     * Restituisce il valore di un contatore
+     * 
+     * @param name nome del contatore
+     * @return long - valore, 0 se il contatore non esiste
+     */
+    public long getCounter(String name) {
+        Long value = counters.get(name);
+        return value != null ? value : 0L;
+    }
+
+    /**
+     * Restituisce lo snapshot di un istogramma
+     * 
+     * @param name nome dell'istogramma
+     * @return HistogramSnapshot - snapshot, oppure null se non esiste
+     */
+    public HistogramSnapshot getHistogram(String name) {
+        return histograms.get(name);
+    }
+
+    /**
+     * @return Map - tutti i contatori, ordinati per nome
+     */
+    public Map<String, Long> getCounters() {
+        return counters;
+    }
+
+    /**
+     * @return Map - tutti gli istogrammi, ordinati per nome
+     */
+    public Map<String, HistogramSnapshot> getHistograms() {
+        return histograms;
+    }
+
+    /**
+     * Testo leggibile con tutti i contatori e gli istogrammi
+     * 
+     * @return String - report delle metriche
+     */
+    public String format() {
+        StringBuilder text = new StringBuilder();
+        text.append("Contatori:\n");
+        for (Map.Entry<String, Long> entry : counters.entrySet()) {
+            text.append(String.format("  %-36s %d%n", entry.getKey(), entry.getValue()));
+        }
+        text.append("Latenze:\n");
+        for (HistogramSnapshot histogram : histograms.values()) {
+            text.append("  ").append(histogram).append('\n');
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,56 @@
+package bank.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Evento JFR emesso dal salvataggio e dal caricamento del file dati.
+ */
+@Name("bank.Persistence")
+@Label("Persistenza")
+@Category({ "Bank", "Persistenza" })
+@Description("Scrittura o lettura del file dati dei conti")
+@StackTrace(false)
+public class PersistenceJfrEvent extends Event {
+
+    /** Tipo di operazione: salvataggio */
+    public static final String KIND_SAVE = "save";
+
+    /** Tipo di operazione: caricamento */
+    public static final String KIND_LOAD = "load";
+
+    /** Tipo dell'evento, per sapere se una registrazione JFR lo sta raccogliendo */
+    private static final EventType TYPE = EventType.getEventType(PersistenceJfrEvent.class);
+
+    @Label("Tipo")
+    public String kind;
+
+    @Label("File")
+    public String path;
+
+    @Label("Conti")
+    public int accountCount;
+
+    @Label("Dimensione file")
+    @DataAmount
+    public long fileBytes;
+
+    @Label("Riuscito")
+    public boolean succeeded;
+
+    /**
+     * Verifica se una registrazione JFR attiva raccoglie l'evento: quando
+     * restituisce false l'evento non va nemmeno creato.
+     * 
+     * @return boolean - true se l'evento bank.Persistence è abilitato
+     */
+    public static boolean isRecorded() {
+        return TYPE.isEnabled();
+    }
+}
@@ -0,0 +1,42 @@
+package bank.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Evento JFR emesso da AccountReportGenerator.generateReport.
+ */
+@Name("bank.ReportGeneration")
+@Label("Generazione report")
+@Category({ "Bank", "Report" })
+@Description("Generazione di un report tramite il template method")
+@StackTrace(false)
+public class ReportJfrEvent extends Event {
+
+    /** Tipo dell'evento, per sapere se una registrazione JFR lo sta raccogliendo */
+    private static final EventType TYPE = EventType.getEventType(ReportJfrEvent.class);
+
+    @Label("Generatore")
+    public String generator;
+
+    @Label("Conto")
+    public String accountNumber;
+
+    @Label("Lunghezza report")
+    public int reportLength;
+
+    /**
+     * Verifica se una registrazione JFR attiva raccoglie l'evento: quando
+     * restituisce false l'evento non va nemmeno creato.
+     * 
+     * @return boolean - true se l'evento bank.ReportGeneration è abilitato
+     */
+    public static boolean isRecorded() {
+        return TYPE.isEnabled();
+    }
+}
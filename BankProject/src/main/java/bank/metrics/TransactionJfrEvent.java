@@ -0,0 +1,85 @@
+package bank.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Evento JFR emesso da BankService.performTransaction.
+ * 
+ * L'evento si crea solo se isRecorded() è true e i campi si valorizzano solo
+ * se shouldCommit() è true: senza registrazione attiva la transazione non
+ * alloca nulla, anche dopo che una registrazione precedente ha strumentato
+ * la classe.
+ */
+@Name("bank.Transaction")
+@Label("Transazione")
+@Category({ "Bank", "Transazioni" })
+@Description("Deposito o prelievo eseguito da BankService")
+@StackTrace(false)
+public class TransactionJfrEvent extends Event {
+
+    /** Esito: operazione eseguita */
+    public static final String OUTCOME_SUCCESS = "success";
+
+    /** Esito: operazione rifiutata dal conto */
+    public static final String OUTCOME_FAILED = "failed";
+
+    /** Esito: conto o operazione sconosciuti */
+    public static final String OUTCOME_REJECTED = "rejected";
+
+    /** Esito: errore imprevisto */
+    public static final String OUTCOME_ERROR = "error";
+
+    /** Tipo dell'evento, per sapere se una registrazione JFR lo sta raccogliendo */
+    private static final EventType TYPE = EventType.getEventType(TransactionJfrEvent.class);
+
+    /** Limiti superiori delle fasce di importo */
+    private static final double[] AMOUNT_LIMITS = { 1, 10, 100, 1_000, 10_000, 100_000 };
+
+    /** Etichette delle fasce di importo (una in più dei limiti) */
+    private static final String[] AMOUNT_BUCKETS = { "<1", "1-10", "10-100", "100-1k", "1k-10k", "10k-100k",
+            ">=100k" };
+
+    @Label("Conto")
+    public String accountNumber;
+
+    @Label("Operazione")
+    public String operation;
+
+    @Label("Fascia importo")
+    @Description("Ordine di grandezza dell'importo, per non registrare gli importi esatti")
+    public String amountBucket;
+
+    @Label("Esito")
+    public String outcome;
+
+    /**
+     * Restituisce la fascia di un importo
+     * 
+     * @param amount importo della transazione
+     * @return String - etichetta della fascia
+     */
+    public static String amountBucket(double amount) {
+        for (int i = 0; i < AMOUNT_LIMITS.length; i++) {
+            if (amount < AMOUNT_LIMITS[i]) {
+                return AMOUNT_BUCKETS[i];
+            }
+        }
+        return AMOUNT_BUCKETS[AMOUNT_LIMITS.length];
+    }
+
+    /**
+     * Verifica se una registrazione JFR attiva raccoglie l'evento: quando
+     * restituisce false l'evento non va nemmeno creato.
+     * 
+     * @return boolean - true se l'evento bank.Transaction è abilitato
+     */
+    public static boolean isRecorded() {
+        return TYPE.isEnabled();
+    }
+}
@@ -0,0 +1,19 @@
+package bank.observerPattern;
+
+import java.util.List;
+
+/**
+ * Observer che riceve le transazioni a blocchi, per chi ha un costo fisso per
+ * chiamata (es. una scrittura su disco o in rete per ogni consegna).
+ */
+public interface BatchTransactionObserver {
+
+    /**
+     * Riceve un blocco di transazioni nell'ordine in cui sono avvenute.
+     * La lista e gli eventi vengono riutilizzati dopo il ritorno: non vanno
+     * conservati.
+     * 
+     * @param events blocco di eventi (mai vuoto)
+     */
+    void onTransactions(List<TransactionEvent> events);
+}
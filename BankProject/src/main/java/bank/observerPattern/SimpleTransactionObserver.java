@@ -1,22 +1,40 @@
 package bank.observerPattern;
 
+import bank.logging.Notifications;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * Classe dell'observer concreto che stampa informazioni sulle transazioni.
+ *
+ * Riceve l'evento primitivo e compone il messaggio in un buffer riutilizzato:
+ * viene chiamato solo dal thread di consegna della propria sottoscrizione.
  */
-public class SimpleTransactionObserver implements TransactionObserver {
+public class SimpleTransactionObserver implements TransactionEventListener {
 
     private static final Logger logger = Logger.getLogger(SimpleTransactionObserver.class.getName());
 
+    /** Buffer del messaggio, riutilizzato tra un evento e l'altro */
+    private final StringBuilder message = new StringBuilder(96);
+
     @Override
-    public void onTransaction(String accountNumber, String operation, double amount, boolean success) {
+    public void onTransaction(TransactionEvent event) {
 
-        String status = success ? "✓" : "✗";
-        String message = String.format("%s %s di €%.2f su conto %s",
-                status, operation.toUpperCase(), amount, accountNumber);
+        // Il messaggio si costruisce solo se qualcuno lo riceverà
+        if (Notifications.isEnabled()) {
+            Notifications.publish(compose("Observer: ", event));
+        }
+        if (logger.isLoggable(Level.INFO)) {
+            logger.info(compose("Transaction observed: ", event));
+        }
+    }
 
-        System.out.println("Observer: " + message);
-        logger.info("Transaction observed: " + message);
+    /**
+     * Compone il messaggio nel buffer riutilizzato (nessun String.format)
+     */
+    private String compose(String prefix, TransactionEvent event) {
+        message.setLength(0);
+        message.append(prefix).append(event.isSuccess() ? "✓ " : "✗ ");
+        return event.appendTo(message).toString();
     }
 }
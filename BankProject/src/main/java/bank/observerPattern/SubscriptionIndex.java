@@ -0,0 +1,149 @@
+package bank.observerPattern;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Indice immutabile delle sottoscrizioni del TransactionEventBus, ricostruito
+ * a ogni sottoscrizione o cancellazione e letto senza lock a ogni evento.
+ *
+ * Le sottoscrizioni sono divise in contenitori per operazione ed esito; in
+ * ciascuno sono raggruppate per conto (più una lista per chi non filtra i
+ * conti) e ordinate per importo minimo crescente. Un evento visita solo il
+ * proprio contenitore, legge al più due liste e si ferma alla prima soglia
+ * superiore all'importo: il costo è proporzionale ai sottoscrittori che lo
+ * ricevono, non al totale.
+ */
+final class SubscriptionIndex {
+
+    /** Indice senza sottoscrizioni */
+    static final SubscriptionIndex EMPTY = new SubscriptionIndex(new ArrayList<>());
+
+    /** Esiti indicizzati (TransactionEvent.OUTCOME_SUCCESS e OUTCOME_DECLINED) */
+    private static final int OUTCOMES = 2;
+
+    /** Lista vuota condivisa */
+    private static final TransactionEventBus.Subscription[] NONE = new TransactionEventBus.Subscription[0];
+
+    /** Ordine per importo minimo crescente */
+    private static final Comparator<TransactionEventBus.Subscription> BY_MIN_AMOUNT = Comparator
+            .comparingLong(subscription -> subscription.getFilter().getMinAmountMinor());
+
+    /** Contenitori indicizzati per operazione ed esito (null se vuoti) */
+    private final Bucket[] buckets;
+
+    /**
+     * Costruisce l'indice dalle sottoscrizioni attive
+     *
+     * @param subscriptions sottoscrizioni attive
+     */
+    SubscriptionIndex(List<TransactionEventBus.Subscription> subscriptions) {
+        TransactionOperation[] operations = TransactionOperation.values();
+        this.buckets = new Bucket[operations.length * OUTCOMES];
+
+        for (TransactionOperation operation : operations) {
+            for (int outcome = 0; outcome < OUTCOMES; outcome++) {
+                List<TransactionEventBus.Subscription> anyAccount = new ArrayList<>();
+                Map<String, List<TransactionEventBus.Subscription>> byAccount = new HashMap<>();
+
+                for (TransactionEventBus.Subscription subscription : subscriptions) {
+                    TransactionFilter filter = subscription.getFilter();
+                    if ((filter.getOperation() != null && filter.getOperation() != operation)
+                            || (filter.getOutcome() != TransactionFilter.ANY_OUTCOME
+                                    && filter.getOutcome() != outcome)) {
+                        continue;
+                    }
+                    if (filter.getAccountNumbers().isEmpty()) {
+                        anyAccount.add(subscription);
+                    } else {
+                        for (String accountNumber : filter.getAccountNumbers()) {
+                            byAccount.computeIfAbsent(accountNumber, key -> new ArrayList<>()).add(subscription);
+                        }
+                    }
+                }
+
+                if (!anyAccount.isEmpty() || !byAccount.isEmpty()) {
+                    buckets[slot(operation, outcome)] = new Bucket(anyAccount, byAccount);
+                }
+            }
+        }
+    }
+
+    /**
+     * Accoda l'evento alle sole sottoscrizioni il cui filtro lo accetta
+     */
+    void dispatch(int accountId, String accountNumber, TransactionOperation operation, long amountMinor,
+            int outcome, long timestamp) {
+        if (outcome < 0 || outcome >= OUTCOMES) {
+            throw new IllegalArgumentException("Esito della transazione non valido: " + outcome);
+        }
+        Bucket bucket = buckets[slot(operation, outcome)];
+        if (bucket == null) {
+            return;
+        }
+        TransactionEventBus.Subscription[] accountSubscriptions = bucket.byAccount.get(accountNumber);
+        if (accountSubscriptions != null) {
+            offer(accountSubscriptions, accountId, accountNumber, operation, amountMinor, outcome, timestamp);
+        }
+        offer(bucket.anyAccount, accountId, accountNumber, operation, amountMinor, outcome, timestamp);
+    }
+
+    /**
+     * Scorre una lista ordinata per soglia fino alla prima che l'importo non
+     * raggiunge
+     */
+    private static void offer(TransactionEventBus.Subscription[] subscriptions, int accountId,
+            String accountNumber, TransactionOperation operation, long amountMinor, int outcome, long timestamp) {
+        for (TransactionEventBus.Subscription subscription : subscriptions) {
+            if (subscription.getFilter().getMinAmountMinor() > amountMinor) {
+                return;
+            }
+            subscription.offer(accountId, accountNumber, operation, amountMinor, outcome, timestamp);
+        }
+    }
+
+    /**
+     * Posizione del contenitore di un'operazione e di un esito
+     */
+    private static int slot(TransactionOperation operation, int outcome) {
+        return operation.ordinal() * OUTCOMES + outcome;
+    }
+
+    /**
+     * Converte una lista in array ordinato per soglia
+     */
+    private static TransactionEventBus.Subscription[] sorted(List<TransactionEventBus.Subscription> list) {
+        if (list.isEmpty()) {
+            return NONE;
+        }
+        list.sort(BY_MIN_AMOUNT);
+        return list.toArray(NONE);
+    }
+
+    /**
+     * Sottoscrizioni di un'operazione e di un esito
+     */
+    private static final class Bucket {
+
+        /** Sottoscrizioni senza filtro sui conti */
+        private final TransactionEventBus.Subscription[] anyAccount;
+
+        /** Sottoscrizioni per numero di conto */
+        private final Map<String, TransactionEventBus.Subscription[]> byAccount;
+
+        /**
+         * Costruttore
+         */
+        private Bucket(List<TransactionEventBus.Subscription> anyAccount,
+                Map<String, List<TransactionEventBus.Subscription>> byAccount) {
+            this.anyAccount = sorted(anyAccount);
+            this.byAccount = new HashMap<>();
+            for (Map.Entry<String, List<TransactionEventBus.Subscription>> entry : byAccount.entrySet()) {
+                this.byAccount.put(entry.getKey(), sorted(entry.getValue()));
+            }
+        }
+    }
+}
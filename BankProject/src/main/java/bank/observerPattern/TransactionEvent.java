@@ -0,0 +1,160 @@
+package bank.observerPattern;
+
+/**
+ * Evento di una transazione consegnato dal TransactionEventBus, in forma
+ * primitiva: codice dell'operazione, importo in centesimi, id del conto,
+ * istante ed esito.
+ *
+ * Gli eventi sono slot preallocati nella coda di ogni sottoscrittore e vengono
+ * riutilizzati: sono validi solo durante la chiamata all'observer e non vanno
+ * conservati (copiare i campi che servono).
+ */
+public final class TransactionEvent {
+
+    /** Esito: transazione eseguita (vale BankService.TRANSACTION_SUCCESS) */
+    public static final int OUTCOME_SUCCESS = 0;
+
+    /** Esito: transazione rifiutata dal conto (vale BankService.TRANSACTION_DECLINED) */
+    public static final int OUTCOME_DECLINED = 1;
+
+    /** Centesimi in un euro */
+    private static final long MINOR_UNITS_PER_UNIT = 100;
+
+    /** Id compatto del conto (vedi Account.getAccountId) */
+    private int accountId;
+
+    /** Numero del conto (riferimento, nessuna copia) */
+    private String accountNumber;
+
+    /** Operazione */
+    private TransactionOperation operation;
+
+    /** Importo in centesimi */
+    private long amountMinor;
+
+    /** Istante della transazione (millisecondi epoch) */
+    private long timestamp;
+
+    /** Esito (OUTCOME_*) */
+    private int outcome;
+
+    /**
+     * Costruttore usato solo per preallocare gli slot delle code
+     */
+    TransactionEvent() {
+    }
+
+    /**
+     * Converte un importo in centesimi, arrotondando al centesimo
+     *
+     * @param amount importo in euro
+     * @return long - importo in centesimi
+     */
+    public static long toMinorUnits(double amount) {
+        return Math.round(amount * MINOR_UNITS_PER_UNIT);
+    }
+
+    /**
+     * Valorizza lo slot con i dati di una nuova transazione
+     */
+    void set(int accountId, String accountNumber, TransactionOperation operation, long amountMinor,
+            int outcome, long timestamp) {
+        this.accountId = accountId;
+        this.accountNumber = accountNumber;
+        this.operation = operation;
+        this.amountMinor = amountMinor;
+        this.outcome = outcome;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * Rilascia i riferimenti dopo la consegna
+     */
+    void clear() {
+        this.accountNumber = null;
+        this.operation = null;
+    }
+
+    /**
+     * @return int - id compatto del conto
+     */
+    public int getAccountId() {
+        return accountId;
+    }
+
+    /**
+     * @return String - numero del conto
+     */
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    /**
+     * @return TransactionOperation - operazione
+     */
+    public TransactionOperation getOperation() {
+        return operation;
+    }
+
+    /**
+     * @return long - importo in centesimi
+     */
+    public long getAmountMinor() {
+        return amountMinor;
+    }
+
+    /**
+     * @return double - importo in euro (derivato dai centesimi)
+     */
+    public double getAmount() {
+        return (double) amountMinor / MINOR_UNITS_PER_UNIT;
+    }
+
+    /**
+     * @return int - esito (OUTCOME_*)
+     */
+    public int getOutcome() {
+        return outcome;
+    }
+
+    /**
+     * @return boolean - true se la transazione è riuscita
+     */
+    public boolean isSuccess() {
+        return outcome == OUTCOME_SUCCESS;
+    }
+
+    /**
+     * @return long - istante della transazione in millisecondi epoch
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Accoda la descrizione dell'evento senza String.format: "DEPOSIT di
+     * €12.50 su conto X"
+     *
+     * @param target destinazione (riutilizzabile)
+     * @return StringBuilder - target, per concatenare
+     */
+    public StringBuilder appendTo(StringBuilder target) {
+        long absolute = Math.abs(amountMinor);
+        long cents = absolute % MINOR_UNITS_PER_UNIT;
+        target.append(operation != null ? operation.getLabel() : "?")
+                .append(" di €");
+        if (amountMinor < 0) {
+            target.append('-');
+        }
+        target.append(absolute / MINOR_UNITS_PER_UNIT).append('.');
+        if (cents < 10) {
+            target.append('0');
+        }
+        return target.append(cents).append(" su conto ").append(accountNumber);
+    }
+
+    @Override
+    public String toString() {
+        return appendTo(new StringBuilder(64)).append(isSuccess() ? " OK" : " KO").toString();
+    }
+}
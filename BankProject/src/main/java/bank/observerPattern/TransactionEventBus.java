@@ -0,0 +1,496 @@
+package bank.observerPattern;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import bank.metrics.BankMetrics;
+
+/**
+ * Bus degli eventi di transazione con più sottoscrittori e consegna asincrona.
+ * 
+ * Ogni sottoscrittore ha una propria coda circolare limitata di eventi
+ * primitivi preallocati (vedi TransactionEvent) e un proprio thread di consegna: chi pubblica copia i dati nello
+ * slot libero e prosegue, senza allocare e senza attendere l'observer. Se la
+ * coda di un sottoscrittore è piena l'evento viene scartato (e contato) solo
+ * per quel sottoscrittore, così un observer lento non rallenta il registro.
+ * 
+ * Ogni coda è FIFO: se le pubblicazioni di uno stesso conto sono ordinate
+ * (BankService pubblica sotto il lock del registro) anche le consegne lo sono.
+ * 
+ * Una sottoscrizione può avere un TransactionFilter (conti, operazione,
+ * importo minimo, esito): le sottoscrizioni sono indicizzate (vedi
+ * SubscriptionIndex) e ogni evento raggiunge solo quelle che lo accettano.
+ */
+public class TransactionEventBus {
+
+    /** logger statico */
+    private static final Logger logger = Logger.getLogger(TransactionEventBus.class.getName());
+
+    /** Capacità predefinita della coda di un sottoscrittore */
+    public static final int DEFAULT_QUEUE_CAPACITY = 4096;
+
+    /** Numeratore dei thread di consegna */
+    private static final AtomicInteger threadCounter = new AtomicInteger();
+
+    /** Sottoscrizioni attive */
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    /** Indice delle sottoscrizioni per filtro (letto senza lock a ogni pubblicazione) */
+    private volatile SubscriptionIndex index = SubscriptionIndex.EMPTY;
+
+    /**
+     * Registra un observer con la capacità di coda predefinita
+     * 
+     * @param observer observer da registrare
+     * @return Subscription - la sottoscrizione, per statistiche e cancellazione
+     */
+    public Subscription subscribe(TransactionObserver observer) {
+        return subscribe(observer, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Registra un observer con la firma testuale: riceve il nome canonico
+     * dell'operazione e l'importo in euro ricavati dall'evento primitivo
+     * 
+     * @param observer      observer da registrare
+     * @param queueCapacity capacità della coda (arrotondata a potenza di due)
+     * @return Subscription - la sottoscrizione
+     */
+    public Subscription subscribe(TransactionObserver observer, int queueCapacity) {
+        if (observer == null) {
+            throw new IllegalArgumentException("L'observer non può essere null");
+        }
+        TransactionEventListener adapter = event -> observer.onTransaction(event.getAccountNumber(),
+                event.getOperation().getName(), event.getAmount(), event.isSuccess());
+        return register(new Subscription(this, adapter, null, observer, TransactionFilter.all(), queueCapacity,
+                1));
+    }
+
+    /**
+     * Registra un listener con la capacità di coda predefinita
+     * 
+     * @param listener listener da registrare
+     * @return Subscription - la sottoscrizione
+     */
+    public Subscription subscribe(TransactionEventListener listener) {
+        return subscribe(listener, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Registra un listener che riceve l'evento primitivo riutilizzato, un
+     * evento per volta
+     * 
+     * @param listener      listener da registrare
+     * @param queueCapacity capacità della coda (arrotondata a potenza di due)
+     * @return Subscription - la sottoscrizione
+     */
+    public Subscription subscribe(TransactionEventListener listener, int queueCapacity) {
+        return subscribe(listener, TransactionFilter.all(), queueCapacity);
+    }
+
+    /**
+     * Registra un listener che riceve solo gli eventi accettati dal filtro,
+     * con la capacità di coda predefinita
+     * 
+     * @param listener listener da registrare
+     * @param filter   filtro della sottoscrizione
+     * @return Subscription - la sottoscrizione
+     */
+    public Subscription subscribe(TransactionEventListener listener, TransactionFilter filter) {
+        return subscribe(listener, filter, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Registra un listener che riceve solo gli eventi accettati dal filtro
+     * 
+     * @param listener      listener da registrare
+     * @param filter        filtro della sottoscrizione
+     * @param queueCapacity capacità della coda (arrotondata a potenza di due)
+     * @return Subscription - la sottoscrizione
+     */
+    public Subscription subscribe(TransactionEventListener listener, TransactionFilter filter,
+            int queueCapacity) {
+        if (listener == null) {
+            throw new IllegalArgumentException("L'observer non può essere null");
+        }
+        if (filter == null) {
+            throw new IllegalArgumentException("Il filtro non può essere null");
+        }
+        return register(new Subscription(this, listener, null, listener, filter, queueCapacity, 1));
+    }
+
+    /**
+     * Registra un observer che riceve gli eventi a blocchi
+     * 
+     * @param observer      observer da registrare
+     * @param queueCapacity capacità della coda (arrotondata a potenza di due)
+     * @param maxBatchSize  dimensione massima di un blocco
+     * @return Subscription - la sottoscrizione
+     */
+    public Subscription subscribeBatch(BatchTransactionObserver observer, int queueCapacity, int maxBatchSize) {
+        return subscribeBatch(observer, TransactionFilter.all(), queueCapacity, maxBatchSize);
+    }
+
+    /**
+     * Registra un observer che riceve a blocchi solo gli eventi accettati dal
+     * filtro
+     * 
+     * @param observer      observer da registrare
+     * @param filter        filtro della sottoscrizione
+     * @param queueCapacity capacità della coda (arrotondata a potenza di due)
+     * @param maxBatchSize  dimensione massima di un blocco
+     * @return Subscription - la sottoscrizione
+     */
+    public Subscription subscribeBatch(BatchTransactionObserver observer, TransactionFilter filter,
+            int queueCapacity, int maxBatchSize) {
+        if (observer == null) {
+            throw new IllegalArgumentException("L'observer non può essere null");
+        }
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("La dimensione del blocco deve essere positiva");
+        }
+        if (filter == null) {
+            throw new IllegalArgumentException("Il filtro non può essere null");
+        }
+        return register(new Subscription(this, null, observer, observer, filter, queueCapacity, maxBatchSize));
+    }
+
+    /**
+     * Pubblica una transazione ai sottoscrittori il cui filtro la accetta,
+     * senza bloccare e senza allocare
+     * 
+     * @param accountId     id compatto del conto
+     * @param accountNumber numero del conto
+     * @param operation     operazione
+     * @param amountMinor   importo in centesimi
+     * @param outcome       esito (TransactionEvent.OUTCOME_*)
+     */
+    public void publish(int accountId, String accountNumber, TransactionOperation operation, long amountMinor,
+            int outcome) {
+        SubscriptionIndex current = index;
+        if (current == SubscriptionIndex.EMPTY) {
+            return;
+        }
+        current.dispatch(accountId, accountNumber, operation, amountMinor, outcome, System.currentTimeMillis());
+    }
+
+    /**
+     * Restituisce il numero di sottoscrizioni attive
+     * 
+     * @return int - sottoscrizioni attive
+     */
+    public int getSubscriberCount() {
+        return subscriptions.size();
+    }
+
+    /**
+     * Attende che tutti gli eventi pubblicati finora siano stati consegnati
+     * 
+     * @param timeoutMillis attesa massima
+     * @return boolean - true se tutte le code si sono svuotate in tempo
+     */
+    public boolean awaitDelivery(long timeoutMillis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        for (Subscription subscription : subscriptions) {
+            if (!subscription.awaitDelivery(deadline)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Consegna gli eventi rimasti e ferma tutti i thread di consegna
+     */
+    public void close() {
+        for (Subscription subscription : subscriptions) {
+            subscription.cancel();
+        }
+    }
+
+    /**
+     * Aggiunge una sottoscrizione e ne avvia il thread di consegna
+     */
+    private Subscription register(Subscription subscription) {
+        synchronized (subscriptions) {
+            subscriptions.add(subscription);
+            index = new SubscriptionIndex(subscriptions);
+        }
+        subscription.start();
+        if (logger.isLoggable(Level.INFO)) {
+            logger.info("Nuovo sottoscrittore del bus eventi: " + subscription.getName());
+        }
+        return subscription;
+    }
+
+    /**
+     * Rimuove una sottoscrizione e ricostruisce l'indice
+     */
+    private void unregister(Subscription subscription) {
+        synchronized (subscriptions) {
+            if (subscriptions.remove(subscription)) {
+                index = subscriptions.isEmpty() ? SubscriptionIndex.EMPTY : new SubscriptionIndex(subscriptions);
+            }
+        }
+    }
+
+    /**
+     * Sottoscrizione di un observer: coda circolare di eventi preallocati e
+     * thread di consegna dedicato.
+     */
+    public static final class Subscription {
+
+        /** Bus di appartenenza */
+        private final TransactionEventBus bus;
+
+        /** Listener a eventi singoli (null se a blocchi) */
+        private final TransactionEventListener listener;
+
+        /** Observer a blocchi (null se a eventi singoli) */
+        private final BatchTransactionObserver batchObserver;
+
+        /** Filtro della sottoscrizione */
+        private final TransactionFilter filter;
+
+        /** Slot preallocati della coda */
+        private final TransactionEvent[] slots;
+
+        /** Maschera per l'indice circolare (capacità - 1) */
+        private final int mask;
+
+        /** Dimensione massima di un blocco */
+        private final int maxBatchSize;
+
+        /** Lista riutilizzata per i blocchi */
+        private final List<TransactionEvent> batch;
+
+        /** Thread di consegna */
+        private final Thread dispatcher;
+
+        /** Prossima posizione da scrivere (protetta dal monitor della sottoscrizione) */
+        private long tail;
+
+        /** Posizioni pubblicate e visibili al thread di consegna */
+        private final AtomicLong published = new AtomicLong();
+
+        /** Posizioni già consegnate (gli slot precedenti sono liberi) */
+        private final AtomicLong delivered = new AtomicLong();
+
+        /** Eventi scartati perché la coda era piena */
+        private final AtomicLong dropped = new AtomicLong();
+
+        /** true mentre il thread di consegna è fermo in attesa */
+        private volatile boolean waiting;
+
+        /** false dopo la cancellazione (scritto sotto il monitor della sottoscrizione) */
+        private volatile boolean running = true;
+
+        /**
+         * Costruttore
+         */
+        private Subscription(TransactionEventBus bus, TransactionEventListener listener,
+                BatchTransactionObserver batchObserver, Object target, TransactionFilter filter, int queueCapacity,
+                int maxBatchSize) {
+            if (queueCapacity <= 0) {
+                throw new IllegalArgumentException("La capacità della coda deve essere positiva");
+            }
+            int capacity = Integer.highestOneBit(queueCapacity - 1 == 0 ? 1 : queueCapacity - 1) << 1;
+            this.bus = bus;
+            this.listener = listener;
+            this.batchObserver = batchObserver;
+            this.filter = filter;
+            this.slots = new TransactionEvent[capacity];
+            for (int i = 0; i < capacity; i++) {
+                slots[i] = new TransactionEvent();
+            }
+            this.mask = capacity - 1;
+            this.maxBatchSize = Math.min(maxBatchSize, capacity);
+            this.batch = new ArrayList<>(this.maxBatchSize);
+
+            this.dispatcher = new Thread(this::dispatchLoop,
+                    "bank-events-" + threadCounter.incrementAndGet() + "-" + target.getClass().getSimpleName());
+            this.dispatcher.setDaemon(true);
+        }
+
+        /**
+         * @return String - nome del thread di consegna
+         */
+        public String getName() {
+            return dispatcher.getName();
+        }
+
+        /**
+         * @return TransactionFilter - filtro della sottoscrizione
+         */
+        public TransactionFilter getFilter() {
+            return filter;
+        }
+
+        /**
+         * @return long - eventi scartati perché la coda era piena
+         */
+        public long getDroppedCount() {
+            return dropped.get();
+        }
+
+        /**
+         * @return long - eventi consegnati
+         */
+        public long getDeliveredCount() {
+            return delivered.get();
+        }
+
+        /**
+         * @return int - eventi in coda non ancora consegnati
+         */
+        public int getQueueDepth() {
+            return (int) (published.get() - delivered.get());
+        }
+
+        /**
+         * Rimuove la sottoscrizione dal bus, consegna gli eventi rimasti e ferma
+         * il thread di consegna. Un publish concorrente che arriva dopo la
+         * cancellazione non entra più in coda: l'evento viene contato fra gli
+         * scartati.
+         */
+        public void cancel() {
+            bus.unregister(this);
+            synchronized (this) {
+                if (!running) {
+                    return;
+                }
+                running = false;
+            }
+            LockSupport.unpark(dispatcher);
+            if (Thread.currentThread() != dispatcher) {
+                try {
+                    dispatcher.join(TimeUnit.SECONDS.toMillis(10));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        /**
+         * Avvia il thread di consegna
+         */
+        private void start() {
+            dispatcher.start();
+        }
+
+        /**
+         * Copia una transazione nel primo slot libero; se non ce ne sono la
+         * scarta
+         */
+        void offer(int accountId, String accountNumber, TransactionOperation operation,
+                long amountMinor, int outcome, long timestamp) {
+            synchronized (this) {
+                // Dopo cancel il thread di consegna può essere già fermo
+                if (!running || tail - delivered.get() > mask) {
+                    dropped.incrementAndGet();
+                    return;
+                }
+                slots[(int) (tail & mask)].set(accountId, accountNumber, operation, amountMinor, outcome,
+                        timestamp);
+                tail++;
+                published.set(tail);
+            }
+            if (waiting) {
+                LockSupport.unpark(dispatcher);
+            }
+        }
+
+        /**
+         * Attende che la coda sia vuota o che scada il termine
+         */
+        private boolean awaitDelivery(long deadlineNanos) {
+            long target = published.get();
+            while (delivered.get() < target) {
+                if (System.nanoTime() > deadlineNanos || !dispatcher.isAlive()) {
+                    return false;
+                }
+                LockSupport.unpark(dispatcher);
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            }
+            return true;
+        }
+
+        /**
+         * Ciclo del thread di consegna
+         */
+        private void dispatchLoop() {
+            long next = 0;
+            while (true) {
+                long available = published.get();
+                if (next == available) {
+                    if (!running) {
+                        // Gli eventi accodati prima di cancel sono visibili solo ora
+                        if (published.get() == next) {
+                            return;
+                        }
+                        continue;
+                    }
+                    waiting = true;
+                    // Ricontrolla dopo aver segnalato l'attesa per non perdere un unpark
+                    if (published.get() == next && running) {
+                        LockSupport.park(this);
+                    }
+                    waiting = false;
+                    continue;
+                }
+
+                long end = Math.min(available, next + maxBatchSize);
+                long start = System.nanoTime();
+                deliver(next, end);
+                BankMetrics.OBSERVER_DISPATCH.record(System.nanoTime() - start);
+
+                for (long position = next; position < end; position++) {
+                    slots[(int) (position & mask)].clear();
+                }
+                next = end;
+                delivered.set(next);
+            }
+        }
+
+        /**
+         * Consegna gli eventi nelle posizioni [from, to)
+         */
+        private void deliver(long from, long to) {
+            if (batchObserver != null) {
+                batch.clear();
+                for (long position = from; position < to; position++) {
+                    batch.add(slots[(int) (position & mask)]);
+                }
+                try {
+                    batchObserver.onTransactions(batch);
+                } catch (RuntimeException e) {
+                    reportObserverError(e);
+                }
+                return;
+            }
+
+            for (long position = from; position < to; position++) {
+                TransactionEvent event = slots[(int) (position & mask)];
+                try {
+                    listener.onTransaction(event);
+                } catch (RuntimeException e) {
+                    reportObserverError(e);
+                }
+            }
+        }
+
+        /**
+         * Un observer difettoso non deve fermare la consegna degli altri eventi
+         */
+        private void reportObserverError(RuntimeException e) {
+            logger.severe("Errore nell'observer " + getName() + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package bank.observerPattern;
+
+/**
+ * Observer che riceve l'evento di transazione in forma primitiva (codice
+ * operazione, importo in centesimi, id del conto, istante, esito).
+ * 
+ * L'evento è uno slot riutilizzato dal bus: è valido solo durante la chiamata
+ * e non va conservato, così la consegna ad alta frequenza non alloca nulla.
+ */
+@FunctionalInterface
+public interface TransactionEventListener {
+
+    /**
+     * Riceve una transazione
+     * 
+     * @param event evento riutilizzato (copiare i campi che servono)
+     */
+    void onTransaction(TransactionEvent event);
+}
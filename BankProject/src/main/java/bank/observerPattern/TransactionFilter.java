@@ -0,0 +1,179 @@
+package bank.observerPattern;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Filtro dichiarativo di una sottoscrizione al TransactionEventBus: conti,
+ * operazione, importo minimo ed esito.
+ *
+ * Il filtro non è un predicato arbitrario: il bus lo usa per indicizzare le
+ * sottoscrizioni per conto, operazione ed esito, così ogni evento raggiunge
+ * solo i sottoscrittori interessati. Il filtro è immutabile: ogni metodo
+ * restituisce una nuova istanza.
+ *
+ * Esempio (prelievi falliti oltre 500 €):
+ * TransactionFilter.all().onlyOperation(TransactionOperation.WITHDRAW).onlyFailed().withMinAmount(500)
+ */
+public final class TransactionFilter {
+
+    /** Esito non filtrato */
+    public static final int ANY_OUTCOME = -1;
+
+    /** Importo minimo non filtrato (accetta anche importi negativi, poi rifiutati) */
+    private static final long NO_MIN_AMOUNT = Long.MIN_VALUE;
+
+    /** Filtro che accetta ogni transazione */
+    private static final TransactionFilter ALL = new TransactionFilter(Collections.emptySet(), null,
+            NO_MIN_AMOUNT, ANY_OUTCOME);
+
+    /** Conti accettati (vuoto = tutti) */
+    private final Set<String> accountNumbers;
+
+    /** Operazione accettata (null = tutte) */
+    private final TransactionOperation operation;
+
+    /** Importo minimo in centesimi (incluso) */
+    private final long minAmountMinor;
+
+    /** Esito accettato (TransactionEvent.OUTCOME_* oppure ANY_OUTCOME) */
+    private final int outcome;
+
+    /**
+     * Costruttore (usare all() e i metodi fluenti)
+     */
+    private TransactionFilter(Set<String> accountNumbers, TransactionOperation operation, long minAmountMinor,
+            int outcome) {
+        this.accountNumbers = accountNumbers;
+        this.operation = operation;
+        this.minAmountMinor = minAmountMinor;
+        this.outcome = outcome;
+    }
+
+    /**
+     * Metodo factory: filtro che accetta ogni transazione
+     *
+     * @return TransactionFilter - il filtro vuoto
+     */
+    public static TransactionFilter all() {
+        return ALL;
+    }
+
+    /**
+     * Limita il filtro ai conti indicati (si aggiungono a quelli già presenti)
+     *
+     * @param numbers numeri di conto
+     * @return TransactionFilter - nuovo filtro
+     */
+    public TransactionFilter forAccounts(String... numbers) {
+        if (numbers == null || numbers.length == 0) {
+            throw new IllegalArgumentException("Indicare almeno un numero di conto");
+        }
+        Set<String> merged = new LinkedHashSet<>(accountNumbers);
+        for (String number : numbers) {
+            if (number == null || number.trim().isEmpty()) {
+                throw new IllegalArgumentException("Il numero di conto non può essere vuoto");
+            }
+            merged.add(number.trim());
+        }
+        return new TransactionFilter(Collections.unmodifiableSet(merged), operation, minAmountMinor, outcome);
+    }
+
+    /**
+     * Limita il filtro a un'operazione
+     *
+     * @param operation operazione accettata
+     * @return TransactionFilter - nuovo filtro
+     */
+    public TransactionFilter onlyOperation(TransactionOperation operation) {
+        if (operation == null) {
+            throw new IllegalArgumentException("L'operazione non può essere null");
+        }
+        return new TransactionFilter(accountNumbers, operation, minAmountMinor, outcome);
+    }
+
+    /**
+     * Accetta solo le transazioni di importo pari o superiore alla soglia
+     *
+     * @param minAmount importo minimo in euro
+     * @return TransactionFilter - nuovo filtro
+     */
+    public TransactionFilter withMinAmount(double minAmount) {
+        if (minAmount < 0 || Double.isNaN(minAmount)) {
+            throw new IllegalArgumentException("L'importo minimo non può essere negativo");
+        }
+        return new TransactionFilter(accountNumbers, operation, TransactionEvent.toMinorUnits(minAmount), outcome);
+    }
+
+    /**
+     * Accetta solo le transazioni rifiutate
+     *
+     * @return TransactionFilter - nuovo filtro
+     */
+    public TransactionFilter onlyFailed() {
+        return new TransactionFilter(accountNumbers, operation, minAmountMinor, TransactionEvent.OUTCOME_DECLINED);
+    }
+
+    /**
+     * Accetta solo le transazioni riuscite
+     *
+     * @return TransactionFilter - nuovo filtro
+     */
+    public TransactionFilter onlySuccessful() {
+        return new TransactionFilter(accountNumbers, operation, minAmountMinor, TransactionEvent.OUTCOME_SUCCESS);
+    }
+
+    /**
+     * Verifica se una transazione soddisfa il filtro (riferimento per l'indice
+     * del bus, che non lo chiama per ogni evento)
+     *
+     * @param accountNumber numero del conto
+     * @param operation     operazione
+     * @param amountMinor   importo in centesimi
+     * @param outcome       esito (TransactionEvent.OUTCOME_*)
+     * @return boolean - true se la transazione va consegnata
+     */
+    public boolean matches(String accountNumber, TransactionOperation operation, long amountMinor, int outcome) {
+        return (accountNumbers.isEmpty() || accountNumbers.contains(accountNumber))
+                && (this.operation == null || this.operation == operation)
+                && amountMinor >= minAmountMinor
+                && (this.outcome == ANY_OUTCOME || this.outcome == outcome);
+    }
+
+    /**
+     * @return Set - conti accettati (vuoto = tutti)
+     */
+    public Set<String> getAccountNumbers() {
+        return accountNumbers;
+    }
+
+    /**
+     * @return TransactionOperation - operazione accettata, null = tutte
+     */
+    public TransactionOperation getOperation() {
+        return operation;
+    }
+
+    /**
+     * @return long - importo minimo in centesimi (Long.MIN_VALUE se non filtrato)
+     */
+    public long getMinAmountMinor() {
+        return minAmountMinor;
+    }
+
+    /**
+     * @return int - esito accettato (TransactionEvent.OUTCOME_* o ANY_OUTCOME)
+     */
+    public int getOutcome() {
+        return outcome;
+    }
+
+    @Override
+    public String toString() {
+        return "TransactionFilter[conti=" + (accountNumbers.isEmpty() ? "tutti" : accountNumbers)
+                + ", operazione=" + (operation != null ? operation.getLabel() : "tutte")
+                + ", minimo=" + (minAmountMinor == NO_MIN_AMOUNT ? "nessuno" : minAmountMinor + "c")
+                + ", esito=" + (outcome == ANY_OUTCOME ? "tutti" : String.valueOf(outcome)) + "]";
+    }
+}
@@ -0,0 +1,73 @@
+package bank.observerPattern;
+
+import bank.metrics.BankMetrics;
+
+/**
+ * Operazioni di transazione come codice compatto, al posto della stringa
+ * ricevuta dall'utente: confronto per identità, nessuna conversione di
+ * maiuscole/minuscole a ogni evento.
+ */
+public enum TransactionOperation {
+
+    /** Deposito */
+    DEPOSIT("deposit", "DEPOSIT", BankMetrics.OP_DEPOSIT),
+
+    /** Prelievo */
+    WITHDRAW("withdraw", "WITHDRAW", BankMetrics.OP_WITHDRAW);
+
+    /** Nome canonico, come accettato da BankService */
+    private final String operationName;
+
+    /** Etichetta per messaggi e log, calcolata una sola volta */
+    private final String label;
+
+    /** Codice usato dalle metriche (BankMetrics.OP_*) */
+    private final int code;
+
+    /**
+     * Costruttore
+     */
+    TransactionOperation(String operationName, String label, int code) {
+        this.operationName = operationName;
+        this.label = label;
+        this.code = code;
+    }
+
+    /**
+     * Riconosce il nome di un'operazione senza allocare
+     * 
+     * @param operation nome dell'operazione ("deposit" o "withdraw", senza
+     *                  distinzione tra maiuscole e minuscole)
+     * @return TransactionOperation - l'operazione, null se non riconosciuta
+     */
+    public static TransactionOperation parse(String operation) {
+        if (DEPOSIT.operationName.equalsIgnoreCase(operation)) {
+            return DEPOSIT;
+        }
+        if (WITHDRAW.operationName.equalsIgnoreCase(operation)) {
+            return WITHDRAW;
+        }
+        return null;
+    }
+
+    /**
+     * @return String - nome canonico ("deposit" o "withdraw")
+     */
+    public String getName() {
+        return operationName;
+    }
+
+    /**
+     * @return String - etichetta in maiuscolo per i messaggi
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * @return int - codice dell'operazione (BankMetrics.OP_*)
+     */
+    public int getCode() {
+        return code;
+    }
+}
@@ -1,5 +1,8 @@
 package bank.singletonPattern;
 
+import bank.logging.ConsoleNotificationSink;
+import bank.logging.NotificationSink;
+import bank.logging.Notifications;
 import java.util.logging.Logger;
 
 /**
@@ -23,6 +26,12 @@ public class BankConfiguration {
     /** booleano per verificare se il sistema è in debug mode */
     private boolean debugMode;
 
+    /** booleano per verificare se il sistema è in modalità headless (senza console) */
+    private boolean headlessMode;
+
+    /** sink delle notifiche usato in modalità headless */
+    private NotificationSink headlessSink;
+
     /**
      * Costruttore che impedisce istanziazione diretta
      */
@@ -31,6 +40,8 @@ public class BankConfiguration {
         this.systemName = "Sistema Bancario";
         this.version = "1.0.0";
         this.debugMode = false;
+        this.headlessMode = false;
+        this.headlessSink = NotificationSink.NO_OP;
 
         logger.info("BankConfiguration Singleton inizializzato");
     }
@@ -87,13 +98,61 @@ public class BankConfiguration {
         logger.info("Modalità debug " + (debugMode ? "attivata" : "disattivata"));
     }
 
+    /**
+     * Verifica se la modalità headless è attiva.
+     * 
+     * @return boolean - True se le notifiche non vanno a console
+     */
+    public synchronized boolean isHeadlessMode() {
+        return headlessMode;
+    }
+
+    /**
+     * Attiva o disattiva la modalità headless. Quando è attiva le notifiche
+     * per l'utente del livello di servizio vanno al sink headless (no-op se
+     * non impostato) invece che alla console.
+     * 
+     * @param headlessMode - True per attivare, false per disattivare
+     */
+    public synchronized void setHeadlessMode(boolean headlessMode) {
+        this.headlessMode = headlessMode;
+        applyNotificationSink();
+        logger.info("Modalità headless " + (headlessMode ? "attivata" : "disattivata"));
+    }
+
+    /**
+     * Restituisce il sink delle notifiche attualmente in uso.
+     * 
+     * @return NotificationSink - sink headless oppure console
+     */
+    public synchronized NotificationSink getNotificationSink() {
+        return headlessMode ? headlessSink : ConsoleNotificationSink.INSTANCE;
+    }
+
+    /**
+     * Imposta il sink delle notifiche usato in modalità headless.
+     * 
+     * @param sink - il nuovo sink, null per tornare al no-op
+     */
+    public synchronized void setNotificationSink(NotificationSink sink) {
+        this.headlessSink = sink != null ? sink : NotificationSink.NO_OP;
+        applyNotificationSink();
+    }
+
+    /**
+     * Propaga il sink in uso al canale delle notifiche
+     */
+    private void applyNotificationSink() {
+        Notifications.setSink(getNotificationSink());
+    }
+
     /**
      * Restituisce una stringa con tutte le informazioni di configurazione.
      * 
      * @return String - Informazioni complete del sistema
      */
     public String getSystemInfo() {
-        return String.format("%s v%s (Debug: %s)",
-                systemName, version, debugMode ? "ON" : "OFF");
+        return String.format("%s v%s (Debug: %s, Headless: %s)",
+                systemName, version, debugMode ? "ON" : "OFF", headlessMode ? "ON" : "OFF");
     }
 }
\ No newline at end of file
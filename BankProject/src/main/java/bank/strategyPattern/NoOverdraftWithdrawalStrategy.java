@@ -1,7 +1,11 @@
 package bank.strategyPattern;
 
+import bank.logging.Notifications;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import bank.account.Account;
+
 /**
  * Classe che permette prelievi senza scoperti.
  */
@@ -11,32 +15,39 @@ class NoOverdraftWithdrawalStrategy implements WithdrawalStrategy {
     private static final Logger logger = Logger.getLogger(NoOverdraftWithdrawalStrategy.class.getName());
 
     @Override
-    public boolean executeWithdrawal(double[] currentBalance, double requestedAmount, String accountNumber) {
-        if (requestedAmount <= 0) {
-            logger.warning(
-                    "Strategia no-overdraft: importo non valido €" + requestedAmount + " per conto " + accountNumber);
-            System.out.println("Importo non valido per il prelievo");
-            return false;
+    public int executeWithdrawal(double currentBalance, double requestedAmount, Account account) {
+        String accountNumber = account.getAccountNumber();
+
+        if (requestedAmount <= 0 || Double.isNaN(requestedAmount)) {
+            if (logger.isLoggable(Level.WARNING)) {
+                logger.warning(
+                        "Strategia no-overdraft: importo non valido €" + requestedAmount + " per conto " + accountNumber);
+            }
+            Notifications.publish("Importo non valido per il prelievo");
+            return REJECTED_INVALID_AMOUNT;
         }
 
-        logger.info("Strategia no-overdraft: richiesta €" + requestedAmount +
-                " su conto " + accountNumber + " (saldo: €" + currentBalance[0] + ")");
-
-        if (currentBalance[0] >= requestedAmount) {
-            double previousBalance = currentBalance[0];
-            currentBalance[0] -= requestedAmount;
+        if (logger.isLoggable(Level.INFO)) {
+            logger.info("Strategia no-overdraft: richiesta €" + requestedAmount +
+                    " su conto " + accountNumber + " (saldo: €" + currentBalance + ")");
+        }
 
-            logger.info("Prelievo autorizzato: €" + requestedAmount +
-                    " (saldo: €" + previousBalance + " → €" + currentBalance[0] + ")");
+        if (currentBalance >= requestedAmount) {
+            if (logger.isLoggable(Level.INFO)) {
+                logger.info("Prelievo autorizzato: €" + requestedAmount +
+                        " (saldo: €" + currentBalance + " → €" + (currentBalance - requestedAmount) + ")");
+            }
 
-            return true;
+            return APPROVED;
 
         } else {
-            logger.warning("Prelievo rifiutato: richiesti €" + requestedAmount +
-                    ", disponibili €" + currentBalance[0] + " (no overdraft policy)");
+            if (logger.isLoggable(Level.WARNING)) {
+                logger.warning("Prelievo rifiutato: richiesti €" + requestedAmount +
+                        ", disponibili €" + currentBalance + " (no overdraft policy)");
+            }
 
-            System.out.println("Fondi insufficienti");
-            return false;
+            Notifications.publish("Fondi insufficienti");
+            return REJECTED_INSUFFICIENT_FUNDS;
         }
     }
 }
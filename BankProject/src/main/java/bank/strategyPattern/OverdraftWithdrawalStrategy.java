@@ -1,70 +1,70 @@
 package bank.strategyPattern;
 
+import bank.logging.Notifications;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import bank.account.Account;
+
 /**
- * Classe che permette prelievi con scoperto fino a un certo limite.
+ * Classe che permette prelievi con scoperto fino al limite di fido del conto.
  */
 class OverdraftWithdrawalStrategy implements WithdrawalStrategy {
 
-    /**
-     * Importo massimo che la banca permette di prelevare oltre il saldo
-     * disponibile(fido)
-     */
-    private final double overdraftLimit;
-
     /** logger statico */
     private static final Logger logger = Logger.getLogger(OverdraftWithdrawalStrategy.class.getName());
 
-    /**
-     * Costruttore che imposta il limite di fido permesso.
-     * 
-     * @param overdraftLimit limite massimo di fido
-     */
-    public OverdraftWithdrawalStrategy(double overdraftLimit) {
-        this.overdraftLimit = overdraftLimit;
-        logger.info("Strategia overdraft inizializzata con limite €" + overdraftLimit);
-    }
-
     @Override
-    public boolean executeWithdrawal(double[] currentBalance, double requestedAmount, String accountNumber) {
+    public int executeWithdrawal(double currentBalance, double requestedAmount, Account account) {
+        String accountNumber = account.getAccountNumber();
 
-        if (requestedAmount <= 0) {
-            logger.warning(
-                    "Strategia overdraft: importo non valido €" + requestedAmount + " per conto " + accountNumber);
-            System.out.println("Importo non valido per il prelievo");
-            return false;
+        if (requestedAmount <= 0 || Double.isNaN(requestedAmount)) {
+            if (logger.isLoggable(Level.WARNING)) {
+                logger.warning(
+                        "Strategia overdraft: importo non valido €" + requestedAmount + " per conto " + accountNumber);
+            }
+            Notifications.publish("Importo non valido per il prelievo");
+            return REJECTED_INVALID_AMOUNT;
         }
 
-        double totalAvailable = currentBalance[0] + overdraftLimit;
+        // Il fido è un parametro del conto, non della strategia condivisa
+        double overdraftLimit = account.getOverdraftLimit();
+        double totalAvailable = currentBalance + overdraftLimit;
 
-        logger.info("Strategia overdraft: richiesta €" + requestedAmount +
-                " su conto " + accountNumber + " (saldo: €" + currentBalance[0] +
-                ", fido: €" + overdraftLimit + ", totale disponibile: €" + totalAvailable + ")");
+        if (logger.isLoggable(Level.INFO)) {
+            logger.info("Strategia overdraft: richiesta €" + requestedAmount +
+                    " su conto " + accountNumber + " (saldo: €" + currentBalance +
+                    ", fido: €" + overdraftLimit + ", totale disponibile: €" + totalAvailable + ")");
+        }
 
         if (totalAvailable >= requestedAmount) {
-            double previousBalance = currentBalance[0];
-            currentBalance[0] -= requestedAmount;
+            double newBalance = currentBalance - requestedAmount;
 
-            if (previousBalance >= requestedAmount) {
-                logger.info("Prelievo normale eseguito: €" + requestedAmount +
-                        " (saldo: €" + previousBalance + " → €" + currentBalance[0] + ")");
+            if (currentBalance >= requestedAmount) {
+                if (logger.isLoggable(Level.INFO)) {
+                    logger.info("Prelievo normale eseguito: €" + requestedAmount +
+                            " (saldo: €" + currentBalance + " → €" + newBalance + ")");
+                }
             } else {
-                double overdraftUsed = requestedAmount - previousBalance;
-                logger.warning("Prelievo con fido eseguito: €" + requestedAmount +
-                        " (scoperto utilizzato: €" + overdraftUsed +
-                        ", saldo: €" + previousBalance + " → €" + currentBalance[0] + ")");
+                double overdraftUsed = requestedAmount - currentBalance;
+                if (logger.isLoggable(Level.WARNING)) {
+                    logger.warning("Prelievo con fido eseguito: €" + requestedAmount +
+                            " (scoperto utilizzato: €" + overdraftUsed +
+                            ", saldo: €" + currentBalance + " → €" + newBalance + ")");
+                }
             }
 
-            return true;
+            return APPROVED;
 
         } else {
             double shortfall = requestedAmount - totalAvailable;
-            logger.warning("Prelievo rifiutato per fondi insufficienti: richiesti €" + requestedAmount +
-                    ", disponibili €" + totalAvailable + ", mancanti €" + shortfall);
+            if (logger.isLoggable(Level.WARNING)) {
+                logger.warning("Prelievo rifiutato per fondi insufficienti: richiesti €" + requestedAmount +
+                        ", disponibili €" + totalAvailable + ", mancanti €" + shortfall);
+            }
 
-            System.out.println("Fondi insufficienti");
-            return false;
+            Notifications.publish("Fondi insufficienti");
+            return REJECTED_INSUFFICIENT_FUNDS;
         }
     }
 }
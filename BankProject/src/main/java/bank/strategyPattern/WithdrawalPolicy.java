@@ -0,0 +1,93 @@
+package bank.strategyPattern;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import bank.account.Account;
+
+/**
+ * Politica di prelievo compilata.
+ * 
+ * Le regole raccolte da WithdrawalPolicyBuilder (scoperto, saldo minimo,
+ * limite giornaliero, commissioni, franchigia premium) vengono fuse in pochi
+ * parametri primitivi: la valutazione è una sequenza fissa di operazioni
+ * aritmetiche, senza allocazioni e con un solo ramo sull'esito. L'oggetto è
+ * immutabile e può essere condiviso da tutti i conti di una fascia.
+ */
+public final class WithdrawalPolicy implements WithdrawalStrategy {
+
+    /** logger statico */
+    private static final Logger logger = Logger.getLogger(WithdrawalPolicy.class.getName());
+
+    /** 1 se si applica il fido del conto, 0 altrimenti */
+    private final double overdraftFactor;
+
+    /** Scoperto aggiuntivo concesso oltre al fido del conto (fascia premium) */
+    private final double extraAllowance;
+
+    /** Saldo minimo da mantenere dopo il prelievo (0 se non previsto) */
+    private final double minimumBalance;
+
+    /** Importo massimo prelevabile in un giorno (infinito se non previsto) */
+    private final double dailyLimit;
+
+    /** Commissione fissa per prelievo */
+    private final double flatFee;
+
+    /** Commissione percentuale sull'importo (0.01 = 1%) */
+    private final double percentageFee;
+
+    /**
+     * Costruttore usato da WithdrawalPolicyBuilder
+     */
+    WithdrawalPolicy(boolean useAccountOverdraft, double extraAllowance, double minimumBalance, double dailyLimit,
+            double flatFee, double percentageFee) {
+        this.overdraftFactor = useAccountOverdraft ? 1.0 : 0.0;
+        this.extraAllowance = extraAllowance;
+        this.minimumBalance = minimumBalance;
+        this.dailyLimit = dailyLimit;
+        this.flatFee = flatFee;
+        this.percentageFee = percentageFee;
+    }
+
+    @Override
+    public int executeWithdrawal(double currentBalance, double requestedAmount, Account account) {
+        if (!(requestedAmount > 0) || requestedAmount == Double.POSITIVE_INFINITY) {
+            return REJECTED_INVALID_AMOUNT;
+        }
+
+        // Tutte le regole vengono valutate senza cortocircuito
+        double floor = minimumBalance - overdraftFactor * account.getOverdraftLimit() - extraAllowance;
+        boolean fundsOk = currentBalance - getTotalDebit(requestedAmount, account) >= floor;
+        boolean dailyOk = account.getWithdrawnToday() + requestedAmount <= dailyLimit;
+
+        if (fundsOk & dailyOk) {
+            return APPROVED;
+        }
+
+        int outcome = !dailyOk ? REJECTED_DAILY_LIMIT
+                : (minimumBalance > 0 ? REJECTED_MINIMUM_BALANCE : REJECTED_INSUFFICIENT_FUNDS);
+        if (logger.isLoggable(Level.WARNING)) {
+            logger.warning("Prelievo rifiutato dalla politica su conto " + account.getAccountNumber()
+                    + ": richiesti €" + requestedAmount + " (esito " + outcome + ")");
+        }
+        return outcome;
+    }
+
+    @Override
+    public double getTotalDebit(double requestedAmount, Account account) {
+        return requestedAmount + flatFee + requestedAmount * percentageFee;
+    }
+
+    /**
+     * Restituisce una descrizione leggibile dei parametri compilati
+     */
+    @Override
+    public String toString() {
+        return "WithdrawalPolicy[fido conto=" + (overdraftFactor > 0) +
+                ", franchigia=€" + extraAllowance +
+                ", saldo minimo=€" + minimumBalance +
+                ", limite giornaliero=" + (dailyLimit == Double.POSITIVE_INFINITY ? "nessuno" : "€" + dailyLimit) +
+                ", commissione=€" + flatFee + " + " + (percentageFee * 100) + "%]";
+    }
+}
@@ -0,0 +1,124 @@
+package bank.strategyPattern;
+
+import java.util.logging.Logger;
+
+/**
+ * Builder che compone le regole di prelievo in una WithdrawalPolicy compilata.
+ * 
+ * Le regole dello stesso tipo si combinano: vale il limite giornaliero più
+ * basso, il saldo minimo più alto, le commissioni e le franchigie si sommano.
+ */
+public class WithdrawalPolicyBuilder {
+
+    /** logger statico */
+    private static final Logger logger = Logger.getLogger(WithdrawalPolicyBuilder.class.getName());
+
+    /** Se applicare il fido del conto */
+    private boolean useAccountOverdraft;
+
+    /** Scoperto aggiuntivo oltre al fido */
+    private double extraAllowance;
+
+    /** Saldo minimo da mantenere */
+    private double minimumBalance;
+
+    /** Limite giornaliero */
+    private double dailyLimit;
+
+    /** Commissione fissa */
+    private double flatFee;
+
+    /** Commissione percentuale */
+    private double percentageFee;
+
+    /**
+     * Costruttore per implementare il builder pattern (no costruzione diretta)
+     */
+    private WithdrawalPolicyBuilder() {
+        this.useAccountOverdraft = false;
+        this.extraAllowance = 0.0;
+        this.minimumBalance = 0.0;
+        this.dailyLimit = Double.POSITIVE_INFINITY;
+        this.flatFee = 0.0;
+        this.percentageFee = 0.0;
+    }
+
+    /**
+     * Metodo factory per iniziare la costruzione
+     */
+    public static WithdrawalPolicyBuilder newPolicy() {
+        return new WithdrawalPolicyBuilder();
+    }
+
+    /**
+     * Regola: il prelievo può usare il fido del conto
+     */
+    public WithdrawalPolicyBuilder withAccountOverdraft() {
+        this.useAccountOverdraft = true;
+        return this;
+    }
+
+    /**
+     * Regola: franchigia di scoperto aggiuntiva (es. per la fascia premium)
+     */
+    public WithdrawalPolicyBuilder withPremiumAllowance(double allowance) {
+        requireNonNegative(allowance, "La franchigia non può essere negativa");
+        this.extraAllowance += allowance;
+        return this;
+    }
+
+    /**
+     * Regola: saldo minimo da mantenere dopo il prelievo
+     */
+    public WithdrawalPolicyBuilder withMinimumBalance(double minimum) {
+        requireNonNegative(minimum, "Il saldo minimo non può essere negativo");
+        this.minimumBalance = Math.max(this.minimumBalance, minimum);
+        return this;
+    }
+
+    /**
+     * Regola: importo massimo prelevabile in un giorno
+     */
+    public WithdrawalPolicyBuilder withDailyLimit(double limit) {
+        requireNonNegative(limit, "Il limite giornaliero non può essere negativo");
+        this.dailyLimit = Math.min(this.dailyLimit, limit);
+        return this;
+    }
+
+    /**
+     * Regola: commissione fissa per ogni prelievo
+     */
+    public WithdrawalPolicyBuilder withFlatFee(double fee) {
+        requireNonNegative(fee, "La commissione non può essere negativa");
+        this.flatFee += fee;
+        return this;
+    }
+
+    /**
+     * Regola: commissione percentuale sull'importo prelevato (0.01 = 1%)
+     */
+    public WithdrawalPolicyBuilder withPercentageFee(double rate) {
+        requireNonNegative(rate, "La commissione non può essere negativa");
+        this.percentageFee += rate;
+        return this;
+    }
+
+    /**
+     * Metodo che compila le regole in una politica immutabile
+     */
+    public WithdrawalPolicy compile() {
+        WithdrawalPolicy policy = new WithdrawalPolicy(useAccountOverdraft, extraAllowance, minimumBalance,
+                dailyLimit, flatFee, percentageFee);
+        logger.info("Politica di prelievo compilata: " + policy);
+        return policy;
+    }
+
+    /**
+     * Controlla che un parametro sia un numero non negativo
+     */
+    private static void requireNonNegative(double value, String message) {
+        if (!(value >= 0)) {
+            throw new IllegalArgumentException(message);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package bank.strategyPattern;
+
+import java.util.logging.Logger;
+
+import bank.account.AccountTypeTable;
+
+/**
+ * Registro delle politiche di prelievo per fascia di conti.
+ * 
+ * Esiste uno slot per ogni combinazione tipo di conto / standard-premium. Di
+ * default ogni slot contiene la strategia condivisa del tipo di conto, quindi il
+ * comportamento è quello originale finché non si installa una politica diversa.
+ */
+public class WithdrawalPolicyRegistry {
+
+    /** logger statico */
+    private static final Logger logger = Logger.getLogger(WithdrawalPolicyRegistry.class.getName());
+
+    /** Slot indicizzati per (codice tipo * 2 + premium) */
+    private static final WithdrawalPolicySlot[] SLOTS = new WithdrawalPolicySlot[AccountTypeTable.TYPE_COUNT * 2];
+
+    static {
+        for (int typeCode = 0; typeCode < AccountTypeTable.TYPE_COUNT; typeCode++) {
+            WithdrawalStrategy defaultStrategy = WithdrawalStrategyFactory.getStrategy(typeCode);
+            SLOTS[slotIndex(typeCode, false)] = new WithdrawalPolicySlot(defaultStrategy);
+            SLOTS[slotIndex(typeCode, true)] = new WithdrawalPolicySlot(defaultStrategy);
+        }
+    }
+
+    /**
+     * Calcola l'indice dello slot per una fascia
+     */
+    private static int slotIndex(int typeCode, boolean premium) {
+        return typeCode * 2 + (premium ? 1 : 0);
+    }
+
+    /**
+     * Restituisce lo slot di una fascia, a cui il conto resta associato.
+     * 
+     * @param typeCode codice del tipo di conto (vedi AccountTypeTable)
+     * @param premium  true per la fascia premium
+     * @return WithdrawalPolicySlot - lo slot della fascia
+     */
+    public static WithdrawalPolicySlot getSlot(int typeCode, boolean premium) {
+        if (!AccountTypeTable.isValid(typeCode)) {
+            throw new IllegalArgumentException("Tipo di conto non supportato");
+        }
+        return SLOTS[slotIndex(typeCode, premium)];
+    }
+
+    /**
+     * Installa a runtime una politica per una fascia di conti. I prelievi
+     * successivi di tutti i conti della fascia useranno la nuova politica.
+     * 
+     * @param typeCode codice del tipo di conto (vedi AccountTypeTable)
+     * @param premium  true per la fascia premium
+     * @param policy   politica da installare
+     */
+    public static void install(int typeCode, boolean premium, WithdrawalStrategy policy) {
+        if (policy == null) {
+            throw new IllegalArgumentException("La politica di prelievo non può essere null");
+        }
+        getSlot(typeCode, premium).install(policy);
+        logger.info("Politica di prelievo installata per " + AccountTypeTable.getDisplayName(typeCode)
+                + (premium ? " (Premium)" : " (Standard)") + ": " + policy);
+    }
+
+    /**
+     * Ripristina in tutti gli slot le strategie originali dei tipi di conto.
+     */
+    public static void resetDefaults() {
+        for (int typeCode = 0; typeCode < AccountTypeTable.TYPE_COUNT; typeCode++) {
+            WithdrawalStrategy defaultStrategy = WithdrawalStrategyFactory.getStrategy(typeCode);
+            SLOTS[slotIndex(typeCode, false)].install(defaultStrategy);
+            SLOTS[slotIndex(typeCode, true)].install(defaultStrategy);
+        }
+        logger.info("Politiche di prelievo ripristinate ai valori di default");
+    }
+}
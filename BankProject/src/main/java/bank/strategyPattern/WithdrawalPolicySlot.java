@@ -0,0 +1,42 @@
+package bank.strategyPattern;
+
+/**
+ * Slot di una fascia di conti (tipo di conto + standard/premium).
+ * 
+ * I conti restano associati al proprio slot per tutta la vita; la politica
+ * contenuta nello slot può essere sostituita a runtime e la modifica è visibile
+ * subito a tutti i conti della fascia, senza riavvio.
+ */
+public final class WithdrawalPolicySlot {
+
+    /** Politica attualmente installata nello slot */
+    private volatile WithdrawalStrategy current;
+
+    /**
+     * Costruttore - crea uno slot con la politica iniziale
+     * 
+     * @param initial politica iniziale
+     */
+    WithdrawalPolicySlot(WithdrawalStrategy initial) {
+        this.current = initial;
+    }
+
+    /**
+     * Restituisce la politica attualmente installata. Va letta una sola volta per
+     * prelievo, così valutazione e addebito usano la stessa politica.
+     * 
+     * @return WithdrawalStrategy - la politica corrente
+     */
+    public WithdrawalStrategy current() {
+        return current;
+    }
+
+    /**
+     * Sostituisce la politica dello slot
+     * 
+     * @param policy nuova politica
+     */
+    void install(WithdrawalStrategy policy) {
+        this.current = policy;
+    }
+}
@@ -1,17 +1,52 @@
 package bank.strategyPattern;
 
+import bank.account.Account;
+
 /**
  * interfaccia strategy per il prevlievo
+ * 
+ * Le implementazioni sono condivise fra tutti i conti (flyweight): non hanno
+ * stato e leggono i parametri (es. il fido) dal conto che ricevono. L'esito
+ * viene restituito come codice primitivo, senza allocare oggetti.
  */
 public interface WithdrawalStrategy {
 
+    /** Esito: prelievo autorizzato */
+    int APPROVED = 0;
+
+    /** Esito: importo richiesto non valido */
+    int REJECTED_INVALID_AMOUNT = 1;
+
+    /** Esito: fondi insufficienti */
+    int REJECTED_INSUFFICIENT_FUNDS = 2;
+
+    /** Esito: superato il limite di prelievo giornaliero */
+    int REJECTED_DAILY_LIMIT = 3;
+
+    /** Esito: il saldo scenderebbe sotto il minimo richiesto */
+    int REJECTED_MINIMUM_BALANCE = 4;
+
+    /**
+     * Valuta un prelievo secondo la strategia specifica implementata.
+     * Il saldo non viene modificato: se l'esito è APPROVED il conto
+     * addebita l'importo restituito da getTotalDebit.
+     * 
+     * @param currentBalance  il saldo attuale del conto
+     * @param requestedAmount l'importo che si vuole prelevare
+     * @param account         conto su cui si preleva (parametri e logging)
+     * @return int - APPROVED oppure il codice di rifiuto
+     */
+    int executeWithdrawal(double currentBalance, double requestedAmount, Account account);
+
     /**
-     * Esegue un prelievo secondo la strategia specifica implementata.
+     * Restituisce l'importo totale da addebitare per un prelievo autorizzato
+     * (importo richiesto più eventuali commissioni).
      * 
-     * @param currentBalance  il saldo attuale dell'account
      * @param requestedAmount l'importo che si vuole prelevare
-     * @param accountNumber   numero dell'account per logging
-     * @return WithdrawalResult risultato dell'operazione con dettagli
+     * @param account         conto su cui si preleva
+     * @return double - l'importo da sottrarre al saldo
      */
-    boolean executeWithdrawal(double[] currentBalance, double requestedAmount, String accountNumber);
+    default double getTotalDebit(double requestedAmount, Account account) {
+        return requestedAmount;
+    }
 }
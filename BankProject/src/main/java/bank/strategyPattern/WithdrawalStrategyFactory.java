@@ -1,36 +1,50 @@
 package bank.strategyPattern;
 
-import java.util.logging.Logger;
-
-import bank.account.Account;
+import bank.account.AccountTypeTable;
 
 /**
  * Classe factory per implementare il prelievo corretto per ogni tipo di conto.
+ * 
+ * Le strategie non hanno stato, quindi ne esiste una sola istanza per tipo di
+ * conto (flyweight) condivisa da tutti i conti.
  */
 public class WithdrawalStrategyFactory {
 
-    /** logger statico */
-    private static final Logger logger = Logger.getLogger(Account.class.getName());
+    /** Strategie condivise, indicizzate per codice del tipo di conto */
+    private static final WithdrawalStrategy[] SHARED_STRATEGIES = new WithdrawalStrategy[AccountTypeTable.TYPE_COUNT];
+
+    /** Strategia usata per i tipi non riconosciuti */
+    private static final WithdrawalStrategy DEFAULT_STRATEGY = new NoOverdraftWithdrawalStrategy();
+
+    static {
+        SHARED_STRATEGIES[AccountTypeTable.CHECKING] = new OverdraftWithdrawalStrategy();
+        SHARED_STRATEGIES[AccountTypeTable.SAVINGS] = DEFAULT_STRATEGY;
+    }
 
     /**
-     * Crea il pirelievo appropriato per un tipo di cono.
+     * Restituisce il pirelievo appropriato per un tipo di cono.
      * 
      * @param accountType tipo di conto
      * 
      * @return WithdrawalStrategy prelievo appropriato per il tipo di conto
      */
     public static WithdrawalStrategy createStrategy(String accountType) {
-        if ("Conto Corrente".equals(accountType)) {
-            logger.info("Creando strategia overdraft per conto corrente");
-            return new OverdraftWithdrawalStrategy(100.0);
-        } else if ("Conto Risparmio".equals(accountType)) {
-            logger.info("Creando strategia no-overdraft per conto risparmio");
-            return new NoOverdraftWithdrawalStrategy();
-
-        } else {
-            logger.warning("Tipo account non riconosciuto: " + accountType + ", usando strategia no-overdraft");
-            return new NoOverdraftWithdrawalStrategy();
+        return getStrategy(AccountTypeTable.fromDisplayName(accountType));
+    }
+
+    /**
+     * Restituisce la strategia condivisa a partire dal codice compatto del tipo
+     * di conto. Non alloca nulla.
+     * 
+     * @param typeCode codice del tipo di conto (vedi AccountTypeTable)
+     * 
+     * @return WithdrawalStrategy prelievo appropriato per il tipo di conto
+     */
+    public static WithdrawalStrategy getStrategy(int typeCode) {
+        if (!AccountTypeTable.isValid(typeCode)) {
+            return DEFAULT_STRATEGY;
         }
+        return SHARED_STRATEGIES[typeCode];
     }
 
 }
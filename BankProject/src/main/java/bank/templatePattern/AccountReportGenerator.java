@@ -1,6 +1,8 @@
 package bank.templatePattern;
 
 import bank.account.Account;
+import bank.metrics.BankMetrics;
+import bank.metrics.ReportJfrEvent;
 import java.util.Date;
 import java.util.logging.Logger;
 
@@ -22,6 +24,13 @@ public abstract class AccountReportGenerator {
      */
     public final String generateReport(Account account) {
 
+        long startTime = System.nanoTime();
+        ReportJfrEvent event = null;
+        if (ReportJfrEvent.isRecorded()) {
+            event = new ReportJfrEvent();
+            event.begin();
+        }
+
         logger.info("Iniziando generazione report per il conto: " +
                 (account != null ? account.getAccountNumber() : "null"));
 
@@ -39,7 +48,19 @@ public abstract class AccountReportGenerator {
         report.append(generateFooter());
 
         logger.info("Report generato con successo");
-        return report.toString();
+        String result = report.toString();
+        BankMetrics.REPORT_GENERATION.record(System.nanoTime() - startTime);
+
+        if (event != null) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.generator = getClass().getSimpleName();
+                event.accountNumber = account != null ? account.getAccountNumber() : null;
+                event.reportLength = result.length();
+                event.commit();
+            }
+        }
+        return result;
     }
 
     /**
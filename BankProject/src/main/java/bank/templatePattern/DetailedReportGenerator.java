@@ -1,6 +1,7 @@
 package bank.templatePattern;
 
 import bank.account.Account;
+import bank.account.AccountTypeTable;
 import java.util.Date;
 
 /**
@@ -46,22 +47,15 @@ public class DetailedReportGenerator extends AccountReportGenerator {
         details.append("Tipo conto: ").append(account.getAccountType()).append("\n\n");
 
         details.append("ANALISI TIPO CONTO\n");
-        if ("Conto Corrente".equals(account.getAccountType())) {
-            details.append("Funzionalità: Prelievi con possibile scoperto\n");
-            details.append("Flessibilità: Alta (operazioni frequenti)\n");
-            details.append(" Interessi: Non applicabili\n\n");
-        } else if ("Conto Risparmio".equals(account.getAccountType())) {
-            details.append(" Funzionalità: Solo prelievi con fondi disponibili\n");
-            details.append(" Flessibilità: Limitata (preservazione capitale)\n");
-            details.append(" Interessi: Maturazione automatica\n\n");
-        }
+        int typeCode = account.getTypeCode();
+        details.append(AccountTypeTable.getReportSection(typeCode));
 
         // raccomandazioni possibili
         details.append("RACCOMANDAZIONI\n");
         if (balance < 100) {
             details.append("Si consigia un deposito per migliorare la liquidità\n");
         }
-        if ("Conto Risparmio".equals(account.getAccountType()) && balance > 5000) {
+        if (typeCode == AccountTypeTable.SAVINGS && balance > 5000) {
             details.append("Saldo elevato: si consigliano investimenti a lungo termine\n");
         }
         details.append("Si consiglia di monitorare regolarmente le transazioni\n");
@@ -3,13 +3,16 @@ package bank;
 import org.junit.*;
 import static org.junit.Assert.*;
 import java.util.*;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.io.File;
+import java.lang.management.ManagementFactory;
 
 import bank.account.*;
 import bank.abstractFactory.*;
 import bank.bridgePattern.*;
 import bank.builderPattern.*;
+import bank.cdc.*;
 import bank.mementoPattern.*;
 import bank.observerPattern.*;
 import bank.singletonPattern.*;
@@ -80,6 +83,8 @@ public class BankServiceTest {
             // Verifica dei tipi specifici
             assertEquals("Tipo conto corrente", "Conto Corrente", checkingAccount.getAccountType());
             assertEquals("Tipo conto di risparmio", "Conto Risparmio", savingsAccount.getAccountType());
+            assertEquals("Codice tipo conto corrente", AccountTypeTable.CHECKING, checkingAccount.getTypeCode());
+            assertEquals("Codice tipo conto di risparmio", AccountTypeTable.SAVINGS, savingsAccount.getTypeCode());
 
             logger.info("Factory Pattern verificato: creazione corretta di entrambi i tipi di conto");
             logger.info("Polimorfismo confermato: stessa interfaccia, implementazioni diverse");
@@ -315,6 +320,38 @@ public class BankServiceTest {
         logger.info("Informazioni sistema: " + config1.getSystemInfo());
     }
 
+    /**
+     * Test della modalità headless: le notifiche del livello di servizio vanno
+     * al sink configurato invece che alla console.
+     */
+    @Test
+    public void testHeadlessNotificationSink() {
+        logger.info(" TESTING HEADLESS MODE ");
+
+        BankConfiguration config = BankConfiguration.getInstance();
+        List<String> received = new ArrayList<>();
+
+        try {
+            config.setHeadlessMode(true);
+            assertSame("Sink no-op predefinito in headless", bank.logging.NotificationSink.NO_OP,
+                    config.getNotificationSink());
+            assertFalse("Notifiche disattivate con il sink no-op", bank.logging.Notifications.isEnabled());
+
+            config.setNotificationSink(received::add);
+            assertTrue("Notifiche attive con un sink personalizzato", bank.logging.Notifications.isEnabled());
+
+            AccountFactory.createAccount(AccountFactory.AccountType.CHECKING, "HL001", "Headless", 100.0);
+            assertEquals("Una notifica per la creazione del conto", 1, received.size());
+            assertTrue("Notifica inoltrata al sink", received.get(0).contains("Headless"));
+
+        } finally {
+            config.setNotificationSink(null);
+            config.setHeadlessMode(false);
+        }
+
+        assertTrue("Console ripristinata", bank.logging.Notifications.isEnabled());
+    }
+
     // PATTERN 5: STRATEGY PATTERN
 
     /**
@@ -335,28 +372,39 @@ public class BankServiceTest {
             assertTrue("Strategia senza scoperto tipo corretto",
                     noOverdraftStrategy instanceof NoOverdraftWithdrawalStrategy);
 
-            // Test con scoperto (per conti correnti)
-            double[] overdraftBalance = { 50.0 }; // Array per permettere modifica del valore
-            boolean overdraftResult = overdraftStrategy.executeWithdrawal(overdraftBalance, 120.0, "TEST_SCOPERTO");
+            // Le strategie sono condivise fra tutti i conti dello stesso tipo
+            assertSame("Strategia condivisa per tipo di conto", overdraftStrategy,
+                    WithdrawalStrategyFactory.getStrategy(AccountTypeTable.CHECKING));
 
-            assertTrue("Strategia scoperto deve permettere operazioni in rosso", overdraftResult);
-            assertEquals("Saldo dopo scoperto", -70.0, overdraftBalance[0], 0.01);
-            logger.info("Strategia scoperto: prelievo €120 da saldo €50 = saldo finale €" + overdraftBalance[0]);
+            // Test con scoperto (per conti correnti)
+            Account overdraftAccount = AccountFactory.createAccount(AccountFactory.AccountType.CHECKING,
+                    "TEST_SCOPERTO", "Cliente Strategy", 50.0);
+            int overdraftResult = overdraftStrategy.executeWithdrawal(overdraftAccount.getBalance(), 120.0,
+                    overdraftAccount);
+
+            assertEquals("Strategia scoperto deve permettere operazioni in rosso",
+                    WithdrawalStrategy.APPROVED, overdraftResult);
+            assertTrue("Il conto delega alla strategia", overdraftAccount.withdraw(120.0));
+            assertEquals("Saldo dopo scoperto", -70.0, overdraftAccount.getBalance(), 0.01);
+            logger.info("Strategia scoperto: prelievo €120 da saldo €50 = saldo finale €"
+                    + overdraftAccount.getBalance());
 
             // Test senza scoperto (per conti di risparmio)
-            double[] noOverdraftBalance = { 50.0 };
-            boolean noOverdraftResult = noOverdraftStrategy.executeWithdrawal(noOverdraftBalance, 120.0,
-                    "TEST_SENZA_SCOPERTO");
-
-            assertFalse("Strategia senza scoperto deve rifiutare operazioni in rosso", noOverdraftResult);
-            assertEquals("Saldo non modificato dopo rifiuto", 50.0, noOverdraftBalance[0], 0.01);
+            Account noOverdraftAccount = AccountFactory.createAccount(AccountFactory.AccountType.SAVINGS,
+                    "TEST_SENZA_SCOPERTO", "Cliente Strategy", 50.0);
+            int noOverdraftResult = noOverdraftStrategy.executeWithdrawal(noOverdraftAccount.getBalance(), 120.0,
+                    noOverdraftAccount);
+
+            assertEquals("Strategia senza scoperto deve rifiutare operazioni in rosso",
+                    WithdrawalStrategy.REJECTED_INSUFFICIENT_FUNDS, noOverdraftResult);
+            assertFalse("Il conto rifiuta il prelievo", noOverdraftAccount.withdraw(120.0));
+            assertEquals("Saldo non modificato dopo rifiuto", 50.0, noOverdraftAccount.getBalance(), 0.01);
             logger.info("Strategia senza scoperto: prelievo €120 da saldo €50 = operazione rifiutata, saldo €"
-                    + noOverdraftBalance[0]);
+                    + noOverdraftAccount.getBalance());
 
             // Test prelievo valido senza scoperto
-            boolean validWithdrawal = noOverdraftStrategy.executeWithdrawal(noOverdraftBalance, 30.0, "TEST_VALIDO");
-            assertTrue("Strategia senza scoperto deve permettere prelievi validi", validWithdrawal);
-            assertEquals("Saldo dopo prelievo valido", 20.0, noOverdraftBalance[0], 0.01);
+            assertTrue("Strategia senza scoperto deve permettere prelievi validi", noOverdraftAccount.withdraw(30.0));
+            assertEquals("Saldo dopo prelievo valido", 20.0, noOverdraftAccount.getBalance(), 0.01);
 
             logger.info("Strategy Pattern verificato: algoritmi intercambiabili funzionanti");
 
@@ -366,6 +414,54 @@ public class BankServiceTest {
         }
     }
 
+    /**
+     * Test del motore di politiche di prelievo composte
+     */
+    @Test
+    public void testWithdrawalPolicyEngine() {
+        logger.info(" TESTING WITHDRAWAL POLICY ENGINE ");
+
+        try {
+            WithdrawalPolicy premiumPolicy = WithdrawalPolicyBuilder.newPolicy()
+                    .withAccountOverdraft()
+                    .withPremiumAllowance(400.0)
+                    .withDailyLimit(1000.0)
+                    .withFlatFee(1.0)
+                    .compile();
+            WithdrawalPolicyRegistry.install(AccountTypeTable.CHECKING, true, premiumPolicy);
+
+            Account premiumAccount = AccountFactory.createAccount(AccountFactory.AccountType.CHECKING,
+                    "POLICY_001", "Cliente Premium Policy", 100.0);
+            premiumAccount.setPremium(true);
+            Account standardAccount = AccountFactory.createAccount(AccountFactory.AccountType.CHECKING,
+                    "POLICY_002", "Cliente Standard Policy", 100.0);
+
+            // fido 100 + franchigia 400: prelievo di 500 con commissione di 1 → saldo -401
+            assertFalse("Commissione oltre il limite deve essere rifiutata", premiumAccount.withdraw(600.0));
+            assertTrue("Fido e franchigia premium", premiumAccount.withdraw(500.0));
+            assertEquals("Saldo dopo prelievo con commissione", -401.0, premiumAccount.getBalance(), 0.01);
+
+            // il conto standard mantiene la politica originale
+            assertFalse("Conto standard senza franchigia", standardAccount.withdraw(500.0));
+            assertEquals("Saldo standard invariato", 100.0, standardAccount.getBalance(), 0.01);
+
+            // limite giornaliero: 500 già prelevati oggi
+            premiumAccount.deposit(2000.0);
+            assertFalse("Limite giornaliero superato", premiumAccount.withdraw(600.0));
+            assertTrue("Limite giornaliero rispettato", premiumAccount.withdraw(500.0));
+
+            // sostituzione a runtime della politica
+            WithdrawalPolicyRegistry.install(AccountTypeTable.CHECKING, true,
+                    WithdrawalPolicyBuilder.newPolicy().withMinimumBalance(1000.0).compile());
+            assertFalse("Saldo minimo della nuova politica", premiumAccount.withdraw(200.0));
+
+            logger.info("Motore di politiche di prelievo verificato");
+
+        } finally {
+            WithdrawalPolicyRegistry.resetDefaults();
+        }
+    }
+
     // PATTERN 6: OBSERVER PATTERN
 
     /**
@@ -410,6 +506,202 @@ public class BankServiceTest {
         }
     }
 
+    /**
+     * Test del bus degli eventi: consegna a blocchi in ordine e coda limitata
+     * per sottoscrittore (un observer bloccato non ferma chi pubblica).
+     */
+    @Test
+    public void testTransactionEventBus() throws InterruptedException {
+        logger.info(" TESTING EVENT BUS ");
+
+        TransactionEventBus bus = new TransactionEventBus();
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+        java.util.concurrent.CountDownLatch release = new java.util.concurrent.CountDownLatch(1);
+
+        TransactionEventBus.Subscription batchSubscription = bus.subscribeBatch(events -> {
+            for (TransactionEvent event : events) {
+                received.add(event.getAccountNumber() + ":" + (int) event.getAmount());
+            }
+        }, 1024, 16);
+
+        TransactionEventBus.Subscription blockedSubscription = bus.subscribe(event -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, 4);
+
+        try {
+            for (int i = 1; i <= 100; i++) {
+                bus.publish(i % 2, i % 2 == 0 ? "BUS_A" : "BUS_B", TransactionOperation.DEPOSIT, i * 100L,
+                        TransactionEvent.OUTCOME_SUCCESS);
+            }
+
+            assertTrue("Observer bloccato: eventi scartati invece di bloccare",
+                    blockedSubscription.getDroppedCount() > 0);
+
+            release.countDown();
+            assertTrue("Consegna completata", bus.awaitDelivery(5000));
+
+            assertEquals("Nessun evento perso nella coda capiente", 0, batchSubscription.getDroppedCount());
+            assertEquals("Tutti gli eventi consegnati", 100, received.size());
+            for (int i = 1; i <= 100; i++) {
+                assertEquals("Ordine di pubblicazione rispettato",
+                        (i % 2 == 0 ? "BUS_A" : "BUS_B") + ":" + i, received.get(i - 1));
+            }
+        } finally {
+            release.countDown();
+            bus.close();
+        }
+        assertEquals("Nessun sottoscrittore dopo la chiusura", 0, bus.getSubscriberCount());
+    }
+
+    /**
+     * Test delle sottoscrizioni filtrate: ogni observer riceve esattamente gli
+     * eventi accettati dal proprio filtro.
+     */
+    @Test
+    public void testFilteredSubscriptions() {
+        logger.info(" TESTING SOTTOSCRIZIONI FILTRATE ");
+
+        TransactionEventBus bus = new TransactionEventBus();
+        TransactionFilter[] filters = {
+                TransactionFilter.all(),
+                TransactionFilter.all().forAccounts("FILTER_A"),
+                TransactionFilter.all().onlyOperation(TransactionOperation.WITHDRAW).onlyFailed(),
+                TransactionFilter.all().withMinAmount(50),
+                TransactionFilter.all().forAccounts("FILTER_B", "FILTER_C").onlySuccessful().withMinAmount(20)
+        };
+        List<List<String>> received = new ArrayList<>();
+        for (TransactionFilter filter : filters) {
+            List<String> events = Collections.synchronizedList(new ArrayList<>());
+            received.add(events);
+            bus.subscribe(event -> events.add(event.getAccountNumber() + event.getOperation()
+                    + event.getAmountMinor() + event.getOutcome()), filter);
+        }
+
+        String[] accounts = { "FILTER_A", "FILTER_B", "FILTER_C" };
+        List<List<String>> expected = new ArrayList<>();
+        for (int i = 0; i < filters.length; i++) {
+            expected.add(new ArrayList<>());
+        }
+        Random random = new Random(40);
+        try {
+            for (int i = 0; i < 500; i++) {
+                String accountNumber = accounts[random.nextInt(accounts.length)];
+                TransactionOperation operation = random.nextBoolean()
+                        ? TransactionOperation.DEPOSIT
+                        : TransactionOperation.WITHDRAW;
+                long amountMinor = random.nextInt(10_000);
+                int outcome = random.nextInt(4) == 0 ? TransactionEvent.OUTCOME_DECLINED
+                        : TransactionEvent.OUTCOME_SUCCESS;
+
+                bus.publish(i, accountNumber, operation, amountMinor, outcome);
+                for (int f = 0; f < filters.length; f++) {
+                    if (filters[f].matches(accountNumber, operation, amountMinor, outcome)) {
+                        expected.get(f).add(accountNumber + operation + amountMinor + outcome);
+                    }
+                }
+            }
+            assertTrue("Consegna completata", bus.awaitDelivery(5000));
+        } finally {
+            bus.close();
+        }
+
+        for (int f = 0; f < filters.length; f++) {
+            assertEquals("Eventi consegnati con " + filters[f], expected.get(f), received.get(f));
+        }
+        assertEquals("Il filtro vuoto riceve tutto", 500, received.get(0).size());
+    }
+
+    /**
+     * Test della forma primitiva degli eventi: codice operazione, centesimi,
+     * id del conto ed esito, senza dipendere dalla stringa ricevuta.
+     */
+    @Test
+    public void testTransactionEventShape() throws Exception {
+        logger.info(" TESTING EVENTI PRIMITIVI ");
+
+        File dataFile = File.createTempFile("bank_events", ".txt");
+        dataFile.delete();
+        BankService service = new BankService(dataFile.getPath());
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+        try {
+            service.getEventBus().subscribe(event -> received.add(event.getAccountId()
+                    + " " + event.getOperation() + " " + event.getAmountMinor() + " " + event.getOutcome()));
+
+            service.createAccount("checking", "EVENT_001", "Event Test", 100.0);
+            int accountId = service.getAccount("EVENT_001").getAccountId();
+
+            service.performTransaction("EVENT_001", "DePoSiT", 12.5);
+            assertEquals(BankService.TRANSACTION_DECLINED,
+                    service.tryPerformTransaction("EVENT_001", "withdraw", 1_000_000.0));
+            assertTrue("Consegna completata", service.getEventBus().awaitDelivery(5000));
+
+            assertEquals(Arrays.asList(
+                    accountId + " DEPOSIT 1250 " + TransactionEvent.OUTCOME_SUCCESS,
+                    accountId + " WITHDRAW 100000000 " + TransactionEvent.OUTCOME_DECLINED), received);
+        } finally {
+            service.close();
+            dataFile.delete();
+        }
+    }
+
+    /**
+     * Test del change log: i record scritti dall'observer a segmenti si
+     * rileggono in ordine, anche ripartendo da una sequenza, e il writer
+     * riaperto prosegue la numerazione.
+     */
+    @Test
+    public void testChangeLog() throws Exception {
+        logger.info(" TESTING CHANGE LOG ");
+
+        File directory = File.createTempFile("bank_cdc", "");
+        directory.delete();
+        TransactionEventBus bus = new TransactionEventBus();
+        ChangeLogWriter writer = new ChangeLogWriter(directory, 4096);
+        try {
+            bus.subscribeBatch(writer, 1024, 64);
+            for (int i = 0; i < 500; i++) {
+                bus.publish(i, "CDC_" + (i % 7), TransactionOperation.WITHDRAW, i * 10L,
+                        i % 5 == 0 ? TransactionEvent.OUTCOME_DECLINED : TransactionEvent.OUTCOME_SUCCESS);
+            }
+            assertTrue("Consegna completata", bus.awaitDelivery(5000));
+            bus.close();
+            writer.close();
+            assertTrue("Più segmenti creati", directory.list().length > 1);
+
+            ChangeLogRecord record = new ChangeLogRecord();
+            try (ChangeLogReader reader = ChangeLogReader.open(directory, 0)) {
+                for (int i = 0; i < 500; i++) {
+                    assertTrue("Record " + i + " disponibile", reader.poll(record));
+                    assertEquals(i, record.getSequence());
+                    assertEquals("CDC_" + (i % 7), record.getAccountNumber());
+                    assertEquals(i * 10L, record.getAmountMinor());
+                    assertEquals(i % 5 != 0, record.isSuccess());
+                }
+                assertFalse("Nessun record oltre l'ultimo", reader.poll(record));
+                assertEquals(500, reader.getNextSequence());
+            }
+
+            try (ChangeLogReader reader = ChangeLogReader.open(directory, 420)) {
+                assertTrue(reader.poll(record));
+                assertEquals("Ripresa dalla sequenza richiesta", 420, record.getSequence());
+            }
+
+            writer = new ChangeLogWriter(directory, 4096);
+            assertEquals("Il writer riaperto prosegue la numerazione", 500, writer.getNextSequence());
+        } finally {
+            bus.close();
+            writer.close();
+            for (File file : directory.listFiles()) {
+                file.delete();
+            }
+            directory.delete();
+        }
+    }
+
     // PATTERN 7: MEMENTO PATTERN
 
     /**
@@ -465,6 +757,256 @@ public class BankServiceTest {
         }
     }
 
+    /**
+     * Test della modalità con versioni: ultime N versioni per conto, ripristino
+     * per versione e per istante
+     */
+    @Test
+    public void testVersionedBackup() throws Exception {
+        logger.info(" TESTING BACKUP CON VERSIONI ");
+
+        Account account = AccountFactory.createAccount(AccountFactory.AccountType.CHECKING, "VERSION_001",
+                "Cliente Versioni", 100.0);
+        AccountBackup backup = new AccountBackup(3);
+
+        for (int i = 1; i <= 5; i++) {
+            assertTrue(backup.save(account));
+            account.deposit(100.0);
+            Thread.sleep(2);
+        }
+
+        assertEquals("Versioni numerate da 1", 5, backup.getLatestVersion("VERSION_001"));
+        assertEquals("Conservate solo le ultime 3", 3, backup.getOldestVersion("VERSION_001"));
+        assertEquals("Un conto con backup", 1, backup.getTotalBackups());
+
+        assertEquals("Ultima versione", 500.0, backup.restore("VERSION_001").getBalance(), 0.01);
+        assertNull("Versione scartata", backup.restoreVersion("VERSION_001", 2));
+        AccountSnapshot fourth = backup.restoreVersion("VERSION_001", 4);
+        assertEquals("Versione 4", 400.0, fourth.getBalance(), 0.01);
+
+        assertEquals("Ripristino per istante", 400.0,
+                backup.restoreAt("VERSION_001", fourth.getTimestamp()).getBalance(), 0.01);
+        assertNull("Nessuna versione prima della più vecchia conservata",
+                backup.restoreAt("VERSION_001", backup.restoreVersion("VERSION_001", 3).getTimestamp() - 1));
+    }
+
+    /**
+     * Test del backup con memoria limitata: gli storici oltre il limite vanno
+     * su file e vengono riletti in modo trasparente
+     */
+    @Test
+    public void testBoundedBackup() throws Exception {
+        logger.info(" TESTING BACKUP CON MEMORIA LIMITATA ");
+
+        for (EvictionPolicy policy : EvictionPolicy.values()) {
+            AccountBackup backup = new AccountBackup(2, 10, policy, null);
+            long hits = bank.metrics.BankMetrics.BACKUP_CACHE_HIT.sum();
+            long misses = bank.metrics.BankMetrics.BACKUP_CACHE_MISS.sum();
+            try {
+                for (int i = 0; i < 100; i++) {
+                    Account account = AccountFactory.createAccount(AccountFactory.AccountType.SAVINGS,
+                            "BOUNDED_" + i, "Cliente Limitato", i);
+                    assertTrue(backup.save(account));
+                    account.deposit(1000.0);
+                    assertTrue(backup.save(account));
+                }
+                assertEquals(policy + ": tutti i conti coperti", 100, backup.getTotalBackups());
+                assertEquals(policy + ": limite di memoria", 10, backup.getCachedBackups());
+                assertEquals(90, backup.getSpilledBackups());
+                assertEquals(policy + ": i salvataggi non contano come hit", hits,
+                        bank.metrics.BankMetrics.BACKUP_CACHE_HIT.sum());
+                assertEquals(policy + ": i salvataggi non contano come miss", misses,
+                        bank.metrics.BankMetrics.BACKUP_CACHE_MISS.sum());
+
+                assertTrue(backup.hasBackup("BOUNDED_0"));
+                assertEquals(policy + ": ultima versione da file", 1000.0,
+                        backup.restore("BOUNDED_0").getBalance(), 0.01);
+                assertEquals(policy + ": versione precedente da file", 1.0,
+                        backup.restoreVersion("BOUNDED_1", 1).getBalance(), 0.01);
+                assertEquals(10, backup.getCachedBackups());
+                assertNotNull(backup.restore("BOUNDED_1"));
+                assertEquals(policy + ": ripristini riletti da file", misses + 2,
+                        bank.metrics.BankMetrics.BACKUP_CACHE_MISS.sum());
+                assertEquals(policy + ": ripristino servito dalla memoria", hits + 1,
+                        bank.metrics.BankMetrics.BACKUP_CACHE_HIT.sum());
+
+                assertTrue(backup.deleteBackup("BOUNDED_50"));
+                assertFalse(backup.hasBackup("BOUNDED_50"));
+                assertEquals(99, backup.getTotalBackups());
+            } finally {
+                backup.close();
+            }
+        }
+    }
+
+    /**
+     * Test dell'immagine consistente: scritta mentre un altro thread deposita
+     * sui conti in ordine, deve mostrare i saldi di un unico istante (al più
+     * un "gradino" fra conti già aggiornati e non) e va riletta come file dati.
+     */
+    @Test
+    public void testConsistentImage() throws Exception {
+        logger.info(" TESTING IMMAGINE CONSISTENTE ");
+
+        File dataFile = File.createTempFile("bank_image_data", ".txt");
+        File imageFile = File.createTempFile("bank_image", ".txt");
+        dataFile.delete();
+        int accountCount = 5_000;
+        BankService service = new BankService(dataFile.getPath());
+        service.enableWriteBehind(3_600_000);
+        Thread depositor = null;
+        java.util.concurrent.atomic.AtomicBoolean running = new java.util.concurrent.atomic.AtomicBoolean(true);
+        try {
+            for (int i = 0; i < accountCount; i++) {
+                service.createAccount("checking", "IMAGE_" + i, "Cliente Immagine", 100.0);
+            }
+            depositor = new Thread(() -> {
+                for (int i = 0; running.get(); i = (i + 1) % accountCount) {
+                    service.tryPerformTransaction("IMAGE_" + i, "deposit", 1.0);
+                }
+            });
+            depositor.start();
+
+            assertEquals("Tutti i conti nell'immagine", accountCount,
+                    service.writeConsistentImage(imageFile.getPath()));
+
+            BankService restored = new BankService(imageFile.getPath());
+            int steps = 0;
+            for (int i = 1; i < accountCount; i++) {
+                if (restored.getAccount("IMAGE_" + i).getBalance() != restored.getAccount("IMAGE_" + (i - 1))
+                        .getBalance()) {
+                    steps++;
+                }
+            }
+            assertTrue("Saldi di un unico istante (gradini: " + steps + ")", steps <= 1);
+            restored.close();
+        } finally {
+            running.set(false);
+            if (depositor != null) {
+                depositor.join();
+            }
+            service.close();
+            dataFile.delete();
+            imageFile.delete();
+        }
+    }
+
+    /**
+     * Test dei backup su disco: base, delta con i soli conti cambiati e
+     * ripristino della catena
+     */
+    @Test
+    public void testBackupSet() throws Exception {
+        logger.info(" TESTING BACKUP INCREMENTALI ");
+
+        File dataFile = File.createTempFile("bank_backup_data", ".txt");
+        File backupDir = java.nio.file.Files.createTempDirectory("bank_backup_set").toFile();
+        dataFile.delete();
+        BankService service = new BankService(dataFile.getPath());
+        try {
+            for (int i = 0; i < 100; i++) {
+                service.createAccount("savings", "BKP_" + i, "Cliente Backup", 100.0);
+            }
+            BackupSet backupSet = new BackupSet(backupDir);
+            assertEquals("Primo backup: base completa", 100, service.writeIncrementalBackup(backupSet));
+
+            service.performTransaction("BKP_3", "deposit", 50.0);
+            service.performTransaction("BKP_7", "deposit", 10.0);
+            assertEquals("Delta con i soli conti cambiati", 2, service.writeIncrementalBackup(backupSet));
+
+            service.createAccount("checking", "BKP_NEW", "Cliente Backup", 5.0);
+            service.performTransaction("BKP_3", "withdraw", 20.0);
+            assertEquals("Secondo delta", 2, service.writeIncrementalBackup(backupSet));
+            assertEquals(3, backupSet.listFiles().size());
+
+            Map<String, Double> restored = new HashMap<>();
+            int records = backupSet.restore(
+                    (type, number, owner, balance, premium) -> restored.put(number, balance));
+            assertEquals("Base più delta letti in un passaggio", 104, records);
+            assertEquals(101, restored.size());
+            assertEquals(130.0, restored.get("BKP_3"), 0.001);
+            assertEquals(110.0, restored.get("BKP_7"), 0.001);
+            assertEquals(5.0, restored.get("BKP_NEW"), 0.001);
+            assertEquals(100.0, restored.get("BKP_50"), 0.001);
+
+            // Un delta manomesso viene rifiutato
+            File lastDelta = backupSet.listFiles().get(2);
+            byte[] bytes = java.nio.file.Files.readAllBytes(lastDelta.toPath());
+            bytes[bytes.length / 2] ^= 0x5A;
+            java.nio.file.Files.write(lastDelta.toPath(), bytes);
+            try {
+                backupSet.restore((type, number, owner, balance, premium) -> {
+                });
+                fail("Un backup corrotto deve essere rifiutato");
+            } catch (java.io.IOException e) {
+                // atteso
+            }
+        } finally {
+            service.close();
+            dataFile.delete();
+            for (File file : backupDir.listFiles()) {
+                file.delete();
+            }
+            backupDir.delete();
+        }
+    }
+
+    /**
+     * Test del ripristino massivo: vale lo snapshot più recente di ogni conto
+     * e uno snapshot non valido annulla tutto il ripristino
+     */
+    @Test
+    public void testBulkRestore() throws Exception {
+        logger.info(" TESTING RIPRISTINO MASSIVO ");
+
+        File dataFile = File.createTempFile("bank_restore_data", ".txt");
+        dataFile.delete();
+        int accountCount = 20_000;
+        BankService service = new BankService(dataFile.getPath());
+        service.enableWriteBehind(3_600_000);
+        try {
+            List<AccountSnapshot> snapshots = new ArrayList<>();
+            for (int i = 0; i < accountCount; i++) {
+                service.createAccount("checking", "RESTORE_" + i, "Cliente Ripristino", 10.0);
+                snapshots.add(new AccountSnapshot("RESTORE_" + i, i, 1_000));
+            }
+            // Uno snapshot più vecchio dello stesso conto non deve vincere
+            snapshots.add(new AccountSnapshot("RESTORE_7", -1.0, 500));
+            // Lo stesso conto scritto con spazi è lo stesso conto: vince il più recente
+            snapshots.add(new AccountSnapshot(" RESTORE_42 ", 4242.0, 2_000));
+            assertEquals("RESTORE_42", snapshots.get(snapshots.size() - 1).getAccountNumber());
+
+            List<Integer> progress = new ArrayList<>();
+            BulkRestoreReport report = service.restoreSnapshots(snapshots,
+                    (restored, total) -> progress.add(restored));
+            assertEquals(accountCount + 2, report.getSnapshotsReceived());
+            assertEquals(accountCount, report.getAccountsRestored());
+            assertEquals(2, report.getSupersededSnapshots());
+            assertEquals(report.getPartitions(), progress.size());
+            assertEquals(accountCount, (int) Collections.max(progress));
+            assertEquals(7.0, service.getAccount("RESTORE_7").getBalance(), 0.001);
+            assertEquals(4242.0, service.getAccount("RESTORE_42").getBalance(), 0.001);
+            assertEquals(19_999.0, service.getAccount("RESTORE_19999").getBalance(), 0.001);
+
+            // Salvato una volta sola come blocco
+            BankService reloaded = new BankService(dataFile.getPath());
+            assertEquals(123.0, reloaded.getAccount("RESTORE_123").getBalance(), 0.001);
+            reloaded.close();
+
+            List<AccountSnapshot> invalid = Arrays.asList(new AccountSnapshot("RESTORE_1", 999.0, 2_000),
+                    new AccountSnapshot("NON_ESISTE", 1.0, 2_000));
+            try {
+                service.restoreSnapshots(invalid, null);
+                fail("Un conto inesistente deve annullare il ripristino");
+            } catch (BankException e) {
+                assertEquals("Nessun saldo modificato", 1.0, service.getAccount("RESTORE_1").getBalance(), 0.001);
+            }
+        } finally {
+            service.close();
+            dataFile.delete();
+        }
+    }
+
     // PATTERN 8: COMPOSITE PATTERN
 
     /**
@@ -535,6 +1077,274 @@ public class BankServiceTest {
         }
     }
 
+    /**
+     * Test dei totali in cache: depositi, prelievi e nuovi membri si
+     * propagano ai gruppi padre
+     */
+    @Test
+    public void testCachedGroupTotals() {
+        logger.info(" TESTING TOTALI IN CACHE DEI GRUPPI ");
+
+        AccountGroup region = new AccountGroup("Regione");
+        AccountGroup branch = new AccountGroup("Filiale");
+        Account direct = AccountFactory.createAccount(AccountFactory.AccountType.CHECKING, "CACHE_001",
+                "Cliente Cache", 1000.0);
+        Account member = AccountFactory.createAccount(AccountFactory.AccountType.SAVINGS, "CACHE_002",
+                "Cliente Cache", 500.0);
+        region.addAccount(direct);
+        branch.addAccount(member);
+        region.addSubGroup(branch);
+
+        region.enableCachedTotals();
+        assertTrue("La cache si estende al sottoalbero", branch.isCachedTotalsEnabled());
+        assertEquals(1500.0, region.getTotalBalance(), 0.001);
+
+        member.deposit(250.0);
+        direct.withdraw(100.0);
+        assertEquals("Variazioni propagate al padre", 1650.0, region.getTotalBalance(), 0.001);
+        assertEquals(750.0, branch.getTotalBalance(), 0.001);
+
+        AccountGroup desk = new AccountGroup("Sportello");
+        desk.addAccount(AccountFactory.createAccount(AccountFactory.AccountType.CHECKING, "CACHE_003",
+                "Cliente Cache", 40.0));
+        branch.addSubGroup(desk);
+        assertEquals("Nuovo sottogruppo", 3, region.getTotalAccountCount());
+        assertEquals(1690.0, region.getTotalBalance(), 0.001);
+        assertEquals(Collections.singletonList(region), branch.getParentGroups());
+    }
+
+    /**
+     * Test dei totali in cache con transazioni concorrenti all'aggiunta dei
+     * conti e all'attivazione della cache: ogni variazione va contata una e
+     * una sola volta
+     */
+    @Test
+    public void testCachedGroupTotalsWithConcurrentTransactions() throws Exception {
+        logger.info(" TESTING TOTALI IN CACHE CON TRANSAZIONI CONCORRENTI ");
+
+        Logger bankLogger = Logger.getLogger("bank");
+        Level previousLevel = bankLogger.getLevel();
+        bankLogger.setLevel(Level.OFF);
+        try {
+            for (int round = 0; round < 50; round++) {
+                List<Account> members = new ArrayList<>();
+                for (int i = 0; i < 500; i++) {
+                    members.add(AccountFactory.createAccount(AccountFactory.AccountType.CHECKING,
+                            "RACE_" + round + "_" + i, "Cliente Concorrente", 1000.0));
+                }
+                java.util.concurrent.atomic.AtomicBoolean running = new java.util.concurrent.atomic.AtomicBoolean(
+                        true);
+                // Un solo thread modifica i saldi: i conti non sono pensati per scritture concorrenti
+                Thread transactions = new Thread(() -> {
+                    int i = 0;
+                    while (running.get()) {
+                        Account account = members.get(i++ % members.size());
+                        if (i % 2 == 0) {
+                            account.deposit(3.0);
+                        } else {
+                            account.withdraw(1.0);
+                        }
+                    }
+                });
+                transactions.start();
+
+                AccountGroup region = new AccountGroup("Regione Concorrente");
+                AccountGroup branch = new AccountGroup("Filiale Concorrente");
+                try {
+                    for (int i = 0; i < members.size(); i++) {
+                        if (i == members.size() / 4) {
+                            region.enableCachedTotals();
+                        }
+                        if (i == members.size() / 2) {
+                            region.addSubGroup(branch);
+                        }
+                        (i % 2 == 0 ? region : branch).addAccount(members.get(i));
+                    }
+                    region.enableCachedTotals();
+                } finally {
+                    running.set(false);
+                    transactions.join();
+                }
+
+                double expected = 0;
+                for (Account account : members) {
+                    expected += account.getBalance();
+                }
+                assertEquals("Totale in cache = ricalcolo (giro " + round + ")", expected,
+                        region.getTotalBalance(), 0.001);
+                assertEquals(members.size(), region.getTotalAccountCount());
+            }
+        } finally {
+            bankLogger.setLevel(previousLevel);
+        }
+    }
+
+    /**
+     * Test degli indici dei gruppi: appartenenza, gruppi che contengono un
+     * conto e cicli a qualsiasi profondità
+     */
+    @Test
+    public void testGroupIndexes() {
+        logger.info(" TESTING INDICI DEI GRUPPI ");
+
+        AccountGroup holding = new AccountGroup("Holding");
+        AccountGroup region = new AccountGroup("Regione Nord");
+        AccountGroup branch = new AccountGroup("Filiale Milano");
+        Account shared = AccountFactory.createAccount(AccountFactory.AccountType.CHECKING, "INDEX_001",
+                "Cliente Indice", 100.0);
+        branch.addAccount(shared);
+        branch.addAccount(shared);
+        region.addAccount(shared);
+        for (int i = 0; i < 10_000; i++) {
+            branch.addAccount(AccountFactory.createAccount(AccountFactory.AccountType.SAVINGS, "INDEX_B" + i,
+                    "Cliente Indice", 1.0));
+        }
+        assertEquals("Duplicato ignorato", 10_001, branch.getAccounts().size());
+
+        region.addSubGroup(branch);
+        holding.addSubGroup(region);
+        assertTrue(holding.containsAccount("INDEX_B9999"));
+        assertFalse(holding.containsAccount("INDEX_INESISTENTE"));
+        assertFalse("Un sottogruppo non vede i conti del padre", branch.containsAccount("NON_PRESENTE"));
+        assertEquals(Arrays.asList(branch, region), holding.getGroupsContaining("INDEX_001"));
+        assertEquals(Collections.singletonList(branch), branch.getGroupsContaining("INDEX_001"));
+
+        // Ciclo a tre livelli: la holding non può diventare sottogruppo della filiale
+        branch.addSubGroup(holding);
+        assertTrue(branch.getSubGroups().isEmpty());
+
+        assertTrue(branch.removeAccount("INDEX_001"));
+        assertEquals(Collections.singletonList(region), holding.getGroupsContaining("INDEX_001"));
+        assertFalse(branch.removeAccount("INDEX_001"));
+    }
+
+    /**
+     * Test dell'aggregazione parallela: stessi totali della visita ricorsiva,
+     * con minimo, massimo e istogramma
+     */
+    @Test
+    public void testParallelGroupAggregation() {
+        logger.info(" TESTING AGGREGAZIONE PARALLELA DEI GRUPPI ");
+
+        AccountGroup holding = new AccountGroup("Holding Analisi");
+        AccountGroup current = holding;
+        int accountId = 0;
+        for (int level = 0; level < 20; level++) {
+            AccountGroup wide = new AccountGroup("Largo_" + level);
+            for (int i = 0; i < 500; i++) {
+                wide.addAccount(AccountFactory.createAccount(AccountFactory.AccountType.CHECKING,
+                        "AGG_" + accountId, "Cliente Analisi", accountId % 1000));
+                accountId++;
+            }
+            AccountGroup deeper = new AccountGroup("Profondo_" + level);
+            current.addSubGroup(wide);
+            current.addSubGroup(deeper);
+            current = deeper;
+        }
+
+        GroupAggregate aggregate = holding.aggregateParallel(new double[] { 100.0, 500.0 }, 64);
+        assertEquals(holding.getTotalAccountCount(), aggregate.getAccountCount());
+        assertEquals(holding.getTotalBalance(), aggregate.getTotalBalance(), 0.01);
+        assertEquals(0.0, aggregate.getMinBalance(), 0.0);
+        assertEquals(999.0, aggregate.getMaxBalance(), 0.0);
+        assertArrayEquals(new long[] { 1_000, 4_000, 5_000 }, aggregate.getHistogram());
+
+        assertTrue("Gruppo vuoto", Double.isNaN(new AccountGroup("Vuoto").aggregateParallel(new double[0])
+                .getMinBalance()));
+    }
+
+    /**
+     * Test della gerarchia persistente: all'apertura si carica solo la radice,
+     * i sottogruppi al primo accesso
+     */
+    @Test
+    public void testPersistentGroupHierarchy() throws Exception {
+        logger.info(" TESTING GERARCHIA PERSISTENTE DEI GRUPPI ");
+
+        Map<String, Account> bank = new HashMap<>();
+        AccountGroup holding = new AccountGroup("Holding Persistente");
+        AccountGroup shared = new AccountGroup("Servizi Condivisi");
+        for (int region = 0; region < 3; region++) {
+            AccountGroup regionGroup = new AccountGroup("Regione_" + region);
+            for (int branch = 0; branch < 4; branch++) {
+                AccountGroup branchGroup = new AccountGroup("Filiale_" + region + "_" + branch);
+                Account account = AccountFactory.createAccount(AccountFactory.AccountType.CHECKING,
+                        "TREE_" + region + "_" + branch, "Cliente Gerarchia", 100.0);
+                bank.put(account.getAccountNumber(), account);
+                branchGroup.addAccount(account);
+                regionGroup.addSubGroup(branchGroup);
+            }
+            regionGroup.addSubGroup(shared);
+            holding.addSubGroup(regionGroup);
+        }
+        Account sharedAccount = AccountFactory.createAccount(AccountFactory.AccountType.SAVINGS, "TREE_SHARED",
+                "Cliente Gerarchia", 50.0);
+        bank.put(sharedAccount.getAccountNumber(), sharedAccount);
+        shared.addAccount(sharedAccount);
+
+        File file = File.createTempFile("bank_groups", ".dat");
+        try {
+            assertEquals("Gruppo condiviso salvato una volta", 17, GroupHierarchyStore.save(holding, file));
+
+            try (GroupHierarchyStore store = GroupHierarchyStore.open(file, bank::get)) {
+                AccountGroup root = store.getRoot();
+                assertEquals("Holding Persistente", root.getGroupName());
+                assertEquals("Radice e primo livello", 4, store.getMaterializedGroupCount());
+                AccountGroup region = root.getSubGroups().get(1);
+                assertFalse("Sottogruppo non ancora caricato", region.isLoaded());
+
+                assertEquals(5, region.getSubGroups().size());
+                assertTrue(region.isLoaded());
+                assertEquals("Solo il sottoalbero interrogato", 9, store.getMaterializedGroupCount());
+
+                assertEquals(holding.getTotalBalance(), root.getTotalBalance(), 0.001);
+                assertEquals(holding.getTotalAccountCount(), root.getTotalAccountCount());
+                assertSame("Gruppo condiviso materializzato una volta",
+                        root.getSubGroups().get(0).getSubGroups().get(4),
+                        root.getSubGroups().get(2).getSubGroups().get(4));
+                assertTrue(root.containsAccount("TREE_2_3"));
+            }
+
+            // Le ricerche per conto caricano solo il sottoalbero interrogato, fino al conto
+            try (GroupHierarchyStore store = GroupHierarchyStore.open(file, bank::get)) {
+                AccountGroup root = store.getRoot();
+                List<AccountGroup> regions = root.getSubGroups();
+                AccountGroup region = regions.get(1);
+                assertTrue(region.containsAccount("TREE_1_1"));
+                assertEquals("Radice, regioni e figli della regione interrogata", 9,
+                        store.getMaterializedGroupCount());
+                List<AccountGroup> branches = region.getSubGroups();
+                assertTrue("Filiale con il conto caricata", branches.get(1).isLoaded());
+                assertFalse("Ricerca ferma al conto trovato", branches.get(2).isLoaded());
+                assertFalse("Regione non interrogata ancora lazy", regions.get(0).isLoaded());
+                assertFalse("Regione non interrogata ancora lazy", regions.get(2).isLoaded());
+
+                assertFalse(region.containsAccount("TREE_0_0"));
+                assertEquals(Collections.singletonList(branches.get(3)), region.getGroupsContaining("TREE_1_3"));
+                assertTrue("Conto già indicizzato trovato dalla radice", root.containsAccount("TREE_1_3"));
+                assertFalse("Regioni non interrogate ancora lazy", regions.get(0).isLoaded()
+                        || regions.get(2).isLoaded());
+                assertEquals(9, store.getMaterializedGroupCount());
+            }
+
+            // Un salvataggio non riuscito non lascia il file temporaneo
+            File blocked = java.nio.file.Files.createTempDirectory("bank_groups_blocked").toFile();
+            File occupied = new File(blocked, "occupato");
+            assertTrue(occupied.createNewFile());
+            try {
+                GroupHierarchyStore.save(holding, blocked);
+                fail("Il salvataggio su una cartella non vuota deve fallire");
+            } catch (java.io.IOException expected) {
+                assertFalse("File temporaneo eliminato", new File(blocked.getPath() + ".tmp").exists());
+            } finally {
+                occupied.delete();
+                blocked.delete();
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
     // PATTERN 9: ITERATOR PATTERN
 
     /**
@@ -906,6 +1716,232 @@ public class BankServiceTest {
         }
     }
 
+    /**
+     * Test che verifica che un deposito con livello INFO disattivato non allochi
+     * memoria per il logging.
+     */
+    @Test
+    public void testDepositLoggingAllocation() {
+        logger.info(" TESTING DEPOSIT LOGGING ALLOCATION ");
+
+        Logger accountLogger = Logger.getLogger(Account.class.getName());
+        Level previousLevel = accountLogger.getLevel();
+        accountLogger.setLevel(Level.WARNING);
+
+        try {
+            Account account = AccountFactory.createAccount(AccountFactory.AccountType.SAVINGS, "ALLOC_001",
+                    "Cliente Test Allocazioni", 100.0);
+            com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory
+                    .getThreadMXBean();
+            long threadId = Thread.currentThread().getId();
+
+            // riscaldamento per far compilare il percorso al JIT
+            for (int i = 0; i < 50_000; i++) {
+                account.deposit(1.0);
+            }
+
+            long before = threadBean.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < 10_000; i++) {
+                account.deposit(1.0);
+            }
+            long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+
+            assertEquals("Un deposito con INFO disattivato non deve allocare", 0, allocated);
+            logger.info("Byte allocati per 10.000 depositi: " + allocated);
+
+        } finally {
+            accountLogger.setLevel(previousLevel);
+        }
+    }
+
+    /**
+     * Test delle metriche: percentili dell'istogramma e contatori delle
+     * transazioni aggiornati da BankService.
+     */
+    @Test
+    public void testMetricsRegistry() throws BankException {
+        logger.info(" TESTING METRICS ");
+
+        bank.metrics.LatencyHistogram histogram = new bank.metrics.MetricsRegistry().histogram("test");
+        for (long value = 1; value <= 1000; value++) {
+            histogram.record(value * 1000);
+        }
+        bank.metrics.HistogramSnapshot histogramSnapshot = histogram.snapshot();
+        assertEquals("Conteggio istogramma", 1000, histogramSnapshot.getCount());
+        assertEquals("p50 con errore massimo 1/16", 500_000, histogramSnapshot.getValueAtPercentile(50), 500_000 / 16.0);
+        assertEquals("p99 con errore massimo 1/16", 990_000, histogramSnapshot.getValueAtPercentile(99), 990_000 / 16.0);
+        assertEquals("p100 uguale al massimo", 1_000_000, histogramSnapshot.getValueAtPercentile(100));
+
+        String number = "MET" + System.nanoTime();
+        bankService.createAccount("checking", number, "Metrics", 100.0);
+
+        bank.metrics.MetricsSnapshot before = bank.metrics.BankMetrics.snapshot();
+        bankService.performTransaction(number, "deposit", 50.0);
+        try {
+            bankService.performTransaction(number, "withdraw", 10_000.0);
+            fail("Prelievo oltre lo scoperto deve fallire");
+        } catch (BankException expected) {
+            // atteso
+        }
+        bank.metrics.MetricsSnapshot after = bank.metrics.BankMetrics.snapshot();
+
+        assertEquals("Deposito riuscito conteggiato", 1, after.getCounter("transactions.deposit.success")
+                - before.getCounter("transactions.deposit.success"));
+        assertEquals("Prelievo fallito conteggiato", 1, after.getCounter("transactions.withdraw.failed")
+                - before.getCounter("transactions.withdraw.failed"));
+        assertEquals("Latenza registrata per entrambe le transazioni", 2,
+                after.getHistogram("transaction.latency").getCount()
+                        - before.getHistogram("transaction.latency").getCount());
+        assertTrue("Salvataggio misurato", after.getHistogram("persistence.save").getCount() > 0);
+
+        logger.info("Metriche:\n" + after.format());
+    }
+
+    /**
+     * Test degli eventi JFR delle transazioni: un deposito e un prelievo
+     * rifiutato producono eventi con conto, operazione, fascia di importo ed
+     * esito corretti.
+     */
+    @Test
+    public void testTransactionJfrEvents() throws Exception {
+        logger.info(" TESTING JFR EVENTS ");
+
+        String number = "JFR" + System.nanoTime();
+        bankService.createAccount("checking", number, "Jfr", 100.0);
+
+        File dump = File.createTempFile("bank_transactions", ".jfr");
+        List<jdk.jfr.consumer.RecordedEvent> events = new ArrayList<>();
+        try (jdk.jfr.Recording recording = new jdk.jfr.Recording()) {
+            recording.enable("bank.Transaction").withoutThreshold();
+            recording.start();
+            bankService.performTransaction(number, "deposit", 50.0);
+            assertEquals("Prelievo oltre lo scoperto rifiutato", BankService.TRANSACTION_DECLINED,
+                    bankService.tryPerformTransaction(number, "withdraw", 5_000.0));
+            recording.stop();
+            recording.dump(dump.toPath());
+
+            for (jdk.jfr.consumer.RecordedEvent event : jdk.jfr.consumer.RecordingFile.readAllEvents(dump.toPath())) {
+                if ("bank.Transaction".equals(event.getEventType().getName())
+                        && number.equals(event.getString("accountNumber"))) {
+                    events.add(event);
+                }
+            }
+        } finally {
+            dump.delete();
+        }
+
+        assertEquals("Un evento per transazione", 2, events.size());
+        events.sort((a, b) -> a.getStartTime().compareTo(b.getStartTime()));
+
+        jdk.jfr.consumer.RecordedEvent deposit = events.get(0);
+        assertEquals("deposit", deposit.getString("operation"));
+        assertEquals("Fascia dell'importo depositato", "10-100", deposit.getString("amountBucket"));
+        assertEquals(bank.metrics.TransactionJfrEvent.OUTCOME_SUCCESS, deposit.getString("outcome"));
+
+        jdk.jfr.consumer.RecordedEvent withdraw = events.get(1);
+        assertEquals("withdraw", withdraw.getString("operation"));
+        assertEquals("Fascia dell'importo prelevato", "1k-10k", withdraw.getString("amountBucket"));
+        assertEquals(bank.metrics.TransactionJfrEvent.OUTCOME_FAILED, withdraw.getString("outcome"));
+    }
+
+    /**
+     * Test del comando stats: il report riporta i tassi delle transazioni, le
+     * code (salvataggi e log asincrono) e il tasso di successo delle cache.
+     */
+    @Test
+    public void testStatsReporter() throws Exception {
+        logger.info(" TESTING STATS REPORTER ");
+
+        File dataFile = File.createTempFile("bank_stats", ".txt");
+        dataFile.delete();
+
+        BankService service = new BankService(dataFile.getPath());
+        try {
+            service.enableWriteBehind(60_000);
+            StatsReporter reporter = new StatsReporter(service);
+            service.createAccount("checking", "STATS001", "Stats", 100.0);
+            for (int i = 0; i < 3; i++) {
+                service.performTransaction("STATS001", "deposit", 10.0);
+            }
+
+            String report = reporter.report();
+            assertTrue("Tassi delle transazioni", report.matches("(?s).*Transazioni: \\d+ totali, [\\d.,]+/s ultimo"
+                    + " intervallo, [\\d.,]+/s media.*"));
+            assertTrue("Contatore dei depositi", report.contains("transactions.deposit.success"));
+            assertTrue("Coda dei salvataggi", report.contains("Coda salvataggi: 4 modifiche in attesa"));
+            assertTrue("Coda del log asincrono", report.contains("Coda log asincrono: 0 record (0 scartati)"));
+            assertTrue("Tasso di successo della cache dei backup",
+                    report.matches("(?s).*Cache:\\n(.*\\n)?  backup\\s+[\\d.,]+% \\(\\d+/\\d+\\).*"));
+            assertTrue("Conti registrati", report.contains("Conti: 1"));
+        } finally {
+            service.close();
+            dataFile.delete();
+        }
+    }
+
+    /**
+     * Test del salvataggio differito: le modifiche restano in attesa finché il
+     * thread in background (o close) non riscrive il file dati.
+     */
+    @Test
+    public void testWriteBehindPersistence() throws Exception {
+        logger.info(" TESTING WRITE-BEHIND ");
+
+        File dataFile = File.createTempFile("bank_write_behind", ".txt");
+        dataFile.delete();
+
+        BankService service = new BankService(dataFile.getPath());
+        try {
+            service.enableWriteBehind(60_000);
+            service.createAccount("checking", "WB001", "Write Behind", 100.0);
+            service.performTransaction("WB001", "deposit", 50.0);
+
+            assertEquals("Due modifiche in attesa", 2, service.getPendingWrites());
+            assertFalse("Nessun salvataggio prima del flush", dataFile.exists());
+
+            service.close();
+            assertEquals("Nessuna modifica in attesa dopo close", 0, service.getPendingWrites());
+
+            BankService reloaded = new BankService(dataFile.getPath());
+            assertEquals("Saldo salvato alla chiusura", 150.0, reloaded.getAccount("WB001").getBalance(), 0.001);
+        } finally {
+            service.close();
+            dataFile.delete();
+        }
+    }
+
+    /**
+     * Test dell'opzione --async-log: il logging asincrono viene attivato e i
+     * record finiscono nel file della cartella indicata.
+     */
+    @Test
+    public void testAsyncLogOption() throws Exception {
+        logger.info(" TESTING ASYNC LOG OPTION ");
+
+        File logDir = java.nio.file.Files.createTempDirectory("bank_async_log").toFile();
+        try {
+            File changeLogDir = BankApplication.applyStartupOptions(
+                    new String[] { "--async-log", logDir.getPath(), "--cdc", "cdc_dir" });
+            assertTrue("Logging asincrono attivo", bank.logging.BankLogging.isAsyncMode());
+            assertEquals("Cartella del change log restituita", "cdc_dir", changeLogDir.getPath());
+
+            String marker = "ASYNC_OPTION_" + System.nanoTime();
+            Logger.getLogger("bank.test").warning(marker);
+            bank.logging.BankLogging.flush();
+
+            String content = new String(java.nio.file.Files.readAllBytes(new File(logDir, "bank.log").toPath()),
+                    java.nio.charset.StandardCharsets.UTF_8);
+            assertTrue("Record scritto nel file di log", content.contains(marker));
+        } finally {
+            bank.logging.BankLogging.disableAsyncMode();
+            for (File file : logDir.listFiles()) {
+                file.delete();
+            }
+            logDir.delete();
+        }
+        assertFalse("Logging asincrono disattivato", bank.logging.BankLogging.isAsyncMode());
+    }
+
     /**
      * Cleanup eseguito dopo ogni test per rilasciare risorse.
      */
@@ -0,0 +1,195 @@
+package bank;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jdk.jfr.Recording;
+
+import bank.account.*;
+import bank.singletonPattern.*;
+
+/**
+ * Test di regressione sulle allocazioni del percorso delle transazioni.
+ *
+ * Misura i byte allocati dal thread corrente attorno a
+ * BankService.tryPerformTransaction, Account.deposit e Account.withdraw a
+ * regime (log spenti, modalità headless, salvataggio differito) e fallisce se
+ * si supera il budget per chiamata: messaggi di log costruiti comunque,
+ * String.format nell'observer o eccezioni sui rifiuti farebbero fallire il test.
+ * Uno dei casi misura dopo una registrazione JFR già chiusa, così il risultato
+ * non dipende dall'ordine dei test nella stessa JVM.
+ */
+public class TransactionAllocationTest {
+
+    /** Byte allocati concessi per chiamata, a regime */
+    private static final double BYTES_PER_CALL_BUDGET = 1.0;
+
+    /** Chiamate per ogni misura */
+    private static final int CALLS_PER_ROUND = 50_000;
+
+    /** Misure ripetute al massimo per dare tempo al JIT di compilare il percorso */
+    private static final int MAX_ROUNDS = 20;
+
+    /** Logger padre di tutte le classi del sistema */
+    private static final Logger bankLogger = Logger.getLogger("bank");
+
+    /** Bean per leggere i byte allocati dal thread */
+    private static final com.sun.management.ThreadMXBean threadBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /** Livello originale del logger, ripristinato alla fine */
+    private Level previousLevel;
+
+    /** File dati temporaneo */
+    private File dataFile;
+
+    /** Servizio sotto misura */
+    private BankService bankService;
+
+    /** Conto usato dalle transazioni */
+    private Account account;
+
+    @Before
+    public void setUp() throws Exception {
+        assumeAllocationCounting();
+
+        previousLevel = bankLogger.getLevel();
+        bankLogger.setLevel(Level.OFF);
+        BankConfiguration.getInstance().setHeadlessMode(true);
+
+        dataFile = File.createTempFile("bank_alloc", ".txt");
+        dataFile.delete();
+        bankService = new BankService(dataFile.getPath());
+        // Senza salvataggio differito ogni transazione riscriverebbe il file
+        bankService.enableWriteBehind(3_600_000);
+        bankService.createAccount("checking", "ALLOC001", "Allocation Test", 1_000.0);
+        account = bankService.getAccount("ALLOC001");
+    }
+
+    @After
+    public void tearDown() {
+        if (bankService != null) {
+            bankService.close();
+        }
+        if (dataFile != null) {
+            dataFile.delete();
+        }
+        BankConfiguration.getInstance().setHeadlessMode(false);
+        bankLogger.setLevel(previousLevel);
+    }
+
+    /**
+     * Deposito e prelievo riusciti tramite il servizio
+     */
+    @Test
+    public void testTransactionSuccessDoesNotAllocate() {
+        double bytesPerCall = steadyStateBytesPerCall(() -> {
+            bankService.tryPerformTransaction("ALLOC001", "deposit", 1.0);
+            bankService.tryPerformTransaction("ALLOC001", "withdraw", 1.0);
+        }, 2);
+
+        assertBudget("tryPerformTransaction riuscita", bytesPerCall);
+    }
+
+    /**
+     * Prelievo rifiutato per fondi insufficienti: nessuna eccezione, nessun
+     * messaggio
+     */
+    @Test
+    public void testTransactionDeclineDoesNotAllocate() {
+        assertEquals("Prelievo oltre lo scoperto rifiutato", BankService.TRANSACTION_DECLINED,
+                bankService.tryPerformTransaction("ALLOC001", "withdraw", 1_000_000.0));
+
+        double bytesPerCall = steadyStateBytesPerCall(
+                () -> bankService.tryPerformTransaction("ALLOC001", "withdraw", 1_000_000.0), 1);
+
+        assertBudget("tryPerformTransaction rifiutata", bytesPerCall);
+    }
+
+    /**
+     * Conto inesistente: il rifiuto è un codice, non una BankException
+     */
+    @Test
+    public void testUnknownAccountDoesNotAllocate() {
+        double bytesPerCall = steadyStateBytesPerCall(
+                () -> bankService.tryPerformTransaction("MISSING", "deposit", 1.0), 1);
+
+        assertBudget("tryPerformTransaction su conto inesistente", bytesPerCall);
+    }
+
+    /**
+     * Operazioni dirette sul conto
+     */
+    @Test
+    public void testAccountDepositWithdrawDoNotAllocate() {
+        double bytesPerCall = steadyStateBytesPerCall(() -> {
+            account.deposit(1.0);
+            account.withdraw(1.0);
+        }, 2);
+
+        assertBudget("Account.deposit/withdraw", bytesPerCall);
+    }
+
+    /**
+     * Dopo una registrazione JFR chiusa la classe dell'evento resta strumentata:
+     * le transazioni non devono comunque creare eventi
+     */
+    @Test
+    public void testTransactionAfterJfrRecordingDoesNotAllocate() {
+        try (Recording recording = new Recording()) {
+            recording.enable("bank.Transaction").withoutThreshold();
+            recording.start();
+            bankService.tryPerformTransaction("ALLOC001", "deposit", 1.0);
+            bankService.tryPerformTransaction("ALLOC001", "withdraw", 1.0);
+            recording.stop();
+        }
+
+        double bytesPerCall = steadyStateBytesPerCall(() -> {
+            bankService.tryPerformTransaction("ALLOC001", "deposit", 1.0);
+            bankService.tryPerformTransaction("ALLOC001", "withdraw", 1.0);
+        }, 2);
+
+        assertBudget("tryPerformTransaction dopo una registrazione JFR", bytesPerCall);
+    }
+
+    /**
+     * Ripete la misura finché il percorso non è compilato e restituisce il
+     * valore minimo osservato (byte per chiamata).
+     */
+    private static double steadyStateBytesPerCall(Runnable operation, int callsPerRun) {
+        Thread thread = Thread.currentThread();
+        double best = Double.MAX_VALUE;
+
+        for (int round = 0; round < MAX_ROUNDS && best > 0; round++) {
+            long before = threadBean.getThreadAllocatedBytes(thread.getId());
+            for (int i = 0; i < CALLS_PER_ROUND; i++) {
+                operation.run();
+            }
+            long allocated = threadBean.getThreadAllocatedBytes(thread.getId()) - before;
+            best = Math.min(best, (double) allocated / (CALLS_PER_ROUND * callsPerRun));
+        }
+        return best;
+    }
+
+    /**
+     * Verifica il budget di allocazione
+     */
+    private static void assertBudget(String path, double bytesPerCall) {
+        Logger.getLogger(TransactionAllocationTest.class.getName())
+                .info(path + ": " + bytesPerCall + " byte per chiamata");
+        assertTrue(path + " alloca " + bytesPerCall + " byte per chiamata (budget " + BYTES_PER_CALL_BUDGET
+                + ")", bytesPerCall <= BYTES_PER_CALL_BUDGET);
+    }
+
+    /**
+     * Salta i test se la JVM non misura le allocazioni per thread
+     */
+    private static void assumeAllocationCounting() {
+        Assume.assumeTrue("Misura delle allocazioni per thread non disponibile",
+                threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+    }
+}
@@ -0,0 +1,140 @@
+package bank.logging;
+
+import org.junit.*;
+import static org.junit.Assert.*;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Test del logging asincrono: scrittura dei record rimasti in coda alla
+ * chiusura e rotazione del file di log per dimensione.
+ */
+public class AsyncLogHandlerTest {
+
+    /** Cartella temporanea dei file di log */
+    private File logDir;
+
+    @Before
+    public void setUp() throws IOException {
+        logDir = Files.createTempDirectory("bank_async_log").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        deleteRecursively(logDir);
+    }
+
+    /**
+     * I record ancora in coda vengono scritti quando l'handler viene chiuso
+     */
+    @Test
+    public void testRecordsFlushedOnClose() throws IOException {
+        AsyncLogHandler handler = new AsyncLogHandler(logDir, "flush", 1024 * 1024, 2, 1024, 16);
+        Logger testLogger = Logger.getLogger("bank.logging.test.flush");
+        testLogger.setUseParentHandlers(false);
+        testLogger.addHandler(handler);
+        try {
+            for (int i = 0; i < 200; i++) {
+                testLogger.log(Level.INFO, "record-" + i);
+            }
+            handler.publishNotification("notifica finale");
+        } finally {
+            testLogger.removeHandler(handler);
+            handler.close();
+        }
+
+        String content = read(new File(logDir, "flush.log"));
+        for (int i = 0; i < 200; i++) {
+            assertTrue("Record " + i + " scritto alla chiusura",
+                    content.contains("record-" + i + System.lineSeparator()));
+        }
+        assertTrue("Notifica scritta nello stesso file", content.contains("notifica finale"));
+        assertTrue("Origine del record = nome del logger", content.contains("bank.logging.test.flush"));
+        assertEquals("Coda vuota dopo la chiusura", 0, handler.getQueueDepth());
+        assertEquals("Nessun record scartato", 0, handler.getDroppedCount());
+    }
+
+    /**
+     * Il file ruota quando la scrittura supererebbe la dimensione massima e si
+     * conservano al massimo maxFiles file
+     */
+    @Test
+    public void testRotationAtSizeLimit() throws IOException {
+        RotatingLogFile file = new RotatingLogFile(logDir, "rot", 100, 3);
+        try {
+            for (int i = 0; i < 40; i++) {
+                file.write("riga-" + (i < 10 ? "0" + i : "" + i) + "\n");
+            }
+        } finally {
+            file.close();
+        }
+
+        File current = new File(logDir, "rot.log");
+        File first = new File(logDir, "rot.log.1");
+        File second = new File(logDir, "rot.log.2");
+        assertTrue("File corrente presente", current.exists());
+        assertTrue("Prima rotazione presente", first.exists());
+        assertTrue("Seconda rotazione presente", second.exists());
+        assertFalse("Non più di 3 file conservati", new File(logDir, "rot.log.3").exists());
+
+        // 8 byte per riga: 12 righe per file (96 byte), la tredicesima ruota
+        assertEquals("File ruotato pieno fino al limite", 96, first.length());
+        assertTrue("File corrente entro il limite", current.length() <= 100);
+        assertTrue("Ultima riga nel file corrente", read(current).endsWith("riga-39\n"));
+        assertTrue("Righe precedenti nel file ruotato", read(first).startsWith("riga-24\n"));
+    }
+
+    /**
+     * Se la rotazione fallisce il file resta utilizzabile e le righe non si
+     * perdono
+     */
+    @Test
+    public void testFailedRotationKeepsWriting() throws IOException {
+        // Una cartella non vuota al posto del file più vecchio impedisce la rotazione
+        File blocker = new File(logDir, "fail.log.1");
+        assertTrue(blocker.mkdir());
+        assertTrue(new File(blocker, "occupato").createNewFile());
+
+        RotatingLogFile file = new RotatingLogFile(logDir, "fail", 12, 2);
+        try {
+            file.write("12345678\n");
+            try {
+                file.write("abcdefgh\n");
+                fail("La rotazione non riuscita deve essere segnalata");
+            } catch (IOException expected) {
+                // atteso
+            }
+            // Dopo l'errore si ritenta solo oltre altri 12 byte
+            file.write("ok\n");
+        } finally {
+            file.close();
+        }
+
+        assertEquals("Tutte le righe scritte nel file corrente", "12345678\nabcdefgh\nok\n",
+                read(new File(logDir, "fail.log")));
+    }
+
+    /**
+     * Legge un file di log come testo
+     */
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Elimina una cartella con il suo contenuto
+     */
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+}